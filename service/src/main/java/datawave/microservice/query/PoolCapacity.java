@@ -0,0 +1,96 @@
+package datawave.microservice.query;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import datawave.microservice.query.config.QueryProperties;
+import datawave.microservice.query.executor.status.cache.ExecutorPoolStatus;
+
+/**
+ * The query capacity of a query pool for a single connection pool, as reported by the executors in that pool.
+ * <p>
+ * This is shared by the pool health endpoints and query admission control, so that both agree on which executors are active and how many queries the pool
+ * can run.
+ */
+public class PoolCapacity {
+    private final Set<String> activeExecutors;
+    private final Set<String> inactiveExecutors;
+    private final Integer maxQueriesPerExecutor;
+    private final int runningQueries;
+    
+    private PoolCapacity(Set<String> activeExecutors, Set<String> inactiveExecutors, Integer maxQueriesPerExecutor, int runningQueries) {
+        this.activeExecutors = Collections.unmodifiableSet(activeExecutors);
+        this.inactiveExecutors = Collections.unmodifiableSet(inactiveExecutors);
+        this.maxQueriesPerExecutor = maxQueriesPerExecutor;
+        this.runningQueries = runningQueries;
+    }
+    
+    /**
+     * Computes the capacity of a query pool for a connection pool.
+     *
+     * @param poolStatus
+     *            the executor status for the query pool, not null
+     * @param poolLimits
+     *            the limits for the query pool, not null
+     * @param connectionPool
+     *            the connection pool, not null
+     * @param currentTimeMillis
+     *            the current time, used to decide which executors are still alive
+     * @return the pool capacity
+     */
+    public static PoolCapacity of(ExecutorPoolStatus poolStatus, QueryProperties.PoolProperties poolLimits, String connectionPool, long currentTimeMillis) {
+        Set<String> activeExecutors = new LinkedHashSet<>();
+        Set<String> inactiveExecutors = new LinkedHashSet<>();
+        for (Map.Entry<String,Long> entry : poolStatus.getExecutorHeartbeat().entrySet()) {
+            if ((currentTimeMillis - entry.getValue()) > poolLimits.getLivenessTimeoutMillis()) {
+                inactiveExecutors.add(entry.getKey());
+            } else {
+                activeExecutors.add(entry.getKey());
+            }
+        }
+        
+        Integer runningQueries = poolStatus.getQueryCountByConnectionPool().get(connectionPool);
+        return new PoolCapacity(activeExecutors, inactiveExecutors, poolLimits.getMaxQueriesPerExecutor().get(connectionPool),
+                        (runningQueries != null) ? runningQueries : 0);
+    }
+    
+    public Set<String> getActiveExecutors() {
+        return activeExecutors;
+    }
+    
+    public Set<String> getInactiveExecutors() {
+        return inactiveExecutors;
+    }
+    
+    /**
+     * Whether a per-executor query limit is configured for the connection pool.
+     *
+     * @return true if the connection pool has a limit
+     */
+    public boolean isLimited() {
+        return maxQueriesPerExecutor != null;
+    }
+    
+    public int getMaxQueriesPerExecutor() {
+        return (maxQueriesPerExecutor != null) ? maxQueriesPerExecutor : 0;
+    }
+    
+    public int getMaxQueries() {
+        return getMaxQueriesPerExecutor() * activeExecutors.size();
+    }
+    
+    public int getRunningQueries() {
+        return runningQueries;
+    }
+    
+    /**
+     * Whether the active executors are running fewer queries than they allow.
+     *
+     * @return true if there is room for more queries
+     */
+    public boolean isHealthy() {
+        return runningQueries < getMaxQueries();
+    }
+}
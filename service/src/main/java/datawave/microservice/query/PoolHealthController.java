@@ -1,8 +1,6 @@
 package datawave.microservice.query;
 
 import java.util.Collections;
-import java.util.LinkedHashSet;
-import java.util.Map;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -74,37 +72,20 @@ public class PoolHealthController {
             
             if (poolStatus != null) {
                 QueryProperties.PoolProperties poolLimits = queryProperties.getPoolLimits().get(poolName);
+                PoolCapacity poolCapacity = PoolCapacity.of(poolStatus, poolLimits, connectionPool, System.currentTimeMillis());
                 
-                Set<String> activeExecutors = new LinkedHashSet<>();
-                Set<String> inactiveExecutors = new LinkedHashSet<>();
-                long currentTime = System.currentTimeMillis();
-                for (Map.Entry<String,Long> entry : poolStatus.getExecutorHeartbeat().entrySet()) {
-                    if ((currentTime - entry.getValue()) > poolLimits.getLivenessTimeoutMillis()) {
-                        inactiveExecutors.add(entry.getKey());
-                    } else {
-                        activeExecutors.add(entry.getKey());
-                    }
-                }
-                
-                int maxQueriesPerExecutor = poolLimits.getMaxQueriesPerExecutor().get(connectionPool);
-                int maxQueries = maxQueriesPerExecutor * activeExecutors.size();
-                Integer runningQueries = poolStatus.getQueryCountByConnectionPool().get(connectionPool);
-                if (runningQueries == null) {
-                    runningQueries = 0;
-                }
-                
-                poolHealth.setHealthy(runningQueries < maxQueries);
+                poolHealth.setHealthy(poolCapacity.isHealthy());
                 
                 // set the extended info
                 if (poolHealth instanceof ExtendedPoolHealth) {
                     ExtendedPoolHealth extendedPoolHealth = (ExtendedPoolHealth) poolHealth;
-                    extendedPoolHealth.setMaxQueriesPerExecutor(maxQueriesPerExecutor);
-                    extendedPoolHealth.setMaxQueries(maxQueries);
-                    extendedPoolHealth.setRunningQueries(runningQueries);
+                    extendedPoolHealth.setMaxQueriesPerExecutor(poolCapacity.getMaxQueriesPerExecutor());
+                    extendedPoolHealth.setMaxQueries(poolCapacity.getMaxQueries());
+                    extendedPoolHealth.setRunningQueries(poolCapacity.getRunningQueries());
                 }
                 
                 // remove the inactive executors and update the cache
-                poolStatus.getExecutorHeartbeat().keySet().removeAll(inactiveExecutors);
+                poolStatus.getExecutorHeartbeat().keySet().removeAll(poolCapacity.getInactiveExecutors());
                 executorStatusCache.update(poolName, poolStatus);
             } else {
                 // if the pool isn't found, trigger a 400 response
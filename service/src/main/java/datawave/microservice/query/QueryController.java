@@ -22,9 +22,13 @@ import static datawave.microservice.query.translateid.TranslateIdService.TRANSLA
 import static datawave.query.QueryParameters.QUERY_SYNTAX;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -33,18 +37,22 @@ import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import com.codahale.metrics.annotation.Timed;
 
 import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.batch.BatchCreateResponse;
 import datawave.microservice.query.config.QueryProperties;
 import datawave.microservice.query.lookup.LookupService;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
 import datawave.microservice.query.stream.StreamingProperties;
 import datawave.microservice.query.stream.StreamingService;
 import datawave.microservice.query.stream.listener.CountingResponseBodyEmitterListener;
@@ -83,6 +91,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @RequestMapping(path = "/v1/query", produces = MediaType.APPLICATION_JSON_VALUE)
 public class QueryController {
     private final QueryProperties queryProperties;
+    private final NextCallRunnerProperties nextCallRunnerProperties;
     private final QueryManagementService queryManagementService;
     private final LookupService lookupService;
     private final StreamingService streamingService;
@@ -99,13 +108,15 @@ public class QueryController {
     // Note: querySessionIdContext needs to be request scoped
     private final QuerySessionIdAdvice.QuerySessionIdContext querySessionIdContext;
     
-    public QueryController(QueryProperties queryProperties, QueryManagementService queryManagementService, LookupService lookupService,
-                    StreamingService streamingService, TranslateIdService translateIdService, StreamingProperties streamingProperties,
+    public QueryController(QueryProperties queryProperties, NextCallRunnerProperties nextCallRunnerProperties,
+                    QueryManagementService queryManagementService, LookupService lookupService, StreamingService streamingService,
+                    TranslateIdService translateIdService, StreamingProperties streamingProperties,
                     @Qualifier("serverUserDetailsSupplier") Supplier<DatawaveUserDetails> serverUserDetailsSupplier,
                     BaseMethodStatsFilter.BaseMethodStatsContext baseMethodStatsContext,
                     QueryMetricsEnrichmentFilterAdvice.QueryMetricsEnrichmentContext queryMetricsEnrichmentContext,
                     QuerySessionIdAdvice.QuerySessionIdContext querySessionIdContext) {
         this.queryProperties = queryProperties;
+        this.nextCallRunnerProperties = nextCallRunnerProperties;
         this.queryManagementService = queryManagementService;
         this.lookupService = lookupService;
         this.streamingService = streamingService;
@@ -254,12 +265,19 @@ public class QueryController {
     
     // @see QueryManagementService#listQueryLogic(DatawaveUserDetails)
     @Operation(summary = "Gets a list of descriptions for the configured query logics, sorted by query logic name.",
-                    description = "The descriptions include things like the audit type, optional and required parameters, required roles, and response class.")
+                    description = "The descriptions include things like the audit type, optional and required parameters, required roles, and response class.<br>"
+                                    + "The response includes an ETag, which can be sent back in an If-None-Match header to receive a 304 (Not Modified) if "
+                                    + "the descriptions have not changed.")
     @Timed(name = "dw.query.listQueryLogic", absolute = true)
     @RequestMapping(path = "listQueryLogic", method = {RequestMethod.GET},
                     produces = {"application/xml", "text/xml", "application/json", "text/yaml", "text/x-yaml", "application/x-yaml", "text/html"})
-    public QueryLogicResponse listQueryLogic(@AuthenticationPrincipal DatawaveUserDetails currentUser) {
-        return queryManagementService.listQueryLogic(currentUser);
+    public ResponseEntity<QueryLogicResponse> listQueryLogic(@AuthenticationPrincipal DatawaveUserDetails currentUser) {
+        // the etag is read first so that it never describes a newer catalog than the response body
+        String eTag = queryManagementService.getQueryLogicETag();
+        QueryLogicResponse response = queryManagementService.listQueryLogic(currentUser);
+        
+        // conditional requests with a matching If-None-Match header will receive a 304 with no body
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(response);
     }
     
     // @see QueryManagementService#create(String, MultiValueMap, String, DatawaveUserDetails)
@@ -395,23 +413,459 @@ public class QueryController {
     public GenericResponse<String> create(@Parameter(description = "The query logic", example = "EventQuery") @PathVariable String queryLogic,
                     @Parameter(hidden = true) @RequestParam MultiValueMap<String,String> parameters, @RequestHeader HttpHeaders headers,
                     @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
-        GenericResponse<String> response = queryManagementService.create(queryLogic, parameters, getPool(headers), currentUser);
-        querySessionIdContext.setQueryId(response.getResult());
-        return response;
+        GenericResponse<String> response = queryManagementService.create(queryLogic, parameters, getPool(headers), currentUser);
+        querySessionIdContext.setQueryId(response.getResult());
+        return response;
+    }
+    
+    // @see QueryManagementService#createAsync(String, MultiValueMap, String, DatawaveUserDetails)
+    // @formatter:off
+    @Operation(
+            summary = "Asynchronously creates a query using the given query logic and parameters.",
+            description = "The request thread is released while waiting on the response from the executor service.<br>" +
+                    "Created queries will start running immediately.<br>" +
+                    "Auditing is performed before the query is started.<br>" +
+                    "Query results can be retrieved using <strong>next</strong>.<br>" +
+                    "Updates can be made to any parameter which doesn't affect the scope of the query using <strong>update</strong>.<br>" +
+                    "Stop a running query gracefully using <strong>close</strong> or forcefully using <strong>cancel</strong>.<br>" +
+                    "Stop, and restart a running query using <strong>reset</strong>.<br>" +
+                    "Create a copy of a running query using <strong>duplicate</strong>.<br>" +
+                    "Aside from a limited set of admin actions, only the query owner can act on a running query.")
+    @ApiResponses({
+            @ApiResponse(
+                    description = "if successful, returns a generic response containing the query id",
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = GenericResponse.class)),
+                    headers = {
+                            @Header(
+                                    name = "Pool",
+                                    description = "the executor pool to target",
+                                    schema = @Schema(defaultValue = "default"))}),
+            @ApiResponse(
+                    description = "if parameter validation fails<br>" +
+                            "if query logic parameter validation fails<br>" +
+                            "if security marking validation fails<br>" +
+                            "if auditing fails",
+                    responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if the user doesn't have access to the requested query logic",
+                    responseCode = "401",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if query storage fails<br>" +
+                            "if there is an unknown error",
+                    responseCode = "500",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class)))})
+    @Parameters({
+            @Parameter(
+                    name = QUERY_BEGIN,
+                    in = ParameterIn.QUERY,
+                    description = "The query begin date",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "\"19660908 000000.000\""),
+            @Parameter(
+                    name = QUERY_END,
+                    in = ParameterIn.QUERY,
+                    description = "The query end date",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "\"20161002 235959.999\""),
+            @Parameter(
+                    name = QUERY_NAME,
+                    in = ParameterIn.QUERY,
+                    description = "The query name",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "Developer Test Query"),
+            @Parameter(
+                    name = QUERY_STRING,
+                    in = ParameterIn.QUERY,
+                    description = "The query string",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "GENRES:[Action to Western]"),
+            @Parameter(
+                    name = QUERY_AUTHORIZATIONS,
+                    in = ParameterIn.QUERY,
+                    description = "The query auths",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "PUBLIC,PRIVATE,BAR,FOO"),
+            @Parameter(
+                    name = QUERY_VISIBILITY,
+                    in = ParameterIn.QUERY,
+                    description = "The visibility to use when storing metrics for this query",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "PUBLIC"),
+            @Parameter(
+                    name = QUERY_SYNTAX,
+                    in = ParameterIn.QUERY,
+                    description = "The syntax used in the query",
+                    schema = @Schema(implementation = String.class),
+                    example = "LUCENE"),
+            @Parameter(
+                    name = QUERY_MAX_CONCURRENT_TASKS,
+                    in = ParameterIn.QUERY,
+                    description = "The max number of concurrent tasks to run for this query",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "10"),
+            @Parameter(
+                    name = QUERY_POOL,
+                    in = ParameterIn.QUERY,
+                    description = "The executor pool to run against",
+                    schema = @Schema(implementation = String.class),
+                    example = "pool1"),
+            @Parameter(
+                    name = QUERY_PAGESIZE,
+                    in = ParameterIn.QUERY,
+                    description = "The requested page size",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "10"),
+            @Parameter(
+                    name = QUERY_PAGETIMEOUT,
+                    in = ParameterIn.QUERY,
+                    description = "The call timeout when requesting a page, in minutes",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "60"),
+            @Parameter(
+                    name = QUERY_MAX_RESULTS_OVERRIDE,
+                    in = ParameterIn.QUERY,
+                    description = "The max results override value",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "5000"),
+            @Parameter(
+                    name = QUERY_PARAMS,
+                    in = ParameterIn.QUERY,
+                    description = "Additional query parameters",
+                    schema = @Schema(implementation = String.class),
+                    example = "KEY_1:VALUE_1;KEY_2:VALUE_2")
+    })
+    // @formatter:on
+    @Timed(name = "dw.query.async.createQuery", absolute = true)
+    @GenerateQuerySessionId(cookieBasePath = "/query/v1/query/")
+    @EnrichQueryMetrics(methodType = EnrichQueryMetrics.MethodType.CREATE)
+    @RequestMapping(path = "{queryLogic}/async/create", method = {RequestMethod.POST}, produces = {"application/xml", "text/xml", "application/json",
+            "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf", "application/x-protostuff"})
+    public DeferredResult<GenericResponse<String>> createAsync(
+                    @Parameter(description = "The query logic", example = "EventQuery") @PathVariable String queryLogic,
+                    @Parameter(hidden = true) @RequestParam MultiValueMap<String,String> parameters, @RequestHeader HttpHeaders headers,
+                    @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
+        return createDeferredResult(queryManagementService.createAsync(queryLogic, parameters, getPool(headers), currentUser),
+                        nextCallRunnerProperties.getAsyncCreateTimeoutMillis());
+    }
+    
+    // @see QueryManagementService#plan(String, MultiValueMap, String, DatawaveUserDetails)
+    // @formatter:off
+    @Operation(
+            summary = "Generates a query plan using the given query logic and parameters.",
+            description = "Created queries will begin planning immediately.<br>" +
+                    "Auditing is performed if we are expanding indices.<br>" +
+                    "Query plan will be returned in the response.<br>" +
+                    "Updates can be made to any parameter which doesn't affect the scope of the query using <strong>update</strong>.<br>" +
+                    "Stop a running query gracefully using <strong>close</strong> or forcefully using <strong>cancel</strong>.<br>" +
+                    "Stop, and restart a running query using <strong>reset</strong>.<br>" +
+                    "Create a copy of a running query using <strong>duplicate</strong>.<br>" +
+                    "Aside from a limited set of admin actions, only the query owner can act on a running query.")
+    @ApiResponses({
+            @ApiResponse(
+                    description = "if successful, returns a generic response containing the query plan",
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = GenericResponse.class)),
+                    headers = {
+                            @Header(
+                                    name = "Pool",
+                                    description = "the executor pool to target",
+                                    schema = @Schema(defaultValue = "default"))}),
+            @ApiResponse(
+                    description = "if parameter validation fails<br>" +
+                            "if query logic parameter validation fails<br>" +
+                            "if security marking validation fails<br>" +
+                            "if auditing fails",
+                    responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if the user doesn't have access to the requested query logic",
+                    responseCode = "401",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if query storage fails<br>" +
+                            "if there is an unknown error",
+                    responseCode = "500",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class)))})
+    @Parameters({
+            @Parameter(
+                    name = QUERY_BEGIN,
+                    in = ParameterIn.QUERY,
+                    description = "The query begin date",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "\"19660908 000000.000\""),
+            @Parameter(
+                    name = QUERY_END,
+                    in = ParameterIn.QUERY,
+                    description = "The query end date",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "\"20161002 235959.999\""),
+            @Parameter(
+                    name = QUERY_NAME,
+                    in = ParameterIn.QUERY,
+                    description = "The query name",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "Developer Test Query"),
+            @Parameter(
+                    name = QUERY_STRING,
+                    in = ParameterIn.QUERY,
+                    description = "The query string",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "GENRES:[Action to Western]"),
+            @Parameter(
+                    name = QUERY_AUTHORIZATIONS,
+                    in = ParameterIn.QUERY,
+                    description = "The query auths",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "PUBLIC,PRIVATE,BAR,FOO"),
+            @Parameter(
+                    name = QUERY_VISIBILITY,
+                    in = ParameterIn.QUERY,
+                    description = "The visibility to use when storing metrics for this query",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "PUBLIC"),
+            @Parameter(
+                    name = QUERY_PLAN_EXPAND_FIELDS,
+                    in = ParameterIn.QUERY,
+                    description = "Whether to expand unfielded terms",
+                    schema = @Schema(implementation = Boolean.class),
+                    example = "true"
+            ),
+            @Parameter(
+                    name = QUERY_PLAN_EXPAND_VALUES,
+                    in = ParameterIn.QUERY,
+                    description = "Whether to expand regex and/or ranges into discrete values<br>" +
+                            "If 'true', auditing will be performed",
+                    schema = @Schema(implementation = Boolean.class),
+                    example = "true"
+            ),
+            @Parameter(
+                    name = QUERY_SYNTAX,
+                    in = ParameterIn.QUERY,
+                    description = "The syntax used in the query",
+                    schema = @Schema(implementation = String.class),
+                    example = "LUCENE"),
+            @Parameter(
+                    name = QUERY_MAX_CONCURRENT_TASKS,
+                    in = ParameterIn.QUERY,
+                    description = "The max number of concurrent tasks to run for this query",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "10"),
+            @Parameter(
+                    name = QUERY_POOL,
+                    in = ParameterIn.QUERY,
+                    description = "The executor pool to run against",
+                    schema = @Schema(implementation = String.class),
+                    example = "pool1"),
+            @Parameter(
+                    name = QUERY_PAGESIZE,
+                    in = ParameterIn.QUERY,
+                    description = "The requested page size",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "10"),
+            @Parameter(
+                    name = QUERY_PAGETIMEOUT,
+                    in = ParameterIn.QUERY,
+                    description = "The call timeout when requesting a page, in minutes",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "60"),
+            @Parameter(
+                    name = QUERY_MAX_RESULTS_OVERRIDE,
+                    in = ParameterIn.QUERY,
+                    description = "The max results override value",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "5000"),
+            @Parameter(
+                    name = QUERY_PARAMS,
+                    in = ParameterIn.QUERY,
+                    description = "Additional query parameters",
+                    schema = @Schema(implementation = String.class),
+                    example = "KEY_1:VALUE_1;KEY_2:VALUE_2")
+    })
+    // @formatter:on
+    @Timed(name = "dw.query.planQuery", absolute = true)
+    @RequestMapping(path = "{queryLogic}/plan", method = {RequestMethod.POST}, produces = {"application/xml", "text/xml", "application/json", "text/yaml",
+            "text/x-yaml", "application/x-yaml", "application/x-protobuf", "application/x-protostuff"})
+    public GenericResponse<String> plan(@Parameter(description = "The query logic", example = "EventQuery") @PathVariable String queryLogic,
+                    @Parameter(hidden = true) @RequestParam MultiValueMap<String,String> parameters, @RequestHeader HttpHeaders headers,
+                    @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
+        return queryManagementService.plan(queryLogic, parameters, getPool(headers), currentUser);
+    }
+    
+    // @see QueryManagementService#planAsync(String, MultiValueMap, String, DatawaveUserDetails)
+    // @formatter:off
+    @Operation(
+            summary = "Asynchronously generates a query plan using the given query logic and parameters.",
+            description = "The request thread is released while waiting on the response from the executor service.<br>" +
+                    "Created queries will begin planning immediately.<br>" +
+                    "Auditing is performed if we are expanding indices.<br>" +
+                    "Query plan will be returned in the response.<br>" +
+                    "Updates can be made to any parameter which doesn't affect the scope of the query using <strong>update</strong>.<br>" +
+                    "Stop a running query gracefully using <strong>close</strong> or forcefully using <strong>cancel</strong>.<br>" +
+                    "Stop, and restart a running query using <strong>reset</strong>.<br>" +
+                    "Create a copy of a running query using <strong>duplicate</strong>.<br>" +
+                    "Aside from a limited set of admin actions, only the query owner can act on a running query.")
+    @ApiResponses({
+            @ApiResponse(
+                    description = "if successful, returns a generic response containing the query plan",
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = GenericResponse.class)),
+                    headers = {
+                            @Header(
+                                    name = "Pool",
+                                    description = "the executor pool to target",
+                                    schema = @Schema(defaultValue = "default"))}),
+            @ApiResponse(
+                    description = "if parameter validation fails<br>" +
+                            "if query logic parameter validation fails<br>" +
+                            "if security marking validation fails<br>" +
+                            "if auditing fails",
+                    responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if the user doesn't have access to the requested query logic",
+                    responseCode = "401",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if query storage fails<br>" +
+                            "if there is an unknown error",
+                    responseCode = "500",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class)))})
+    @Parameters({
+            @Parameter(
+                    name = QUERY_BEGIN,
+                    in = ParameterIn.QUERY,
+                    description = "The query begin date",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "\"19660908 000000.000\""),
+            @Parameter(
+                    name = QUERY_END,
+                    in = ParameterIn.QUERY,
+                    description = "The query end date",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "\"20161002 235959.999\""),
+            @Parameter(
+                    name = QUERY_NAME,
+                    in = ParameterIn.QUERY,
+                    description = "The query name",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "Developer Test Query"),
+            @Parameter(
+                    name = QUERY_STRING,
+                    in = ParameterIn.QUERY,
+                    description = "The query string",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "GENRES:[Action to Western]"),
+            @Parameter(
+                    name = QUERY_AUTHORIZATIONS,
+                    in = ParameterIn.QUERY,
+                    description = "The query auths",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "PUBLIC,PRIVATE,BAR,FOO"),
+            @Parameter(
+                    name = QUERY_VISIBILITY,
+                    in = ParameterIn.QUERY,
+                    description = "The visibility to use when storing metrics for this query",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "PUBLIC"),
+            @Parameter(
+                    name = QUERY_PLAN_EXPAND_FIELDS,
+                    in = ParameterIn.QUERY,
+                    description = "Whether to expand unfielded terms",
+                    schema = @Schema(implementation = Boolean.class),
+                    example = "true"
+            ),
+            @Parameter(
+                    name = QUERY_PLAN_EXPAND_VALUES,
+                    in = ParameterIn.QUERY,
+                    description = "Whether to expand regex and/or ranges into discrete values<br>" +
+                            "If 'true', auditing will be performed",
+                    schema = @Schema(implementation = Boolean.class),
+                    example = "true"
+            ),
+            @Parameter(
+                    name = QUERY_SYNTAX,
+                    in = ParameterIn.QUERY,
+                    description = "The syntax used in the query",
+                    schema = @Schema(implementation = String.class),
+                    example = "LUCENE"),
+            @Parameter(
+                    name = QUERY_MAX_CONCURRENT_TASKS,
+                    in = ParameterIn.QUERY,
+                    description = "The max number of concurrent tasks to run for this query",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "10"),
+            @Parameter(
+                    name = QUERY_POOL,
+                    in = ParameterIn.QUERY,
+                    description = "The executor pool to run against",
+                    schema = @Schema(implementation = String.class),
+                    example = "pool1"),
+            @Parameter(
+                    name = QUERY_PAGESIZE,
+                    in = ParameterIn.QUERY,
+                    description = "The requested page size",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "10"),
+            @Parameter(
+                    name = QUERY_PAGETIMEOUT,
+                    in = ParameterIn.QUERY,
+                    description = "The call timeout when requesting a page, in minutes",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "60"),
+            @Parameter(
+                    name = QUERY_MAX_RESULTS_OVERRIDE,
+                    in = ParameterIn.QUERY,
+                    description = "The max results override value",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "5000"),
+            @Parameter(
+                    name = QUERY_PARAMS,
+                    in = ParameterIn.QUERY,
+                    description = "Additional query parameters",
+                    schema = @Schema(implementation = String.class),
+                    example = "KEY_1:VALUE_1;KEY_2:VALUE_2")
+    })
+    // @formatter:on
+    @Timed(name = "dw.query.async.planQuery", absolute = true)
+    @RequestMapping(path = "{queryLogic}/async/plan", method = {RequestMethod.POST}, produces = {"application/xml", "text/xml", "application/json",
+            "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf", "application/x-protostuff"})
+    public DeferredResult<GenericResponse<String>> planAsync(
+                    @Parameter(description = "The query logic", example = "EventQuery") @PathVariable String queryLogic,
+                    @Parameter(hidden = true) @RequestParam MultiValueMap<String,String> parameters, @RequestHeader HttpHeaders headers,
+                    @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
+        return createDeferredResult(queryManagementService.planAsync(queryLogic, parameters, getPool(headers), currentUser),
+                        nextCallRunnerProperties.getAsyncCreateTimeoutMillis());
     }
     
-    // @see QueryManagementService#plan(String, MultiValueMap, String, DatawaveUserDetails)
+    // @see QueryManagementService#predict(String, MultiValueMap, String, DatawaveUserDetails)
     // @formatter:off
     @Operation(
-            summary = "Generates a query plan using the given query logic and parameters.",
-            description = "Created queries will begin planning immediately.<br>" +
-                    "Auditing is performed if we are expanding indices.<br>" +
-                    "Query plan will be returned in the response.<br>" +
-                    "Updates can be made to any parameter which doesn't affect the scope of the query using <strong>update</strong>.<br>" +
-                    "Stop a running query gracefully using <strong>close</strong> or forcefully using <strong>cancel</strong>.<br>" +
-                    "Stop, and restart a running query using <strong>reset</strong>.<br>" +
-                    "Create a copy of a running query using <strong>duplicate</strong>.<br>" +
-                    "Aside from a limited set of admin actions, only the query owner can act on a running query.")
+            summary = "Generates a query prediction using the given query logic and parameters.",
+            description = "Created queries will begin predicting immediately.<br>" +
+                    "Auditing is not performed.<br>" +
+                    "Query prediction will be returned in the response.<br>" +
+                    "Updates can be made to any parameter which doesn't affect the scope of the query using <strong>update</strong>.<br>")
     @ApiResponses({
             @ApiResponse(
                     description = "if successful, returns a generic response containing the query plan",
@@ -481,21 +935,6 @@ public class QueryController {
                     required = true,
                     schema = @Schema(implementation = String.class),
                     example = "PUBLIC"),
-            @Parameter(
-                    name = QUERY_PLAN_EXPAND_FIELDS,
-                    in = ParameterIn.QUERY,
-                    description = "Whether to expand unfielded terms",
-                    schema = @Schema(implementation = Boolean.class),
-                    example = "true"
-            ),
-            @Parameter(
-                    name = QUERY_PLAN_EXPAND_VALUES,
-                    in = ParameterIn.QUERY,
-                    description = "Whether to expand regex and/or ranges into discrete values<br>" +
-                            "If 'true', auditing will be performed",
-                    schema = @Schema(implementation = Boolean.class),
-                    example = "true"
-            ),
             @Parameter(
                     name = QUERY_SYNTAX,
                     in = ParameterIn.QUERY,
@@ -540,20 +979,21 @@ public class QueryController {
                     example = "KEY_1:VALUE_1;KEY_2:VALUE_2")
     })
     // @formatter:on
-    @Timed(name = "dw.query.planQuery", absolute = true)
-    @RequestMapping(path = "{queryLogic}/plan", method = {RequestMethod.POST}, produces = {"application/xml", "text/xml", "application/json", "text/yaml",
+    @Timed(name = "dw.query.predictQuery", absolute = true)
+    @RequestMapping(path = "{queryLogic}/predict", method = {RequestMethod.POST}, produces = {"application/xml", "text/xml", "application/json", "text/yaml",
             "text/x-yaml", "application/x-yaml", "application/x-protobuf", "application/x-protostuff"})
-    public GenericResponse<String> plan(@Parameter(description = "The query logic", example = "EventQuery") @PathVariable String queryLogic,
+    public GenericResponse<String> predict(@Parameter(description = "The query logic", example = "EventQuery") @PathVariable String queryLogic,
                     @Parameter(hidden = true) @RequestParam MultiValueMap<String,String> parameters, @RequestHeader HttpHeaders headers,
                     @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
-        return queryManagementService.plan(queryLogic, parameters, getPool(headers), currentUser);
+        return queryManagementService.predict(queryLogic, parameters, getPool(headers), currentUser);
     }
     
-    // @see QueryManagementService#predict(String, MultiValueMap, String, DatawaveUserDetails)
+    // @see QueryManagementService#predictAsync(String, MultiValueMap, String, DatawaveUserDetails)
     // @formatter:off
     @Operation(
-            summary = "Generates a query prediction using the given query logic and parameters.",
-            description = "Created queries will begin predicting immediately.<br>" +
+            summary = "Asynchronously generates a query prediction using the given query logic and parameters.",
+            description = "The request thread is released while waiting on the response from the executor service.<br>" +
+                    "Created queries will begin predicting immediately.<br>" +
                     "Auditing is not performed.<br>" +
                     "Query prediction will be returned in the response.<br>" +
                     "Updates can be made to any parameter which doesn't affect the scope of the query using <strong>update</strong>.<br>")
@@ -670,13 +1110,52 @@ public class QueryController {
                     example = "KEY_1:VALUE_1;KEY_2:VALUE_2")
     })
     // @formatter:on
-    @Timed(name = "dw.query.predictQuery", absolute = true)
-    @RequestMapping(path = "{queryLogic}/predict", method = {RequestMethod.POST}, produces = {"application/xml", "text/xml", "application/json", "text/yaml",
-            "text/x-yaml", "application/x-yaml", "application/x-protobuf", "application/x-protostuff"})
-    public GenericResponse<String> predict(@Parameter(description = "The query logic", example = "EventQuery") @PathVariable String queryLogic,
+    @Timed(name = "dw.query.async.predictQuery", absolute = true)
+    @RequestMapping(path = "{queryLogic}/async/predict", method = {RequestMethod.POST}, produces = {"application/xml", "text/xml", "application/json",
+            "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf", "application/x-protostuff"})
+    public DeferredResult<GenericResponse<String>> predictAsync(
+                    @Parameter(description = "The query logic", example = "EventQuery") @PathVariable String queryLogic,
                     @Parameter(hidden = true) @RequestParam MultiValueMap<String,String> parameters, @RequestHeader HttpHeaders headers,
                     @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
-        return queryManagementService.predict(queryLogic, parameters, getPool(headers), currentUser);
+        return createDeferredResult(queryManagementService.predictAsync(queryLogic, parameters, getPool(headers), currentUser),
+                        nextCallRunnerProperties.getAsyncCreateTimeoutMillis());
+    }
+    
+    // @see QueryManagementService#createBatch(String, MultiValueMap, List, String, DatawaveUserDetails)
+    // @formatter:off
+    @Operation(
+            summary = "Creates a batch of queries using the given query logic.",
+            description = "The request body is a JSON list of query definitions, each mapping query parameter names to a list of values.<br>" +
+                    "The parameters of each query definition override the shared parameters.<br>" +
+                    "Every query is validated, audited and stored before the create events are published to the executor service.<br>" +
+                    "A failure to create one query does not prevent the remaining queries from being created.<br>" +
+                    "The response contains the query id, or the error, for each query definition, in the order that they were submitted.")
+    @ApiResponses({
+            @ApiResponse(
+                    description = "returns a batch create response containing the query id or error for each query definition",
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = BatchCreateResponse.class)),
+                    headers = {
+                            @Header(
+                                    name = "Pool",
+                                    description = "the executor pool to target",
+                                    schema = @Schema(defaultValue = "default"))}),
+            @ApiResponse(
+                    description = "if no query definitions were submitted<br>" +
+                            "if too many query definitions were submitted",
+                    responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class)))})
+    // @formatter:on
+    @Timed(name = "dw.query.createBatch", absolute = true)
+    @RequestMapping(path = "{queryLogic}/createBatch", method = {RequestMethod.POST}, consumes = {"application/json"}, produces = {"application/xml",
+            "text/xml", "application/json", "text/yaml", "text/x-yaml", "application/x-yaml"})
+    public BatchCreateResponse createBatch(@Parameter(description = "The query logic", example = "EventQuery") @PathVariable String queryLogic,
+                    @Parameter(hidden = true) @RequestParam MultiValueMap<String,String> parameters,
+                    @Parameter(description = "The query parameters for each query in the batch",
+                                    example = "[{\"query\": [\"GENRES:[Action to Western]\"], \"queryName\": [\"Batch Query 1\"]}]") @RequestBody
+                    List<Map<String,List<String>>> queryDefinitions,
+                    @RequestHeader HttpHeaders headers, @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
+        return queryManagementService.createBatch(queryLogic, parameters, queryDefinitions, getPool(headers), currentUser);
     }
     
     // @see LookupService#lookupUUID(MultiValueMap, String, DatawaveUserDetails)
@@ -1660,6 +2139,151 @@ public class QueryController {
         return response;
     }
     
+    // @see QueryManagementService#createAndNextAsync(String, MultiValueMap, String, DatawaveUserDetails)
+    // @formatter:off
+    @Operation(
+            summary = "Creates a query using the given query logic and parameters, and asynchronously returns the first page of results.",
+            description = "The request thread is released while the first page of results is being retrieved.<br>" +
+                    "Created queries will start running immediately.<br>" +
+                    "Auditing is performed before the query is started.<br>" +
+                    "Subsequent query results can be retrieved using <strong>next</strong>.<br>" +
+                    "Updates can be made to any parameter which doesn't affect the scope of the query using <strong>update</strong>.<br>" +
+                    "Stop a running query gracefully using <strong>close</strong> or forcefully using <strong>cancel</strong>.<br>" +
+                    "Stop, and restart a running query using <strong>reset</strong>.<br>" +
+                    "Create a copy of a running query using <strong>duplicate</strong>.<br>" +
+                    "Aside from a limited set of admin actions, only the query owner can act on a running query.")
+    @ApiResponses({
+            @ApiResponse(
+                    description = "if successful, returns a base query response containing the first page of results",
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = BaseQueryResponse.class)),
+                    headers = {
+                            @Header(
+                                    name = "Pool",
+                                    description = "the executor pool to target",
+                                    schema = @Schema(defaultValue = "default"))}),
+            @ApiResponse(
+                    description = "if no query results are found",
+                    responseCode = "204",
+                    content = @Content(schema = @Schema(hidden = true))),
+            @ApiResponse(
+                    description = "if parameter validation fails<br>" +
+                            "if query logic parameter validation fails<br>" +
+                            "if security marking validation fails<br>" +
+                            "if auditing fails",
+                    responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if the user doesn't have access to the requested query logic",
+                    responseCode = "401",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if query storage fails<br>" +
+                            "if the next call times out<br>" +
+                            "if the next task is rejected by the executor<br>" +
+                            "if there is an unknown error",
+                    responseCode = "500",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class)))})
+    @Parameters({
+            @Parameter(
+                    name = QUERY_BEGIN,
+                    in = ParameterIn.QUERY,
+                    description = "The query begin date",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "\"19660908 000000.000\""),
+            @Parameter(
+                    name = QUERY_END,
+                    in = ParameterIn.QUERY,
+                    description = "The query end date",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "\"20161002 235959.999\""),
+            @Parameter(
+                    name = QUERY_NAME,
+                    in = ParameterIn.QUERY,
+                    description = "The query name",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "Developer Test Query"),
+            @Parameter(
+                    name = QUERY_STRING,
+                    in = ParameterIn.QUERY,
+                    description = "The query string",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "GENRES:[Action to Western]"),
+            @Parameter(
+                    name = QUERY_AUTHORIZATIONS,
+                    in = ParameterIn.QUERY,
+                    description = "The query auths",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "PUBLIC,PRIVATE,BAR,FOO"),
+            @Parameter(
+                    name = QUERY_VISIBILITY,
+                    in = ParameterIn.QUERY,
+                    description = "The visibility to use when storing metrics for this query",
+                    required = true,
+                    schema = @Schema(implementation = String.class),
+                    example = "PUBLIC"),
+            @Parameter(
+                    name = QUERY_SYNTAX,
+                    in = ParameterIn.QUERY,
+                    description = "The syntax used in the query",
+                    schema = @Schema(implementation = String.class),
+                    example = "LUCENE"),
+            @Parameter(
+                    name = QUERY_MAX_CONCURRENT_TASKS,
+                    in = ParameterIn.QUERY,
+                    description = "The max number of concurrent tasks to run for this query",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "10"),
+            @Parameter(
+                    name = QUERY_POOL,
+                    in = ParameterIn.QUERY,
+                    description = "The executor pool to run against",
+                    schema = @Schema(implementation = String.class),
+                    example = "pool1"),
+            @Parameter(
+                    name = QUERY_PAGESIZE,
+                    in = ParameterIn.QUERY,
+                    description = "The requested page size",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "10"),
+            @Parameter(
+                    name = QUERY_PAGETIMEOUT,
+                    in = ParameterIn.QUERY,
+                    description = "The call timeout when requesting a page, in minutes",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "60"),
+            @Parameter(
+                    name = QUERY_MAX_RESULTS_OVERRIDE,
+                    in = ParameterIn.QUERY,
+                    description = "The max results override value",
+                    schema = @Schema(implementation = Integer.class),
+                    example = "5000"),
+            @Parameter(
+                    name = QUERY_PARAMS,
+                    in = ParameterIn.QUERY,
+                    description = "Additional query parameters",
+                    schema = @Schema(implementation = String.class),
+                    example = "KEY_1:VALUE_1;KEY_2:VALUE_2")
+    })
+    // @formatter:on
+    @Timed(name = "dw.query.async.createAndNext", absolute = true)
+    @GenerateQuerySessionId(cookieBasePath = "/query/v1/query/")
+    @EnrichQueryMetrics(methodType = EnrichQueryMetrics.MethodType.CREATE_AND_NEXT)
+    @RequestMapping(path = "{queryLogic}/async/createAndNext", method = {RequestMethod.POST}, produces = {"application/xml", "text/xml", "application/json",
+            "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf", "application/x-protostuff"})
+    public DeferredResult<BaseQueryResponse> createAndNextAsync(
+                    @Parameter(description = "The query logic", example = "EventQuery") @PathVariable String queryLogic,
+                    @Parameter(hidden = true) @RequestParam MultiValueMap<String,String> parameters, @RequestHeader HttpHeaders headers,
+                    @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
+        return createDeferredResult(queryManagementService.createAndNextAsync(queryLogic, parameters, getPool(headers), currentUser),
+                        nextCallRunnerProperties.getAsyncNextTimeoutMillis());
+    }
+    
     // @see QueryManagementService#next(String, DatawaveUserDetails)
     // @formatter:off
     @Operation(
@@ -1708,6 +2332,55 @@ public class QueryController {
         return queryManagementService.next(queryId, currentUser);
     }
     
+    // @see QueryManagementService#nextAsync(String, DatawaveUserDetails)
+    // @formatter:off
+    @Operation(
+            summary = "Asynchronously gets the next page of results for the specified query.",
+            description = "The request thread is released while the next page of results is being retrieved.<br>" +
+                    "Next can only be called on a running query.<br>" +
+                    "If configuration allows, multiple next calls may be run concurrently for a query.<br>" +
+                    "Only the query owner can call next on the specified query.")
+    @ApiResponses({
+            @ApiResponse(
+                    description = "if successful, returns a base query response containing the next page of results",
+                    responseCode = "200",
+                    content = @Content(schema = @Schema(implementation = BaseQueryResponse.class))),
+            @ApiResponse(
+                    description = "if no query results are found",
+                    responseCode = "204",
+                    content = @Content(schema = @Schema(hidden = true))),
+            @ApiResponse(
+                    description = "if the query is not running",
+                    responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if the user doesn't own the query",
+                    responseCode = "401",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if the query cannot be found",
+                    responseCode = "404",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
+            @ApiResponse(
+                    description = "if query lock acquisition fails<br>" +
+                            "if the next call is interrupted<br>" +
+                            "if the query times out<br>" +
+                            "if the next task is rejected by the executor<br>" +
+                            "if next call execution fails<br>" +
+                            "if query logic creation fails<br>" +
+                            "if there is an unknown error",
+                    responseCode = "500",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class)))})
+    // @formatter:on
+    @Timed(name = "dw.query.async.next", absolute = true)
+    @EnrichQueryMetrics(methodType = EnrichQueryMetrics.MethodType.NEXT)
+    @RequestMapping(path = "{queryId}/async/next", method = {RequestMethod.GET}, produces = {"application/xml", "text/xml", "application/json", "text/yaml",
+            "text/x-yaml", "application/x-yaml", "application/x-protobuf", "application/x-protostuff"})
+    public DeferredResult<BaseQueryResponse> nextAsync(@Parameter(description = "The query ID") @PathVariable String queryId,
+                    @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
+        return createDeferredResult(queryManagementService.nextAsync(queryId, currentUser), nextCallRunnerProperties.getAsyncNextTimeoutMillis());
+    }
+    
     // @see QueryManagementService#cancel(String, DatawaveUserDetails)
     // @formatter:off
     @Operation(
@@ -2244,16 +2917,21 @@ public class QueryController {
         return queryManagementService.duplicate(queryId, parameters, currentUser);
     }
     
-    // @see QueryManagementService#list(String, String, DatawaveUserDetails)
+    // @see QueryManagementService#list(String, String, Integer, Integer, DatawaveUserDetails)
     // @formatter:off
     @Operation(
             summary = "Gets a list of queries for the calling user.",
-            description = "Returns all matching queries owned by the calling user, filtering by query id and query name.")
+            description = "Returns all matching queries owned by the calling user, filtering by query id and query name.<br>" +
+                    "If a page size is given, the matching queries are ordered by query id, and only the requested page is returned.")
     @ApiResponses({
             @ApiResponse(
                     description = "if successful, returns a list response containing the matching queries",
                     responseCode = "200",
                     content = @Content(schema = @Schema(implementation = QueryImplListResponse.class))),
+            @ApiResponse(
+                    description = "if the page number or page size is invalid",
+                    responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
             @ApiResponse(
                     description = "if there is an unknown error",
                     responseCode = "500",
@@ -2264,21 +2942,28 @@ public class QueryController {
             "application/x-protobuf", "application/x-protostuff"})
     public QueryImplListResponse list(@Parameter(description = "The query ID") @RequestParam(required = false) String queryId,
                     @Parameter(description = "The query name") @RequestParam(required = false) String queryName,
+                    @Parameter(description = "The page number, starting at 1") @RequestParam(required = false) Integer pageNumber,
+                    @Parameter(description = "The page size") @RequestParam(required = false) Integer pageSize,
                     @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
-        return queryManagementService.list(queryId, queryName, currentUser);
+        return queryManagementService.list(queryId, queryName, pageNumber, pageSize, currentUser);
     }
     
-    // @see QueryManagementService#adminList(String, String, String, DatawaveUserDetails)
+    // @see QueryManagementService#adminList(String, String, String, Integer, Integer, DatawaveUserDetails)
     // @formatter:off
     @Operation(
             summary = "Gets a list of queries for the specified user using admin privileges.",
             description = "Returns all matching queries owned by any user, filtered by user ID, query ID, and query name.<br>" +
+                    "If a page size is given, the matching queries are ordered by query id, and only the requested page is returned.<br>" +
                     "Only admin users should be allowed to call this method.")
     @ApiResponses({
             @ApiResponse(
                     description = "if successful, returns a list response containing the matching queries",
                     responseCode = "200",
                     content = @Content(schema = @Schema(implementation = QueryImplListResponse.class))),
+            @ApiResponse(
+                    description = "if the page number or page size is invalid",
+                    responseCode = "400",
+                    content = @Content(schema = @Schema(implementation = VoidResponse.class))),
             @ApiResponse(
                     description = "if there is an unknown error",
                     responseCode = "500",
@@ -2291,8 +2976,10 @@ public class QueryController {
     public QueryImplListResponse adminList(@Parameter(description = "The query ID") @RequestParam(required = false) String queryId,
                     @Parameter(description = "The user id") @RequestParam(required = false) String user,
                     @Parameter(description = "The query name") @RequestParam(required = false) String queryName,
+                    @Parameter(description = "The page number, starting at 1") @RequestParam(required = false) Integer pageNumber,
+                    @Parameter(description = "The page size") @RequestParam(required = false) Integer pageSize,
                     @AuthenticationPrincipal DatawaveUserDetails currentUser) throws QueryException {
-        return queryManagementService.adminList(queryId, queryName, user, currentUser);
+        return queryManagementService.adminList(queryId, queryName, user, pageNumber, pageSize, currentUser);
     }
     
     // @see QueryManagementService#list(String, String, DatawaveUserDetails)
@@ -2686,6 +3373,24 @@ public class QueryController {
         return mediaType;
     }
     
+    private <T> DeferredResult<T> createDeferredResult(CompletableFuture<T> future, long timeoutMillis) {
+        // the response will be written by an async dispatch, so hold off on the method stats until then
+        baseMethodStatsContext.setDeferredResponse(true);
+        
+        DeferredResult<T> deferredResult = new DeferredResult<>(timeoutMillis);
+        
+        // if the request times out, let whoever is producing the response know that nobody is waiting for it any more
+        deferredResult.onTimeout(() -> future.cancel(false));
+        future.whenComplete((response, e) -> {
+            if (e != null) {
+                deferredResult.setErrorResult((e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e);
+            } else {
+                deferredResult.setResult(response);
+            }
+        });
+        return deferredResult;
+    }
+    
     private String getPool(HttpHeaders headers) {
         return headers.getFirst(queryProperties.getPoolHeader());
     }
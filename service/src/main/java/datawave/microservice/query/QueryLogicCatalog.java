@@ -0,0 +1,196 @@
+package datawave.microservice.query;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.endpoint.event.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import datawave.core.query.logic.QueryLogic;
+import datawave.core.query.logic.QueryLogicFactory;
+import datawave.webservice.query.exception.QueryException;
+import datawave.webservice.query.result.logic.QueryLogicDescription;
+import datawave.webservice.result.QueryLogicResponse;
+
+/**
+ * Holds the descriptions of the configured query logics.
+ * <p>
+ * Describing a query logic requires creating a reference query, and reflectively looking up the query syntax parsers, so the descriptions are computed once
+ * when the application starts, and again whenever the configuration is refreshed, rather than for every request. An ETag is computed from the contents of
+ * the catalog, so that clients can cheaply revalidate their copy with a conditional request.
+ */
+@Component
+public class QueryLogicCatalog {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final QueryLogicFactory queryLogicFactory;
+    
+    private volatile Catalog catalog;
+    
+    public QueryLogicCatalog(QueryLogicFactory queryLogicFactory) {
+        this.queryLogicFactory = queryLogicFactory;
+    }
+    
+    /**
+     * Creates a response containing the query logic descriptions, sorted by query logic name.
+     *
+     * @return the query logic response
+     */
+    public QueryLogicResponse createResponse() {
+        Catalog catalog = getCatalog();
+        
+        // the response is created fresh for each request, since filters may update fields on the response
+        QueryLogicResponse response = new QueryLogicResponse();
+        catalog.exceptions.forEach(response::addException);
+        response.setQueryLogicList(new ArrayList<>(catalog.descriptions));
+        return response;
+    }
+    
+    /**
+     * Gets the ETag for the current catalog.
+     *
+     * @return the quoted ETag
+     */
+    public String getETag() {
+        return getCatalog().eTag;
+    }
+    
+    /**
+     * Rebuilds the catalog from the configured query logics.
+     */
+    @EventListener({ApplicationReadyEvent.class, RefreshScopeRefreshedEvent.class})
+    public void refresh() {
+        catalog = buildCatalog();
+        log.info("Built query logic catalog with {} query logics, etag {}", catalog.descriptions.size(), catalog.eTag);
+    }
+    
+    private Catalog getCatalog() {
+        Catalog catalog = this.catalog;
+        if (catalog == null) {
+            synchronized (this) {
+                if (this.catalog == null) {
+                    this.catalog = buildCatalog();
+                }
+                catalog = this.catalog;
+            }
+        }
+        return catalog;
+    }
+    
+    private Catalog buildCatalog() {
+        List<QueryLogic<?>> queryLogicList = queryLogicFactory.getQueryLogicList();
+        List<QueryLogicDescription> logicConfigurationList = new ArrayList<>();
+        List<QueryException> exceptions = new ArrayList<>();
+        
+        // reference query necessary to avoid NPEs in getting the Transformer and BaseResponse
+        Query q = new QueryImpl();
+        Date now = new Date();
+        q.setExpirationDate(now);
+        q.setQuery("test");
+        q.setQueryAuthorizations("ALL");
+        
+        for (QueryLogic<?> queryLogic : queryLogicList) {
+            try {
+                QueryLogicDescription logicDesc = new QueryLogicDescription(queryLogic.getLogicName());
+                logicDesc.setAuditType(queryLogic.getAuditType(null).toString());
+                logicDesc.setLogicDescription(queryLogic.getLogicDescription());
+                
+                Set<String> optionalQueryParameters = queryLogic.getOptionalQueryParameters();
+                if (optionalQueryParameters != null) {
+                    logicDesc.setSupportedParams(new ArrayList<>(optionalQueryParameters));
+                }
+                Set<String> requiredQueryParameters = queryLogic.getRequiredQueryParameters();
+                if (requiredQueryParameters != null) {
+                    logicDesc.setRequiredParams(new ArrayList<>(requiredQueryParameters));
+                }
+                Set<String> exampleQueries = queryLogic.getExampleQueries();
+                if (exampleQueries != null) {
+                    logicDesc.setExampleQueries(new ArrayList<>(exampleQueries));
+                }
+                Set<String> requiredRoles = queryLogic.getRequiredRoles();
+                if (requiredRoles != null) {
+                    List<String> requiredRolesList = new ArrayList<>(queryLogic.getRequiredRoles());
+                    logicDesc.setRequiredRoles(requiredRolesList);
+                }
+                
+                try {
+                    logicDesc.setResponseClass(queryLogic.getResponseClass(q));
+                } catch (QueryException e) {
+                    log.error("Unable to get response class for query logic: {}", queryLogic.getLogicName(), e);
+                    exceptions.add(e);
+                    logicDesc.setResponseClass("unknown");
+                }
+                
+                List<String> querySyntax = new ArrayList<>();
+                try {
+                    Method m = queryLogic.getClass().getMethod("getQuerySyntaxParsers");
+                    Object result = m.invoke(queryLogic);
+                    if (result instanceof Map<?,?>) {
+                        Map<?,?> map = (Map<?,?>) result;
+                        for (Object o : map.keySet())
+                            querySyntax.add(o.toString());
+                    }
+                } catch (Exception e) {
+                    log.warn("Unable to get query syntax for query logic: {}", queryLogic.getClass().getCanonicalName());
+                }
+                if (querySyntax.isEmpty()) {
+                    querySyntax.add("CUSTOM");
+                }
+                logicDesc.setQuerySyntax(querySyntax);
+                
+                logicConfigurationList.add(logicDesc);
+            } catch (Exception e) {
+                log.error("Error setting query logic description", e);
+            }
+        }
+        logicConfigurationList.sort(Comparator.comparing(QueryLogicDescription::getName));
+        
+        return new Catalog(Collections.unmodifiableList(logicConfigurationList), Collections.unmodifiableList(exceptions),
+                        computeETag(logicConfigurationList, exceptions));
+    }
+    
+    private String computeETag(List<QueryLogicDescription> descriptions, List<QueryException> exceptions) {
+        StringBuilder builder = new StringBuilder();
+        for (QueryLogicDescription desc : descriptions) {
+            // @formatter:off
+            builder.append(desc.getName()).append('\u0000')
+                    .append(desc.getLogicDescription()).append('\u0000')
+                    .append(desc.getAuditType()).append('\u0000')
+                    .append(desc.getResponseClass()).append('\u0000')
+                    .append(desc.getQuerySyntax()).append('\u0000')
+                    .append(desc.getSupportedParams()).append('\u0000')
+                    .append(desc.getRequiredParams()).append('\u0000')
+                    .append(desc.getExampleQueries()).append('\u0000')
+                    .append(desc.getRequiredRoles()).append('\n');
+            // @formatter:on
+        }
+        for (QueryException exception : exceptions) {
+            builder.append(exception.getMessage()).append('\n');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+    
+    private static class Catalog {
+        private final List<QueryLogicDescription> descriptions;
+        private final List<QueryException> exceptions;
+        private final String eTag;
+        
+        private Catalog(List<QueryLogicDescription> descriptions, List<QueryException> exceptions, String eTag) {
+            this.descriptions = descriptions;
+            this.exceptions = exceptions;
+            this.eTag = eTag;
+        }
+    }
+}
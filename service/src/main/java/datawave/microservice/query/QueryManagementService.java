@@ -8,12 +8,10 @@ import static datawave.microservice.query.storage.QueryStatus.QUERY_STATE.CANCEL
 import static datawave.microservice.query.storage.QueryStatus.QUERY_STATE.CLOSE;
 import static datawave.microservice.query.storage.QueryStatus.QUERY_STATE.CREATE;
 import static datawave.microservice.query.storage.QueryStatus.QUERY_STATE.DEFINE;
-import static datawave.microservice.query.storage.QueryStatus.QUERY_STATE.FAIL;
 import static datawave.microservice.query.storage.QueryStatus.QUERY_STATE.PLAN;
 import static datawave.microservice.query.storage.QueryStatus.QUERY_STATE.PREDICT;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -21,16 +19,21 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.commons.collections.CollectionUtils;
@@ -45,10 +48,10 @@ import org.springframework.cloud.bus.BusProperties;
 import org.springframework.cloud.bus.event.RemoteQueryRequestEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.task.TaskRejectedException;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.concurrent.ListenableFuture;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -64,18 +67,37 @@ import datawave.microservice.authorization.federation.FederatedAuthorizationServ
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.microservice.authorization.util.AuthorizationsUtil;
 import datawave.microservice.config.RequestScopeBeanSupplier;
+import datawave.microservice.query.admin.BulkLifecycleExecutor;
+import datawave.microservice.query.admission.QueryAdmissionControl;
+import datawave.microservice.query.admission.TooManyRequestsQueryException;
+import datawave.microservice.query.audit.AuditSubmitter;
+import datawave.microservice.query.auth.UserAuthorizationsCache;
+import datawave.microservice.query.batch.BatchCreateResponse;
+import datawave.microservice.query.batch.BatchQueryCreator;
 import datawave.microservice.query.config.QueryProperties;
+import datawave.microservice.query.index.QueryStatusIndex;
 import datawave.microservice.query.messaging.QueryResultsManager;
+import datawave.microservice.query.metric.QueryMetricAggregator;
+import datawave.microservice.query.plan.QueryPlanCache;
 import datawave.microservice.query.remote.QueryRequest;
 import datawave.microservice.query.remote.QueryRequestHandler;
+import datawave.microservice.query.runner.ExecutorResponseRegistry;
+import datawave.microservice.query.runner.FairNextCallScheduler;
+import datawave.microservice.query.runner.IntermediateResultBuffer;
 import datawave.microservice.query.runner.NextCall;
+import datawave.microservice.query.runner.NextCallRegistry;
+import datawave.microservice.query.runner.NextEventCoalescer;
+import datawave.microservice.query.runner.OptimisticQueryStatusUpdater;
+import datawave.microservice.query.runner.QueryLogicCache;
+import datawave.microservice.query.runner.QueryStatusChangeNotifier;
+import datawave.microservice.query.runner.ResultRateTracker;
+import datawave.microservice.query.runner.ResultSizeEstimator;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
 import datawave.microservice.query.storage.QueryStatus;
 import datawave.microservice.query.storage.QueryStorageCache;
 import datawave.microservice.query.storage.TaskKey;
 import datawave.microservice.query.util.QueryStatusUpdateUtil;
 import datawave.microservice.querymetric.BaseQueryMetric;
-import datawave.microservice.querymetric.QueryMetricClient;
-import datawave.microservice.querymetric.QueryMetricType;
 import datawave.security.util.ProxiedEntityUtils;
 import datawave.webservice.common.audit.AuditParameters;
 import datawave.webservice.common.audit.Auditor;
@@ -88,7 +110,6 @@ import datawave.webservice.query.exception.QueryException;
 import datawave.webservice.query.exception.TimeoutQueryException;
 import datawave.webservice.query.exception.UnauthorizedQueryException;
 import datawave.webservice.query.result.event.ResponseObjectFactory;
-import datawave.webservice.query.result.logic.QueryLogicDescription;
 import datawave.webservice.query.util.QueryUncaughtExceptionHandler;
 import datawave.webservice.result.BaseQueryResponse;
 import datawave.webservice.result.GenericResponse;
@@ -103,6 +124,7 @@ public class QueryManagementService implements QueryRequestHandler {
     private static final ObjectMapper mapper = new ObjectMapper();
     
     private final QueryProperties queryProperties;
+    private final NextCallRunnerProperties nextCallRunnerProperties;
     
     private final ApplicationEventPublisher eventPublisher;
     private final BusProperties busProperties;
@@ -118,41 +140,78 @@ public class QueryManagementService implements QueryRequestHandler {
     private final RequestScopeBeanSupplier<BaseQueryMetric> baseQueryMetric;
     
     private final QueryLogicFactory queryLogicFactory;
-    private final QueryMetricClient queryMetricClient;
+    private final QueryMetricAggregator queryMetricAggregator;
     private final Supplier<DatawaveUserDetails> serverUserDetailsSupplier;
     private final ResponseObjectFactory responseObjectFactory;
     private final QueryStorageCache queryStorageCache;
     private final QueryResultsManager queryResultsManager;
-    private final AuditClient auditClient;
-    private final ThreadPoolTaskExecutor nextCallExecutor;
+    private final FairNextCallScheduler nextCallScheduler;
+    private final ResultSizeEstimator resultSizeEstimator;
+    private final ResultRateTracker resultRateTracker;
+    private final QueryStatusChangeNotifier queryStatusChangeNotifier;
+    private final IntermediateResultBuffer intermediateResultBuffer;
+    private final NextCallRegistry nextCallRegistry;
+    private final OptimisticQueryStatusUpdater nextCallStatusUpdater;
+    private final QueryLogicCache queryLogicCache;
+    private final UserAuthorizationsCache userAuthorizationsCache;
+    private final QueryLogicCatalog queryLogicCatalog;
+    private final QueryStatusIndex queryStatusIndex;
+    private final BulkLifecycleExecutor bulkLifecycleExecutor;
+    private final ExecutorResponseRegistry executorResponseRegistry;
+    private final BatchQueryCreator batchQueryCreator;
+    private final AuditSubmitter auditSubmitter;
+    private final QueryPlanCache queryPlanCache;
+    private final QueryAdmissionControl queryAdmissionControl;
+    private final NextEventCoalescer nextEventCoalescer;
     
     private final QueryStatusUpdateUtil queryStatusUpdateUtil;
-    private final MultiValueMap<String,NextCall> nextCallMap = new LinkedMultiValueMap<>();
     
     private final String selfDestination;
     
-    private final Map<String,CountDownLatch> queryLatchMap = new ConcurrentHashMap<>();
-    
-    public QueryManagementService(QueryProperties queryProperties, ApplicationEventPublisher eventPublisher, BusProperties busProperties,
-                    QueryParameters queryParameters, SecurityMarking querySecurityMarking, BaseQueryMetric baseQueryMetric, QueryLogicFactory queryLogicFactory,
-                    QueryMetricClient queryMetricClient,
+    public QueryManagementService(QueryProperties queryProperties, NextCallRunnerProperties nextCallRunnerProperties,
+                    ApplicationEventPublisher eventPublisher, BusProperties busProperties, QueryParameters queryParameters,
+                    SecurityMarking querySecurityMarking, BaseQueryMetric baseQueryMetric, QueryLogicFactory queryLogicFactory,
+                    QueryMetricAggregator queryMetricAggregator,
                     @Autowired(required = false) @Qualifier("serverUserDetailsSupplier") Supplier<DatawaveUserDetails> serverUserDetailsSupplier,
                     ResponseObjectFactory responseObjectFactory, QueryStorageCache queryStorageCache, QueryResultsManager queryResultsManager,
-                    AuditClient auditClient, ThreadPoolTaskExecutor nextCallExecutor) {
+                    FairNextCallScheduler nextCallScheduler,
+                    ResultSizeEstimator resultSizeEstimator, ResultRateTracker resultRateTracker, QueryStatusChangeNotifier queryStatusChangeNotifier,
+                    IntermediateResultBuffer intermediateResultBuffer, NextCallRegistry nextCallRegistry,
+                    OptimisticQueryStatusUpdater nextCallStatusUpdater, QueryLogicCache queryLogicCache, UserAuthorizationsCache userAuthorizationsCache,
+                    QueryLogicCatalog queryLogicCatalog, QueryStatusIndex queryStatusIndex, BulkLifecycleExecutor bulkLifecycleExecutor,
+                    ExecutorResponseRegistry executorResponseRegistry, BatchQueryCreator batchQueryCreator, AuditSubmitter auditSubmitter,
+                    QueryPlanCache queryPlanCache, QueryAdmissionControl queryAdmissionControl, NextEventCoalescer nextEventCoalescer) {
         this.queryProperties = queryProperties;
+        this.nextCallRunnerProperties = nextCallRunnerProperties;
         this.eventPublisher = eventPublisher;
         this.busProperties = busProperties;
         this.queryParameters = new RequestScopeBeanSupplier<>(queryParameters);
         this.querySecurityMarking = new RequestScopeBeanSupplier<>(querySecurityMarking);
         this.baseQueryMetric = new RequestScopeBeanSupplier<>(baseQueryMetric);
         this.queryLogicFactory = queryLogicFactory;
-        this.queryMetricClient = queryMetricClient;
+        this.queryMetricAggregator = queryMetricAggregator;
         this.serverUserDetailsSupplier = serverUserDetailsSupplier;
         this.responseObjectFactory = responseObjectFactory;
         this.queryStorageCache = queryStorageCache;
         this.queryResultsManager = queryResultsManager;
-        this.auditClient = auditClient;
-        this.nextCallExecutor = nextCallExecutor;
+        this.nextCallScheduler = nextCallScheduler;
+        this.resultSizeEstimator = resultSizeEstimator;
+        this.resultRateTracker = resultRateTracker;
+        this.queryStatusChangeNotifier = queryStatusChangeNotifier;
+        this.intermediateResultBuffer = intermediateResultBuffer;
+        this.nextCallRegistry = nextCallRegistry;
+        this.nextCallStatusUpdater = nextCallStatusUpdater;
+        this.queryLogicCache = queryLogicCache;
+        this.userAuthorizationsCache = userAuthorizationsCache;
+        this.queryLogicCatalog = queryLogicCatalog;
+        this.queryStatusIndex = queryStatusIndex;
+        this.bulkLifecycleExecutor = bulkLifecycleExecutor;
+        this.executorResponseRegistry = executorResponseRegistry;
+        this.batchQueryCreator = batchQueryCreator;
+        this.auditSubmitter = auditSubmitter;
+        this.queryPlanCache = queryPlanCache;
+        this.queryAdmissionControl = queryAdmissionControl;
+        this.nextEventCoalescer = nextEventCoalescer;
         this.queryStatusUpdateUtil = new QueryStatusUpdateUtil(this.queryProperties, this.queryStorageCache);
         this.selfDestination = getSelfDestination();
     }
@@ -160,7 +219,8 @@ public class QueryManagementService implements QueryRequestHandler {
     /**
      * Gets a list of descriptions for the configured query logics, sorted by query logic name.
      * <p>
-     * The descriptions include things like the audit type, optional and required parameters, required roles, and response class.
+     * The descriptions include things like the audit type, optional and required parameters, required roles, and response class. The descriptions are
+     * computed ahead of time by the {@link QueryLogicCatalog}, and are rebuilt whenever the configuration is refreshed.
      *
      * @param currentUser
      *            the user who called this method, not null
@@ -169,75 +229,18 @@ public class QueryManagementService implements QueryRequestHandler {
     public QueryLogicResponse listQueryLogic(DatawaveUserDetails currentUser) {
         log.info("Request: listQueryLogic from {}", ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()));
         
-        QueryLogicResponse response = new QueryLogicResponse();
-        List<QueryLogic<?>> queryLogicList = queryLogicFactory.getQueryLogicList();
-        List<QueryLogicDescription> logicConfigurationList = new ArrayList<>();
-        
-        // reference query necessary to avoid NPEs in getting the Transformer and BaseResponse
-        Query q = new QueryImpl();
-        Date now = new Date();
-        q.setExpirationDate(now);
-        q.setQuery("test");
-        q.setQueryAuthorizations("ALL");
-        
-        for (QueryLogic<?> queryLogic : queryLogicList) {
-            try {
-                QueryLogicDescription logicDesc = new QueryLogicDescription(queryLogic.getLogicName());
-                logicDesc.setAuditType(queryLogic.getAuditType(null).toString());
-                logicDesc.setLogicDescription(queryLogic.getLogicDescription());
-                
-                Set<String> optionalQueryParameters = queryLogic.getOptionalQueryParameters();
-                if (optionalQueryParameters != null) {
-                    logicDesc.setSupportedParams(new ArrayList<>(optionalQueryParameters));
-                }
-                Set<String> requiredQueryParameters = queryLogic.getRequiredQueryParameters();
-                if (requiredQueryParameters != null) {
-                    logicDesc.setRequiredParams(new ArrayList<>(requiredQueryParameters));
-                }
-                Set<String> exampleQueries = queryLogic.getExampleQueries();
-                if (exampleQueries != null) {
-                    logicDesc.setExampleQueries(new ArrayList<>(exampleQueries));
-                }
-                Set<String> requiredRoles = queryLogic.getRequiredRoles();
-                if (requiredRoles != null) {
-                    List<String> requiredRolesList = new ArrayList<>(queryLogic.getRequiredRoles());
-                    logicDesc.setRequiredRoles(requiredRolesList);
-                }
-                
-                try {
-                    logicDesc.setResponseClass(queryLogic.getResponseClass(q));
-                } catch (QueryException e) {
-                    log.error("Unable to get response class for query logic: {}", queryLogic.getLogicName(), e);
-                    response.addException(e);
-                    logicDesc.setResponseClass("unknown");
-                }
-                
-                List<String> querySyntax = new ArrayList<>();
-                try {
-                    Method m = queryLogic.getClass().getMethod("getQuerySyntaxParsers");
-                    Object result = m.invoke(queryLogic);
-                    if (result instanceof Map<?,?>) {
-                        Map<?,?> map = (Map<?,?>) result;
-                        for (Object o : map.keySet())
-                            querySyntax.add(o.toString());
-                    }
-                } catch (Exception e) {
-                    log.warn("Unable to get query syntax for query logic: {}", queryLogic.getClass().getCanonicalName());
-                }
-                if (querySyntax.isEmpty()) {
-                    querySyntax.add("CUSTOM");
-                }
-                logicDesc.setQuerySyntax(querySyntax);
-                
-                logicConfigurationList.add(logicDesc);
-            } catch (Exception e) {
-                log.error("Error setting query logic description", e);
-            }
-        }
-        logicConfigurationList.sort(Comparator.comparing(QueryLogicDescription::getName));
-        response.setQueryLogicList(logicConfigurationList);
-        
-        return response;
+        return queryLogicCatalog.createResponse();
+    }
+    
+    /**
+     * Gets the ETag for the query logic descriptions returned by {@link #listQueryLogic}.
+     * <p>
+     * The descriptions are the same for every user, so the ETag can be used by clients to revalidate the descriptions they already have.
+     *
+     * @return the quoted ETag
+     */
+    public String getQueryLogicETag() {
+        return queryLogicCatalog.getETag();
     }
     
     /**
@@ -299,6 +302,7 @@ public class QueryManagementService implements QueryRequestHandler {
      * <p>
      * Created queries will start running immediately. <br>
      * Auditing is performed before the query is started. <br>
+     * Creates are turned away with a 429 response if the target pool, or the user, is out of capacity. <br>
      * Query results can be retrieved using {@link #executeNext}.<br>
      * Updates can be made to any parameter which doesn't affect the scope of the query using {@link #update}. <br>
      * Stop a running query gracefully using {@link #close} or forcefully using {@link #cancel}. <br>
@@ -321,6 +325,8 @@ public class QueryManagementService implements QueryRequestHandler {
      *             if query logic parameter validation fails
      * @throws UnauthorizedQueryException
      *             if the user doesn't have access to the requested query logic
+     * @throws TooManyRequestsQueryException
+     *             if the target pool, or the user, is out of capacity
      * @throws BadRequestQueryException
      *             if security marking validation fails
      * @throws BadRequestQueryException
@@ -339,12 +345,56 @@ public class QueryManagementService implements QueryRequestHandler {
             log.info("Request: {}/create from {}", queryLogicName, user);
         }
         
+        return join(submitCreate(queryLogicName, parameters, pool, currentUser));
+    }
+    
+    /**
+     * Asynchronously creates a query using the given query logic and parameters.
+     * <p>
+     * This behaves like {@link #create}, except that the calling thread is released as soon as the query has been stored and the create request has been
+     * published to the executor service. The returned future is completed with the query id once the executor has responded, or completed exceptionally with
+     * a {@link QueryException} if the query fails while it is being created.
+     *
+     * @param queryLogicName
+     *            the requested query logic, not null
+     * @param parameters
+     *            the query parameters, not null
+     * @param pool
+     *            the pool to target, may be null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return a future which will be completed with a generic response containing the query id
+     * @throws BadRequestQueryException
+     *             if parameter validation fails
+     * @throws BadRequestQueryException
+     *             if query logic parameter validation fails
+     * @throws UnauthorizedQueryException
+     *             if the user doesn't have access to the requested query logic
+     * @throws BadRequestQueryException
+     *             if security marking validation fails
+     * @throws BadRequestQueryException
+     *             if auditing fails
+     * @throws QueryException
+     *             if query storage fails
+     * @throws QueryException
+     *             if there is an unknown error
+     */
+    public CompletableFuture<GenericResponse<String>> createAsync(String queryLogicName, MultiValueMap<String,String> parameters, String pool,
+                    DatawaveUserDetails currentUser) throws QueryException {
+        String user = ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName());
+        if (log.isDebugEnabled()) {
+            log.info("Request: {}/async/create from {} with params: {}", queryLogicName, user, parameters);
+        } else {
+            log.info("Request: {}/async/create from {}", queryLogicName, user);
+        }
+        
+        return submitCreate(queryLogicName, parameters, pool, currentUser);
+    }
+    
+    private CompletableFuture<GenericResponse<String>> submitCreate(String queryLogicName, MultiValueMap<String,String> parameters, String pool,
+                    DatawaveUserDetails currentUser) throws QueryException {
         try {
-            TaskKey taskKey = storeQuery(queryLogicName, parameters, pool, currentUser, CREATE);
-            GenericResponse<String> response = new GenericResponse<>();
-            response.setResult(taskKey.getQueryId());
-            response.setHasResults(true);
-            return response;
+            return storeQueryAsync(queryLogicName, parameters, pool, currentUser, CREATE, null).thenApply(taskKey -> createResponse(taskKey.getQueryId()));
         } catch (QueryException e) {
             throw e;
         } catch (Exception e) {
@@ -359,6 +409,7 @@ public class QueryManagementService implements QueryRequestHandler {
      * Created queries will begin planning immediately. <br>
      * Auditing is performed if we are expanding indices. <br>
      * Query plan will be returned in the response.<br>
+     * Recently computed plans for an equivalent query are returned from the cache, without storing the query, but are still audited. <br>
      * Updates can be made to any parameter which doesn't affect the scope of the query using {@link #update}. <br>
      *
      * @param queryLogicName
@@ -394,14 +445,75 @@ public class QueryManagementService implements QueryRequestHandler {
             log.info("Request: {}/plan from {}", queryLogicName, user);
         }
         
+        return join(submitPlan(queryLogicName, parameters, pool, currentUser));
+    }
+    
+    /**
+     * Asynchronously generates a query plan using the given query logic and parameters.
+     * <p>
+     * This behaves like {@link #plan}, except that the calling thread is released as soon as the query has been stored and the plan request has been
+     * published to the executor service. The returned future is completed with the query plan once the executor has responded, or completed exceptionally
+     * with a {@link QueryException} if planning fails.
+     *
+     * @param queryLogicName
+     *            the requested query logic, not null
+     * @param parameters
+     *            the query parameters, not null
+     * @param pool
+     *            the pool to target, may be null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return a future which will be completed with a generic response containing the query plan
+     * @throws BadRequestQueryException
+     *             if parameter validation fails
+     * @throws BadRequestQueryException
+     *             if query logic parameter validation fails
+     * @throws UnauthorizedQueryException
+     *             if the user doesn't have access to the requested query logic
+     * @throws BadRequestQueryException
+     *             if security marking validation fails
+     * @throws BadRequestQueryException
+     *             if auditing fails
+     * @throws QueryException
+     *             if query storage fails
+     * @throws QueryException
+     *             if there is an unknown error
+     */
+    public CompletableFuture<GenericResponse<String>> planAsync(String queryLogicName, MultiValueMap<String,String> parameters, String pool,
+                    DatawaveUserDetails currentUser) throws QueryException {
+        String user = ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName());
+        if (log.isDebugEnabled()) {
+            log.info("Request: {}/async/plan from {} with params: {}", queryLogicName, user, parameters);
+        } else {
+            log.info("Request: {}/async/plan from {}", queryLogicName, user);
+        }
+        
+        return submitPlan(queryLogicName, parameters, pool, currentUser);
+    }
+    
+    private CompletableFuture<GenericResponse<String>> submitPlan(String queryLogicName, MultiValueMap<String,String> parameters, String pool,
+                    DatawaveUserDetails currentUser) throws QueryException {
         try {
-            TaskKey taskKey = storeQuery(queryLogicName, parameters, pool, currentUser, PLAN);
-            String queryPlan = queryStorageCache.getQueryStatus(taskKey.getQueryId()).getPlan();
-            queryStorageCache.deleteQuery(taskKey.getQueryId());
-            GenericResponse<String> response = new GenericResponse<>();
-            response.setResult(queryPlan);
-            response.setHasResults(true);
-            return response;
+            // @formatter:off
+            StoredQuery storedQuery = persistQuery(queryLogicName, parameters, pool, currentUser, PLAN, null);
+            if (storedQuery.planCacheLookup.isCached()) {
+                return CompletableFuture.completedFuture(createResponse(storedQuery.planCacheLookup.getCachedResult()));
+            }
+            
+            return sendStoredQuery(storedQuery)
+                    .thenApply(taskKey -> {
+                        try {
+                            String queryPlan = queryStorageCache.getQueryStatus(taskKey.getQueryId()).getPlan();
+                            storedQuery.planCacheLookup.put(queryPlan);
+                            queryStorageCache.deleteQuery(taskKey.getQueryId());
+                            queryStatusChangeNotifier.release(taskKey.getQueryId());
+                            return createResponse(queryPlan);
+                        } catch (Exception e) {
+                            log.error("Unknown error planning query", e);
+                            throw new CompletionException(new QueryException(DatawaveErrorCode.QUERY_SETUP_ERROR, e, "Unknown error planning query."));
+                        }
+                    });
+            // @formatter:on
         } catch (QueryException e) {
             throw e;
         } catch (Exception e) {
@@ -416,6 +528,7 @@ public class QueryManagementService implements QueryRequestHandler {
      * Created queries will begin predicting immediately. <br>
      * Auditing is not performed. <br>
      * Query prediction will be returned in the response.<br>
+     * Recently computed predictions for an equivalent query are returned from the cache, without storing the query. <br>
      * Updates can be made to any parameter which doesn't affect the scope of the query using {@link #update}. <br>
      *
      * @param queryLogicName
@@ -451,21 +564,82 @@ public class QueryManagementService implements QueryRequestHandler {
             log.info("Request: {}/predict from {}", queryLogicName, user);
         }
         
+        return join(submitPredict(queryLogicName, parameters, pool, currentUser));
+    }
+    
+    /**
+     * Asynchronously generates a query prediction using the given query logic and parameters.
+     * <p>
+     * This behaves like {@link #predict}, except that the calling thread is released as soon as the query has been stored and the predict request has been
+     * published to the executor service. The returned future is completed with the query prediction once the executor has responded, or completed
+     * exceptionally with a {@link QueryException} if prediction fails.
+     *
+     * @param queryLogicName
+     *            the requested query logic, not null
+     * @param parameters
+     *            the query parameters, not null
+     * @param pool
+     *            the pool to target, may be null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return a future which will be completed with a generic response containing the query prediction
+     * @throws BadRequestQueryException
+     *             if parameter validation fails
+     * @throws BadRequestQueryException
+     *             if query logic parameter validation fails
+     * @throws UnauthorizedQueryException
+     *             if the user doesn't have access to the requested query logic
+     * @throws BadRequestQueryException
+     *             if security marking validation fails
+     * @throws BadRequestQueryException
+     *             if auditing fails
+     * @throws QueryException
+     *             if query storage fails
+     * @throws QueryException
+     *             if there is an unknown error
+     */
+    public CompletableFuture<GenericResponse<String>> predictAsync(String queryLogicName, MultiValueMap<String,String> parameters, String pool,
+                    DatawaveUserDetails currentUser) throws QueryException {
+        String user = ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName());
+        if (log.isDebugEnabled()) {
+            log.info("Request: {}/async/predict from {} with params: {}", queryLogicName, user, parameters);
+        } else {
+            log.info("Request: {}/async/predict from {}", queryLogicName, user);
+        }
+        
+        return submitPredict(queryLogicName, parameters, pool, currentUser);
+    }
+    
+    private CompletableFuture<GenericResponse<String>> submitPredict(String queryLogicName, MultiValueMap<String,String> parameters, String pool,
+                    DatawaveUserDetails currentUser) throws QueryException {
         try {
-            TaskKey taskKey = storeQuery(queryLogicName, parameters, pool, currentUser, PREDICT);
-            String queryPrediction = "no predictions";
-            QueryStatus status = queryStorageCache.getQueryStatus(taskKey.getQueryId());
-            if (status != null) {
-                Set<BaseQueryMetric.Prediction> predictions = status.getPredictions();
-                if (CollectionUtils.isNotEmpty(predictions)) {
-                    queryPrediction = predictions.toString();
-                }
+            // @formatter:off
+            StoredQuery storedQuery = persistQuery(queryLogicName, parameters, pool, currentUser, PREDICT, null);
+            if (storedQuery.planCacheLookup.isCached()) {
+                return CompletableFuture.completedFuture(createResponse(storedQuery.planCacheLookup.getCachedResult()));
             }
-            queryStorageCache.deleteQuery(taskKey.getQueryId());
-            GenericResponse<String> response = new GenericResponse<>();
-            response.setResult(queryPrediction);
-            response.setHasResults(true);
-            return response;
+            
+            return sendStoredQuery(storedQuery)
+                    .thenApply(taskKey -> {
+                        try {
+                            String queryPrediction = "no predictions";
+                            QueryStatus status = queryStorageCache.getQueryStatus(taskKey.getQueryId());
+                            if (status != null) {
+                                Set<BaseQueryMetric.Prediction> predictions = status.getPredictions();
+                                if (CollectionUtils.isNotEmpty(predictions)) {
+                                    queryPrediction = predictions.toString();
+                                }
+                                storedQuery.planCacheLookup.put(queryPrediction);
+                            }
+                            queryStorageCache.deleteQuery(taskKey.getQueryId());
+                            queryStatusChangeNotifier.release(taskKey.getQueryId());
+                            return createResponse(queryPrediction);
+                        } catch (Exception e) {
+                            log.error("Unknown error predicting query", e);
+                            throw new CompletionException(new QueryException(DatawaveErrorCode.QUERY_SETUP_ERROR, e, "Unknown error predicting query."));
+                        }
+                    });
+            // @formatter:on
         } catch (QueryException e) {
             throw e;
         } catch (Exception e) {
@@ -474,17 +648,142 @@ public class QueryManagementService implements QueryRequestHandler {
         }
     }
     
+    /**
+     * Creates a batch of queries using the given query logic.
+     * <p>
+     * Each query definition is a map of query parameter names to values, e.g. {@code {"query": ["FIELD:value"], "queryName": ["name"]}}, which override the
+     * shared parameters submitted with the batch. Every query is validated and audited on the request thread, and the {@link BatchQueryCreator} then stores
+     * the queries in parallel and publishes their create events. A query which is stored, but whose create event can't be published, is removed from query
+     * storage. <br>
+     * A failure to create one query does not prevent the remaining queries from being created. The response contains either the query id, or the error, for
+     * each query definition, in the order that they were submitted.
+     *
+     * @param queryLogicName
+     *            the requested query logic, not null
+     * @param parameters
+     *            the shared query parameters, not null
+     * @param queryDefinitions
+     *            the query parameters for each query in the batch, may be null
+     * @param pool
+     *            the pool to target, may be null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return a batch create response containing the query id or error for each query definition
+     * @throws BadRequestQueryException
+     *             if no query definitions were submitted
+     * @throws BadRequestQueryException
+     *             if too many query definitions were submitted
+     */
+    public BatchCreateResponse createBatch(String queryLogicName, MultiValueMap<String,String> parameters, List<Map<String,List<String>>> queryDefinitions,
+                    String pool, DatawaveUserDetails currentUser) throws QueryException {
+        String user = ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName());
+        int numQueries = (queryDefinitions != null) ? queryDefinitions.size() : 0;
+        if (log.isDebugEnabled()) {
+            log.info("Request: {}/createBatch of {} queries from {} with params: {}", queryLogicName, numQueries, user, parameters);
+        } else {
+            log.info("Request: {}/createBatch of {} queries from {}", queryLogicName, numQueries, user);
+        }
+        
+        // each query is prepared using a fresh copy of the request scoped beans
+        ThreadLocal<BaseQueryMetric> baseQueryMetricOverride = baseQueryMetric.getThreadLocalOverride();
+        BaseQueryMetric previousBaseQueryMetric = baseQueryMetricOverride.get();
+        BaseQueryMetric templateBaseQueryMetric = getRequestBaseQueryMetric().duplicate();
+        BatchCreateResponse response;
+        try {
+            // @formatter:off
+            response = batchQueryCreator.create(numQueries, new BatchQueryCreator.Stages<PreparedQuery,StoredQuery>() {
+                @Override
+                public PreparedQuery prepare(int index) throws QueryException {
+                    queryParameters.get().clear();
+                    querySecurityMarking.get().clear();
+                    baseQueryMetricOverride.set(templateBaseQueryMetric.duplicate());
+                    MultiValueMap<String,String> definitionParameters = new LinkedMultiValueMap<>(parameters).deepCopy();
+                    definitionParameters.putAll(getQueryDefinition(queryDefinitions.get(index)));
+                    return prepareQuery(queryLogicName, definitionParameters, pool, currentUser, CREATE, null);
+                }
+                
+                @Override
+                public StoredQuery store(PreparedQuery preparedQuery) throws QueryException {
+                    return storePreparedQuery(preparedQuery);
+                }
+                
+                @Override
+                public void submitQueryMetrics(List<PreparedQuery> preparedQueries) {
+                    queryMetricAggregator.submitAll(serverUserDetailsSupplier.get(),
+                            preparedQueries.stream().map(preparedQuery -> preparedQuery.requestBaseQueryMetric).collect(Collectors.toList()));
+                }
+                
+                @Override
+                public String getPool(StoredQuery storedQuery) {
+                    return storedQuery.computedPool;
+                }
+                
+                @Override
+                public CompletableFuture<String> send(StoredQuery storedQuery) throws QueryException {
+                    return sendStoredQuery(storedQuery).thenApply(TaskKey::getQueryId);
+                }
+            });
+            // @formatter:on
+        } finally {
+            if (previousBaseQueryMetric != null) {
+                baseQueryMetricOverride.set(previousBaseQueryMetric);
+            } else {
+                baseQueryMetricOverride.remove();
+            }
+        }
+        
+        long numCreated = response.getResults().stream().filter(result -> result.getQueryId() != null).count();
+        log.info("Created {} of {} queries in batch for {}", numCreated, numQueries, user);
+        return response;
+    }
+    
+    private MultiValueMap<String,String> getQueryDefinition(Map<String,List<String>> queryDefinition) throws BadRequestQueryException {
+        if (queryDefinition == null || queryDefinition.values().stream().anyMatch(Objects::isNull)) {
+            throw new BadRequestQueryException("Query definitions must map each parameter to a list of values.", HttpStatus.SC_BAD_REQUEST + "-1");
+        }
+        MultiValueMap<String,String> definitionParameters = new LinkedMultiValueMap<>();
+        queryDefinition.forEach((name, values) -> definitionParameters.put(name, new ArrayList<>(values)));
+        return definitionParameters;
+    }
+    
+    private GenericResponse<String> createResponse(String result) {
+        GenericResponse<String> response = new GenericResponse<>();
+        response.setResult(result);
+        response.setHasResults(true);
+        return response;
+    }
+    
+    /**
+     * Waits for the given future, and rethrows any {@link QueryException} that it was completed with.
+     */
+    private <T> T join(CompletableFuture<T> future) throws QueryException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof QueryException) {
+                throw (QueryException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
     private TaskKey storeQuery(String queryLogicName, MultiValueMap<String,String> parameters, String pool, DatawaveUserDetails currentUser,
                     QueryStatus.QUERY_STATE queryType) throws QueryException {
         return storeQuery(queryLogicName, parameters, pool, currentUser, queryType, null);
     }
     
+    private TaskKey storeQuery(String queryLogicName, MultiValueMap<String,String> parameters, String pool, DatawaveUserDetails currentUser,
+                    QueryStatus.QUERY_STATE queryType, String queryId) throws QueryException {
+        return join(storeQueryAsync(queryLogicName, parameters, pool, currentUser, queryType, queryId));
+    }
+    
     /**
      * Validates the query request, creates an entry in the query storage cache, and publishes a create event to the executor service.
      * <p>
      * Validation is run against the requested logic, the parameters, and the security markings in {@link #validateQuery}. <br>
      * Auditing is performed when {@code isCreateRequest} is <code>true</code> using {@link #audit}. <br>
-     * If {@code queryId} is null, a query id will be generated automatically.
+     * If {@code queryId} is null, a query id will be generated automatically. <br>
+     * The returned future is completed once the executor service has responded to any request which needs to be awaited.
      *
      * @param queryLogicName
      *            the requested query logic, not null
@@ -498,7 +797,7 @@ public class QueryManagementService implements QueryRequestHandler {
      *            whether this is a define, create, or plan call
      * @param queryId
      *            the desired query id, may be null
-     * @return the task key returned from query storage
+     * @return a future which will be completed with the task key returned from query storage
      * @throws BadRequestQueryException
      *             if parameter validation fails
      * @throws BadRequestQueryException
@@ -514,21 +813,52 @@ public class QueryManagementService implements QueryRequestHandler {
      * @throws QueryException
      *             if there is an unknown error
      */
-    private TaskKey storeQuery(String queryLogicName, MultiValueMap<String,String> parameters, String pool, DatawaveUserDetails currentUser,
+    private CompletableFuture<TaskKey> storeQueryAsync(String queryLogicName, MultiValueMap<String,String> parameters, String pool,
+                    DatawaveUserDetails currentUser, QueryStatus.QUERY_STATE queryType, String queryId) throws BadRequestQueryException, QueryException {
+        return sendStoredQuery(persistQuery(queryLogicName, parameters, pool, currentUser, queryType, queryId));
+    }
+    
+    /**
+     * Validates the query request, audits it if necessary, and creates an entry in the query storage cache, without publishing anything to the executor
+     * service. The parameters and exceptions are the same as for {@link #storeQueryAsync}.
+     */
+    private StoredQuery persistQuery(String queryLogicName, MultiValueMap<String,String> parameters, String pool, DatawaveUserDetails currentUser,
+                    QueryStatus.QUERY_STATE queryType, String queryId) throws BadRequestQueryException, QueryException {
+        PreparedQuery preparedQuery = prepareQuery(queryLogicName, parameters, pool, currentUser, queryType, queryId);
+        StoredQuery storedQuery = storePreparedQuery(preparedQuery);
+        queryMetricAggregator.submit(serverUserDetailsSupplier.get(), preparedQuery.requestBaseQueryMetric);
+        return storedQuery;
+    }
+    
+    /**
+     * Validates the query request, submits the audit record if necessary, and downgrades the auths. Everything which depends on the request scoped beans is
+     * done here, so that the query can then be stored from any thread using {@link #storePreparedQuery}. The parameters and exceptions are the same as for
+     * {@link #storeQueryAsync}.
+     */
+    private PreparedQuery prepareQuery(String queryLogicName, MultiValueMap<String,String> parameters, String pool, DatawaveUserDetails currentUser,
                     QueryStatus.QUERY_STATE queryType, String queryId) throws BadRequestQueryException, QueryException {
         long callStartTimeMillis = System.currentTimeMillis();
         
         // validate query and get a query logic
         QueryLogic<?> queryLogic = validateQuery(queryLogicName, parameters, currentUser);
         
+        String computedPool = getPoolName(pool, isAdminUser(currentUser));
+        
+        // turn the create away before we do any more work if the pool or the user is out of capacity
+        if (queryType == CREATE) {
+            queryAdmissionControl.admit(computedPool, queryLogic.getConnPoolName(), currentUser);
+        }
+        
         String userId = ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName());
         log.trace("{} has authorizations {}", userId, currentUser.getPrimaryUser().getAuths());
         
         Query query = createQuery(queryLogicName, parameters, currentUser, queryId);
         
         // if this is a create request, or a plan request where we are expanding values, send an audit record to the auditor
+        // the audit is submitted while we downgrade the auths and stage the query, and nothing is released until it is acknowledged
+        CompletableFuture<Void> auditSubmission = null;
         if (queryType == CREATE || (queryType == PLAN && queryParameters.get().isExpandValues())) {
-            audit(query, queryLogic, parameters, currentUser);
+            auditSubmission = auditAsync(query, queryLogic, parameters, currentUser);
         }
         
         // downgrade the auths
@@ -542,54 +872,111 @@ public class QueryManagementService implements QueryRequestHandler {
                 queryLogic.preInitialize(query,
                                 AuthorizationsUtil.buildAuthorizations(Collections.singleton(AuthorizationsUtil.splitAuths(query.getQueryAuthorizations()))));
             }
-            // the query principal is our local principal unless the query logic has a different user operations
-            DatawaveUserDetails queryUserDetails = (DatawaveUserDetails) ((queryLogic.getUserOperations() == null) ? currentUser
-                            : queryLogic.getUserOperations().getRemoteUser(currentUser));
-            // the overall principal (the one with combined auths across remote user operations) is our own user operations (probably the UserOperationsBean)
-            // don't call remote user operations if it's asked not to
-            DatawaveUserDetails overallUserDetails = (queryLogic.getUserOperations() == null
-                            || "false".equalsIgnoreCase(parameters.getFirst(FederatedAuthorizationService.INCLUDE_REMOTE_SERVICES))) ? queryUserDetails
-                                            : queryLogic.getUserOperations().getRemoteUser(queryUserDetails);
-            downgradedAuthorizations = AuthorizationsUtil.getDowngradedAuthorizations(requestQueryParameters.getAuths(), overallUserDetails, queryUserDetails);
+            // the downgraded auths are cached per user, since bursts of creates from the same user will get the same answer
+            String requestedAuths = requestQueryParameters.getAuths();
+            boolean includeRemoteServices = !"false".equalsIgnoreCase(parameters.getFirst(FederatedAuthorizationService.INCLUDE_REMOTE_SERVICES));
+            downgradedAuthorizations = userAuthorizationsCache.getDowngradedAuthorizations(queryLogicName, requestedAuths, includeRemoteServices, currentUser,
+                            () -> getDowngradedAuthorizations(queryLogicName, queryLogic, requestedAuths, includeRemoteServices, currentUser));
         } catch (Exception e) {
+            auditSubmitter.awaitQuietly(auditSubmission);
             throw new BadRequestQueryException("Unable to downgrade authorizations", e, HttpStatus.SC_BAD_REQUEST + "-1");
         }
         
+        // a plan or prediction which was recently computed for an equivalent query is returned without storing the query or going to the executor service
+        QueryPlanCache.Lookup planCacheLookup = null;
+        if (queryType == PLAN || queryType == PREDICT) {
+            planCacheLookup = queryPlanCache.lookup(queryType, computedPool, query, downgradedAuthorizations, requestQueryParameters.isExpandFields(),
+                            requestQueryParameters.isExpandValues());
+            if (planCacheLookup.isCached()) {
+                log.debug("Using the cached {} result for query {}", queryType, query.getId());
+                awaitAudit(auditSubmission, null, query);
+                return new PreparedQuery(queryType, query, currentUser, computedPool, downgradedAuthorizations, 0, null, callStartTimeMillis, planCacheLookup,
+                                baseQueryMetric.get());
+            }
+        }
+        
+        int maxConcurrentTasks = (queryType == DEFINE || queryType == CREATE) ? getMaxConcurrentTasks(queryLogic) : 0;
+        // @formatter:off
+        return new PreparedQuery(
+                queryType,
+                query,
+                currentUser,
+                computedPool,
+                downgradedAuthorizations,
+                maxConcurrentTasks,
+                auditSubmission,
+                callStartTimeMillis,
+                planCacheLookup,
+                baseQueryMetric.get());
+        // @formatter:on
+    }
+    
+    /**
+     * Creates the entry in the query storage cache for a prepared query, and waits for its audit to be acknowledged. A created query whose audit is still
+     * pending is staged as a defined query, and is only promoted to a created query and indexed once the audit has been acknowledged, so that no instance
+     * will run it, or list it as created, before then. This does not use any of the request scoped beans, so it can be called from any thread. The query
+     * metric is updated, but not submitted.
+     *
+     * @param preparedQuery
+     *            the prepared query, not null
+     * @return the stored query
+     * @throws BadRequestQueryException
+     *             if auditing fails
+     * @throws QueryException
+     *             if query storage fails
+     */
+    private StoredQuery storePreparedQuery(PreparedQuery preparedQuery) throws BadRequestQueryException, QueryException {
+        if (preparedQuery.planCacheLookup != null && preparedQuery.planCacheLookup.isCached()) {
+            // @formatter:off
+            return new StoredQuery(
+                    null,
+                    null,
+                    preparedQuery.query,
+                    null,
+                    false,
+                    preparedQuery.callStartTimeMillis,
+                    preparedQuery.planCacheLookup);
+            // @formatter:on
+        }
+        
+        QueryStatus.QUERY_STATE queryType = preparedQuery.queryType;
+        Query query = preparedQuery.query;
+        CompletableFuture<Void> auditSubmission = preparedQuery.auditSubmission;
+        
+        StoredQuery storedQuery;
         try {
-            String computedPool = getPoolName(pool, isAdminUser(currentUser));
+            String computedPool = preparedQuery.computedPool;
             QueryRequest queryRequest = null;
             boolean awaitExecutorResponse = false;
             
             // persist the query w/ query id in the query storage cache
+            // a created query which is still being audited is stored as a defined query, and promoted once the audit has been acknowledged
             TaskKey taskKey = null;
-            if (queryType == DEFINE) {
+            if (queryType == DEFINE || (queryType == CREATE && auditSubmission != null)) {
                 // @formatter:off
                 taskKey = queryStorageCache.defineQuery(
                         computedPool,
                         query,
-                        currentUser,
-                        downgradedAuthorizations,
-                        getMaxConcurrentTasks(queryLogic));
+                        preparedQuery.currentUser,
+                        preparedQuery.downgradedAuthorizations,
+                        preparedQuery.maxConcurrentTasks);
                 // @formatter:on
             } else if (queryType == CREATE) {
                 // @formatter:off
                 taskKey = queryStorageCache.createQuery(
                         computedPool,
                         query,
-                        currentUser,
-                        downgradedAuthorizations,
-                        getMaxConcurrentTasks(queryLogic));
+                        preparedQuery.currentUser,
+                        preparedQuery.downgradedAuthorizations,
+                        preparedQuery.maxConcurrentTasks);
                 // @formatter:on
-                
-                queryRequest = QueryRequest.create(taskKey.getQueryId());
-                awaitExecutorResponse = queryProperties.isAwaitExecutorCreateResponse();
             } else if (queryType == PLAN) {
                 // @formatter:off
                 taskKey = queryStorageCache.planQuery(
                         computedPool,
                         query,
-                        currentUser,
-                        downgradedAuthorizations);
+                        preparedQuery.currentUser,
+                        preparedQuery.downgradedAuthorizations);
                 // @formatter:on
                 
                 queryRequest = QueryRequest.plan(taskKey.getQueryId());
@@ -599,8 +986,8 @@ public class QueryManagementService implements QueryRequestHandler {
                 taskKey = queryStorageCache.predictQuery(
                         computedPool,
                         query,
-                        currentUser,
-                        downgradedAuthorizations);
+                        preparedQuery.currentUser,
+                        preparedQuery.downgradedAuthorizations);
                 // @formatter:on
                 queryRequest = QueryRequest.predict(taskKey.getQueryId());
                 awaitExecutorResponse = true;
@@ -611,94 +998,242 @@ public class QueryManagementService implements QueryRequestHandler {
                 throw new QueryException(DatawaveErrorCode.RUNNING_QUERY_CACHE_ERROR);
             }
             
-            // update the query metric
-            BaseQueryMetric requestBaseQueryMetric = baseQueryMetric.get();
-            if (queryType == DEFINE || queryType == CREATE) {
-                requestBaseQueryMetric.setQueryId(taskKey.getQueryId());
-                requestBaseQueryMetric.setLifecycle(BaseQueryMetric.Lifecycle.DEFINED);
-                requestBaseQueryMetric.populate(query);
-                requestBaseQueryMetric.setProxyServers(getDNs(currentUser));
+            if (queryType == CREATE) {
+                queryRequest = QueryRequest.create(taskKey.getQueryId());
+                awaitExecutorResponse = queryProperties.isAwaitExecutorCreateResponse();
             }
             
-            try {
-                // @formatter:off
-                queryMetricClient.submit(
-                        new QueryMetricClient.Request.Builder()
-                                .withUser(serverUserDetailsSupplier.get())
-                                .withMetric(requestBaseQueryMetric)
-                                .withMetricType(QueryMetricType.DISTRIBUTED)
-                                .build());
-                // @formatter:on
-            } catch (Exception e) {
-                log.error("Error updating query metric", e);
+            // index the query so that it can be listed by owner and query name
+            if (queryType == DEFINE || (queryType == CREATE && auditSubmission == null)) {
+                queryStatusIndex.add(query);
             }
             
-            if (queryRequest != null) {
-                // @formatter:off
-                sendRequestAwaitResponse(
-                        queryRequest,
-                        computedPool,
-                        awaitExecutorResponse,
-                        callStartTimeMillis);
-                // @formatter:on
-            }
-            
-            return taskKey;
+            // @formatter:off
+            storedQuery = new StoredQuery(
+                    taskKey,
+                    queryRequest,
+                    query,
+                    computedPool,
+                    awaitExecutorResponse,
+                    preparedQuery.callStartTimeMillis,
+                    preparedQuery.planCacheLookup);
+            // @formatter:on
         } catch (Exception e) {
+            auditSubmitter.awaitQuietly(auditSubmission);
             log.error("Unknown error storing query", e);
             throw new QueryException(DatawaveErrorCode.RUNNING_QUERY_CACHE_ERROR, e);
         }
+        
+        // the query is staged, but it won't be runnable or published to the executor service until the audit has been acknowledged
+        if (auditSubmission != null) {
+            awaitAudit(auditSubmission, storedQuery.taskKey, query);
+            
+            if (queryType == CREATE) {
+                promoteStagedQuery(storedQuery.taskKey, query);
+            }
+        }
+        
+        // update the query metric
+        if (queryType == DEFINE || queryType == CREATE) {
+            BaseQueryMetric requestBaseQueryMetric = preparedQuery.requestBaseQueryMetric;
+            requestBaseQueryMetric.setQueryId(storedQuery.taskKey.getQueryId());
+            requestBaseQueryMetric.setLifecycle(BaseQueryMetric.Lifecycle.DEFINED);
+            requestBaseQueryMetric.populate(query);
+            requestBaseQueryMetric.setProxyServers(getDNs(preparedQuery.currentUser));
+        }
+        
+        return storedQuery;
     }
     
-    private void sendRequestAwaitResponse(QueryRequest request, String computedPool, boolean isAwaitResponse, long startTimeMillis) throws QueryException {
-        if (isAwaitResponse) {
-            // before publishing the message, create a latch based on the query ID
-            queryLatchMap.put(request.getQueryId(), new CountDownLatch(1));
+    /**
+     * Validates and builds the audit record for the query on the calling thread, and then submits it to the audit service using the {@link AuditSubmitter}.
+     *
+     * @param query
+     *            the query to be audited, not null
+     * @param queryLogic
+     *            the query logic, not null
+     * @param parameters
+     *            the query parameters, not null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return a future which will be completed once the audit service has acknowledged the audit record, or completed exceptionally with a
+     *         {@link BadRequestQueryException} if the submission failed, or null if there is no audit left pending
+     * @throws BadRequestQueryException
+     *             if the audit parameters fail validation, or if the audit pipeline is disabled and the submission failed
+     */
+    private CompletableFuture<Void> auditAsync(Query query, QueryLogic<?> queryLogic, MultiValueMap<String,String> parameters, DatawaveUserDetails currentUser)
+                    throws BadRequestQueryException {
+        AuditClient.Request auditRequest = createAuditRequest(query, queryLogic, parameters, currentUser);
+        if (auditRequest == null) {
+            return null;
+        }
+        return auditSubmitter.submitAsync(query.getId().toString(), auditRequest);
+    }
+    
+    /**
+     * Waits for the audit of a staged query to be acknowledged. If the audit failed, the staged query is removed from query storage before the audit failure
+     * is rethrown, so that a query which was never audited can't be run.
+     *
+     * @param auditSubmission
+     *            the audit submission, may be null
+     * @param taskKey
+     *            the task key for the staged query, or null if nothing was stored
+     * @param query
+     *            the staged query, not null
+     * @throws BadRequestQueryException
+     *             if there was an error auditing the query
+     */
+    private void awaitAudit(CompletableFuture<Void> auditSubmission, TaskKey taskKey, Query query) throws BadRequestQueryException {
+        try {
+            auditSubmitter.await(auditSubmission);
+        } catch (BadRequestQueryException e) {
+            if (taskKey != null) {
+                log.error("Audit failed for query {}, removing the staged query", taskKey.getQueryId());
+                removeStagedQuery(taskKey, query);
+            } else {
+                log.error("Audit failed for query {}", query.getId());
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Promotes a created query which was staged as a defined query while it was being audited, so that it can be run, and then indexes it. If the staged
+     * query is no longer a defined query, or the promotion fails, the staged query is removed from query storage.
+     *
+     * @param taskKey
+     *            the task key for the staged query, not null
+     * @param query
+     *            the staged query, not null
+     * @throws QueryException
+     *             if the staged query cannot be promoted
+     */
+    private void promoteStagedQuery(TaskKey taskKey, Query query) throws QueryException {
+        AtomicReference<QueryStatus.QUERY_STATE> stagedState = new AtomicReference<>();
+        try {
+            queryStatusUpdateUtil.lockedUpdate(taskKey.getQueryId(), status -> {
+                stagedState.set(status.getQueryState());
+                if (status.getQueryState() == DEFINE) {
+                    status.setQueryState(CREATE);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Unable to promote staged query {}, removing the staged query", taskKey.getQueryId(), e);
+            removeStagedQuery(taskKey, query);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new QueryException(DatawaveErrorCode.RUNNING_QUERY_CACHE_ERROR, e);
+        }
+        
+        if (stagedState.get() != DEFINE) {
+            log.error("Staged query {} was {} rather than {} when its audit was acknowledged, removing the staged query", taskKey.getQueryId(),
+                            stagedState.get(), DEFINE);
+            removeStagedQuery(taskKey, query);
+            throw new QueryException(DatawaveErrorCode.RUNNING_QUERY_CACHE_ERROR);
+        }
+        
+        queryStatusIndex.add(query);
+    }
+    
+    /**
+     * Removes a query which was stored, but never published to the executor service, so that it isn't left behind in query storage.
+     *
+     * @param taskKey
+     *            the task key for the staged query, not null
+     * @param query
+     *            the staged query, not null
+     */
+    private void removeStagedQuery(TaskKey taskKey, Query query) {
+        try {
+            queryStatusIndex.remove(query);
+            queryStorageCache.deleteQuery(taskKey.getQueryId());
+            queryStatusChangeNotifier.release(taskKey.getQueryId());
+        } catch (Exception e) {
+            log.error("Unable to remove staged query {}", taskKey.getQueryId(), e);
+        }
+    }
+    
+    /**
+     * Publishes the executor request for a stored query, if there is one.
+     *
+     * @param storedQuery
+     *            the stored query, not null
+     * @return a future which will be completed with the stored query's task key once the executor service has responded, if we are awaiting a response
+     * @throws QueryException
+     *             if the request cannot be published
+     */
+    private CompletableFuture<TaskKey> sendStoredQuery(StoredQuery storedQuery) throws QueryException {
+        if (storedQuery.queryRequest == null) {
+            return CompletableFuture.completedFuture(storedQuery.taskKey);
         }
         
+        try {
+            // @formatter:off
+            return sendRequest(
+                    storedQuery.queryRequest,
+                    storedQuery.computedPool,
+                    storedQuery.awaitExecutorResponse,
+                    storedQuery.callStartTimeMillis)
+                    .handle((response, e) -> {
+                        if (e != null) {
+                            Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+                            log.error("Unknown error storing query", cause);
+                            throw new CompletionException(new QueryException(DatawaveErrorCode.RUNNING_QUERY_CACHE_ERROR, cause));
+                        }
+                        return storedQuery.taskKey;
+                    });
+            // @formatter:on
+        } catch (Exception e) {
+            // the query was stored, but the executor service will never hear about it, so don't leave it behind
+            log.error("Unable to publish query {}, removing the staged query", storedQuery.taskKey.getQueryId(), e);
+            removeStagedQuery(storedQuery.taskKey, storedQuery.query);
+            throw new QueryException(DatawaveErrorCode.RUNNING_QUERY_CACHE_ERROR, e);
+        }
+    }
+    
+    private Set<Authorizations> getDowngradedAuthorizations(String queryLogicName, QueryLogic<?> queryLogic, String requestedAuths,
+                    boolean includeRemoteServices, DatawaveUserDetails currentUser) throws Exception {
+        // the query principal is our local principal unless the query logic has a different user operations
+        DatawaveUserDetails queryUserDetails = (queryLogic.getUserOperations() == null) ? currentUser
+                        : userAuthorizationsCache.getRemoteUser(queryLogicName, currentUser,
+                                        () -> (DatawaveUserDetails) queryLogic.getUserOperations().getRemoteUser(currentUser));
+        // the overall principal (the one with combined auths across remote user operations) is our own user operations (probably the UserOperationsBean)
+        // don't call remote user operations if it's asked not to
+        DatawaveUserDetails overallUserDetails = (queryLogic.getUserOperations() == null || !includeRemoteServices) ? queryUserDetails
+                        : userAuthorizationsCache.getRemoteUser(queryLogicName, queryUserDetails,
+                                        () -> (DatawaveUserDetails) queryLogic.getUserOperations().getRemoteUser(queryUserDetails));
+        return AuthorizationsUtil.getDowngradedAuthorizations(requestedAuths, overallUserDetails, queryUserDetails);
+    }
+    
+    /**
+     * Publishes the request to the executor service.
+     * <p>
+     * If we are awaiting the executor's response, the returned future is completed by the {@link ExecutorResponseRegistry} when the response is received, when
+     * the query fails or is canceled, or when the call times out. Nothing is polled while waiting unless query status changes are not being pushed to us.
+     *
+     * @param request
+     *            the query request, not null
+     * @param computedPool
+     *            the pool to target, not null
+     * @param isAwaitResponse
+     *            whether to wait for the executor's response
+     * @param startTimeMillis
+     *            the time that the call started
+     * @return a future which will be completed once we are done waiting
+     */
+    private CompletableFuture<Void> sendRequest(QueryRequest request, String computedPool, boolean isAwaitResponse, long startTimeMillis) {
+        // before publishing the message, register for the executor's response
+        CompletableFuture<Void> response = (isAwaitResponse) ? executorResponseRegistry.register(request, startTimeMillis)
+                        : CompletableFuture.completedFuture(null);
+        
         // publish an event to the executor pool
         publishExecutorEvent(request, computedPool);
         
         if (isAwaitResponse) {
             log.info("Waiting on query {} response from the executor.", request.getMethod().name());
-            
-            try {
-                boolean isFinished = false;
-                while (!isFinished && System.currentTimeMillis() < (startTimeMillis + queryProperties.getExpiration().getCallTimeoutMillis())) {
-                    try {
-                        // wait for the executor response
-                        if (queryLatchMap.get(request.getQueryId()).await(queryProperties.getExpiration().getCallTimeoutInterval(),
-                                        queryProperties.getExpiration().getCallTimeoutIntervalUnit())) {
-                            log.info("Received query {} response from the executor.", request.getMethod().name());
-                            isFinished = true;
-                        }
-                        
-                        // did the request fail?
-                        QueryStatus queryStatus = queryStorageCache.getQueryStatus(request.getQueryId());
-                        if (!queryStatus.isRunning()) {
-                            if (queryStatus.getQueryState() == FAIL) {
-                                log.error("Query {} failed for queryId {}: {}", request.getMethod().name(), request.getQueryId(),
-                                                queryStatus.getFailureMessage());
-                                throw new QueryException(queryStatus.getErrorCode(), "Query " + request.getMethod().name() + " failed for queryId "
-                                                + request.getQueryId() + ": " + queryStatus.getFailureMessage());
-                            } else if (queryStatus.getQueryState() == CANCEL) {
-                                log.error("Query {} failed for queryId {}: {}", request.getMethod().name(), request.getQueryId(),
-                                                queryStatus.getFailureMessage());
-                                throw new QueryCanceledQueryException(DatawaveErrorCode.QUERY_CANCELED,
-                                                MessageFormat.format("Query {0} canceled for queryId {1}", request.getMethod().name(), request.getQueryId()));
-                            } else if (queryStatus.getQueryState() == CLOSE) {
-                                log.error("Query {} was closed for queryId {}", request.getMethod().name(), request.getQueryId());
-                                isFinished = true;
-                            }
-                        }
-                    } catch (InterruptedException e) {
-                        log.warn("Interrupted while waiting for query {} latch for queryId {}", request.getMethod().name(), request.getQueryId());
-                    }
-                }
-            } finally {
-                queryLatchMap.remove(request.getQueryId());
-            }
         }
+        return response;
     }
     
     /**
@@ -838,6 +1373,195 @@ public class QueryManagementService implements QueryRequestHandler {
         }
     }
     
+    /**
+     * Creates a query using the given query logic and parameters, and asynchronously gets the first page of results.
+     * <p>
+     * This behaves like {@link #createAndNext}, except that the calling thread is released as soon as the query has been stored and the create request has
+     * been published to the executor service. The first next call is submitted once the executor has responded to the create request. The returned future is
+     * completed with the first page of results, or completed exceptionally with a {@link QueryException} if the create or the next call fails. If the
+     * returned future is canceled, e.g. because the async request timed out, whichever of the create or the next call is still pending is canceled as well.
+     *
+     * @param queryLogicName
+     *            the requested query logic, not null
+     * @param parameters
+     *            the query parameters, not null
+     * @param pool
+     *            the pool to target, may be null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return a future which will be completed with a base query response containing the first page of results
+     * @throws BadRequestQueryException
+     *             if parameter validation fails
+     * @throws BadRequestQueryException
+     *             if query logic parameter validation fails
+     * @throws UnauthorizedQueryException
+     *             if the user doesn't have access to the requested query logic
+     * @throws BadRequestQueryException
+     *             if security marking validation fails
+     * @throws BadRequestQueryException
+     *             if auditing fails
+     * @throws QueryException
+     *             if query storage fails
+     * @throws QueryException
+     *             if this next task is rejected by the executor
+     * @throws QueryException
+     *             if there is an unknown error
+     */
+    public CompletableFuture<BaseQueryResponse> createAndNextAsync(String queryLogicName, MultiValueMap<String,String> parameters, String pool,
+                    DatawaveUserDetails currentUser) throws QueryException {
+        String user = ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName());
+        if (log.isDebugEnabled()) {
+            log.info("Request: {}/async/createAndNext from {} with params: {}", queryLogicName, user, parameters);
+        } else {
+            log.info("Request: {}/async/createAndNext from {}", queryLogicName, user);
+        }
+        
+        BaseQueryMetric requestBaseQueryMetric = getRequestBaseQueryMetric();
+        
+        // the next call is submitted by whichever thread completes the create, so keep hold of the pending stages in case the caller gives up
+        CompletableFuture<GenericResponse<String>> createResponse = submitCreate(queryLogicName, parameters, pool, currentUser);
+        AtomicReference<CompletableFuture<BaseQueryResponse>> nextResponse = new AtomicReference<>();
+        
+        // if the caller gives up on the response (e.g. the async request timed out), cancel the create, or stop the next call early
+        CompletableFuture<BaseQueryResponse> response = new CompletableFuture<>();
+        response.whenComplete((r, e) -> {
+            if (response.isCancelled()) {
+                createResponse.cancel(false);
+                CompletableFuture<BaseQueryResponse> next = nextResponse.get();
+                if (next != null) {
+                    next.cancel(false);
+                }
+            }
+        });
+        
+        // @formatter:off
+        createResponse
+                .thenCompose(created -> {
+                    if (response.isCancelled()) {
+                        log.debug("Query [{}]: Not calling next after create, the caller gave up on the response", created.getResult());
+                        return response;
+                    }
+                    CompletableFuture<BaseQueryResponse> next = submitCreateAndNextCall(created.getResult(), currentUser, requestBaseQueryMetric);
+                    nextResponse.set(next);
+                    
+                    // the caller may have given up while the next call was being submitted
+                    if (response.isCancelled()) {
+                        next.cancel(false);
+                    }
+                    return next;
+                })
+                .whenComplete((r, e) -> {
+                    if (e != null) {
+                        response.completeExceptionally((e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e);
+                    } else {
+                        response.complete(r);
+                    }
+                });
+        // @formatter:on
+        
+        return response;
+    }
+    
+    /**
+     * Submits the first next call for a query which was created by {@link #createAndNextAsync}, on the thread which completed the create.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param currentUser
+     *            the user who called create and next, not null
+     * @param requestBaseQueryMetric
+     *            the query metric for the originating request, not null
+     * @return a future which will be completed with a base query response containing the first page of results
+     */
+    private CompletableFuture<BaseQueryResponse> submitCreateAndNextCall(String queryId, DatawaveUserDetails currentUser,
+                    BaseQueryMetric requestBaseQueryMetric) {
+        // we are probably no longer on the request thread, so make sure anything which updates the query metric uses the request's metric
+        ThreadLocal<BaseQueryMetric> baseQueryMetricOverride = baseQueryMetric.getThreadLocalOverride();
+        BaseQueryMetric previousBaseQueryMetric = baseQueryMetricOverride.get();
+        baseQueryMetricOverride.set(requestBaseQueryMetric);
+        try {
+            return executeNextAsync(queryId, currentUser, requestBaseQueryMetric, "Unknown error calling create and next. " + queryId);
+        } catch (Exception e) {
+            QueryException qe;
+            if (!(e instanceof QueryException)) {
+                log.error("Unknown error calling create and next. {}", queryId, e);
+                qe = new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e, "Unknown error calling create and next. " + queryId);
+            } else {
+                qe = (QueryException) e;
+            }
+            
+            if (!(qe instanceof NoResultsQueryException)) {
+                requestBaseQueryMetric.setError(qe);
+            }
+            
+            return CompletableFuture.failedFuture(qe);
+        } finally {
+            if (previousBaseQueryMetric != null) {
+                baseQueryMetricOverride.set(previousBaseQueryMetric);
+            } else {
+                baseQueryMetricOverride.remove();
+            }
+        }
+    }
+    
+    /**
+     * Asynchronously gets the next page of results for the specified query.
+     * <p>
+     * This behaves like {@link #next(String, DatawaveUserDetails)}, except that the calling thread is released as soon as the next call has been submitted.
+     * The returned future is completed with the next page of results, or completed exceptionally with a {@link QueryException} if the next call fails.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return a future which will be completed with a base query response containing the next page of results
+     * @throws NotFoundQueryException
+     *             if the query cannot be found
+     * @throws UnauthorizedQueryException
+     *             if the user doesn't own the query
+     * @throws BadRequestQueryException
+     *             if the query is not running
+     * @throws QueryException
+     *             if query lock acquisition fails
+     * @throws QueryException
+     *             if this next task is rejected by the executor
+     * @throws QueryException
+     *             if query logic creation fails
+     * @throws QueryException
+     *             if there is an unknown error
+     */
+    public CompletableFuture<BaseQueryResponse> nextAsync(String queryId, DatawaveUserDetails currentUser) throws QueryException {
+        log.info("Request: async next from {} for {}", ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()), queryId);
+        
+        BaseQueryMetric requestBaseQueryMetric = getRequestBaseQueryMetric();
+        
+        try {
+            // make sure the query is valid, and the user can act on it
+            QueryStatus queryStatus = validateRequest(queryId, currentUser);
+            
+            // make sure the state is created
+            if (queryStatus.getQueryState() == CREATE) {
+                return executeNextAsync(queryId, currentUser, requestBaseQueryMetric, "Unknown error getting next page for query " + queryId);
+            } else {
+                throw new BadRequestQueryException("Cannot call next on a query that is not running", HttpStatus.SC_BAD_REQUEST + "-1");
+            }
+        } catch (Exception e) {
+            QueryException qe;
+            if (!(e instanceof QueryException)) {
+                log.error("Unknown error getting next page for query {}", queryId, e);
+                qe = new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e, "Unknown error getting next page for query " + queryId);
+            } else {
+                qe = (QueryException) e;
+            }
+            
+            if (!(qe instanceof NoResultsQueryException)) {
+                requestBaseQueryMetric.setError(qe);
+            }
+            
+            throw qe;
+        }
+    }
+    
     /**
      * Gets the next page of results for the given query, and publishes a next event to the executor service.
      * <p>
@@ -865,94 +1589,379 @@ public class QueryManagementService implements QueryRequestHandler {
      * @throws QueryException
      *             if query logic creation fails
      */
-    private BaseQueryResponse executeNext(String queryId, DatawaveUserDetails currentUser) throws InterruptedException, QueryException {
+    private BaseQueryResponse executeNext(String queryId, DatawaveUserDetails currentUser) throws InterruptedException, QueryException {
+        SubmittedNextCall submittedNextCall = submitNextCall(queryId, currentUser, baseQueryMetric.get());
+        
+        // wait for the results to be ready
+        ResultsPage<Object> resultsPage = null;
+        Throwable failure = null;
+        try {
+            resultsPage = submittedNextCall.future.get();
+        } catch (ExecutionException e) {
+            failure = e.getCause();
+        } catch (InterruptedException e) {
+            failure = e;
+        }
+        
+        return completeNextCall(submittedNextCall, resultsPage, failure);
+    }
+    
+    /**
+     * Asynchronously gets the next page of results for the given query, and publishes a next event to the executor service.
+     * <p>
+     * The next call is submitted on the calling thread, but the response is created, and the query status is updated, by whichever thread completes the next
+     * call. Any failure after the next call has been submitted is recorded against the given query metric, and surfaces as a {@link QueryException} via the
+     * returned future. If the returned future is canceled, the next call is stopped early and its page is kept for the next call for the query.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @param requestBaseQueryMetric
+     *            the query metric for the originating request, not null
+     * @param unknownErrorMessage
+     *            the error message to use if the next call fails with an unexpected error
+     * @return a future which will be completed with a base query response containing the next page of results
+     * @throws NotFoundQueryException
+     *             if the query cannot be found
+     * @throws QueryException
+     *             if query lock acquisition fails
+     * @throws InterruptedException
+     *             if query lock acquisition is interrupted
+     * @throws QueryException
+     *             if this next task is rejected by the executor
+     * @throws QueryException
+     *             if query logic creation fails
+     */
+    private CompletableFuture<BaseQueryResponse> executeNextAsync(String queryId, DatawaveUserDetails currentUser, BaseQueryMetric requestBaseQueryMetric,
+                    String unknownErrorMessage) throws InterruptedException, QueryException {
+        SubmittedNextCall submittedNextCall = submitNextCall(queryId, currentUser, requestBaseQueryMetric);
+        
+        // if the caller gives up on the response (e.g. the async request timed out), stop the next call early so that its page can be kept for the next call
+        CompletableFuture<BaseQueryResponse> response = new CompletableFuture<>();
+        response.whenComplete((r, e) -> {
+            if (response.isCancelled()) {
+                // a next call which is still queued is dropped from the queue, rather than being started for nobody
+                nextCallScheduler.cancelIfQueued(submittedNextCall.future);
+                submittedNextCall.nextCall.cancel();
+            }
+        });
+        
+        submittedNextCall.future.completable().whenComplete((resultsPage, failure) -> {
+            if (response.isCancelled()) {
+                abandonNextCall(submittedNextCall, resultsPage);
+                return;
+            }
+            
+            // we are probably no longer on the request thread, so make sure anything which updates the query metric uses the request's metric
+            ThreadLocal<BaseQueryMetric> baseQueryMetricOverride = baseQueryMetric.getThreadLocalOverride();
+            BaseQueryMetric previousBaseQueryMetric = baseQueryMetricOverride.get();
+            baseQueryMetricOverride.set(requestBaseQueryMetric);
+            try {
+                response.complete(completeNextCall(submittedNextCall, resultsPage, (failure instanceof CompletionException) ? failure.getCause() : failure));
+            } catch (Exception e) {
+                QueryException qe;
+                if (!(e instanceof QueryException)) {
+                    log.error(unknownErrorMessage, e);
+                    qe = new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e, unknownErrorMessage);
+                } else {
+                    qe = (QueryException) e;
+                }
+                
+                if (!(qe instanceof NoResultsQueryException)) {
+                    requestBaseQueryMetric.setError(qe);
+                }
+                
+                response.completeExceptionally(qe);
+            } finally {
+                if (previousBaseQueryMetric != null) {
+                    baseQueryMetricOverride.set(previousBaseQueryMetric);
+                } else {
+                    baseQueryMetricOverride.remove();
+                }
+            }
+        });
+        
+        return response;
+    }
+    
+    /**
+     * Releases the claim for a next call whose caller gave up on the response before the page was ready.
+     * <p>
+     * Rather than losing the page, it is kept by the intermediate result buffer, and returned as is by the next call for the query on this instance. The
+     * page has already been postprocessed, so it is not returned to the results queue. The page number is not advanced, and the results on the page are not
+     * counted as consumed until the page is returned. The kept page is recorded with the other instances, so if the next call for the query lands on another
+     * instance, that next call asks for the page, and it is returned to the results queue.
+     *
+     * @param submittedNextCall
+     *            the submitted next call, not null
+     * @param resultsPage
+     *            the page of results produced by the next call, or null if the next call failed
+     */
+    private void abandonNextCall(SubmittedNextCall submittedNextCall, ResultsPage<Object> resultsPage) {
+        String queryId = submittedNextCall.queryId;
+        NextCall nextCall = submittedNextCall.nextCall;
+        
+        long numResultsConsumed = nextCall.drainNumResultsConsumed();
+        try {
+            if (resultsPage != null && !resultsPage.getResults().isEmpty()) {
+                log.debug("Query [{}]: Keeping {} results for the next call after the caller gave up on the next call", queryId,
+                                resultsPage.getResults().size());
+                intermediateResultBuffer.keepPage(queryId, resultsPage);
+                
+                // these results are counted by whichever next call returns the page
+                numResultsConsumed -= resultsPage.getResults().size();
+            }
+        } finally {
+            try {
+                releaseNextCall(submittedNextCall, false, numResultsConsumed);
+            } catch (Exception e) {
+                log.error("Query [{}]: Unable to release the next call after the caller gave up on it", queryId, e);
+            }
+        }
+    }
+    
+    /**
+     * Claims a next call for the given query, publishes a next event to the executor service, and submits the next call to the next call executor.
+     * <p>
+     * If the next call cannot be submitted, the claim is released before returning. Otherwise, {@link #completeNextCall} must be called once the next call is
+     * done.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @param requestBaseQueryMetric
+     *            the query metric for the originating request, not null
+     * @return the submitted next call
+     * @throws NotFoundQueryException
+     *             if the query cannot be found
+     * @throws QueryException
+     *             if query lock acquisition fails
+     * @throws InterruptedException
+     *             if query lock acquisition is interrupted
+     * @throws QueryException
+     *             if this next task is rejected by the executor
+     * @throws QueryException
+     *             if query logic creation fails
+     */
+    private SubmittedNextCall submitNextCall(String queryId, DatawaveUserDetails currentUser, BaseQueryMetric requestBaseQueryMetric)
+                    throws InterruptedException, QueryException {
         // before we spin up a separate thread, make sure we are allowed to call next
-        boolean success = false;
-        QueryStatus queryStatus = queryStatusUpdateUtil.lockedUpdate(queryId, queryStatusUpdateUtil::claimNextCall);
+        boolean submitted = false;
+        QueryStatus queryStatus = nextCallStatusUpdater.update(queryId, queryStatusUpdateUtil::claimNextCall);
+        QueryLogicCache.Lease queryLogicLease = null;
         try {
             // publish a next event to the executor pool
-            publishNextEvent(queryId, queryStatus.getQueryKey().getQueryPool());
+            publishNextEvent(queryStatus);
+            
+            // if another query service is holding back intermediate results for this query, ask it to return them to the results queue.
+            // each hold is only asked for once, rather than on every page
+            if (intermediateResultBuffer.isEnabled() && queryStatus.getConfig() != null && queryStatus.getConfig().isReduceResults()
+                            && intermediateResultBuffer.claimReturnRequest(queryId)) {
+                publishSelfEvent(QueryRequest.next(queryId));
+            }
             
-            // get the query logic
+            // get the query logic, reusing the instance from a previous page if we can
             String queryLogicName = queryStatus.getQuery().getQueryLogicName();
-            QueryLogic<?> queryLogic = queryLogicFactory.getQueryLogic(queryStatus.getQuery().getQueryLogicName(), currentUser);
+            queryLogicLease = queryLogicCache.acquire(queryId, queryLogicName, currentUser);
+            QueryLogic<?> queryLogic = queryLogicLease.getQueryLogic();
             
             // update query metrics
-            BaseQueryMetric requestBaseQueryMetric = baseQueryMetric.get();
             requestBaseQueryMetric.setQueryId(queryId);
             requestBaseQueryMetric.setQueryLogic(queryLogicName);
             
             // @formatter:off
             final NextCall nextCall = new NextCall.Builder()
                     .setQueryProperties(queryProperties)
+                    .setRunnerProperties(nextCallRunnerProperties)
                     .setResultsQueueManager(queryResultsManager)
+                    .setResultSizeEstimator(resultSizeEstimator)
+                    .setResultRateTracker(resultRateTracker)
+                    .setStatusChangeNotifier(queryStatusChangeNotifier)
+                    .setIntermediateResultBuffer(intermediateResultBuffer)
                     .setQueryStorageCache(queryStorageCache)
                     .setQueryStatusUpdateUtil(queryStatusUpdateUtil)
                     .setQueryId(queryId)
                     .setQueryLogic(queryLogic)
+                    .setReturnRequester(id -> publishSelfEvent(QueryRequest.next(id)))
                     .build();
             // @formatter:on
             
-            nextCallMap.add(queryId, nextCall);
+            nextCallRegistry.register(queryId, queryStatus.getQueryKey().getQueryPool(), nextCall);
             try {
-                // submit the next call to the executor
-                nextCall.setFuture(nextCallExecutor.submit(nextCall));
-                
-                // wait for the results to be ready
-                ResultsPage<Object> resultsPage = nextCall.getFuture().get();
-                
-                // update the query metric
-                nextCall.updateQueryMetric(requestBaseQueryMetric);
-                
-                // format the response
-                if (!resultsPage.getResults().isEmpty()) {
-                    BaseQueryResponse response = queryLogic.getTransformer(queryStatus.getQuery()).createResponse(resultsPage);
-                    
-                    // after all of our work is done, perform our final query status update for this next call
-                    queryStatus = queryStatusUpdateUtil.lockedUpdate(queryId, status -> {
-                        queryStatusUpdateUtil.releaseNextCall(status, queryResultsManager);
-                        status.setLastPageNumber(status.getLastPageNumber() + 1);
-                        status.setNumResultsReturned(status.getNumResultsReturned() + resultsPage.getResults().size());
-                    });
-                    success = true;
-                    
-                    response.setHasResults(true);
-                    response.setPageNumber(queryStatus.getLastPageNumber());
-                    response.setLogicName(queryLogicName);
-                    response.setQueryId(queryId);
-                    return response;
-                } else {
-                    if (nextCall.isCanceled()) {
-                        log.debug("Query [{}]: Canceled while handling next call", queryId);
-                        throw new QueryCanceledQueryException(DatawaveErrorCode.QUERY_CANCELED, MessageFormat.format("{0} canceled;", queryId));
-                    } else if (requestBaseQueryMetric.getLifecycle() == BaseQueryMetric.Lifecycle.NEXTTIMEOUT) {
-                        log.debug("Query [{}]: Timed out during next call", queryId);
-                        throw new TimeoutQueryException(DatawaveErrorCode.QUERY_TIMEOUT, MessageFormat.format("{0} timed out.", queryId));
-                    } else {
-                        log.debug("Query [{}]: No results found for next call - closing query", queryId);
-                        // if there are no results, and we didn't timeout, close the query
-                        close(queryId);
-                        throw new NoResultsQueryException(DatawaveErrorCode.NO_QUERY_RESULTS_FOUND, MessageFormat.format("{0}", queryId));
-                    }
-                }
+                // submit the next call to the executor, queueing it behind the other users and pools if the executor is busy, but no longer than its timeout
+                ListenableFuture<ResultsPage<Object>> future = nextCallScheduler.submit(currentUser.getPrimaryUser().getName(),
+                                queryStatus.getQueryKey().getQueryPool(), nextCall, nextCall.getDeadlineMillis());
+                nextCall.setFuture(future);
+                submitted = true;
+                return new SubmittedNextCall(queryId, queryStatus, queryLogicLease, requestBaseQueryMetric, nextCall, future);
             } catch (TaskRejectedException e) {
                 throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e, "Next task rejected by the executor for query " + queryId);
-            } catch (ExecutionException e) {
-                // try to unwrap the execution exception and throw a query exception
-                throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e.getCause(), "Next call execution failed");
             } finally {
-                // remove this next call from the map, and decrement the next count for this query
-                nextCallMap.get(queryId).remove(nextCall);
+                if (!submitted) {
+                    nextCallRegistry.unregister(queryId, nextCall);
+                }
             }
         } catch (CloneNotSupportedException e) {
             throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, e,
                             "Unable to create instance of the requested query logic " + queryStatus.getQuery().getQueryLogicName());
         } finally {
             // update query status if we failed
-            if (!success) {
-                queryStatusUpdateUtil.lockedUpdate(queryId, status -> queryStatusUpdateUtil.releaseNextCall(status, queryResultsManager));
+            if (!submitted) {
+                if (queryLogicLease != null) {
+                    queryLogicLease.close();
+                }
+                nextCallStatusUpdater.update(queryId, status -> queryStatusUpdateUtil.releaseNextCall(status, queryResultsManager));
+            }
+        }
+    }
+    
+    /**
+     * Creates the response for a completed next call, and releases the next call's claim on the query.
+     * <p>
+     * All of the query status counters for this next call (the results consumed, the results returned, and the page number) are applied as part of the single
+     * update which releases the claim, so that a page only updates the query status once on either side of the next call. If the caller was interrupted while
+     * the next call is still running, the next call is stopped, and its claim is only released, along with its counters, once it is done.
+     *
+     * @param submittedNextCall
+     *            the submitted next call, not null
+     * @param resultsPage
+     *            the page of results produced by the next call, or null if the next call failed
+     * @param failure
+     *            the reason that the next call failed, or null if the next call succeeded
+     * @return a base query response containing the next page of results
+     * @throws QueryException
+     *             if query lock acquisition fails
+     * @throws InterruptedException
+     *             if the next call is interrupted
+     * @throws TimeoutQueryException
+     *             if the query times out
+     * @throws NoResultsQueryException
+     *             if no query results are found
+     * @throws QueryException
+     *             if next call execution fails
+     */
+    private BaseQueryResponse completeNextCall(SubmittedNextCall submittedNextCall, ResultsPage<Object> resultsPage, Throwable failure)
+                    throws InterruptedException, QueryException {
+        String queryId = submittedNextCall.queryId;
+        NextCall nextCall = submittedNextCall.nextCall;
+        BaseQueryMetric requestBaseQueryMetric = submittedNextCall.requestBaseQueryMetric;
+        
+        // the number of results consumed can only be collected once the next call is done
+        final boolean nextCallDone = submittedNextCall.future.isDone();
+        final long numResultsConsumed = nextCallDone ? nextCall.drainNumResultsConsumed() : 0L;
+        
+        boolean success = false;
+        try {
+            if (failure instanceof InterruptedException) {
+                throw (InterruptedException) failure;
+            } else if (failure instanceof TaskRejectedException) {
+                // the next call waited in the queue for too long without being started
+                throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, failure, "Next task rejected by the executor for query " + queryId);
+            } else if (failure != null) {
+                // try to unwrap the execution exception and throw a query exception
+                throw new QueryException(DatawaveErrorCode.QUERY_NEXT_ERROR, failure, "Next call execution failed");
+            }
+            
+            // update the query metric
+            nextCall.updateQueryMetric(requestBaseQueryMetric);
+            
+            // format the response
+            if (!resultsPage.getResults().isEmpty()) {
+                BaseQueryResponse response = submittedNextCall.queryLogicLease.getTransformer(submittedNextCall.queryStatus.getQuery())
+                                .createResponse(resultsPage);
+                
+                // after all of our work is done, perform our final query status update for this next call
+                QueryStatus queryStatus = nextCallStatusUpdater.update(queryId, status -> {
+                    queryStatusUpdateUtil.releaseNextCall(status, queryResultsManager);
+                    status.incrementNumResultsConsumed(numResultsConsumed);
+                    status.setLastPageNumber(status.getLastPageNumber() + 1);
+                    status.setNumResultsReturned(status.getNumResultsReturned() + resultsPage.getResults().size());
+                });
+                success = true;
+                
+                response.setHasResults(true);
+                response.setPageNumber(queryStatus.getLastPageNumber());
+                response.setLogicName(submittedNextCall.queryStatus.getQuery().getQueryLogicName());
+                response.setQueryId(queryId);
+                return response;
+            } else {
+                if (nextCall.isCanceled()) {
+                    log.debug("Query [{}]: Canceled while handling next call", queryId);
+                    throw new QueryCanceledQueryException(DatawaveErrorCode.QUERY_CANCELED, MessageFormat.format("{0} canceled;", queryId));
+                } else if (requestBaseQueryMetric.getLifecycle() == BaseQueryMetric.Lifecycle.NEXTTIMEOUT) {
+                    log.debug("Query [{}]: Timed out during next call", queryId);
+                    throw new TimeoutQueryException(DatawaveErrorCode.QUERY_TIMEOUT, MessageFormat.format("{0} timed out.", queryId));
+                } else {
+                    log.debug("Query [{}]: No results found for next call - closing query", queryId);
+                    // if there are no results, and we didn't timeout, close the query
+                    close(queryId);
+                    throw new NoResultsQueryException(DatawaveErrorCode.NO_QUERY_RESULTS_FOUND, MessageFormat.format("{0}", queryId));
+                }
+            }
+        } finally {
+            if (nextCallDone) {
+                releaseNextCall(submittedNextCall, success, numResultsConsumed);
+            } else {
+                // we were interrupted while the next call is still running, so nobody is going to get its page. Stop it, and once it is done, release it the
+                // same way as a next call whose caller gave up, so that the results it consumed are still accounted for.
+                nextCallScheduler.cancelIfQueued(submittedNextCall.future);
+                nextCall.cancel();
+                submittedNextCall.future.completable().whenComplete((page, e) -> abandonNextCall(submittedNextCall, page));
+            }
+        }
+    }
+    
+    /**
+     * Removes a next call from the registry, returns its query logic lease, and if the next call failed, releases its claim on the query.
+     *
+     * @param submittedNextCall
+     *            the submitted next call, not null
+     * @param success
+     *            whether the next call succeeded, in which case its claim has already been released
+     * @param numResultsConsumed
+     *            the number of results consumed by the next call which have not been recorded in the query status
+     * @throws QueryException
+     *             if query lock acquisition fails
+     * @throws InterruptedException
+     *             if query lock acquisition is interrupted
+     */
+    private void releaseNextCall(SubmittedNextCall submittedNextCall, boolean success, long numResultsConsumed) throws InterruptedException, QueryException {
+        // remove this next call from the registry, and decrement the next count for this query
+        nextCallRegistry.unregister(submittedNextCall.queryId, submittedNextCall.nextCall);
+        
+        // keep the query logic and transformer for the next page, unless something went wrong
+        submittedNextCall.queryLogicLease.setReusable(success);
+        submittedNextCall.queryLogicLease.close();
+        
+        // update query status if we failed, making sure that any results which were consumed are still accounted for
+        if (!success) {
+            nextCallStatusUpdater.update(submittedNextCall.queryId, status -> {
+                queryStatusUpdateUtil.releaseNextCall(status, queryResultsManager);
+                status.incrementNumResultsConsumed(numResultsConsumed);
+            });
+        }
+    }
+    
+    /**
+     * Gets the query metric for the current request.
+     * <p>
+     * The query metric is request scoped, so we unwrap it from its scoped proxy. This allows the metric to be updated by an asynchronous next call after the
+     * request thread has been released.
+     *
+     * @return the query metric for the current request
+     */
+    private BaseQueryMetric getRequestBaseQueryMetric() {
+        BaseQueryMetric requestBaseQueryMetric = baseQueryMetric.get();
+        if (requestBaseQueryMetric instanceof Advised) {
+            try {
+                requestBaseQueryMetric = (BaseQueryMetric) ((Advised) requestBaseQueryMetric).getTargetSource().getTarget();
+            } catch (Exception e) {
+                log.warn("Unable to unwrap the request scoped query metric", e);
             }
         }
+        return requestBaseQueryMetric;
     }
     
     /**
@@ -1042,11 +2051,18 @@ public class QueryManagementService implements QueryRequestHandler {
             List<QueryStatus> queryStatuses = queryStorageCache.getQueryStatus();
             queryStatuses.removeIf(s -> s.getQueryState() != CREATE);
             
+            // cancel the queries in parallel, and then publish the cancel events together
+            List<BulkLifecycleExecutor.Outcome<QueryStatus>> outcomes = bulkLifecycleExecutor.execute("adminCancelAll", queryStatuses,
+                            withQueryMetric(queryStatus -> cancelQuery(queryStatus.getQueryKey().getQueryId(), true)));
+            publishBulkEvents(outcomes, QueryRequest::cancel, true);
+            
             VoidResponse response = new VoidResponse();
-            for (QueryStatus queryStatus : queryStatuses) {
-                cancel(queryStatus.getQueryKey().getQueryId(), true);
-                response.addMessage(queryStatus.getQueryKey().getQueryId() + " canceled.");
+            for (BulkLifecycleExecutor.Outcome<QueryStatus> outcome : outcomes) {
+                if (outcome.isSuccess()) {
+                    response.addMessage(outcome.getQueryId() + " canceled.");
+                }
             }
+            BulkLifecycleExecutor.throwIfAnyFailed(outcomes);
             return response;
         } catch (QueryException e) {
             throw e;
@@ -1129,22 +2145,9 @@ public class QueryManagementService implements QueryRequestHandler {
      *             if the cancel call is interrupted
      */
     public void cancel(String queryId, boolean publishEvent) throws InterruptedException, QueryException {
-        // if we have an active next call for this query locally, cancel it
-        List<NextCall> nextCalls = nextCallMap.get(queryId);
-        if (nextCalls != null) {
-            nextCalls.forEach(NextCall::cancel);
-        }
+        QueryStatus queryStatus = cancelQuery(queryId, publishEvent);
         
         if (publishEvent) {
-            // only the initial event publisher should update the status
-            QueryStatus queryStatus = queryStatusUpdateUtil.lockedUpdate(queryId, status -> {
-                // update query state to CANCELED
-                status.setQueryState(CANCEL);
-            });
-            
-            // delete the results queue
-            queryResultsManager.deleteQuery(queryId);
-            
             QueryRequest cancelRequest = QueryRequest.cancel(queryId);
             
             // publish a cancel event to all of the query services
@@ -1152,32 +2155,69 @@ public class QueryManagementService implements QueryRequestHandler {
             
             // publish a cancel event to the executor pool
             publishExecutorEvent(cancelRequest, queryStatus.getQueryKey().getQueryPool());
+        }
+    }
+    
+    /**
+     * Cancels the specified query without publishing any events.
+     * <p>
+     * Cancels any locally-running next calls. <br>
+     * When {@code updateStatus} is <code>true</code>, changes the query state to {@link QueryStatus.QUERY_STATE#CANCEL}, deletes the results queue, and
+     * updates the query metric.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param updateStatus
+     *            whether or not to update the query status
+     * @return the updated query status, or null if the query status was not updated
+     * @throws NotFoundQueryException
+     *             if the query cannot be found
+     * @throws QueryException
+     *             if query lock acquisition fails
+     * @throws InterruptedException
+     *             if the cancel call is interrupted
+     */
+    private QueryStatus cancelQuery(String queryId, boolean updateStatus) throws InterruptedException, QueryException {
+        // if we have an active next call for this query locally, cancel it
+        nextCallRegistry.cancelAll(queryId);
+        
+        // throw away any held back results
+        intermediateResultBuffer.discard(queryId);
+        resultRateTracker.invalidate(queryId);
+        
+        QueryStatus queryStatus = null;
+        if (updateStatus) {
+            // only the initial event publisher should update the status
+            queryStatus = queryStatusUpdateUtil.lockedUpdate(queryId, status -> {
+                // update query state to CANCELED
+                status.setQueryState(CANCEL);
+            });
             
-            try {
-                QueryLogic<?> logic = queryLogicFactory.getQueryLogic(queryStatus.getQuery().getQueryLogicName());
+            // delete the results queue
+            queryResultsManager.deleteQuery(queryId);
+            
+            try (QueryLogicCache.Lease lease = queryLogicCache.acquireForRead(queryId, queryStatus.getQuery().getQueryLogicName())) {
+                QueryLogic<?> logic = lease.getQueryLogic();
                 if (logic.getCollectQueryMetrics()) {
                     // update query metrics
                     BaseQueryMetric requestBaseQueryMetric = baseQueryMetric.get();
                     requestBaseQueryMetric.setQueryId(queryId);
                     requestBaseQueryMetric.setLifecycle(BaseQueryMetric.Lifecycle.CANCELLED);
                     requestBaseQueryMetric.setLastUpdated(new Date());
-                    try {
-                        // @formatter:off
-                        queryMetricClient.submit(
-                                new QueryMetricClient.Request.Builder()
-                                        .withUser((DatawaveUserDetails) logic.getServerUser())
-                                        .withMetric(requestBaseQueryMetric.duplicate())
-                                        .withMetricType(QueryMetricType.DISTRIBUTED)
-                                        .build());
-                        // @formatter:on
-                    } catch (Exception e) {
-                        log.error("Error updating query metric", e);
-                    }
+                    queryMetricAggregator.submit((DatawaveUserDetails) logic.getServerUser(), requestBaseQueryMetric);
                 }
             } catch (CloneNotSupportedException e) {
                 log.warn("Could not determine whether the query logic supports metrics");
             }
         }
+        
+        // drop any query logics we are keeping for this query, now that we are done with them
+        queryLogicCache.invalidate(queryId);
+        
+        // stop listening for status changes once any next calls which are still finishing up are done
+        queryStatusChangeNotifier.release(queryId);
+        
+        return queryStatus;
     }
     
     /**
@@ -1267,11 +2307,18 @@ public class QueryManagementService implements QueryRequestHandler {
             List<QueryStatus> queryStatuses = queryStorageCache.getQueryStatus();
             queryStatuses.removeIf(s -> s.getQueryState() != CREATE);
             
+            // close the queries in parallel, and then publish the close events together
+            List<BulkLifecycleExecutor.Outcome<QueryStatus>> outcomes = bulkLifecycleExecutor.execute("adminCloseAll", queryStatuses,
+                            withQueryMetric(queryStatus -> closeQuery(queryStatus.getQueryKey().getQueryId())));
+            publishBulkEvents(outcomes, QueryRequest::close, false);
+            
             VoidResponse response = new VoidResponse();
-            for (QueryStatus queryStatus : queryStatuses) {
-                close(queryStatus.getQueryKey().getQueryId());
-                response.addMessage(queryStatus.getQueryKey().getQueryId() + " closed.");
+            for (BulkLifecycleExecutor.Outcome<QueryStatus> outcome : outcomes) {
+                if (outcome.isSuccess()) {
+                    response.addMessage(outcome.getQueryId() + " closed.");
+                }
             }
+            BulkLifecycleExecutor.throwIfAnyFailed(outcomes);
             return response;
         } catch (QueryException e) {
             throw e;
@@ -1347,43 +2394,63 @@ public class QueryManagementService implements QueryRequestHandler {
      *             if the cancel call is interrupted
      */
     public void close(String queryId) throws InterruptedException, QueryException {
+        QueryStatus queryStatus = closeQuery(queryId);
+        
+        // publish a close event to the executor pool
+        publishExecutorEvent(QueryRequest.close(queryId), queryStatus.getQueryKey().getQueryPool());
+    }
+    
+    /**
+     * Closes the specified query without publishing any events.
+     * <p>
+     * Changes the query state to {@link QueryStatus.QUERY_STATE#CLOSE}, and updates the query metric.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @return the updated query status
+     * @throws NotFoundQueryException
+     *             if the query cannot be found
+     * @throws QueryException
+     *             if query lock acquisition fails
+     * @throws InterruptedException
+     *             if the close call is interrupted
+     */
+    private QueryStatus closeQuery(String queryId) throws InterruptedException, QueryException {
         QueryStatus queryStatus = queryStatusUpdateUtil.lockedUpdate(queryId, status -> {
             // update query state to CLOSED
             status.setQueryState(CLOSE);
         });
         
+        // throw away any held back results
+        intermediateResultBuffer.discard(queryId);
+        resultRateTracker.invalidate(queryId);
+        
         // if the query has no active next calls, delete the results queue
         if (queryStatus.getActiveNextCalls() == 0) {
             queryResultsManager.deleteQuery(queryId);
         }
         
-        // publish a close event to the executor pool
-        publishExecutorEvent(QueryRequest.close(queryId), queryStatus.getQueryKey().getQueryPool());
-        
-        try {
-            QueryLogic<?> logic = queryLogicFactory.getQueryLogic(queryStatus.getQuery().getQueryLogicName());
+        try (QueryLogicCache.Lease lease = queryLogicCache.acquireForRead(queryId, queryStatus.getQuery().getQueryLogicName())) {
+            QueryLogic<?> logic = lease.getQueryLogic();
             if (logic.getCollectQueryMetrics()) {
                 // update query metrics
                 BaseQueryMetric requestBaseQueryMetric = baseQueryMetric.get();
                 requestBaseQueryMetric.setQueryId(queryId);
                 requestBaseQueryMetric.setLifecycle(BaseQueryMetric.Lifecycle.CLOSED);
                 requestBaseQueryMetric.setLastUpdated(new Date());
-                try {
-                    // @formatter:off
-                    queryMetricClient.submit(
-                            new QueryMetricClient.Request.Builder()
-                                    .withUser((DatawaveUserDetails) logic.getServerUser())
-                                    .withMetric(requestBaseQueryMetric.duplicate())
-                                    .withMetricType(QueryMetricType.DISTRIBUTED)
-                                    .build());
-                    // @formatter:on
-                } catch (Exception e) {
-                    log.error("Error updating query metric", e);
-                }
+                queryMetricAggregator.submit((DatawaveUserDetails) logic.getServerUser(), requestBaseQueryMetric);
             }
         } catch (CloneNotSupportedException e) {
             log.warn("Could not determine whether the query logic supports metrics");
         }
+        
+        // drop any query logics we are keeping for this query, now that we are done with them
+        queryLogicCache.invalidate(queryId);
+        
+        // stop listening for status changes once any next calls which are still finishing up are done
+        queryStatusChangeNotifier.release(queryId);
+        
+        return queryStatus;
     }
     
     /**
@@ -1523,12 +2590,16 @@ public class QueryManagementService implements QueryRequestHandler {
             List<QueryStatus> queryStatuses = queryStorageCache.getQueryStatus();
             queryStatuses.removeIf(QueryStatus::isRunning);
             
+            // remove the queries in parallel
+            List<BulkLifecycleExecutor.Outcome<Boolean>> outcomes = bulkLifecycleExecutor.execute("adminRemoveAll", queryStatuses, this::remove);
+            
             VoidResponse response = new VoidResponse();
-            for (QueryStatus queryStatus : queryStatuses) {
-                if (remove(queryStatus)) {
-                    response.addMessage(queryStatus.getQueryKey().getQueryId() + " removed.");
+            for (BulkLifecycleExecutor.Outcome<Boolean> outcome : outcomes) {
+                if (outcome.isSuccess() && outcome.getResult()) {
+                    response.addMessage(outcome.getQueryId() + " removed.");
                 }
             }
+            BulkLifecycleExecutor.throwIfAnyFailed(outcomes);
             return response;
         } catch (Exception e) {
             QueryException queryException = new QueryException(DatawaveErrorCode.QUERY_REMOVAL_ERROR, e, "Error encountered while removing all queries.");
@@ -1585,6 +2656,11 @@ public class QueryManagementService implements QueryRequestHandler {
     }
     
     private boolean remove(QueryStatus queryStatus) throws IOException {
+        intermediateResultBuffer.discard(queryStatus.getQueryKey().getQueryId());
+        resultRateTracker.invalidate(queryStatus.getQueryKey().getQueryId());
+        queryLogicCache.invalidate(queryStatus.getQueryKey().getQueryId());
+        queryStatusChangeNotifier.release(queryStatus.getQueryKey().getQueryId());
+        queryStatusIndex.remove(queryStatus.getQuery());
         return queryStorageCache.deleteQuery(queryStatus.getQueryKey().getQueryId());
     }
     
@@ -1686,6 +2762,9 @@ public class QueryManagementService implements QueryRequestHandler {
                             
                             // save the new query object in the cache
                             queryStatusUpdateUtil.lockedUpdate(queryId, status -> status.setQuery(query));
+                            
+                            // the query name may have changed
+                            queryStatusIndex.add(query);
                         }
                     } else {
                         throw new BadRequestQueryException("Cannot update the following parameters for a running query: " + String.join(", ", unsafeParams),
@@ -1880,10 +2959,37 @@ public class QueryManagementService implements QueryRequestHandler {
      *             if there is an unknown error
      */
     public QueryImplListResponse list(String queryId, String queryName, DatawaveUserDetails currentUser) throws QueryException {
-        log.info("Request: list from {} for queryId: {}, queryName: {}", ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()), queryId,
-                        queryName);
+        return list(queryId, queryName, null, null, currentUser);
+    }
+    
+    /**
+     * Gets a page of queries for the calling user.
+     * <p>
+     * Returns the matching queries owned by the calling user, filtering by query id and query name. <br>
+     * If a page size is given, the matching queries are ordered by query id, and only the requested page is returned.
+     *
+     * @param queryId
+     *            the query id, may be null
+     * @param queryName
+     *            the query name, may be null
+     * @param pageNumber
+     *            the page number, starting at 1, may be null
+     * @param pageSize
+     *            the page size, may be null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return a list response containing the matching queries
+     * @throws BadRequestQueryException
+     *             if the page number or page size is invalid
+     * @throws QueryException
+     *             if there is an unknown error
+     */
+    public QueryImplListResponse list(String queryId, String queryName, Integer pageNumber, Integer pageSize, DatawaveUserDetails currentUser)
+                    throws QueryException {
+        log.info("Request: list from {} for queryId: {}, queryName: {}, pageNumber: {}, pageSize: {}",
+                        ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()), queryId, queryName, pageNumber, pageSize);
         
-        return list(queryId, queryName, ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getDn().subjectDN()));
+        return list(queryId, queryName, ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getDn().subjectDN()), pageNumber, pageSize);
     }
     
     /**
@@ -1905,14 +3011,47 @@ public class QueryManagementService implements QueryRequestHandler {
      *             if there is an unknown error
      */
     public QueryImplListResponse adminList(String queryId, String queryName, String userId, DatawaveUserDetails currentUser) throws QueryException {
-        log.info("Request: adminList from {} for queryId: {}, queryName: {}, userId: {}",
-                        ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()), queryId, queryName, userId);
+        return adminList(queryId, queryName, userId, null, null, currentUser);
+    }
+    
+    /**
+     * Gets a page of queries for the specified user using admin privileges.
+     * <p>
+     * Returns the matching queries owned by any user, filtered by user ID, query ID, and query name. <br>
+     * If a page size is given, the matching queries are ordered by query id, and only the requested page is returned. <br>
+     * Only admin users should be allowed to call this method.
+     *
+     * @param queryId
+     *            the query id, may be null
+     * @param queryName
+     *            the query name, may be null
+     * @param userId
+     *            the user whose queries we want to list, may be null
+     * @param pageNumber
+     *            the page number, starting at 1, may be null
+     * @param pageSize
+     *            the page size, may be null
+     * @param currentUser
+     *            the user who called this method, not null
+     * @return a list response containing the matching queries
+     * @throws BadRequestQueryException
+     *             if the page number or page size is invalid
+     * @throws QueryException
+     *             if there is an unknown error
+     */
+    public QueryImplListResponse adminList(String queryId, String queryName, String userId, Integer pageNumber, Integer pageSize,
+                    DatawaveUserDetails currentUser) throws QueryException {
+        log.info("Request: adminList from {} for queryId: {}, queryName: {}, userId: {}, pageNumber: {}, pageSize: {}",
+                        ProxiedEntityUtils.getShortName(currentUser.getPrimaryUser().getName()), queryId, queryName, userId, pageNumber, pageSize);
         
-        return list(queryId, queryName, userId);
+        return list(queryId, queryName, userId, pageNumber, pageSize);
     }
     
     /**
      * Gets a list of all matching queries, filtered by user ID, query ID, and query name.
+     * <p>
+     * When listing a specific user's queries, the query status index is used to load only that user's queries. Query statuses are streamed from the query
+     * storage cache, so when a page is requested, only the query statuses up to the end of that page are loaded.
      *
      * @param queryId
      *            the query id, may be null
@@ -1920,31 +3059,56 @@ public class QueryManagementService implements QueryRequestHandler {
      *            the query name, may be null
      * @param userId
      *            the user whose queries we want to list, may be null
+     * @param pageNumber
+     *            the page number, starting at 1, may be null
+     * @param pageSize
+     *            the page size, may be null
      * @return a list response containing the matching queries
+     * @throws BadRequestQueryException
+     *             if the page number or page size is invalid
      * @throws QueryException
      *             if there is an unknown error
      */
-    private QueryImplListResponse list(String queryId, String queryName, String userId) throws QueryException {
+    private QueryImplListResponse list(String queryId, String queryName, String userId, Integer pageNumber, Integer pageSize) throws QueryException {
+        if (pageSize != null && (pageSize < 1 || pageSize > queryStatusIndex.getMaxPageSize())) {
+            throw new BadRequestQueryException("Page size must be between 1 and " + queryStatusIndex.getMaxPageSize(), HttpStatus.SC_BAD_REQUEST + "-1");
+        }
+        if (pageNumber != null && pageNumber < 1) {
+            throw new BadRequestQueryException("Page number must be at least 1", HttpStatus.SC_BAD_REQUEST + "-1");
+        }
+        
         try {
-            List<Query> queries;
+            Stream<QueryStatus> queryStatuses;
             if (StringUtils.isNotBlank(queryId)) {
                 // get the query for the given id
-                queries = new ArrayList<>();
-                
                 QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
-                if (queryStatus != null) {
-                    queries.add(queryStatus.getQuery());
-                }
+                queryStatuses = (queryStatus != null) ? Stream.of(queryStatus) : Stream.empty();
+            } else if (userId != null && queryStatusIndex.isEnabled()) {
+                // get the user's queries, in query id order
+                queryStatuses = queryStatusIndex.find(userId, queryName);
             } else {
                 // get all of the queries
-                queries = queryStorageCache.getQueryStatus().stream().map(QueryStatus::getQuery).collect(Collectors.toList());
+                queryStatuses = queryStorageCache.getQueryStatus().stream();
+                if (pageSize != null) {
+                    queryStatuses = queryStatuses.sorted(Comparator.comparing(status -> status.getQueryKey().getQueryId()));
+                }
             }
             
             // only keep queries with the given userId and query name
-            queries.removeIf(q -> (userId != null && !q.getOwner().equals(userId)) || (queryName != null && !q.getQueryName().equals(queryName)));
+            // @formatter:off
+            Stream<Query> queries = queryStatuses
+                    .map(QueryStatus::getQuery)
+                    .filter(q -> (userId == null || q.getOwner().equals(userId)) && (queryName == null || queryName.equals(q.getQueryName())));
+            // @formatter:on
+            
+            // only keep the requested page
+            if (pageSize != null) {
+                long pageOffset = (long) ((pageNumber != null) ? pageNumber - 1 : 0) * pageSize;
+                queries = queries.skip(pageOffset).limit(pageSize);
+            }
             
             QueryImplListResponse response = new QueryImplListResponse();
-            response.setQuery(queries);
+            response.setQuery(queries.collect(Collectors.toList()));
             return response;
         } catch (Exception e) {
             log.error("Unknown error listing queries for {}", userId, e);
@@ -2094,11 +3258,11 @@ public class QueryManagementService implements QueryRequestHandler {
             } else if (queryRequest.getMethod() == QueryRequest.Method.CREATE || queryRequest.getMethod() == QueryRequest.Method.PLAN
                             || queryRequest.getMethod() == QueryRequest.Method.PREDICT) {
                 log.trace("Received remote {} request from {} for {}.", queryRequest.getMethod().name(), originService, destinationService);
-                if (queryLatchMap.containsKey(queryRequest.getQueryId())) {
-                    queryLatchMap.get(queryRequest.getQueryId()).countDown();
-                } else {
-                    log.warn("Unable to decrement {} latch for query {}", queryRequest.getMethod().name(), queryRequest.getQueryId());
-                }
+                executorResponseRegistry.complete(queryRequest);
+            } else if (queryRequest.getMethod() == QueryRequest.Method.NEXT) {
+                log.trace("Received remote next request from {} for {}.", originService, destinationService);
+                // the next call for this query is running elsewhere, so it needs any intermediate results we held back, and any pages we kept
+                intermediateResultBuffer.flush(queryRequest.getQueryId());
             } else {
                 log.debug("No handling specified for remote query request method: {} from {} for {}", queryRequest.getMethod(), originService,
                                 destinationService);
@@ -2128,6 +3292,14 @@ public class QueryManagementService implements QueryRequestHandler {
      */
     public void audit(Query query, QueryLogic<?> queryLogic, MultiValueMap<String,String> parameters, DatawaveUserDetails currentUser)
                     throws BadRequestQueryException {
+        AuditClient.Request auditRequest = createAuditRequest(query, queryLogic, parameters, currentUser);
+        if (auditRequest != null) {
+            auditSubmitter.submit(query.getId().toString(), auditRequest);
+        }
+    }
+    
+    private AuditClient.Request createAuditRequest(Query query, QueryLogic<?> queryLogic, MultiValueMap<String,String> parameters,
+                    DatawaveUserDetails currentUser) throws BadRequestQueryException {
         List<String> selectors = null;
         try {
             selectors = queryLogic.getSelectors(query);
@@ -2136,7 +3308,7 @@ public class QueryManagementService implements QueryRequestHandler {
         }
         
         // @formatter:off
-        audit(query.getId().toString(),
+        return createAuditRequest(query.getId().toString(),
                 queryLogic.getAuditType(query),
                 queryLogic.getLogicName(),
                 query.getQuery(),
@@ -2172,6 +3344,24 @@ public class QueryManagementService implements QueryRequestHandler {
      */
     public void audit(String auditId, Auditor.AuditType auditType, String logicName, String query, List<String> selectors,
                     MultiValueMap<String,String> parameters, DatawaveUserDetails currentUser) throws BadRequestQueryException {
+        AuditClient.Request auditRequest = createAuditRequest(auditId, auditType, logicName, query, selectors, parameters, currentUser);
+        if (auditRequest != null) {
+            auditSubmitter.submit(auditId, auditRequest);
+        }
+    }
+    
+    /**
+     * Validates the audit parameters and builds the audit record, without submitting it.
+     *
+     * @return the audit record, or null if the audit type is {@link Auditor.AuditType#NONE}
+     * @throws BadRequestQueryException
+     *             if the audit parameters fail validation
+     * @throws BadRequestQueryException
+     *             if there is an error building the audit record
+     */
+    private AuditClient.Request createAuditRequest(String auditId, Auditor.AuditType auditType, String logicName, String query, List<String> selectors,
+                    MultiValueMap<String,String> parameters, DatawaveUserDetails currentUser) throws BadRequestQueryException {
+        AuditClient.Request auditRequest = null;
         
         // if we haven't already, validate the markings
         SecurityMarking requestSecurityMarking = querySecurityMarking.get();
@@ -2196,7 +3386,7 @@ public class QueryManagementService implements QueryRequestHandler {
                 }
                 
                 // @formatter:off
-                AuditClient.Request auditRequest = new AuditClient.Request.Builder()
+                auditRequest = new AuditClient.Request.Builder()
                         .withParams(parameters)
                         .withQueryExpression(query)
                         .withDatawaveUserDetails(currentUser)
@@ -2205,10 +3395,6 @@ public class QueryManagementService implements QueryRequestHandler {
                         .withQueryLogic(logicName)
                         .build();
                 // @formatter:on
-                
-                log.info("[{}] Sending audit request with parameters {}", auditId, auditRequest);
-                
-                auditClient.submit(auditRequest);
             } catch (IllegalArgumentException e) {
                 log.error("Error validating audit parameters", e);
                 throw new BadRequestQueryException(DatawaveErrorCode.MISSING_REQUIRED_PARAMETER, e);
@@ -2217,6 +3403,7 @@ public class QueryManagementService implements QueryRequestHandler {
                 throw new BadRequestQueryException(DatawaveErrorCode.QUERY_AUDITING_ERROR, e);
             }
         }
+        return auditRequest;
     }
     
     protected boolean isAdminUser(DatawaveUserDetails currentUser) {
@@ -2269,15 +3456,77 @@ public class QueryManagementService implements QueryRequestHandler {
     }
     
     /**
-     * Publishes a next event for the given query id and pool.
+     * Publishes a next event for the given query to the query's pool, unless it would duplicate a next event which was recently published.
      *
-     * @param queryId
-     *            the query id, not null
-     * @param queryPool
-     *            the pool to use, not null
+     * @param queryStatus
+     *            the current query status, not null
+     */
+    public void publishNextEvent(QueryStatus queryStatus) {
+        if (nextEventCoalescer.tryPublish(queryStatus)) {
+            publishExecutorEvent(QueryRequest.next(queryStatus.getQueryKey().getQueryId()), queryStatus.getQueryKey().getQueryPool());
+        }
+    }
+    
+    /**
+     * Wraps a bulk lifecycle operation so that each query gets its own copy of the request's query metric, since the operation runs outside of the request
+     * thread.
+     *
+     * @param operation
+     *            the operation to wrap, not null
+     * @param <T>
+     *            the operation result type
+     * @return the wrapped operation
+     */
+    private <T> BulkLifecycleExecutor.Operation<T> withQueryMetric(BulkLifecycleExecutor.Operation<T> operation) {
+        BaseQueryMetric requestBaseQueryMetric = getRequestBaseQueryMetric();
+        return queryStatus -> {
+            ThreadLocal<BaseQueryMetric> baseQueryMetricOverride = baseQueryMetric.getThreadLocalOverride();
+            BaseQueryMetric previousBaseQueryMetric = baseQueryMetricOverride.get();
+            baseQueryMetricOverride.set(requestBaseQueryMetric.duplicate());
+            try {
+                return operation.apply(queryStatus);
+            } finally {
+                if (previousBaseQueryMetric != null) {
+                    baseQueryMetricOverride.set(previousBaseQueryMetric);
+                } else {
+                    baseQueryMetricOverride.remove();
+                }
+            }
+        };
+    }
+    
+    /**
+     * Publishes the events for the queries which were successfully processed by a bulk lifecycle operation.
+     * <p>
+     * The events are grouped by query pool, so that each executor pool receives its events together, rather than interleaved with the events for other pools.
+     * Within a pool, the events are published in the order that the queries were processed.
+     *
+     * @param outcomes
+     *            the bulk lifecycle outcomes, not null
+     * @param requestFactory
+     *            creates the query request for a query id, not null
+     * @param publishSelf
+     *            whether or not to also publish the events to all of the query services
      */
-    public void publishNextEvent(String queryId, String queryPool) {
-        publishExecutorEvent(QueryRequest.next(queryId), queryPool);
+    private void publishBulkEvents(List<? extends BulkLifecycleExecutor.Outcome<?>> outcomes, Function<String,QueryRequest> requestFactory,
+                    boolean publishSelf) {
+        Map<String,List<String>> queryIdsByPool = new LinkedHashMap<>();
+        for (BulkLifecycleExecutor.Outcome<?> outcome : outcomes) {
+            if (outcome.isSuccess()) {
+                queryIdsByPool.computeIfAbsent(outcome.getQueryPool(), k -> new ArrayList<>()).add(outcome.getQueryId());
+            }
+        }
+        
+        for (Map.Entry<String,List<String>> entry : queryIdsByPool.entrySet()) {
+            log.debug("Publishing {} events for pool {}", entry.getValue().size(), entry.getKey());
+            for (String queryId : entry.getValue()) {
+                QueryRequest queryRequest = requestFactory.apply(queryId);
+                if (publishSelf) {
+                    publishSelfEvent(queryRequest);
+                }
+                publishExecutorEvent(queryRequest, entry.getKey());
+            }
+        }
     }
     
     private void publishExecutorEvent(QueryRequest queryRequest, String queryPool) {
@@ -2644,4 +3893,72 @@ public class QueryManagementService implements QueryRequestHandler {
     public List<String> getDNs(DatawaveUserDetails user) {
         return user.getProxiedUsers().stream().map(u -> u.getDn().subjectDN()).collect(Collectors.toList());
     }
+    
+    private static class PreparedQuery {
+        private final QueryStatus.QUERY_STATE queryType;
+        private final Query query;
+        private final DatawaveUserDetails currentUser;
+        private final String computedPool;
+        private final Set<Authorizations> downgradedAuthorizations;
+        private final int maxConcurrentTasks;
+        private final CompletableFuture<Void> auditSubmission;
+        private final long callStartTimeMillis;
+        private final QueryPlanCache.Lookup planCacheLookup;
+        private final BaseQueryMetric requestBaseQueryMetric;
+        
+        private PreparedQuery(QueryStatus.QUERY_STATE queryType, Query query, DatawaveUserDetails currentUser, String computedPool,
+                        Set<Authorizations> downgradedAuthorizations, int maxConcurrentTasks, CompletableFuture<Void> auditSubmission, long callStartTimeMillis,
+                        QueryPlanCache.Lookup planCacheLookup, BaseQueryMetric requestBaseQueryMetric) {
+            this.queryType = queryType;
+            this.query = query;
+            this.currentUser = currentUser;
+            this.computedPool = computedPool;
+            this.downgradedAuthorizations = downgradedAuthorizations;
+            this.maxConcurrentTasks = maxConcurrentTasks;
+            this.auditSubmission = auditSubmission;
+            this.callStartTimeMillis = callStartTimeMillis;
+            this.planCacheLookup = planCacheLookup;
+            this.requestBaseQueryMetric = requestBaseQueryMetric;
+        }
+    }
+    
+    private static class StoredQuery {
+        private final TaskKey taskKey;
+        private final QueryRequest queryRequest;
+        private final Query query;
+        private final String computedPool;
+        private final boolean awaitExecutorResponse;
+        private final long callStartTimeMillis;
+        private final QueryPlanCache.Lookup planCacheLookup;
+        
+        private StoredQuery(TaskKey taskKey, QueryRequest queryRequest, Query query, String computedPool, boolean awaitExecutorResponse,
+                        long callStartTimeMillis, QueryPlanCache.Lookup planCacheLookup) {
+            this.taskKey = taskKey;
+            this.queryRequest = queryRequest;
+            this.query = query;
+            this.computedPool = computedPool;
+            this.awaitExecutorResponse = awaitExecutorResponse;
+            this.callStartTimeMillis = callStartTimeMillis;
+            this.planCacheLookup = planCacheLookup;
+        }
+    }
+    
+    private static class SubmittedNextCall {
+        private final String queryId;
+        private final QueryStatus queryStatus;
+        private final QueryLogicCache.Lease queryLogicLease;
+        private final BaseQueryMetric requestBaseQueryMetric;
+        private final NextCall nextCall;
+        private final ListenableFuture<ResultsPage<Object>> future;
+        
+        private SubmittedNextCall(String queryId, QueryStatus queryStatus, QueryLogicCache.Lease queryLogicLease, BaseQueryMetric requestBaseQueryMetric,
+                        NextCall nextCall, ListenableFuture<ResultsPage<Object>> future) {
+            this.queryId = queryId;
+            this.queryStatus = queryStatus;
+            this.queryLogicLease = queryLogicLease;
+            this.requestBaseQueryMetric = requestBaseQueryMetric;
+            this.nextCall = nextCall;
+            this.future = future;
+        }
+    }
 }
@@ -0,0 +1,167 @@
+package datawave.microservice.query.admin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.microservice.query.admin.config.BulkLifecycleProperties;
+import datawave.microservice.query.storage.QueryStatus;
+
+/**
+ * Runs an admin lifecycle operation, such as cancel, close or remove, against many queries at once.
+ * <p>
+ * The operation is applied to each query on the bulk lifecycle executor, with at most the configured number of queries in flight at a time. A failure for one
+ * query does not stop the operation from being applied to the remaining queries. Progress is logged as the queries are processed, and the outcomes are returned
+ * in the same order as the queries were given, so that callers can publish any follow-up events in a predictable order.
+ */
+public class BulkLifecycleExecutor {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final BulkLifecycleProperties bulkLifecycleProperties;
+    private final Executor executor;
+    
+    public BulkLifecycleExecutor(BulkLifecycleProperties bulkLifecycleProperties, Executor executor) {
+        this.bulkLifecycleProperties = bulkLifecycleProperties;
+        this.executor = executor;
+    }
+    
+    /**
+     * Applies the operation to each of the given queries, and waits for all of them to finish.
+     *
+     * @param operationName
+     *            the name of the operation, used for logging, not null
+     * @param queryStatuses
+     *            the queries to process, not null
+     * @param operation
+     *            the operation to apply to each query, not null
+     * @param <T>
+     *            the operation result type
+     * @return the outcome for each query, in the order that the queries were given
+     */
+    public <T> List<Outcome<T>> execute(String operationName, List<QueryStatus> queryStatuses, Operation<T> operation) {
+        long startTimeMillis = System.currentTimeMillis();
+        AtomicInteger numProcessed = new AtomicInteger();
+        int numQueries = queryStatuses.size();
+        
+        log.info("{}: processing {} queries", operationName, numQueries);
+        
+        List<CompletableFuture<Outcome<T>>> futures = new ArrayList<>(numQueries);
+        for (QueryStatus queryStatus : queryStatuses) {
+            // @formatter:off
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                        Outcome<T> outcome = apply(operationName, queryStatus, operation);
+                        logProgress(operationName, numProcessed.incrementAndGet(), numQueries);
+                        return outcome;
+                    }, executor));
+            // @formatter:on
+        }
+        
+        List<Outcome<T>> outcomes = new ArrayList<>(numQueries);
+        for (int i = 0; i < numQueries; i++) {
+            try {
+                outcomes.add(futures.get(i).join());
+            } catch (CompletionException e) {
+                // the task was rejected or could not run, so record it as a failure
+                outcomes.add(new Outcome<>(queryStatuses.get(i), null, (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e));
+            }
+        }
+        
+        long numFailed = outcomes.stream().filter(outcome -> !outcome.isSuccess()).count();
+        log.info("{}: processed {} queries with {} failures in {} ms", operationName, numQueries, numFailed, System.currentTimeMillis() - startTimeMillis);
+        
+        return outcomes;
+    }
+    
+    /**
+     * Throws the failure for the first query which could not be processed, with the failures for any other queries added as suppressed exceptions, so that
+     * none of them are lost.
+     *
+     * @param outcomes
+     *            the bulk lifecycle outcomes, not null
+     * @throws Exception
+     *             if the operation failed for any of the queries
+     */
+    public static void throwIfAnyFailed(List<? extends Outcome<?>> outcomes) throws Exception {
+        Exception failure = null;
+        for (Outcome<?> outcome : outcomes) {
+            if (!outcome.isSuccess()) {
+                if (failure == null) {
+                    failure = outcome.getException();
+                } else if (outcome.getException() != failure) {
+                    failure.addSuppressed(outcome.getException());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    private <T> Outcome<T> apply(String operationName, QueryStatus queryStatus, Operation<T> operation) {
+        try {
+            return new Outcome<>(queryStatus, operation.apply(queryStatus), null);
+        } catch (Exception e) {
+            log.error("{}: failed to process query {}", operationName, queryStatus.getQueryKey().getQueryId(), e);
+            return new Outcome<>(queryStatus, null, e);
+        }
+    }
+    
+    private void logProgress(String operationName, int numProcessed, int numQueries) {
+        if (numProcessed % bulkLifecycleProperties.getProgressInterval() == 0 && numProcessed < numQueries) {
+            log.info("{}: processed {} of {} queries", operationName, numProcessed, numQueries);
+        }
+    }
+    
+    @FunctionalInterface
+    public interface Operation<T> {
+        T apply(QueryStatus queryStatus) throws Exception;
+    }
+    
+    /**
+     * The result of applying an operation to a single query.
+     *
+     * @param <T>
+     *            the operation result type
+     */
+    public static class Outcome<T> {
+        private final QueryStatus queryStatus;
+        private final T result;
+        private final Exception exception;
+        
+        private Outcome(QueryStatus queryStatus, T result, Exception exception) {
+            this.queryStatus = queryStatus;
+            this.result = result;
+            this.exception = exception;
+        }
+        
+        public QueryStatus getQueryStatus() {
+            return queryStatus;
+        }
+        
+        public String getQueryId() {
+            return queryStatus.getQueryKey().getQueryId();
+        }
+        
+        public String getQueryPool() {
+            return queryStatus.getQueryKey().getQueryPool();
+        }
+        
+        public T getResult() {
+            return result;
+        }
+        
+        public Exception getException() {
+            return exception;
+        }
+        
+        public boolean isSuccess() {
+            return exception == null;
+        }
+    }
+}
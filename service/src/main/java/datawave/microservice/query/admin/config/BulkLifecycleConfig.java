@@ -0,0 +1,31 @@
+package datawave.microservice.query.admin.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import datawave.microservice.query.admin.BulkLifecycleExecutor;
+
+@Configuration
+@EnableConfigurationProperties(BulkLifecycleProperties.class)
+public class BulkLifecycleConfig {
+    @Bean
+    public ThreadPoolTaskExecutor bulkLifecycleTaskExecutor(BulkLifecycleProperties bulkLifecycleProperties) {
+        // queries beyond the parallelism limit wait in the queue, rather than being rejected
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(bulkLifecycleProperties.getMaxParallelism());
+        executor.setMaxPoolSize(bulkLifecycleProperties.getMaxParallelism());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix(bulkLifecycleProperties.getThreadNamePrefix());
+        executor.initialize();
+        return executor;
+    }
+    
+    @Bean
+    public BulkLifecycleExecutor bulkLifecycleExecutor(BulkLifecycleProperties bulkLifecycleProperties,
+                    @Qualifier("bulkLifecycleTaskExecutor") ThreadPoolTaskExecutor bulkLifecycleTaskExecutor) {
+        return new BulkLifecycleExecutor(bulkLifecycleProperties, bulkLifecycleTaskExecutor);
+    }
+}
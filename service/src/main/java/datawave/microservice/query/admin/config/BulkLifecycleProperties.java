@@ -0,0 +1,45 @@
+package datawave.microservice.query.admin.config;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Positive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.bulk-lifecycle")
+public class BulkLifecycleProperties {
+    // The maximum number of queries which will be canceled, closed or removed concurrently by an admin-wide operation
+    @Positive
+    private int maxParallelism = 8;
+    // The number of processed queries between progress log messages
+    @Positive
+    private int progressInterval = 100;
+    // The thread name prefix used by the bulk lifecycle executor
+    @NotEmpty
+    private String threadNamePrefix = "bulkLifecycle-";
+    
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+    
+    public void setMaxParallelism(int maxParallelism) {
+        this.maxParallelism = maxParallelism;
+    }
+    
+    public int getProgressInterval() {
+        return progressInterval;
+    }
+    
+    public void setProgressInterval(int progressInterval) {
+        this.progressInterval = progressInterval;
+    }
+    
+    public String getThreadNamePrefix() {
+        return threadNamePrefix;
+    }
+    
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+}
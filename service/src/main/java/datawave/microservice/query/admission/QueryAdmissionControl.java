@@ -0,0 +1,202 @@
+package datawave.microservice.query.admission;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.PoolCapacity;
+import datawave.microservice.query.admission.config.QueryAdmissionProperties;
+import datawave.microservice.query.config.QueryProperties;
+import datawave.microservice.query.executor.status.cache.ExecutorPoolStatus;
+import datawave.microservice.query.executor.status.cache.ExecutorStatusCache;
+
+/**
+ * Decides whether a query create should be admitted, so that an overloaded pool pushes back on its callers rather than letting queries pile up in the
+ * executors.
+ * <p>
+ * A create is turned away if the pool or the user has used up their token bucket, or, if configured, if the active executors for the target pool are already
+ * running as many queries as they allow for the query's connection pool, as reported by the {@link ExecutorStatusCache}. Rejected creates get a 429 response
+ * right away, and the {@link RetryAfterExceptionResolver} sets the Retry-After header from the exception. Creates are never held on the request thread
+ * waiting for capacity, so it is up to the caller to retry.
+ */
+public class QueryAdmissionControl {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final QueryAdmissionProperties admissionProperties;
+    private final QueryProperties queryProperties;
+    private final ExecutorStatusCache executorStatusCache;
+    private final String defaultConnectionPool;
+    
+    private final Map<List<String>,PoolSaturation> poolSaturations = new ConcurrentHashMap<>();
+    private final Map<String,TokenBucket> poolBuckets = new ConcurrentHashMap<>();
+    private final Map<String,TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    
+    public QueryAdmissionControl(QueryAdmissionProperties admissionProperties, QueryProperties queryProperties, ExecutorStatusCache executorStatusCache,
+                    String defaultConnectionPool) {
+        this.admissionProperties = admissionProperties;
+        this.queryProperties = queryProperties;
+        this.executorStatusCache = executorStatusCache;
+        this.defaultConnectionPool = defaultConnectionPool;
+    }
+    
+    /**
+     * Admits a query create for the given pool and user. This never waits for capacity, so that the request thread isn't held.
+     *
+     * @param pool
+     *            the pool that the query will run in, not null
+     * @param connectionPool
+     *            the connection pool that the query will use, or null for the default connection pool
+     * @param currentUser
+     *            the user who is creating the query, not null
+     * @throws TooManyRequestsQueryException
+     *             if there isn't capacity for the query
+     */
+    public void admit(String pool, String connectionPool, DatawaveUserDetails currentUser) throws TooManyRequestsQueryException {
+        if (!admissionProperties.isEnabled()) {
+            return;
+        }
+        
+        String user = currentUser.getPrimaryUser().getName();
+        long retryAfterMillis = tryAdmit(pool, (connectionPool != null) ? connectionPool : defaultConnectionPool, user);
+        
+        if (retryAfterMillis > 0L) {
+            long retryAfterSeconds = Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis + 999L));
+            log.info("Rejecting query create for {} in pool {}, retry after {} seconds", user, pool, retryAfterSeconds);
+            throw new TooManyRequestsQueryException("Query pool " + pool + " is at capacity, retry after " + retryAfterSeconds + " seconds",
+                            retryAfterSeconds);
+        }
+    }
+    
+    /**
+     * Forgets the token buckets which have refilled, since they would behave the same way if they were created again.
+     */
+    @Scheduled(fixedDelayString = "${datawave.query.admission.bucket-eviction-interval-millis:60000}")
+    public void evictIdleBuckets() {
+        long now = System.currentTimeMillis();
+        poolBuckets.values().removeIf(bucket -> bucket.isFull(now, admissionProperties.getPoolCreateRate(), admissionProperties.getPoolCreateBurst()));
+        userBuckets.values().removeIf(bucket -> bucket.isFull(now, admissionProperties.getUserCreateRate(), admissionProperties.getUserCreateBurst()));
+    }
+    
+    /**
+     * Forgets all of the token buckets and pool saturation readings, so that every pool and user starts over with a full bucket.
+     */
+    public void reset() {
+        poolSaturations.clear();
+        poolBuckets.clear();
+        userBuckets.clear();
+    }
+    
+    // returns 0 if the create was admitted, otherwise the number of milliseconds to wait before trying again
+    private long tryAdmit(String pool, String connectionPool, String user) {
+        long now = System.currentTimeMillis();
+        
+        if (admissionProperties.isRejectWhenPoolSaturated() && isSaturated(pool, connectionPool, now)) {
+            return admissionProperties.getSaturatedRetryAfterMillis();
+        }
+        
+        TokenBucket userBucket = null;
+        if (admissionProperties.getUserCreateRate() > 0) {
+            userBucket = userBuckets.computeIfAbsent(user, k -> new TokenBucket(admissionProperties.getUserCreateBurst(), now));
+            long waitMillis = userBucket.tryTake(now, admissionProperties.getUserCreateRate(), admissionProperties.getUserCreateBurst());
+            if (waitMillis > 0L) {
+                return waitMillis;
+            }
+        }
+        
+        if (admissionProperties.getPoolCreateRate() > 0) {
+            TokenBucket poolBucket = poolBuckets.computeIfAbsent(pool, k -> new TokenBucket(admissionProperties.getPoolCreateBurst(), now));
+            long waitMillis = poolBucket.tryTake(now, admissionProperties.getPoolCreateRate(), admissionProperties.getPoolCreateBurst());
+            if (waitMillis > 0L) {
+                // the create wasn't admitted, so give the user their token back
+                if (userBucket != null) {
+                    userBucket.giveBack(admissionProperties.getUserCreateBurst());
+                }
+                return waitMillis;
+            }
+        }
+        
+        return 0L;
+    }
+    
+    private boolean isSaturated(String pool, String connectionPool, long now) {
+        List<String> key = Arrays.asList(pool, connectionPool);
+        PoolSaturation saturation = poolSaturations.get(key);
+        if (saturation == null || (now - saturation.checkedMillis) >= admissionProperties.getPoolStatusRefreshIntervalMillis()) {
+            saturation = readPoolSaturation(pool, connectionPool, now);
+            poolSaturations.put(key, saturation);
+        }
+        return saturation.saturated;
+    }
+    
+    private PoolSaturation readPoolSaturation(String pool, String connectionPool, long now) {
+        boolean saturated = false;
+        try {
+            ExecutorPoolStatus poolStatus = executorStatusCache.get(pool);
+            QueryProperties.PoolProperties poolLimits = queryProperties.getPoolLimits().get(pool);
+            if (poolStatus != null && poolLimits != null) {
+                PoolCapacity poolCapacity = PoolCapacity.of(poolStatus, poolLimits, connectionPool, now);
+                
+                // without any active executors we can't tell what the capacity is, so we leave it to the executors to sort out
+                if (!poolCapacity.getActiveExecutors().isEmpty() && poolCapacity.isLimited()) {
+                    saturated = !poolCapacity.isHealthy();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Unable to read the executor status for pool {}, admitting queries", pool, e);
+        }
+        return new PoolSaturation(saturated, now);
+    }
+    
+    private static class PoolSaturation {
+        private final boolean saturated;
+        private final long checkedMillis;
+        
+        private PoolSaturation(boolean saturated, long checkedMillis) {
+            this.saturated = saturated;
+            this.checkedMillis = checkedMillis;
+        }
+    }
+    
+    private static class TokenBucket {
+        private double tokens;
+        private long refilledMillis;
+        
+        private TokenBucket(int burst, long now) {
+            this.tokens = burst;
+            this.refilledMillis = now;
+        }
+        
+        // returns 0 if a token was taken, otherwise the number of milliseconds until one will be available
+        private synchronized long tryTake(long now, double ratePerSecond, int burst) {
+            refill(now, ratePerSecond, burst);
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return 0L;
+            }
+            return Math.max(1L, (long) Math.ceil((1.0 - tokens) * 1000.0 / ratePerSecond));
+        }
+        
+        private synchronized void giveBack(int burst) {
+            tokens = Math.min(burst, tokens + 1.0);
+        }
+        
+        private synchronized boolean isFull(long now, double ratePerSecond, int burst) {
+            refill(now, ratePerSecond, burst);
+            return ratePerSecond <= 0 || tokens >= burst;
+        }
+        
+        private void refill(long now, double ratePerSecond, int burst) {
+            if (now > refilledMillis) {
+                tokens = Math.min(burst, tokens + ((now - refilledMillis) * ratePerSecond / 1000.0));
+                refilledMillis = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package datawave.microservice.query.admission;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Sets the Retry-After header from a {@link TooManyRequestsQueryException} before the exception is handled.
+ * <p>
+ * This runs ahead of the other exception resolvers, and never resolves the exception itself, so the usual exception handler still writes the 429 response
+ * body. Since it works off of the exception, the header is set for deferred responses as well as for creates which were turned away on the request thread.
+ */
+public class RetryAfterExceptionResolver implements HandlerExceptionResolver, Ordered {
+    
+    @Override
+    public ModelAndView resolveException(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, Object handler,
+                    @NonNull Exception ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof TooManyRequestsQueryException) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(((TooManyRequestsQueryException) t).getRetryAfterSeconds()));
+                break;
+            }
+        }
+        // let the other exception resolvers write the response
+        return null;
+    }
+    
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,23 @@
+package datawave.microservice.query.admission;
+
+import org.springframework.http.HttpStatus;
+
+import datawave.webservice.query.exception.QueryException;
+
+/**
+ * Thrown when a query is not admitted because there isn't capacity for it. The caller is told how long to wait before trying again.
+ */
+public class TooManyRequestsQueryException extends QueryException {
+    private static final long serialVersionUID = 1L;
+    
+    private final long retryAfterSeconds;
+    
+    public TooManyRequestsQueryException(String message, long retryAfterSeconds) {
+        super(message, HttpStatus.TOO_MANY_REQUESTS.value() + "-1");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,26 @@
+package datawave.microservice.query.admission.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import datawave.microservice.query.admission.QueryAdmissionControl;
+import datawave.microservice.query.admission.RetryAfterExceptionResolver;
+import datawave.microservice.query.config.QueryProperties;
+import datawave.microservice.query.executor.status.cache.ExecutorStatusCache;
+
+@Configuration
+@EnableConfigurationProperties(QueryAdmissionProperties.class)
+public class QueryAdmissionConfig {
+    @Bean
+    public QueryAdmissionControl queryAdmissionControl(QueryAdmissionProperties queryAdmissionProperties, QueryProperties queryProperties,
+                    ExecutorStatusCache executorStatusCache, @Value("${datawave.connection.factory.default-pool:default}") String defaultConnectionPool) {
+        return new QueryAdmissionControl(queryAdmissionProperties, queryProperties, executorStatusCache, defaultConnectionPool);
+    }
+    
+    @Bean
+    public RetryAfterExceptionResolver retryAfterExceptionResolver() {
+        return new RetryAfterExceptionResolver();
+    }
+}
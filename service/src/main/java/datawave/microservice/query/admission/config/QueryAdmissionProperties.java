@@ -0,0 +1,130 @@
+package datawave.microservice.query.admission.config;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.admission")
+public class QueryAdmissionProperties {
+    // Whether query creates should be subject to admission control
+    private boolean enabled = true;
+    // Whether creates should be rejected while the active executors for the target pool are running as many queries as they allow. If disabled, which is the
+    // default, creates are only turned away by the configured rate limits.
+    private boolean rejectWhenPoolSaturated = false;
+    // How long the executor status for a pool is used before it is read again
+    @PositiveOrZero
+    private long poolStatusRefreshInterval = 1;
+    @NotNull
+    private TimeUnit poolStatusRefreshIntervalUnit = TimeUnit.SECONDS;
+    // How long callers are told to wait before retrying when the target pool is saturated
+    @Positive
+    private long saturatedRetryAfter = 5;
+    @NotNull
+    private TimeUnit saturatedRetryAfterUnit = TimeUnit.SECONDS;
+    // The sustained number of creates per second allowed for each pool. If 0, creates are not rate limited per pool.
+    @PositiveOrZero
+    private double poolCreateRate = 0;
+    // The number of creates which a pool can absorb in a burst, above its sustained rate
+    @Positive
+    private int poolCreateBurst = 50;
+    // The sustained number of creates per second allowed for each user. If 0, creates are not rate limited per user.
+    @PositiveOrZero
+    private double userCreateRate = 0;
+    // The number of creates which a user can make in a burst, above their sustained rate
+    @Positive
+    private int userCreateBurst = 10;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public boolean isRejectWhenPoolSaturated() {
+        return rejectWhenPoolSaturated;
+    }
+    
+    public void setRejectWhenPoolSaturated(boolean rejectWhenPoolSaturated) {
+        this.rejectWhenPoolSaturated = rejectWhenPoolSaturated;
+    }
+    
+    public long getPoolStatusRefreshInterval() {
+        return poolStatusRefreshInterval;
+    }
+    
+    public long getPoolStatusRefreshIntervalMillis() {
+        return poolStatusRefreshIntervalUnit.toMillis(poolStatusRefreshInterval);
+    }
+    
+    public void setPoolStatusRefreshInterval(long poolStatusRefreshInterval) {
+        this.poolStatusRefreshInterval = poolStatusRefreshInterval;
+    }
+    
+    public TimeUnit getPoolStatusRefreshIntervalUnit() {
+        return poolStatusRefreshIntervalUnit;
+    }
+    
+    public void setPoolStatusRefreshIntervalUnit(TimeUnit poolStatusRefreshIntervalUnit) {
+        this.poolStatusRefreshIntervalUnit = poolStatusRefreshIntervalUnit;
+    }
+    
+    public long getSaturatedRetryAfter() {
+        return saturatedRetryAfter;
+    }
+    
+    public long getSaturatedRetryAfterMillis() {
+        return saturatedRetryAfterUnit.toMillis(saturatedRetryAfter);
+    }
+    
+    public void setSaturatedRetryAfter(long saturatedRetryAfter) {
+        this.saturatedRetryAfter = saturatedRetryAfter;
+    }
+    
+    public TimeUnit getSaturatedRetryAfterUnit() {
+        return saturatedRetryAfterUnit;
+    }
+    
+    public void setSaturatedRetryAfterUnit(TimeUnit saturatedRetryAfterUnit) {
+        this.saturatedRetryAfterUnit = saturatedRetryAfterUnit;
+    }
+    
+    public double getPoolCreateRate() {
+        return poolCreateRate;
+    }
+    
+    public void setPoolCreateRate(double poolCreateRate) {
+        this.poolCreateRate = poolCreateRate;
+    }
+    
+    public int getPoolCreateBurst() {
+        return poolCreateBurst;
+    }
+    
+    public void setPoolCreateBurst(int poolCreateBurst) {
+        this.poolCreateBurst = poolCreateBurst;
+    }
+    
+    public double getUserCreateRate() {
+        return userCreateRate;
+    }
+    
+    public void setUserCreateRate(double userCreateRate) {
+        this.userCreateRate = userCreateRate;
+    }
+    
+    public int getUserCreateBurst() {
+        return userCreateBurst;
+    }
+    
+    public void setUserCreateBurst(int userCreateBurst) {
+        this.userCreateBurst = userCreateBurst;
+    }
+}
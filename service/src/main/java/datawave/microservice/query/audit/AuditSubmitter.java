@@ -0,0 +1,128 @@
+package datawave.microservice.query.audit;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.microservice.audit.AuditClient;
+import datawave.microservice.query.audit.config.AuditPipelineProperties;
+import datawave.webservice.query.exception.BadRequestQueryException;
+import datawave.webservice.query.exception.DatawaveErrorCode;
+
+/**
+ * Submits audit records to the audit service.
+ * <p>
+ * When the audit pipeline is enabled, audit records for queries which are being stored are submitted on the audit submission executor, so that the submission
+ * can overlap with downgrading the auths and storing the query. The caller is handed a future for the submission, and is responsible for awaiting it before
+ * anything is released to run.
+ */
+public class AuditSubmitter {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final AuditPipelineProperties auditPipelineProperties;
+    private final AuditClient auditClient;
+    private final Executor executor;
+    
+    public AuditSubmitter(AuditPipelineProperties auditPipelineProperties, AuditClient auditClient, Executor executor) {
+        this.auditPipelineProperties = auditPipelineProperties;
+        this.auditClient = auditClient;
+        this.executor = executor;
+    }
+    
+    /**
+     * Submits the audit record to the audit service, and waits for it to be acknowledged.
+     *
+     * @param auditId
+     *            the audit id, used for logging, not null
+     * @param auditRequest
+     *            the audit record, not null
+     * @throws BadRequestQueryException
+     *             if the audit service failed to validate the audit record
+     * @throws BadRequestQueryException
+     *             if there is an error auditing the query
+     */
+    public void submit(String auditId, AuditClient.Request auditRequest) throws BadRequestQueryException {
+        log.info("[{}] Sending audit request with parameters {}", auditId, auditRequest);
+        
+        try {
+            auditClient.submit(auditRequest);
+        } catch (IllegalArgumentException e) {
+            log.error("Error validating audit parameters", e);
+            throw new BadRequestQueryException(DatawaveErrorCode.MISSING_REQUIRED_PARAMETER, e);
+        } catch (Exception e) {
+            log.error("Error auditing query", e);
+            throw new BadRequestQueryException(DatawaveErrorCode.QUERY_AUDITING_ERROR, e);
+        }
+    }
+    
+    /**
+     * Submits the audit record to the audit service on the audit submission executor. If the audit pipeline is disabled, the audit record is submitted on the
+     * calling thread instead.
+     *
+     * @param auditId
+     *            the audit id, used for logging, not null
+     * @param auditRequest
+     *            the audit record, not null
+     * @return a future which will be completed once the audit service has acknowledged the audit record, or completed exceptionally with a
+     *         {@link BadRequestQueryException} if the submission failed, or null if there is no audit left pending
+     * @throws BadRequestQueryException
+     *             if the audit pipeline is disabled and the submission failed
+     */
+    public CompletableFuture<Void> submitAsync(String auditId, AuditClient.Request auditRequest) throws BadRequestQueryException {
+        if (!auditPipelineProperties.isEnabled()) {
+            submit(auditId, auditRequest);
+            return null;
+        }
+        
+        // @formatter:off
+        return CompletableFuture.runAsync(() -> {
+                    try {
+                        submit(auditId, auditRequest);
+                    } catch (BadRequestQueryException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor);
+        // @formatter:on
+    }
+    
+    /**
+     * Waits for an audit submission to be acknowledged.
+     *
+     * @param auditSubmission
+     *            the audit submission, may be null
+     * @throws BadRequestQueryException
+     *             if there was an error auditing the query
+     */
+    public void await(CompletableFuture<Void> auditSubmission) throws BadRequestQueryException {
+        if (auditSubmission != null) {
+            try {
+                auditSubmission.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof BadRequestQueryException) {
+                    throw (BadRequestQueryException) e.getCause();
+                }
+                throw new BadRequestQueryException(DatawaveErrorCode.QUERY_AUDITING_ERROR, e.getCause());
+            }
+        }
+    }
+    
+    /**
+     * Waits for an audit submission to settle, logging rather than rethrowing any failure. This is used when the query could not be stored, and the original
+     * error is the one which should be reported.
+     *
+     * @param auditSubmission
+     *            the audit submission, may be null
+     */
+    public void awaitQuietly(CompletableFuture<Void> auditSubmission) {
+        if (auditSubmission != null) {
+            try {
+                auditSubmission.join();
+            } catch (CompletionException e) {
+                log.warn("Audit failed for a query which could not be stored", e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package datawave.microservice.query.audit.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import datawave.microservice.audit.AuditClient;
+import datawave.microservice.query.audit.AuditSubmitter;
+
+@Configuration
+@EnableConfigurationProperties(AuditPipelineProperties.class)
+public class AuditPipelineConfig {
+    @Bean
+    public ThreadPoolTaskExecutor auditSubmissionTaskExecutor(AuditPipelineProperties auditPipelineProperties) {
+        // audits beyond the thread limit wait in the queue, since a rejected audit would fail the create
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(auditPipelineProperties.getMaxThreads());
+        executor.setMaxPoolSize(auditPipelineProperties.getMaxThreads());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix(auditPipelineProperties.getThreadNamePrefix());
+        executor.initialize();
+        return executor;
+    }
+    
+    @Bean
+    public AuditSubmitter auditSubmitter(AuditPipelineProperties auditPipelineProperties, AuditClient auditClient,
+                    @Qualifier("auditSubmissionTaskExecutor") ThreadPoolTaskExecutor auditSubmissionTaskExecutor) {
+        return new AuditSubmitter(auditPipelineProperties, auditClient, auditSubmissionTaskExecutor);
+    }
+}
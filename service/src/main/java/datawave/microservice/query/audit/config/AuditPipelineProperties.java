@@ -0,0 +1,44 @@
+package datawave.microservice.query.audit.config;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Positive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.audit-pipeline")
+public class AuditPipelineProperties {
+    // Whether audit records should be submitted concurrently with auth downgrading and query storage, rather than before them
+    private boolean enabled = true;
+    // The maximum number of audit records which can be submitted concurrently
+    @Positive
+    private int maxThreads = 16;
+    // The thread name prefix used by the audit submission executor
+    @NotEmpty
+    private String threadNamePrefix = "auditSubmission-";
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+    
+    public void setMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+    
+    public String getThreadNamePrefix() {
+        return threadNamePrefix;
+    }
+    
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+}
@@ -0,0 +1,153 @@
+package datawave.microservice.query.auth;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.security.Authorizations;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.auth.config.UserAuthorizationsCacheProperties;
+import datawave.security.authorization.DatawaveUser;
+
+/**
+ * Caches the remote user details and downgraded authorizations computed for a caller, so that bursts of requests from the same caller don't each pay for
+ * remote user lookups.
+ * <p>
+ * Entries are keyed by the query logic, and the subject DN, issuer DN, roles and authorizations of each of the caller's proxied users. If any of those change,
+ * the caller's new requests will miss the cache, and the stale entries will age out after the configured time to live. Once the cache reaches the configured
+ * maximum number of entries, the entries which have been used least recently and least often are evicted to make room. The time to live and maximum number
+ * of entries are read when the cache is created.
+ */
+public class UserAuthorizationsCache {
+    private static final String REMOTE_USER = "remoteUser";
+    private static final String DOWNGRADED_AUTHORIZATIONS = "downgradedAuthorizations";
+    private static final String USER_AUTHS = "userAuths";
+    
+    private final UserAuthorizationsCacheProperties cacheProperties;
+    private final Cache<List<Object>,Object> entries;
+    
+    public UserAuthorizationsCache(UserAuthorizationsCacheProperties cacheProperties) {
+        this.cacheProperties = cacheProperties;
+        // @formatter:off
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaxEntries())
+                .expireAfterWrite(cacheProperties.getTimeToLiveMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        // @formatter:on
+    }
+    
+    /**
+     * Gets the remote user details for the given user, as computed by the query logic's user operations.
+     *
+     * @param queryLogicName
+     *            the query logic name, not null
+     * @param user
+     *            the user to look up, not null
+     * @param loader
+     *            loads the remote user if it isn't cached, not null
+     * @return the remote user details
+     * @throws Exception
+     *             if the remote user lookup fails
+     */
+    public DatawaveUserDetails getRemoteUser(String queryLogicName, DatawaveUserDetails user, Loader<DatawaveUserDetails> loader) throws Exception {
+        return get(Arrays.asList(REMOTE_USER, queryLogicName, getUserKey(user)), loader);
+    }
+    
+    /**
+     * Gets the downgraded authorizations to store with a query.
+     *
+     * @param queryLogicName
+     *            the query logic name, not null
+     * @param requestedAuths
+     *            the requested authorizations, may be null
+     * @param includeRemoteServices
+     *            whether remote services were included when determining the overall user
+     * @param currentUser
+     *            the user who is creating the query, not null
+     * @param loader
+     *            computes the downgraded authorizations if they aren't cached, not null
+     * @return the downgraded authorizations
+     * @throws Exception
+     *             if the authorizations cannot be computed
+     */
+    public Set<Authorizations> getDowngradedAuthorizations(String queryLogicName, String requestedAuths, boolean includeRemoteServices,
+                    DatawaveUserDetails currentUser, Loader<Set<Authorizations>> loader) throws Exception {
+        return get(Arrays.asList(DOWNGRADED_AUTHORIZATIONS, queryLogicName, requestedAuths, includeRemoteServices, getUserKey(currentUser)), loader);
+    }
+    
+    /**
+     * Gets the authorization string to use for a lookup.
+     *
+     * @param queryLogicName
+     *            the query logic name, not null
+     * @param requestedAuths
+     *            the requested authorizations, may be null
+     * @param currentUser
+     *            the user who is performing the lookup, not null
+     * @param loader
+     *            computes the authorization string if it isn't cached, not null
+     * @return the authorization string
+     * @throws Exception
+     *             if the authorizations cannot be computed
+     */
+    public String getUserAuths(String queryLogicName, String requestedAuths, DatawaveUserDetails currentUser, Loader<String> loader) throws Exception {
+        return get(Arrays.asList(USER_AUTHS, queryLogicName, requestedAuths, getUserKey(currentUser)), loader);
+    }
+    
+    /**
+     * Removes all cached entries.
+     */
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+    
+    public long size() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> T get(List<Object> key, Loader<T> loader) throws Exception {
+        if (!cacheProperties.isEnabled()) {
+            return loader.load();
+        }
+        
+        Object value = entries.getIfPresent(key);
+        if (value != null) {
+            return (T) value;
+        }
+        
+        // concurrent misses for the same key may both load the value, which is fine since the loaders are idempotent
+        T loadedValue = loader.load();
+        if (loadedValue != null) {
+            entries.put(key, loadedValue);
+        }
+        return loadedValue;
+    }
+    
+    private List<Object> getUserKey(DatawaveUserDetails user) {
+        List<Object> userKey = new ArrayList<>();
+        for (DatawaveUser proxiedUser : user.getProxiedUsers()) {
+            userKey.add(proxiedUser.getDn().subjectDN());
+            userKey.add(proxiedUser.getDn().issuerDN());
+            userKey.add(new HashSet<>(proxiedUser.getRoles()));
+        }
+        for (Collection<String> auths : user.getAuthorizations()) {
+            userKey.add(new HashSet<>(auths));
+        }
+        return userKey;
+    }
+    
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws Exception;
+    }
+}
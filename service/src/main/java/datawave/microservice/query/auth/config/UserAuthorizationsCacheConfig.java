@@ -0,0 +1,16 @@
+package datawave.microservice.query.auth.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import datawave.microservice.query.auth.UserAuthorizationsCache;
+
+@Configuration
+@EnableConfigurationProperties(UserAuthorizationsCacheProperties.class)
+public class UserAuthorizationsCacheConfig {
+    @Bean
+    public UserAuthorizationsCache userAuthorizationsCache(UserAuthorizationsCacheProperties userAuthorizationsCacheProperties) {
+        return new UserAuthorizationsCache(userAuthorizationsCacheProperties);
+    }
+}
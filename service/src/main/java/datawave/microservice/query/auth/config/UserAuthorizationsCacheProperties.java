@@ -0,0 +1,61 @@
+package datawave.microservice.query.auth.config;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.user-authorizations-cache")
+public class UserAuthorizationsCacheProperties {
+    // Whether remote user details and downgraded authorizations should be cached
+    private boolean enabled = true;
+    // The amount of time that a cached entry will be used before it is recomputed
+    @PositiveOrZero
+    private long timeToLive = 60;
+    @NotNull
+    private TimeUnit timeToLiveUnit = TimeUnit.SECONDS;
+    // The maximum number of entries to keep in the cache
+    @Positive
+    private int maxEntries = 10000;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+    
+    public long getTimeToLiveMillis() {
+        return timeToLiveUnit.toMillis(timeToLive);
+    }
+    
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+    
+    public TimeUnit getTimeToLiveUnit() {
+        return timeToLiveUnit;
+    }
+    
+    public void setTimeToLiveUnit(TimeUnit timeToLiveUnit) {
+        this.timeToLiveUnit = timeToLiveUnit;
+    }
+    
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+    
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+}
@@ -0,0 +1,93 @@
+package datawave.microservice.query.batch;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import datawave.webservice.query.exception.QueryException;
+import datawave.webservice.result.BaseResponse;
+
+/**
+ * The response to a batch create request.
+ * <p>
+ * There is one result for each submitted query definition, in the order that the definitions were submitted. Each result contains either the id of the query
+ * which was created, or the error which prevented it from being created.
+ */
+@XmlRootElement(name = "BatchCreateResponse")
+@XmlAccessorType(XmlAccessType.NONE)
+public class BatchCreateResponse extends BaseResponse {
+    private static final long serialVersionUID = 1L;
+    
+    @XmlElementWrapper(name = "Results")
+    @XmlElement(name = "Result")
+    private List<Result> results = new ArrayList<>();
+    
+    public List<Result> getResults() {
+        return results;
+    }
+    
+    public void setResults(List<Result> results) {
+        this.results = results;
+    }
+    
+    public void addResult(Result result) {
+        this.results.add(result);
+    }
+    
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
+        @XmlElement(name = "queryId")
+        private String queryId;
+        @XmlElement(name = "errorCode")
+        private String errorCode;
+        @XmlElement(name = "errorMessage")
+        private String errorMessage;
+        
+        public Result() {}
+        
+        public static Result success(String queryId) {
+            Result result = new Result();
+            result.setQueryId(queryId);
+            return result;
+        }
+        
+        public static Result failure(QueryException e) {
+            Result result = new Result();
+            result.setErrorCode(e.getErrorCode());
+            result.setErrorMessage(e.getMessage());
+            return result;
+        }
+        
+        public String getQueryId() {
+            return queryId;
+        }
+        
+        public void setQueryId(String queryId) {
+            this.queryId = queryId;
+        }
+        
+        public String getErrorCode() {
+            return errorCode;
+        }
+        
+        public void setErrorCode(String errorCode) {
+            this.errorCode = errorCode;
+        }
+        
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+        
+        public void setErrorMessage(String errorMessage) {
+            this.errorMessage = errorMessage;
+        }
+    }
+}
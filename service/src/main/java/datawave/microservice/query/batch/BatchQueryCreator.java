@@ -0,0 +1,230 @@
+package datawave.microservice.query.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.microservice.query.batch.config.BatchCreateProperties;
+import datawave.webservice.query.exception.BadRequestQueryException;
+import datawave.webservice.query.exception.DatawaveErrorCode;
+import datawave.webservice.query.exception.QueryException;
+
+/**
+ * Creates a batch of queries.
+ * <p>
+ * Every query is prepared on the calling thread, since preparing a query depends on the request scoped beans, and the queries are then written to query
+ * storage in parallel on the batch create executor. Once all of the queries are stored, their query metrics are submitted together, and the create events are
+ * published together, grouped by executor pool. Any executor responses are awaited concurrently, rather than one query at a time. <br>
+ * A failure to create one query does not prevent the remaining queries from being created. The response contains either the query id, or the error, for each
+ * query definition, in the order that they were submitted.
+ */
+public class BatchQueryCreator {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final BatchCreateProperties batchCreateProperties;
+    private final Executor executor;
+    
+    public BatchQueryCreator(BatchCreateProperties batchCreateProperties, Executor executor) {
+        this.batchCreateProperties = batchCreateProperties;
+        this.executor = executor;
+    }
+    
+    /**
+     * Creates the batch of queries using the given stages.
+     *
+     * @param numQueries
+     *            the number of query definitions in the batch
+     * @param stages
+     *            the stages used to create each query, not null
+     * @param <P>
+     *            the prepared query type
+     * @param <S>
+     *            the stored query type
+     * @return a batch create response containing the query id or error for each query definition
+     * @throws BadRequestQueryException
+     *             if no query definitions were submitted
+     * @throws BadRequestQueryException
+     *             if too many query definitions were submitted
+     */
+    public <P,S> BatchCreateResponse create(int numQueries, Stages<P,S> stages) throws BadRequestQueryException {
+        if (numQueries == 0) {
+            throw new BadRequestQueryException("At least one query definition is required.", HttpStatus.SC_BAD_REQUEST + "-1");
+        }
+        if (numQueries > batchCreateProperties.getMaxBatchSize()) {
+            throw new BadRequestQueryException("A batch may contain at most " + batchCreateProperties.getMaxBatchSize() + " query definitions.",
+                            HttpStatus.SC_BAD_REQUEST + "-1");
+        }
+        
+        QueryException[] failures = new QueryException[numQueries];
+        
+        // prepare each of the queries on the calling thread
+        List<P> preparedQueries = new ArrayList<>(Collections.nCopies(numQueries, null));
+        for (int i = 0; i < numQueries; i++) {
+            try {
+                preparedQueries.set(i, stages.prepare(i));
+            } catch (QueryException e) {
+                failures[i] = e;
+            } catch (Exception e) {
+                log.error("Unknown error creating query", e);
+                failures[i] = new QueryException(DatawaveErrorCode.QUERY_SETUP_ERROR, e, "Unknown error creating query.");
+            }
+        }
+        
+        // write the queries to query storage in parallel, since none of the writes depend on each other
+        List<CompletableFuture<S>> storeFutures = new ArrayList<>(Collections.nCopies(numQueries, null));
+        for (int i = 0; i < numQueries; i++) {
+            P preparedQuery = preparedQueries.get(i);
+            if (preparedQuery != null) {
+                // @formatter:off
+                storeFutures.set(i, CompletableFuture.supplyAsync(() -> {
+                            try {
+                                return stages.store(preparedQuery);
+                            } catch (QueryException e) {
+                                throw new CompletionException(e);
+                            }
+                        }, executor));
+                // @formatter:on
+            }
+        }
+        
+        List<S> storedQueries = new ArrayList<>(Collections.nCopies(numQueries, null));
+        List<P> storedPreparedQueries = new ArrayList<>();
+        for (int i = 0; i < numQueries; i++) {
+            if (storeFutures.get(i) != null) {
+                try {
+                    storedQueries.set(i, join(storeFutures.get(i)));
+                    storedPreparedQueries.add(preparedQueries.get(i));
+                } catch (QueryException e) {
+                    failures[i] = e;
+                } catch (Exception e) {
+                    log.error("Unknown error storing query", e);
+                    failures[i] = new QueryException(DatawaveErrorCode.RUNNING_QUERY_CACHE_ERROR, e);
+                }
+            }
+        }
+        
+        // submit the query metrics for the stored queries together
+        stages.submitQueryMetrics(storedPreparedQueries);
+        
+        // publish the create events together, grouped by pool so that each executor pool receives its events in one burst
+        Map<String,List<Integer>> poolQueries = new LinkedHashMap<>();
+        for (int i = 0; i < numQueries; i++) {
+            if (storedQueries.get(i) != null) {
+                poolQueries.computeIfAbsent(stages.getPool(storedQueries.get(i)), k -> new ArrayList<>()).add(i);
+            }
+        }
+        List<CompletableFuture<String>> futures = new ArrayList<>(Collections.nCopies(numQueries, null));
+        for (List<Integer> indices : poolQueries.values()) {
+            for (int i : indices) {
+                try {
+                    futures.set(i, stages.send(storedQueries.get(i)));
+                } catch (QueryException e) {
+                    failures[i] = e;
+                }
+            }
+        }
+        
+        // the executor responses were registered up front, so these are awaited concurrently
+        BatchCreateResponse response = new BatchCreateResponse();
+        int numCreated = 0;
+        for (int i = 0; i < numQueries; i++) {
+            if (futures.get(i) != null) {
+                try {
+                    response.addResult(BatchCreateResponse.Result.success(join(futures.get(i))));
+                    numCreated++;
+                } catch (QueryException e) {
+                    failures[i] = e;
+                }
+            }
+            if (failures[i] != null) {
+                response.addResult(BatchCreateResponse.Result.failure(failures[i]));
+            }
+        }
+        
+        response.setHasResults(numCreated > 0);
+        return response;
+    }
+    
+    /**
+     * Waits for the given future, and rethrows any {@link QueryException} that it was completed with.
+     */
+    private <T> T join(CompletableFuture<T> future) throws QueryException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof QueryException) {
+                throw (QueryException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * The stages used to create each query in a batch.
+     *
+     * @param <P>
+     *            the prepared query type
+     * @param <S>
+     *            the stored query type
+     */
+    public interface Stages<P,S> {
+        /**
+         * Validates, audits and prepares a query. This is called on the thread which submitted the batch.
+         *
+         * @param index
+         *            the index of the query definition in the batch
+         * @return the prepared query, not null
+         * @throws QueryException
+         *             if the query can't be prepared
+         */
+        P prepare(int index) throws QueryException;
+        
+        /**
+         * Writes a prepared query to query storage. This may be called from any thread.
+         *
+         * @param preparedQuery
+         *            the prepared query, not null
+         * @return the stored query, not null
+         * @throws QueryException
+         *             if the query can't be stored
+         */
+        S store(P preparedQuery) throws QueryException;
+        
+        /**
+         * Submits the query metrics for the prepared queries which were stored.
+         *
+         * @param preparedQueries
+         *            the prepared queries which were stored, not null
+         */
+        void submitQueryMetrics(List<P> preparedQueries);
+        
+        /**
+         * Gets the executor pool for a stored query.
+         *
+         * @param storedQuery
+         *            the stored query, not null
+         * @return the executor pool
+         */
+        String getPool(S storedQuery);
+        
+        /**
+         * Publishes the create event for a stored query.
+         *
+         * @param storedQuery
+         *            the stored query, not null
+         * @return a future which will be completed with the query id once the executor service has responded, if we are awaiting a response
+         * @throws QueryException
+         *             if the create event can't be published
+         */
+        CompletableFuture<String> send(S storedQuery) throws QueryException;
+    }
+}
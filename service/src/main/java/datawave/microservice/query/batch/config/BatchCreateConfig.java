@@ -0,0 +1,31 @@
+package datawave.microservice.query.batch.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import datawave.microservice.query.batch.BatchQueryCreator;
+
+@Configuration
+@EnableConfigurationProperties(BatchCreateProperties.class)
+public class BatchCreateConfig {
+    @Bean
+    public ThreadPoolTaskExecutor batchCreateTaskExecutor(BatchCreateProperties batchCreateProperties) {
+        // query storage writes beyond the parallelism limit wait in the queue, rather than being rejected
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batchCreateProperties.getMaxStoreParallelism());
+        executor.setMaxPoolSize(batchCreateProperties.getMaxStoreParallelism());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix(batchCreateProperties.getThreadNamePrefix());
+        executor.initialize();
+        return executor;
+    }
+    
+    @Bean
+    public BatchQueryCreator batchQueryCreator(BatchCreateProperties batchCreateProperties,
+                    @Qualifier("batchCreateTaskExecutor") ThreadPoolTaskExecutor batchCreateTaskExecutor) {
+        return new BatchQueryCreator(batchCreateProperties, batchCreateTaskExecutor);
+    }
+}
@@ -0,0 +1,45 @@
+package datawave.microservice.query.batch.config;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Positive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.batch-create")
+public class BatchCreateProperties {
+    // The maximum number of query definitions which can be submitted in a single batch create request
+    @Positive
+    private int maxBatchSize = 500;
+    // The maximum number of queries from a batch which will be written to query storage concurrently
+    @Positive
+    private int maxStoreParallelism = 8;
+    // The thread name prefix used by the batch create executor
+    @NotEmpty
+    private String threadNamePrefix = "batchCreate-";
+    
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+    
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+    
+    public int getMaxStoreParallelism() {
+        return maxStoreParallelism;
+    }
+    
+    public void setMaxStoreParallelism(int maxStoreParallelism) {
+        this.maxStoreParallelism = maxStoreParallelism;
+    }
+    
+    public String getThreadNamePrefix() {
+        return threadNamePrefix;
+    }
+    
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+}
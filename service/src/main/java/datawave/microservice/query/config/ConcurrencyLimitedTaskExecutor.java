@@ -0,0 +1,19 @@
+package datawave.microservice.query.config;
+
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+
+/**
+ * A task executor which knows how many tasks it can run at once.
+ * <p>
+ * The executor beans are refresh scoped, so they are injected as proxies which only implement the bean's declared interfaces. Declaring the beans with this
+ * interface allows the concurrency limit to be read through the proxy, without needing to know which kind of executor is behind it.
+ */
+public interface ConcurrencyLimitedTaskExecutor extends AsyncListenableTaskExecutor {
+    
+    /**
+     * Gets the number of tasks which this executor can run at once.
+     *
+     * @return the concurrency limit, greater than 0
+     */
+    int getConcurrencyLimit();
+}
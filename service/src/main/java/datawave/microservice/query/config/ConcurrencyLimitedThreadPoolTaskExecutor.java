@@ -0,0 +1,31 @@
+package datawave.microservice.query.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * A thread pool task executor whose concurrency limit is its max pool size.
+ * <p>
+ * A thread pool only starts threads beyond its core pool size once its queue is full, so the max pool size could never be counted on to run at once. Instead,
+ * when the max pool size is larger than the core pool size, every thread is run as a core thread, up to the max pool size, and is allowed to time out once it
+ * is idle, so that the pool still shrinks back down when it isn't busy.
+ */
+public class ConcurrencyLimitedThreadPoolTaskExecutor extends ThreadPoolTaskExecutor implements ConcurrencyLimitedTaskExecutor {
+    
+    @Override
+    protected ExecutorService initializeExecutor(ThreadFactory threadFactory, RejectedExecutionHandler rejectedExecutionHandler) {
+        if (getMaxPoolSize() > getCorePoolSize()) {
+            setCorePoolSize(getMaxPoolSize());
+            setAllowCoreThreadTimeOut(true);
+        }
+        return super.initializeExecutor(threadFactory, rejectedExecutionHandler);
+    }
+    
+    @Override
+    public int getConcurrencyLimit() {
+        return Math.max(1, getMaxPoolSize());
+    }
+}
@@ -1,13 +1,20 @@
 package datawave.microservice.query.config;
 
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.web.context.annotation.RequestScope;
 
+import com.codahale.metrics.MetricRegistry;
+
 import datawave.marking.ColumnVisibilitySecurityMarking;
 import datawave.marking.SecurityMarking;
 import datawave.microservice.query.DefaultQueryParameters;
@@ -18,7 +25,11 @@ import datawave.microservice.querymetric.QueryMetricFactory;
 import datawave.microservice.querymetric.QueryMetricFactoryImpl;
 
 @Configuration
+@EnableConfigurationProperties(VirtualThreadProperties.class)
 public class QueryServiceConfiguration {
+    private static final String EXECUTOR_METRICS_PREFIX = "datawave.query.executor";
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
     
     @Bean
     public WebSecurityCustomizer ignorePoolHealthEndpoint() {
@@ -57,22 +68,38 @@ public class QueryServiceConfiguration {
     
     @RefreshScope
     @Bean
-    public ThreadPoolTaskExecutor nextCallExecutor(QueryProperties queryProperties) {
-        ThreadPoolTaskExecutorProperties executorProperties = queryProperties.getNextCall().getExecutor();
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(executorProperties.getCorePoolSize());
-        executor.setMaxPoolSize(executorProperties.getMaxPoolSize());
-        executor.setQueueCapacity(executorProperties.getQueueCapacity());
-        executor.setThreadNamePrefix(executorProperties.getThreadNamePrefix());
-        executor.initialize();
-        return executor;
+    public ConcurrencyLimitedTaskExecutor nextCallExecutor(QueryProperties queryProperties, VirtualThreadProperties virtualThreadProperties,
+                    ObjectProvider<MetricRegistry> metricRegistry) {
+        return createExecutor("nextCallExecutor", queryProperties.getNextCall().getExecutor(), virtualThreadProperties.getNextCall(), metricRegistry);
     }
     
     @RefreshScope
     @Bean
-    public ThreadPoolTaskExecutor streamingCallExecutor(StreamingProperties streamingProperties) {
-        ThreadPoolTaskExecutorProperties executorProperties = streamingProperties.getExecutor();
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    public ConcurrencyLimitedTaskExecutor streamingCallExecutor(StreamingProperties streamingProperties, VirtualThreadProperties virtualThreadProperties,
+                    ObjectProvider<MetricRegistry> metricRegistry) {
+        return createExecutor("streamingCallExecutor", streamingProperties.getExecutor(), virtualThreadProperties.getStreamingCall(), metricRegistry);
+    }
+    
+    private ConcurrencyLimitedTaskExecutor createExecutor(String executorName, ThreadPoolTaskExecutorProperties executorProperties,
+                    VirtualThreadProperties.ExecutorProperties virtualThreadProperties, ObjectProvider<MetricRegistry> metricRegistry) {
+        // the executors are refresh scoped, so drop the metrics for any executor which this one is replacing
+        String metricsPrefix = MetricRegistry.name(EXECUTOR_METRICS_PREFIX, executorName);
+        metricRegistry.ifAvailable(registry -> registry.removeMatching((name, metric) -> name.startsWith(metricsPrefix + ".")));
+        
+        if (virtualThreadProperties.isEnabled()) {
+            ExecutorService executorService = VirtualThreads.createThreadPerTaskExecutor(executorProperties.getThreadNamePrefix());
+            if (executorService != null) {
+                log.info("Using virtual threads for {} with a concurrency limit of {}", executorName, virtualThreadProperties.getConcurrencyLimit());
+                VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor(executorService, virtualThreadProperties.getConcurrencyLimit());
+                metricRegistry.ifAvailable(registry -> registry.register(metricsPrefix, executor.getMetricRegistry()));
+                return executor;
+            }
+            
+            log.warn("Virtual threads are enabled for {}, but are not available on this JVM. Falling back to a thread pool with a max pool size of {}",
+                            executorName, executorProperties.getMaxPoolSize());
+        }
+        
+        ConcurrencyLimitedThreadPoolTaskExecutor executor = new ConcurrencyLimitedThreadPoolTaskExecutor();
         executor.setCorePoolSize(executorProperties.getCorePoolSize());
         executor.setMaxPoolSize(executorProperties.getMaxPoolSize());
         executor.setQueueCapacity(executorProperties.getQueueCapacity());
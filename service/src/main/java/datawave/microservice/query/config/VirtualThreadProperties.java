@@ -0,0 +1,62 @@
+package datawave.microservice.query.config;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.virtual-threads")
+public class VirtualThreadProperties {
+    // Virtual thread settings for the executor which runs next calls
+    @Valid
+    @NotNull
+    private ExecutorProperties nextCall = new ExecutorProperties();
+    // Virtual thread settings for the executor which runs streaming calls
+    @Valid
+    @NotNull
+    private ExecutorProperties streamingCall = new ExecutorProperties();
+    
+    public ExecutorProperties getNextCall() {
+        return nextCall;
+    }
+    
+    public void setNextCall(ExecutorProperties nextCall) {
+        this.nextCall = nextCall;
+    }
+    
+    public ExecutorProperties getStreamingCall() {
+        return streamingCall;
+    }
+    
+    public void setStreamingCall(ExecutorProperties streamingCall) {
+        this.streamingCall = streamingCall;
+    }
+    
+    public static class ExecutorProperties {
+        // Whether calls should be run on virtual threads. This requires running the service on Java 21 or later. On Java 17, or any other JVM older than
+        // Java 21, this setting is ignored with a warning, and calls run on the usual thread pool executor.
+        private boolean enabled = false;
+        // The maximum number of calls which can run concurrently. Calls submitted beyond this limit are rejected rather than queued.
+        @Positive
+        private int concurrencyLimit = 10000;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getConcurrencyLimit() {
+            return concurrencyLimit;
+        }
+        
+        public void setConcurrencyLimit(int concurrencyLimit) {
+            this.concurrencyLimit = concurrencyLimit;
+        }
+    }
+}
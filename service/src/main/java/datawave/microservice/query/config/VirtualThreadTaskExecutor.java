@@ -0,0 +1,148 @@
+package datawave.microservice.query.config;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * A task executor which runs each task on its own virtual thread.
+ * <p>
+ * Virtual threads are not pooled, since they are cheap to create and idle ones only take up memory. Instead, the number of tasks which can run at once is
+ * limited by a semaphore, and tasks submitted beyond that limit are rejected rather than queued. The number of active tasks, the number of available permits,
+ * and the number of rejected tasks are kept as metrics.
+ */
+public class VirtualThreadTaskExecutor implements ConcurrencyLimitedTaskExecutor, DisposableBean {
+    public static final String ACTIVE_COUNT_METRIC = "active";
+    public static final String AVAILABLE_PERMITS_METRIC = "permits.available";
+    public static final String REJECTED_COUNT_METRIC = "rejected";
+    
+    private final ExecutorService executorService;
+    private final int concurrencyLimit;
+    private final Semaphore permits;
+    private final TaskExecutorAdapter adapter;
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final Counter rejectedTasks = metricRegistry.counter(REJECTED_COUNT_METRIC);
+    
+    /**
+     * Creates a task executor on top of the given thread per task executor service.
+     *
+     * @param executorService
+     *            the executor service which starts a new virtual thread for each task, not null
+     * @param concurrencyLimit
+     *            the maximum number of tasks which can run at once, greater than 0
+     */
+    public VirtualThreadTaskExecutor(ExecutorService executorService, int concurrencyLimit) {
+        this.executorService = executorService;
+        this.concurrencyLimit = concurrencyLimit;
+        this.permits = new Semaphore(concurrencyLimit);
+        this.adapter = new TaskExecutorAdapter(new LimitedExecutor());
+        metricRegistry.register(ACTIVE_COUNT_METRIC, (Gauge<Integer>) this::getActiveCount);
+        metricRegistry.register(AVAILABLE_PERMITS_METRIC, (Gauge<Integer>) this::getAvailablePermits);
+    }
+    
+    @Override
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+    
+    public int getActiveCount() {
+        return concurrencyLimit - permits.availablePermits();
+    }
+    
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+    
+    /**
+     * Gets the number of tasks which have been rejected, either because the concurrency limit was reached, or because the executor was shut down.
+     *
+     * @return the number of rejected tasks
+     */
+    public long getRejectedCount() {
+        return rejectedTasks.getCount();
+    }
+    
+    /**
+     * Gets the metric registry which holds the active task, available permit and rejected task metrics.
+     *
+     * @return the metric registry
+     */
+    public MetricRegistry getMetricRegistry() {
+        return metricRegistry;
+    }
+    
+    @Override
+    public void execute(Runnable task) {
+        adapter.execute(task);
+    }
+    
+    @Override
+    @Deprecated
+    public void execute(Runnable task, long startTimeout) {
+        adapter.execute(task);
+    }
+    
+    @Override
+    public Future<?> submit(Runnable task) {
+        return adapter.submit(task);
+    }
+    
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return adapter.submit(task);
+    }
+    
+    @Override
+    public ListenableFuture<?> submitListenable(Runnable task) {
+        return adapter.submitListenable(task);
+    }
+    
+    @Override
+    public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
+        return adapter.submitListenable(task);
+    }
+    
+    @Override
+    public void destroy() throws Exception {
+        executorService.shutdownNow();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
+    }
+    
+    private class LimitedExecutor implements Executor {
+        @Override
+        public void execute(Runnable task) {
+            if (!permits.tryAcquire()) {
+                rejectedTasks.inc();
+                throw new RejectedExecutionException("Concurrency limit of " + concurrencyLimit + " reached");
+            }
+            
+            try {
+                executorService.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                if (e instanceof RejectedExecutionException) {
+                    rejectedTasks.inc();
+                }
+                throw e;
+            }
+        }
+    }
+}
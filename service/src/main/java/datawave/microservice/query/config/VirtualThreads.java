@@ -0,0 +1,56 @@
+package datawave.microservice.query.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates virtual thread executors on JVMs which support them.
+ * <p>
+ * Virtual threads are looked up reflectively so that the service can still be built for, and run on, JVMs without virtual thread support.
+ */
+public class VirtualThreads {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+    
+    // the first release in which virtual threads are not a preview feature
+    private static final int MIN_JAVA_VERSION = 21;
+    
+    private VirtualThreads() {
+        // static utility
+    }
+    
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= MIN_JAVA_VERSION;
+    }
+    
+    /**
+     * Creates an executor service which starts a new virtual thread, with the given name prefix, for each task.
+     *
+     * @param threadNamePrefix
+     *            the thread name prefix, not null
+     * @return a virtual thread per task executor service, or null if virtual threads are not supported by this JVM
+     */
+    public static ExecutorService createThreadPerTaskExecutor(String threadNamePrefix) {
+        if (!isSupported()) {
+            log.warn("Virtual threads require Java {}, but this JVM is Java {}", MIN_JAVA_VERSION, Runtime.version().feature());
+            return null;
+        }
+        
+        try {
+            // equivalent to Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix, 0).factory())
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+            Method factory = builderClass.getMethod("factory");
+            ThreadFactory threadFactory = (ThreadFactory) factory.invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, threadFactory);
+        } catch (Exception e) {
+            log.warn("Unable to create a virtual thread executor: {}", e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package datawave.microservice.query.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import com.hazelcast.multimap.MultiMap;
+
+import datawave.microservice.query.Query;
+import datawave.microservice.query.index.config.QueryStatusIndexProperties;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.storage.QueryStorageCache;
+
+/**
+ * Maintains secondary indexes from query owner, and from query owner and query name, to query ids, so that listing a user's queries doesn't require loading
+ * every query status from the query storage cache.
+ * <p>
+ * Queries are added to the indexes when they are defined or created, and removed when they are deleted or evicted. The indexes are treated as hints, rather
+ * than as the source of truth. Every query id found in an index is checked against its query status, and entries which no longer match their query status
+ * are pruned as they are found. This keeps listing correct even if a query was deleted without going through this service.
+ */
+public class QueryStatusIndex {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private static final char KEY_SEPARATOR = '\u0000';
+    
+    private final QueryStatusIndexProperties indexProperties;
+    private final QueryStorageCache queryStorageCache;
+    private final IndexStore ownerIndex;
+    private final IndexStore ownerNameIndex;
+    
+    public QueryStatusIndex(QueryStatusIndexProperties indexProperties, QueryStorageCache queryStorageCache, IndexStore ownerIndex,
+                    IndexStore ownerNameIndex) {
+        this.indexProperties = indexProperties;
+        this.queryStorageCache = queryStorageCache;
+        this.ownerIndex = ownerIndex;
+        this.ownerNameIndex = ownerNameIndex;
+    }
+    
+    /**
+     * Indicates whether queries are being indexed. Queries can only be indexed when the query storage cache is backed by Hazelcast, since the indexes need to
+     * be shared by all of the query services.
+     *
+     * @return true if queries are being indexed
+     */
+    public boolean isEnabled() {
+        return indexProperties.isEnabled() && ownerIndex != null && ownerNameIndex != null;
+    }
+    
+    public int getMaxPageSize() {
+        return indexProperties.getMaxPageSize();
+    }
+    
+    /**
+     * Adds the given query to the indexes. Adding a query which is already indexed has no effect.
+     *
+     * @param query
+     *            the query, not null
+     */
+    public void add(Query query) {
+        if (isEnabled()) {
+            String queryId = query.getId().toString();
+            ownerIndex.put(query.getOwner(), queryId);
+            if (query.getQueryName() != null) {
+                ownerNameIndex.put(getOwnerNameKey(query.getOwner(), query.getQueryName()), queryId);
+            }
+        }
+    }
+    
+    /**
+     * Removes the given query from the indexes.
+     *
+     * @param query
+     *            the query, not null
+     */
+    public void remove(Query query) {
+        if (isEnabled()) {
+            String queryId = query.getId().toString();
+            ownerIndex.remove(query.getOwner(), queryId);
+            if (query.getQueryName() != null) {
+                ownerNameIndex.remove(getOwnerNameKey(query.getOwner(), query.getQueryName()), queryId);
+            }
+        }
+    }
+    
+    /**
+     * Finds the query statuses for the given owner, and optionally the given query name.
+     * <p>
+     * Query statuses are loaded lazily as the stream is consumed, in query id order, so callers which only need a page of the results should limit the
+     * stream rather than collecting it.
+     *
+     * @param owner
+     *            the query owner, not null
+     * @param queryName
+     *            the query name, may be null
+     * @return a stream of matching query statuses
+     */
+    public Stream<QueryStatus> find(String owner, String queryName) {
+        List<String> queryIds = new ArrayList<>((queryName == null) ? ownerIndex.get(owner) : ownerNameIndex.get(getOwnerNameKey(owner, queryName)));
+        Collections.sort(queryIds);
+        return queryIds.stream().map(queryId -> load(queryId, owner, queryName)).filter(Objects::nonNull);
+    }
+    
+    private QueryStatus load(String queryId, String owner, String queryName) {
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        
+        // prune any index entries which are no longer valid
+        if (queryStatus == null || !owner.equals(queryStatus.getQuery().getOwner())) {
+            log.debug("Query [{}]: removing stale index entry for {}", queryId, owner);
+            ownerIndex.remove(owner, queryId);
+            if (queryName != null) {
+                ownerNameIndex.remove(getOwnerNameKey(owner, queryName), queryId);
+            }
+            return null;
+        } else if (queryName != null && !queryName.equals(queryStatus.getQuery().getQueryName())) {
+            log.debug("Query [{}]: removing stale index entry for {} and {}", queryId, owner, queryName);
+            ownerNameIndex.remove(getOwnerNameKey(owner, queryName), queryId);
+            return null;
+        }
+        return queryStatus;
+    }
+    
+    /**
+     * Populates the indexes from the query storage cache, so that queries stored before the indexes existed can be found.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (isEnabled() && indexProperties.isRebuildOnStartup()) {
+            int numQueries = 0;
+            for (QueryStatus queryStatus : queryStorageCache.getQueryStatus()) {
+                add(queryStatus.getQuery());
+                numQueries++;
+            }
+            log.info("Indexed {} queries by owner and query name", numQueries);
+        }
+    }
+    
+    private String getOwnerNameKey(String owner, String queryName) {
+        return owner + KEY_SEPARATOR + queryName;
+    }
+    
+    /**
+     * A multimap from index keys to query ids, which is shared by all of the query services.
+     */
+    public static class IndexStore {
+        private final MultiMap<String,String> multiMap;
+        
+        public IndexStore(MultiMap<String,String> multiMap) {
+            this.multiMap = multiMap;
+        }
+        
+        private void put(String key, String queryId) {
+            multiMap.put(key, queryId);
+        }
+        
+        private void remove(String key, String queryId) {
+            multiMap.remove(key, queryId);
+        }
+        
+        private Collection<String> get(String key) {
+            return multiMap.get(key);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package datawave.microservice.query.index.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.spring.cache.HazelcastCacheManager;
+
+import datawave.microservice.query.index.QueryStatusIndex;
+import datawave.microservice.query.storage.QueryStorageCache;
+
+@Configuration
+@EnableConfigurationProperties(QueryStatusIndexProperties.class)
+public class QueryStatusIndexConfig {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    @Bean
+    public QueryStatusIndex queryStatusIndex(QueryStatusIndexProperties queryStatusIndexProperties, QueryStorageCache queryStorageCache,
+                    CacheManager cacheManager) {
+        QueryStatusIndex.IndexStore ownerIndex = null;
+        QueryStatusIndex.IndexStore ownerNameIndex = null;
+        if (queryStatusIndexProperties.isEnabled()) {
+            if (cacheManager instanceof HazelcastCacheManager) {
+                HazelcastInstance hazelcastInstance = ((HazelcastCacheManager) cacheManager).getHazelcastInstance();
+                ownerIndex = new QueryStatusIndex.IndexStore(hazelcastInstance.getMultiMap(queryStatusIndexProperties.getOwnerIndexName()));
+                ownerNameIndex = new QueryStatusIndex.IndexStore(hazelcastInstance.getMultiMap(queryStatusIndexProperties.getOwnerNameIndexName()));
+            } else {
+                log.info("Query indexes are not supported by {}, queries will be listed by scanning the query storage cache", cacheManager.getClass());
+            }
+        }
+        return new QueryStatusIndex(queryStatusIndexProperties, queryStorageCache, ownerIndex, ownerNameIndex);
+    }
+}
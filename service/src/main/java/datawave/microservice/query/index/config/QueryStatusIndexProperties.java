@@ -0,0 +1,65 @@
+package datawave.microservice.query.index.config;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Positive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.index")
+public class QueryStatusIndexProperties {
+    // Whether the owner and query name indexes should be used to find the queries to list
+    private boolean enabled = true;
+    // The name of the distributed multimap which maps query owners to query ids
+    @NotEmpty
+    private String ownerIndexName = "queryOwnerIndex";
+    // The name of the distributed multimap which maps query owners and query names to query ids
+    @NotEmpty
+    private String ownerNameIndexName = "queryOwnerNameIndex";
+    // Whether the indexes should be populated from the query storage cache when the service starts
+    private boolean rebuildOnStartup = true;
+    // The maximum number of queries which can be requested in a single page of a list response
+    @Positive
+    private int maxPageSize = 10000;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public String getOwnerIndexName() {
+        return ownerIndexName;
+    }
+    
+    public void setOwnerIndexName(String ownerIndexName) {
+        this.ownerIndexName = ownerIndexName;
+    }
+    
+    public String getOwnerNameIndexName() {
+        return ownerNameIndexName;
+    }
+    
+    public void setOwnerNameIndexName(String ownerNameIndexName) {
+        this.ownerNameIndexName = ownerNameIndexName;
+    }
+    
+    public boolean isRebuildOnStartup() {
+        return rebuildOnStartup;
+    }
+    
+    public void setRebuildOnStartup(boolean rebuildOnStartup) {
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+    
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+    
+    public void setMaxPageSize(int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+    }
+}
@@ -43,6 +43,7 @@ import datawave.microservice.query.Query;
 import datawave.microservice.query.QueryImpl;
 import datawave.microservice.query.QueryManagementService;
 import datawave.microservice.query.QueryParameters;
+import datawave.microservice.query.auth.UserAuthorizationsCache;
 import datawave.microservice.query.stream.StreamingService;
 import datawave.microservice.query.stream.listener.StreamingResponseListener;
 import datawave.query.data.UUIDType;
@@ -86,13 +87,15 @@ public class LookupService {
     private final QueryLogicFactory queryLogicFactory;
     private final QueryManagementService queryManagementService;
     private final StreamingService streamingService;
+    private final UserAuthorizationsCache userAuthorizationsCache;
     
     public LookupService(LookupProperties lookupProperties, QueryLogicFactory queryLogicFactory, QueryManagementService queryManagementService,
-                    StreamingService streamingService) {
+                    StreamingService streamingService, UserAuthorizationsCache userAuthorizationsCache) {
         this.lookupProperties = lookupProperties;
         this.queryLogicFactory = queryLogicFactory;
         this.queryManagementService = queryManagementService;
         this.streamingService = streamingService;
+        this.userAuthorizationsCache = userAuthorizationsCache;
     }
     
     /**
@@ -514,15 +517,20 @@ public class LookupService {
                 queryLogic.preInitialize(query, AuthorizationsUtil.buildAuthorizations(currentUser.getAuthorizations()));
             }
             
-            // the query principal is our local principal unless the query logic has a different user operations
-            ProxiedUserDetails queryPrincipal = ((queryLogic.getUserOperations() == null) ? currentUser
-                            : queryLogic.getUserOperations().getRemoteUser(currentUser));
-            
-            if (queryAuths != null) {
-                userAuths = AuthorizationsUtil.downgradeUserAuths(queryAuths, currentUser, queryPrincipal);
-            } else {
-                userAuths = AuthorizationsUtil.buildUserAuthorizationString(queryPrincipal);
-            }
+            // the auths are cached per user, since bursts of lookups from the same user will get the same answer
+            final String requestedAuths = queryAuths;
+            userAuths = userAuthorizationsCache.getUserAuths(queryLogic.getLogicName(), requestedAuths, currentUser, () -> {
+                // the query principal is our local principal unless the query logic has a different user operations
+                ProxiedUserDetails queryPrincipal = ((queryLogic.getUserOperations() == null) ? currentUser
+                                : userAuthorizationsCache.getRemoteUser(queryLogic.getLogicName(), currentUser,
+                                                () -> (DatawaveUserDetails) queryLogic.getUserOperations().getRemoteUser(currentUser)));
+                
+                if (requestedAuths != null) {
+                    return AuthorizationsUtil.downgradeUserAuths(requestedAuths, currentUser, queryPrincipal);
+                } else {
+                    return AuthorizationsUtil.buildUserAuthorizationString(queryPrincipal);
+                }
+            });
         } catch (Exception e) {
             log.error("Failed to get user query authorizations", e);
             throw new AuthorizationException("Failed to get user query authorizations", e);
@@ -0,0 +1,295 @@
+package datawave.microservice.query.metric;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.metric.config.QueryMetricAggregationProperties;
+import datawave.microservice.querymetric.BaseQueryMetric;
+import datawave.microservice.querymetric.QueryMetricClient;
+import datawave.microservice.querymetric.QueryMetricType;
+
+/**
+ * Coalesces the query metric updates for each query before they are submitted to the query metric service.
+ * <p>
+ * Query metrics are submitted as {@link QueryMetricType#DISTRIBUTED} updates, which the query metric service merges into the stored metric. So rather than
+ * sending the full list of page metrics with every update, only the pages which haven't been sent yet, along with the most recently sent page, are included.
+ * Pages are tracked by page number, and the most recently sent page is always included again since its call and serialization times are filled in after the
+ * page is first submitted. By default every update is sent right away. If a window is configured, page updates for a query are collected for that window and
+ * sent together, while lifecycle changes, such as a query being defined, closed or canceled, are still sent right away along with anything that is pending
+ * for that query. An update which can't be sent is merged back into the pending update for its query, so that it is retried with the next update.
+ */
+public class QueryMetricAggregator {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final QueryMetricAggregationProperties aggregationProperties;
+    private final QueryMetricClient queryMetricClient;
+    
+    private final Map<String,MetricState> metricStates = new ConcurrentHashMap<>();
+    
+    public QueryMetricAggregator(QueryMetricAggregationProperties aggregationProperties, QueryMetricClient queryMetricClient) {
+        this.aggregationProperties = aggregationProperties;
+        this.queryMetricClient = queryMetricClient;
+    }
+    
+    /**
+     * Submits an update for the given query metric. The metric is copied, so the caller is free to keep updating it.
+     *
+     * @param user
+     *            the user to submit the update as, not null
+     * @param metric
+     *            the query metric, not null
+     */
+    public void submit(DatawaveUserDetails user, BaseQueryMetric metric) {
+        BaseQueryMetric update = coalesce(user, metric);
+        if (update != null) {
+            sendUpdates(user, Collections.singletonList(update));
+        }
+    }
+    
+    /**
+     * Submits updates for several query metrics at once, such as for the queries created by a batch create. Any updates which are ready to be sent are sent
+     * to the query metric service in a single request. The metrics are copied, so the caller is free to keep updating them.
+     *
+     * @param user
+     *            the user to submit the updates as, not null
+     * @param metrics
+     *            the query metrics, not null
+     */
+    public void submitAll(DatawaveUserDetails user, List<BaseQueryMetric> metrics) {
+        List<BaseQueryMetric> updates = new ArrayList<>();
+        for (BaseQueryMetric metric : metrics) {
+            BaseQueryMetric update = coalesce(user, metric);
+            if (update != null) {
+                updates.add(update);
+            }
+        }
+        
+        if (!updates.isEmpty()) {
+            sendUpdates(user, updates);
+        }
+    }
+    
+    private BaseQueryMetric coalesce(DatawaveUserDetails user, BaseQueryMetric metric) {
+        String queryId = metric.getQueryId();
+        if (!aggregationProperties.isEnabled() || queryId == null) {
+            return metric.duplicate();
+        }
+        
+        MetricState state = metricStates.computeIfAbsent(queryId, MetricState::new);
+        synchronized (state) {
+            state.add(user, metric);
+            if (isTerminal(metric.getLifecycle())) {
+                // nothing else is expected for this query, so send everything and forget about it
+                metricStates.remove(queryId, state);
+                return state.drain();
+            } else if (state.isLifecycleChanged() || aggregationProperties.getWindowMillis() == 0) {
+                return state.drain();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Sends any coalesced updates which have been pending for longer than the configured window, and forgets about queries which have been idle for longer
+     * than the configured time to live.
+     */
+    @Scheduled(fixedDelayString = "${datawave.query.metric-aggregation.flush-interval-millis:1000}")
+    public void flushExpired() {
+        long now = System.currentTimeMillis();
+        for (MetricState state : metricStates.values()) {
+            BaseQueryMetric update = null;
+            DatawaveUserDetails user;
+            synchronized (state) {
+                user = state.user;
+                if (state.hasPending() && (now - state.pendingSinceMillis) >= aggregationProperties.getWindowMillis()) {
+                    update = state.drain();
+                } else if (!state.hasPending() && (now - state.lastUpdatedMillis) >= aggregationProperties.getIdleTimeToLiveMillis()) {
+                    metricStates.remove(state.queryId, state);
+                }
+            }
+            
+            if (update != null) {
+                sendUpdates(user, Collections.singletonList(update));
+            }
+        }
+    }
+    
+    /**
+     * Sends all pending updates. This should be called on shutdown.
+     */
+    public void flushAll() {
+        for (MetricState state : new ArrayList<>(metricStates.values())) {
+            BaseQueryMetric update = null;
+            DatawaveUserDetails user;
+            synchronized (state) {
+                user = state.user;
+                if (state.hasPending()) {
+                    update = state.drain();
+                }
+            }
+            
+            if (update != null) {
+                sendUpdates(user, Collections.singletonList(update));
+            }
+        }
+    }
+    
+    private boolean isTerminal(BaseQueryMetric.Lifecycle lifecycle) {
+        return lifecycle == BaseQueryMetric.Lifecycle.CLOSED || lifecycle == BaseQueryMetric.Lifecycle.CANCELLED;
+    }
+    
+    private void sendUpdates(DatawaveUserDetails user, List<BaseQueryMetric> updates) {
+        try {
+            send(user, updates);
+        } catch (Exception e) {
+            log.error("Error updating query metric", e);
+            if (aggregationProperties.isEnabled()) {
+                restore(user, updates);
+            }
+        }
+    }
+    
+    /**
+     * Merges updates which couldn't be sent back into the pending updates for their queries, so that the pages they carried aren't lost.
+     */
+    private void restore(DatawaveUserDetails user, List<BaseQueryMetric> updates) {
+        for (BaseQueryMetric update : updates) {
+            if (update.getQueryId() != null) {
+                MetricState state = metricStates.computeIfAbsent(update.getQueryId(), MetricState::new);
+                synchronized (state) {
+                    state.restore(user, update);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Sends the given updates to the query metric service.
+     *
+     * @param user
+     *            the user to submit the updates as, not null
+     * @param metrics
+     *            the query metric updates, not null
+     * @throws Exception
+     *             if the updates could not be sent
+     */
+    protected void send(DatawaveUserDetails user, List<BaseQueryMetric> metrics) throws Exception {
+        // @formatter:off
+        queryMetricClient.submit(
+                new QueryMetricClient.Request.Builder()
+                        .withUser(user)
+                        .withMetrics(metrics)
+                        .withMetricType(QueryMetricType.DISTRIBUTED)
+                        .build());
+        // @formatter:on
+    }
+    
+    private static class MetricState {
+        private final String queryId;
+        private DatawaveUserDetails user;
+        private long lastUpdatedMillis;
+        private BaseQueryMetric.Lifecycle sentLifecycle;
+        
+        // the highest page number which has been sent. request scoped metrics only carry the current page, while the metric used for streaming keeps growing,
+        // so pages below this one have already been sent and are skipped, while this page is sent again to pick up any times that were filled in afterwards
+        private long lastSentPageNumber = -1;
+        
+        private BaseQueryMetric pending;
+        // the pending page metrics by page number, so that a later update to a page replaces the earlier one
+        private TreeMap<Long,BaseQueryMetric.PageMetric> pendingPageTimes;
+        // page metrics which don't have a page number, which are always sent
+        private List<BaseQueryMetric.PageMetric> pendingUnnumberedPageTimes;
+        private long pendingSinceMillis;
+        
+        private MetricState(String queryId) {
+            this.queryId = queryId;
+        }
+        
+        private void add(DatawaveUserDetails user, BaseQueryMetric metric) {
+            BaseQueryMetric snapshot = metric.duplicate();
+            List<BaseQueryMetric.PageMetric> pageTimes = snapshot.getPageTimes();
+            
+            startPending();
+            if (pageTimes != null) {
+                for (BaseQueryMetric.PageMetric pageTime : pageTimes) {
+                    long pageNumber = pageTime.getPageNumber();
+                    if (pageNumber < 0) {
+                        pendingUnnumberedPageTimes.add(pageTime);
+                    } else if (pageNumber >= lastSentPageNumber) {
+                        pendingPageTimes.put(pageNumber, pageTime);
+                    }
+                }
+            }
+            
+            // the latest snapshot carries the latest values for everything other than the page metrics
+            pending = snapshot;
+            this.user = user;
+            lastUpdatedMillis = System.currentTimeMillis();
+        }
+        
+        private void restore(DatawaveUserDetails user, BaseQueryMetric update) {
+            startPending();
+            if (update.getPageTimes() != null) {
+                for (BaseQueryMetric.PageMetric pageTime : update.getPageTimes()) {
+                    long pageNumber = pageTime.getPageNumber();
+                    if (pageNumber < 0) {
+                        pendingUnnumberedPageTimes.add(pageTime);
+                    } else {
+                        // anything pending for this page is newer than the page we failed to send
+                        pendingPageTimes.putIfAbsent(pageNumber, pageTime);
+                    }
+                }
+            }
+            
+            if (pending == null) {
+                pending = update;
+                this.user = user;
+            }
+            
+            // make sure the lifecycle is sent again as well
+            if (sentLifecycle == update.getLifecycle()) {
+                sentLifecycle = null;
+            }
+        }
+        
+        private void startPending() {
+            if (pendingPageTimes == null) {
+                pendingPageTimes = new TreeMap<>();
+                pendingUnnumberedPageTimes = new ArrayList<>();
+                pendingSinceMillis = System.currentTimeMillis();
+            }
+        }
+        
+        private boolean hasPending() {
+            return pending != null;
+        }
+        
+        private boolean isLifecycleChanged() {
+            return pending != null && pending.getLifecycle() != sentLifecycle;
+        }
+        
+        private BaseQueryMetric drain() {
+            BaseQueryMetric update = pending;
+            List<BaseQueryMetric.PageMetric> pageTimes = new ArrayList<>(pendingPageTimes.values());
+            pageTimes.addAll(pendingUnnumberedPageTimes);
+            update.setPageTimes(pageTimes);
+            if (!pendingPageTimes.isEmpty()) {
+                lastSentPageNumber = Math.max(lastSentPageNumber, pendingPageTimes.lastKey());
+            }
+            sentLifecycle = update.getLifecycle();
+            pending = null;
+            pendingPageTimes = null;
+            pendingUnnumberedPageTimes = null;
+            return update;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package datawave.microservice.query.metric.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import datawave.microservice.query.metric.QueryMetricAggregator;
+import datawave.microservice.querymetric.QueryMetricClient;
+
+@Configuration
+@EnableConfigurationProperties(QueryMetricAggregationProperties.class)
+public class QueryMetricAggregationConfig {
+    @Bean(destroyMethod = "flushAll")
+    public QueryMetricAggregator queryMetricAggregator(QueryMetricAggregationProperties queryMetricAggregationProperties,
+                    QueryMetricClient queryMetricClient) {
+        return new QueryMetricAggregator(queryMetricAggregationProperties, queryMetricClient);
+    }
+}
@@ -0,0 +1,87 @@
+package datawave.microservice.query.metric.config;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.metric-aggregation")
+public class QueryMetricAggregationProperties {
+    // Whether only the page metrics which haven't been sent yet should be submitted for each query. If disabled, every update is submitted in full.
+    private boolean enabled = true;
+    // The amount of time that page updates for a query will be coalesced before they are submitted. If zero, every update is submitted immediately.
+    // Lifecycle changes are always submitted immediately.
+    @PositiveOrZero
+    private long window = 0;
+    @NotNull
+    private TimeUnit windowUnit = TimeUnit.SECONDS;
+    // The amount of time that the sent state for an idle query is kept, after which a later update for that query will be sent in full
+    @PositiveOrZero
+    private long idleTimeToLive = 60;
+    @NotNull
+    private TimeUnit idleTimeToLiveUnit = TimeUnit.MINUTES;
+    // How often coalesced query metric updates are checked to see whether they are due to be submitted
+    @Positive
+    private long flushIntervalMillis = 1000;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public long getWindow() {
+        return window;
+    }
+    
+    public long getWindowMillis() {
+        return windowUnit.toMillis(window);
+    }
+    
+    public void setWindow(long window) {
+        this.window = window;
+    }
+    
+    public TimeUnit getWindowUnit() {
+        return windowUnit;
+    }
+    
+    public void setWindowUnit(TimeUnit windowUnit) {
+        this.windowUnit = windowUnit;
+    }
+    
+    public long getIdleTimeToLive() {
+        return idleTimeToLive;
+    }
+    
+    public long getIdleTimeToLiveMillis() {
+        return idleTimeToLiveUnit.toMillis(idleTimeToLive);
+    }
+    
+    public void setIdleTimeToLive(long idleTimeToLive) {
+        this.idleTimeToLive = idleTimeToLive;
+    }
+    
+    public TimeUnit getIdleTimeToLiveUnit() {
+        return idleTimeToLiveUnit;
+    }
+    
+    public void setIdleTimeToLiveUnit(TimeUnit idleTimeToLiveUnit) {
+        this.idleTimeToLiveUnit = idleTimeToLiveUnit;
+    }
+    
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+    
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+}
@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 
 import datawave.microservice.query.QueryManagementService;
 import datawave.microservice.query.config.QueryExpirationProperties;
+import datawave.microservice.query.index.QueryStatusIndex;
 import datawave.microservice.query.messaging.QueryResultsManager;
 import datawave.microservice.query.monitor.cache.MonitorStatus;
 import datawave.microservice.query.monitor.cache.MonitorStatusCache;
@@ -30,10 +31,11 @@ public class MonitorTask implements Callable<Void> {
     private final QueryResultsManager queryQueueManager;
     private final QueryManagementService queryManagementService;
     private final QueryMetricFactory queryMetricFactory;
+    private final QueryStatusIndex queryStatusIndex;
     
     public MonitorTask(List<QueryStatus> queryStatusList, MonitorProperties monitorProperties, QueryExpirationProperties expirationProperties,
                     MonitorStatusCache monitorStatusCache, QueryStorageCache queryStorageCache, QueryResultsManager queryQueueManager,
-                    QueryManagementService queryManagementService, QueryMetricFactory queryMetricFactory) {
+                    QueryManagementService queryManagementService, QueryMetricFactory queryMetricFactory, QueryStatusIndex queryStatusIndex) {
         this.queryStatusList = queryStatusList;
         this.monitorProperties = monitorProperties;
         this.expirationProperties = expirationProperties;
@@ -42,6 +44,7 @@ public class MonitorTask implements Callable<Void> {
         this.queryQueueManager = queryQueueManager;
         this.queryManagementService = queryManagementService;
         this.queryMetricFactory = queryMetricFactory;
+        this.queryStatusIndex = queryStatusIndex;
     }
     
     @Override
@@ -80,7 +83,7 @@ public class MonitorTask implements Callable<Void> {
                 
                 // if the query has been inactive too long (i.e. no interaction from the user or software)
                 if (status.isInactive(currentTimeMillis, monitorProperties.getInactiveQueryTimeToLiveMillis())) {
-                    deleteQuery(queryId);
+                    deleteQuery(status);
                 }
                 // delete the results queue if it exists
                 else {
@@ -91,7 +94,7 @@ public class MonitorTask implements Callable<Void> {
             else {
                 // if the query isn't making progress
                 if (status.isProgressIdle(currentTimeMillis, expirationProperties.getProgressTimeoutMillis())) {
-                    defibrillateQuery(queryId, status.getQueryKey().getQueryPool());
+                    defibrillateQuery(status);
                 }
                 // if the user hasn't interacted with the query
                 else if (status.isUserIdle(currentTimeMillis, expirationProperties.getIdleTimeoutMillis())) {
@@ -117,13 +120,16 @@ public class MonitorTask implements Callable<Void> {
         }
     }
     
-    private void defibrillateQuery(String queryId, String queryPool) {
+    private void defibrillateQuery(QueryStatus status) {
         // publish a next event to the executor pool
-        queryManagementService.publishNextEvent(queryId, queryPool);
+        queryManagementService.publishNextEvent(status);
     }
     
-    private void deleteQuery(String queryId) {
+    private void deleteQuery(QueryStatus status) {
+        String queryId = status.getQueryKey().getQueryId();
         try {
+            queryStatusIndex.remove(status.getQuery());
+            
             // deletes everything for a query
             // the result queue, the query status, the tasks, the task states
             queryStorageCache.deleteQuery(queryId);
@@ -21,6 +21,7 @@ import datawave.microservice.query.config.QueryProperties;
 import datawave.microservice.query.executor.status.cache.ExecutorPoolStatus;
 import datawave.microservice.query.executor.status.cache.ExecutorStatusCache;
 import datawave.microservice.query.executor.status.cache.util.LockedCacheUpdateUtil;
+import datawave.microservice.query.index.QueryStatusIndex;
 import datawave.microservice.query.messaging.QueryResultsManager;
 import datawave.microservice.query.monitor.cache.MonitorStatusCache;
 import datawave.microservice.query.monitor.config.MonitorProperties;
@@ -42,6 +43,7 @@ public class QueryMonitor {
     private final QueryResultsManager queryResultsManager;
     private final QueryManagementService queryManagementService;
     private final QueryMetricFactory queryMetricFactory;
+    private final QueryStatusIndex queryStatusIndex;
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
     
     private long taskStartTime;
@@ -52,7 +54,7 @@ public class QueryMonitor {
     
     public QueryMonitor(MonitorProperties monitorProperties, QueryProperties queryProperties, MonitorStatusCache monitorStatusCache,
                     QueryStorageCache queryStorageCache, ExecutorStatusCache executorStatusCache, QueryResultsManager queryResultsManager,
-                    QueryManagementService queryManagementService, QueryMetricFactory queryMetricFactory) {
+                    QueryManagementService queryManagementService, QueryMetricFactory queryMetricFactory, QueryStatusIndex queryStatusIndex) {
         this.monitorProperties = monitorProperties;
         this.expirationProperties = queryProperties.getExpiration();
         this.monitorStatusCache = monitorStatusCache;
@@ -62,6 +64,7 @@ public class QueryMonitor {
         this.queryResultsManager = queryResultsManager;
         this.queryManagementService = queryManagementService;
         this.queryMetricFactory = queryMetricFactory;
+        this.queryStatusIndex = queryStatusIndex;
     }
     
     // this runs in a separate thread every 30 seconds (by default)
@@ -100,7 +103,8 @@ public class QueryMonitor {
                             queryStorageCache,
                             queryResultsManager,
                             queryManagementService,
-                            queryMetricFactory));
+                            queryMetricFactory,
+                            queryStatusIndex));
             // @formatter:on
         }
         
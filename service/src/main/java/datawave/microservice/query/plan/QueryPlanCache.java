@@ -0,0 +1,253 @@
+package datawave.microservice.query.plan;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.accumulo.core.security.Authorizations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.microservice.query.Query;
+import datawave.microservice.query.QueryImpl;
+import datawave.microservice.query.plan.config.QueryPlanCacheProperties;
+import datawave.microservice.query.storage.QueryStatus;
+
+/**
+ * Caches the query plans and predictions returned by the executor service, so that repeated plan and predict calls for the same query don't each have to
+ * store a query and wait on the executor service.
+ * <p>
+ * Entries are keyed by the call type, the query pool, the query logic, the normalized query string, the date range, the downgraded authorizations, and the
+ * parameters which can affect the plan, such as expandFields and expandValues. Entries are used until the configured time to live has elapsed, and nothing new
+ * is cached once the cache is full until some of the existing entries have expired.
+ */
+public class QueryPlanCache {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final QueryPlanCacheProperties cacheProperties;
+    private final Map<List<Object>,CacheEntry> entries = new ConcurrentHashMap<>();
+    
+    public QueryPlanCache(QueryPlanCacheProperties cacheProperties) {
+        this.cacheProperties = cacheProperties;
+    }
+    
+    /**
+     * Creates the cache key for a plan or predict call.
+     *
+     * @param queryType
+     *            whether this is a plan or predict call, not null
+     * @param queryPool
+     *            the pool that the call would be sent to, not null
+     * @param query
+     *            the query, not null
+     * @param downgradedAuthorizations
+     *            the downgraded authorizations for the query, not null
+     * @param expandFields
+     *            whether the plan expands fields
+     * @param expandValues
+     *            whether the plan expands values
+     * @return the cache key, or null if caching is disabled
+     */
+    public List<Object> createKey(QueryStatus.QUERY_STATE queryType, String queryPool, Query query, Set<Authorizations> downgradedAuthorizations,
+                    boolean expandFields, boolean expandValues) {
+        if (!cacheProperties.isEnabled()) {
+            return null;
+        }
+        
+        Set<String> auths = new TreeSet<>();
+        for (Authorizations authorizations : downgradedAuthorizations) {
+            auths.add(authorizations.toString());
+        }
+        
+        Map<String,String> parameters = new TreeMap<>();
+        if (query.getParameters() != null) {
+            for (QueryImpl.Parameter parameter : query.getParameters()) {
+                if (!cacheProperties.getIgnoredParameters().contains(parameter.getParameterName())) {
+                    parameters.put(parameter.getParameterName(), parameter.getParameterValue());
+                }
+            }
+        }
+        
+        // @formatter:off
+        return Arrays.asList(
+                queryType,
+                queryPool,
+                query.getQueryLogicName(),
+                normalize(query.getQuery()),
+                (query.getBeginDate() != null) ? query.getBeginDate().getTime() : null,
+                (query.getEndDate() != null) ? query.getEndDate().getTime() : null,
+                auths,
+                expandFields,
+                expandValues,
+                parameters);
+        // @formatter:on
+    }
+    
+    /**
+     * Gets the cached plan or prediction for the given key.
+     *
+     * @param key
+     *            the cache key, may be null
+     * @return the cached plan or prediction, or null if there isn't one
+     */
+    public String get(List<Object> key) {
+        String value = null;
+        if (key != null) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expirationMillis > System.currentTimeMillis()) {
+                    value = entry.value;
+                } else {
+                    entries.remove(key, entry);
+                }
+            }
+        }
+        return value;
+    }
+    
+    /**
+     * Caches the plan or prediction for the given key.
+     *
+     * @param key
+     *            the cache key, may be null
+     * @param value
+     *            the plan or prediction, may be null
+     */
+    public void put(List<Object> key, String value) {
+        if (key != null && value != null) {
+            long now = System.currentTimeMillis();
+            if (entries.size() >= cacheProperties.getMaxEntries()) {
+                evictExpired(now);
+            }
+            if (entries.size() < cacheProperties.getMaxEntries()) {
+                entries.put(key, new CacheEntry(value, now + cacheProperties.getTimeToLiveMillis()));
+            } else {
+                log.debug("Query plan cache is full, not caching the {} for {}", key.get(0), key.get(2));
+            }
+        }
+    }
+    
+    /**
+     * Looks up the cached plan or prediction for a plan or predict call. The returned lookup holds the cache key, so that the result can be cached once the
+     * executor service has computed it.
+     *
+     * @param queryType
+     *            whether this is a plan or predict call, not null
+     * @param queryPool
+     *            the pool that the call would be sent to, not null
+     * @param query
+     *            the query, not null
+     * @param downgradedAuthorizations
+     *            the downgraded authorizations for the query, not null
+     * @param expandFields
+     *            whether the plan expands fields
+     * @param expandValues
+     *            whether the plan expands values
+     * @return the lookup, not null
+     */
+    public Lookup lookup(QueryStatus.QUERY_STATE queryType, String queryPool, Query query, Set<Authorizations> downgradedAuthorizations, boolean expandFields,
+                    boolean expandValues) {
+        List<Object> key = createKey(queryType, queryPool, query, downgradedAuthorizations, expandFields, expandValues);
+        return new Lookup(key, get(key));
+    }
+    
+    /**
+     * Removes all cached entries.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    private void evictExpired(long now) {
+        entries.values().removeIf(entry -> entry.expirationMillis <= now);
+    }
+    
+    // drops leading and trailing whitespace and collapses any runs of whitespace outside of quoted literals, since whitespace within a literal is
+    // significant. escapes are checked first, so an escaped whitespace character is kept as is rather than being collapsed with the whitespace around it
+    private String normalize(String query) {
+        if (query == null) {
+            return null;
+        }
+        
+        StringBuilder normalized = new StringBuilder(query.length());
+        char quote = 0;
+        boolean escaped = false;
+        boolean pendingSpace = false;
+        for (char c : query.toCharArray()) {
+            if (!escaped && quote == 0 && Character.isWhitespace(c)) {
+                pendingSpace = true;
+                continue;
+            }
+            if (pendingSpace) {
+                if (normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                pendingSpace = false;
+            }
+            normalized.append(c);
+            
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (quote == 0 && (c == '\'' || c == '"')) {
+                quote = c;
+            } else if (c == quote) {
+                quote = 0;
+            }
+        }
+        return normalized.toString();
+    }
+    
+    /**
+     * The result of looking up a plan or predict call in the cache.
+     */
+    public class Lookup {
+        private final List<Object> key;
+        private final String cachedResult;
+        
+        private Lookup(List<Object> key, String cachedResult) {
+            this.key = key;
+            this.cachedResult = cachedResult;
+        }
+        
+        public boolean isCached() {
+            return cachedResult != null;
+        }
+        
+        /**
+         * @return the cached plan or prediction, or null if there wasn't one
+         */
+        public String getCachedResult() {
+            return cachedResult;
+        }
+        
+        /**
+         * Caches the plan or prediction computed for this call.
+         *
+         * @param value
+         *            the plan or prediction, may be null
+         */
+        public void put(String value) {
+            QueryPlanCache.this.put(key, value);
+        }
+    }
+    
+    private static class CacheEntry {
+        private final String value;
+        private final long expirationMillis;
+        
+        private CacheEntry(String value, long expirationMillis) {
+            this.value = value;
+            this.expirationMillis = expirationMillis;
+        }
+    }
+}
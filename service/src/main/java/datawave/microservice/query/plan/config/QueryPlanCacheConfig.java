@@ -0,0 +1,16 @@
+package datawave.microservice.query.plan.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import datawave.microservice.query.plan.QueryPlanCache;
+
+@Configuration
+@EnableConfigurationProperties(QueryPlanCacheProperties.class)
+public class QueryPlanCacheConfig {
+    @Bean
+    public QueryPlanCache queryPlanCache(QueryPlanCacheProperties queryPlanCacheProperties) {
+        return new QueryPlanCache(queryPlanCacheProperties);
+    }
+}
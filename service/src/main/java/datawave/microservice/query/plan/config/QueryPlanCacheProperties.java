@@ -0,0 +1,75 @@
+package datawave.microservice.query.plan.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.plan-cache")
+public class QueryPlanCacheProperties {
+    // Whether query plans and predictions should be cached, so that repeated plan and predict calls don't need to go to the executor service
+    private boolean enabled = true;
+    // The amount of time that a cached plan or prediction will be used before it is recomputed
+    @PositiveOrZero
+    private long timeToLive = 60;
+    @NotNull
+    private TimeUnit timeToLiveUnit = TimeUnit.SECONDS;
+    // The maximum number of plans and predictions to keep in the cache
+    @Positive
+    private int maxEntries = 1000;
+    // Query parameters which don't affect the plan or prediction, and are left out of the cache key
+    @NotNull
+    private List<String> ignoredParameters = new ArrayList<>(Arrays.asList("auditId", "columnVisibility"));
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+    
+    public long getTimeToLiveMillis() {
+        return timeToLiveUnit.toMillis(timeToLive);
+    }
+    
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+    
+    public TimeUnit getTimeToLiveUnit() {
+        return timeToLiveUnit;
+    }
+    
+    public void setTimeToLiveUnit(TimeUnit timeToLiveUnit) {
+        this.timeToLiveUnit = timeToLiveUnit;
+    }
+    
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+    
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+    
+    public List<String> getIgnoredParameters() {
+        return ignoredParameters;
+    }
+    
+    public void setIgnoredParameters(List<String> ignoredParameters) {
+        this.ignoredParameters = ignoredParameters;
+    }
+}
@@ -0,0 +1,170 @@
+package datawave.microservice.query.runner;
+
+import static datawave.microservice.query.storage.QueryStatus.QUERY_STATE.CANCEL;
+import static datawave.microservice.query.storage.QueryStatus.QUERY_STATE.CLOSE;
+import static datawave.microservice.query.storage.QueryStatus.QUERY_STATE.FAIL;
+
+import java.text.MessageFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import datawave.microservice.query.config.QueryProperties;
+import datawave.microservice.query.remote.QueryRequest;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.storage.QueryStorageCache;
+import datawave.webservice.query.exception.DatawaveErrorCode;
+import datawave.webservice.query.exception.QueryCanceledQueryException;
+import datawave.webservice.query.exception.QueryException;
+
+/**
+ * Tracks the query requests which are waiting on a response from the executor service.
+ * <p>
+ * A request is registered before it is published, and the returned future is completed when the executor's response is received. If the query fails, or is
+ * canceled, while we are waiting, the future is completed exceptionally as soon as the {@link QueryStatusChangeNotifier} pushes the status change. Without
+ * pushed status changes, the query status is polled at the configured call timeout interval instead. If the call timeout elapses first, the future is simply
+ * completed, leaving the query to finish setting up on its own.
+ */
+public class ExecutorResponseRegistry {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final QueryProperties queryProperties;
+    private final QueryStorageCache queryStorageCache;
+    private final QueryStatusChangeNotifier queryStatusChangeNotifier;
+    
+    private final Map<String,CompletableFuture<Void>> responses = new ConcurrentHashMap<>();
+    
+    public ExecutorResponseRegistry(QueryProperties queryProperties, QueryStorageCache queryStorageCache, QueryStatusChangeNotifier queryStatusChangeNotifier) {
+        this.queryProperties = queryProperties;
+        this.queryStorageCache = queryStorageCache;
+        this.queryStatusChangeNotifier = queryStatusChangeNotifier;
+    }
+    
+    /**
+     * Registers interest in the executor's response to the given request. This must be called before the request is published.
+     * <p>
+     * Once the executor responds, the query status is checked one last time, since the executor may have failed the query before responding.
+     *
+     * @param request
+     *            the query request, not null
+     * @param startTimeMillis
+     *            the time that the call started, used to compute the call timeout
+     * @return a future which is completed once the executor has responded or the call has timed out, or completed exceptionally with a {@link QueryException}
+     *         if the query failed or was canceled
+     */
+    public CompletableFuture<Void> register(QueryRequest request, long startTimeMillis) {
+        String queryId = request.getQueryId();
+        CompletableFuture<Void> response = new CompletableFuture<>();
+        responses.put(queryId, response);
+        
+        // status changes are delivered on Hazelcast event threads without the new value, so the query status is read asynchronously
+        Runnable queryStatusListener = () -> readQueryStatus(request, response);
+        if (queryStatusChangeNotifier.isListening()) {
+            queryStatusChangeNotifier.addQueryStatusListener(queryId, queryStatusListener);
+        } else {
+            pollQueryStatus(request, response);
+        }
+        
+        long remainingMillis = Math.max(0L, startTimeMillis + queryProperties.getExpiration().getCallTimeoutMillis() - System.currentTimeMillis());
+        response.completeOnTimeout(null, remainingMillis, TimeUnit.MILLISECONDS);
+        
+        // status changes are delivered on Hazelcast event threads, so the final status check is run asynchronously
+        // @formatter:off
+        return response
+                .whenComplete((result, e) -> {
+                    responses.remove(queryId, response);
+                    queryStatusChangeNotifier.removeQueryStatusListener(queryId, queryStatusListener);
+                })
+                .thenRunAsync(() -> checkQueryStatus(request, queryStorageCache.getQueryStatus(queryId)));
+        // @formatter:on
+    }
+    
+    /**
+     * Completes the future for the given request when the executor's response is received.
+     *
+     * @param request
+     *            the executor's response, not null
+     */
+    public void complete(QueryRequest request) {
+        CompletableFuture<Void> response = responses.get(request.getQueryId());
+        if (response != null) {
+            log.info("Received query {} response from the executor.", request.getMethod().name());
+            response.complete(null);
+        } else {
+            log.warn("No {} request is awaiting a response for query {}", request.getMethod().name(), request.getQueryId());
+        }
+    }
+    
+    private void readQueryStatus(QueryRequest request, CompletableFuture<Void> response) {
+        // @formatter:off
+        CompletableFuture.runAsync(() -> {
+                    if (!response.isDone()) {
+                        try {
+                            queryStatusChanged(request, queryStorageCache.getQueryStatus(request.getQueryId()), response);
+                        } catch (Exception e) {
+                            log.warn("Unable to read the query status for {}", request.getQueryId(), e);
+                        }
+                    }
+                });
+        // @formatter:on
+    }
+    
+    private void pollQueryStatus(QueryRequest request, CompletableFuture<Void> response) {
+        // @formatter:off
+        CompletableFuture.runAsync(() -> {
+                    if (!response.isDone()) {
+                        try {
+                            queryStatusChanged(request, queryStorageCache.getQueryStatus(request.getQueryId()), response);
+                        } catch (Exception e) {
+                            log.warn("Unable to poll the query status for {}", request.getQueryId(), e);
+                        }
+                        pollQueryStatus(request, response);
+                    }
+                }, CompletableFuture.delayedExecutor(
+                        queryProperties.getExpiration().getCallTimeoutInterval(),
+                        queryProperties.getExpiration().getCallTimeoutIntervalUnit()));
+        // @formatter:on
+    }
+    
+    private void queryStatusChanged(QueryRequest request, QueryStatus queryStatus, CompletableFuture<Void> response) {
+        if (queryStatus != null && !queryStatus.isRunning()) {
+            if (queryStatus.getQueryState() == CLOSE) {
+                log.error("Query {} was closed for queryId {}", request.getMethod().name(), request.getQueryId());
+                response.complete(null);
+            } else {
+                QueryException failure = getFailure(request, queryStatus);
+                if (failure != null) {
+                    response.completeExceptionally(failure);
+                }
+            }
+        }
+    }
+    
+    private void checkQueryStatus(QueryRequest request, QueryStatus queryStatus) {
+        if (queryStatus != null && !queryStatus.isRunning()) {
+            QueryException failure = getFailure(request, queryStatus);
+            if (failure != null) {
+                throw new CompletionException(failure);
+            }
+        }
+    }
+    
+    private QueryException getFailure(QueryRequest request, QueryStatus queryStatus) {
+        QueryException failure = null;
+        if (queryStatus.getQueryState() == FAIL) {
+            log.error("Query {} failed for queryId {}: {}", request.getMethod().name(), request.getQueryId(), queryStatus.getFailureMessage());
+            failure = new QueryException(queryStatus.getErrorCode(),
+                            "Query " + request.getMethod().name() + " failed for queryId " + request.getQueryId() + ": " + queryStatus.getFailureMessage());
+        } else if (queryStatus.getQueryState() == CANCEL) {
+            log.error("Query {} failed for queryId {}: {}", request.getMethod().name(), request.getQueryId(), queryStatus.getFailureMessage());
+            failure = new QueryCanceledQueryException(DatawaveErrorCode.QUERY_CANCELED,
+                            MessageFormat.format("Query {0} canceled for queryId {1}", request.getMethod().name(), request.getQueryId()));
+        }
+        return failure;
+    }
+}
@@ -0,0 +1,405 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
+
+import datawave.microservice.query.config.ConcurrencyLimitedTaskExecutor;
+import datawave.microservice.query.runner.config.NextCallSchedulerProperties;
+
+/**
+ * Queues next calls in front of the next call executor so that the executor's threads are shared fairly between query pools, and between users within each
+ * query pool.
+ * <p>
+ * Next calls are handed to the executor in weighted round robin order. Each query pool gets to start as many next calls as its weight before the next query
+ * pool gets a turn, and within a query pool, each user gets to start as many next calls as their weight before the next user gets a turn. A user's own next
+ * calls are started in the order they were submitted. This keeps a user paging through many queries at once from holding up everyone else.
+ * <p>
+ * Rather than being rejected as soon as the executor is busy, a next call waits in the queue until its deadline, which is the sooner of the configured max
+ * queue time and the caller's own deadline, such as the time at which its page or call timeout expires. Only when the queue itself is full is a next call
+ * rejected right away. A queued next call can also be dropped from the queue if its caller gives up on it. Next calls which are handed straight to a thread as
+ * it finishes another next call start with the thread's interrupt status cleared, as they would if the executor had started them.
+ */
+public class FairNextCallScheduler {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final NextCallSchedulerProperties schedulerProperties;
+    private final AsyncListenableTaskExecutor nextCallExecutor;
+    
+    // guarded by this
+    private final Map<String,PoolQueue> poolQueues = new HashMap<>();
+    private final ArrayDeque<PoolQueue> activePools = new ArrayDeque<>();
+    private int numQueued;
+    private int numRunning;
+    
+    public FairNextCallScheduler(NextCallSchedulerProperties schedulerProperties, AsyncListenableTaskExecutor nextCallExecutor) {
+        this.schedulerProperties = schedulerProperties;
+        this.nextCallExecutor = nextCallExecutor;
+    }
+    
+    /**
+     * Submits a next call to be run once it is the given user's turn in the given query pool, waiting in the queue for no longer than the max queue time.
+     *
+     * @param user
+     *            the user making the next call, not null
+     * @param pool
+     *            the query pool for the next call, not null
+     * @param nextCall
+     *            the next call, not null
+     * @param <T>
+     *            the result type of the next call
+     * @return a future which will be completed with the next call's result, or with a {@link TaskRejectedException} if the next call waited for longer than
+     *         the max queue time
+     * @throws TaskRejectedException
+     *             if the queue is full
+     */
+    public <T> ListenableFuture<T> submit(String user, String pool, Callable<T> nextCall) throws TaskRejectedException {
+        return submit(user, pool, nextCall, Long.MAX_VALUE);
+    }
+    
+    /**
+     * Submits a next call to be run once it is the given user's turn in the given query pool.
+     *
+     * @param user
+     *            the user making the next call, not null
+     * @param pool
+     *            the query pool for the next call, not null
+     * @param nextCall
+     *            the next call, not null
+     * @param deadlineMillis
+     *            the time by which the next call must be started, after which nobody will be waiting for its result
+     * @param <T>
+     *            the result type of the next call
+     * @return a future which will be completed with the next call's result, or with a {@link TaskRejectedException} if the next call wasn't started before
+     *         the sooner of its deadline and the max queue time
+     * @throws TaskRejectedException
+     *             if the queue is full
+     */
+    public <T> ListenableFuture<T> submit(String user, String pool, Callable<T> nextCall, long deadlineMillis) throws TaskRejectedException {
+        if (!schedulerProperties.isEnabled()) {
+            return nextCallExecutor.submitListenable(nextCall);
+        }
+        
+        long queueDeadlineMillis = Math.min(deadlineMillis, System.currentTimeMillis() + schedulerProperties.getMaxQueueTimeMillis());
+        ScheduledCall<T> scheduledCall = new ScheduledCall<>(nextCall, user, pool, queueDeadlineMillis);
+        synchronized (this) {
+            if (numQueued >= schedulerProperties.getMaxQueuedCalls()) {
+                throw new TaskRejectedException("Next call queue is full with " + numQueued + " next calls");
+            }
+            enqueue(user, pool, scheduledCall);
+        }
+        
+        dispatch();
+        return scheduledCall;
+    }
+    
+    /**
+     * Cancels a next call if it is still waiting in the queue, and drops it from the queue. This is used when the caller gives up on the next call, so that
+     * it doesn't take a turn, or a thread, that nobody is waiting for. A next call which has already been started is left alone.
+     *
+     * @param future
+     *            the future returned when the next call was submitted, not null
+     * @return true if the next call was dropped from the queue
+     */
+    public boolean cancelIfQueued(Future<?> future) {
+        if (!(future instanceof ScheduledCall)) {
+            return false;
+        }
+        
+        ScheduledCall<?> scheduledCall = (ScheduledCall<?>) future;
+        synchronized (this) {
+            if (!removeQueued(scheduledCall)) {
+                return false;
+            }
+        }
+        return scheduledCall.cancel(false);
+    }
+    
+    /**
+     * Rejects any queued next calls which have waited past their deadline, and starts any queued next calls which can be run.
+     */
+    @Scheduled(fixedDelayString = "${datawave.query.next-call-scheduler.expiration-check-interval-millis:1000}")
+    public void expireQueuedCalls() {
+        long now = System.currentTimeMillis();
+        List<ScheduledCall<?>> expiredCalls = new ArrayList<>();
+        synchronized (this) {
+            Iterator<PoolQueue> poolIter = activePools.iterator();
+            while (poolIter.hasNext()) {
+                PoolQueue poolQueue = poolIter.next();
+                Iterator<UserQueue> userIter = poolQueue.activeUsers.iterator();
+                while (userIter.hasNext()) {
+                    UserQueue userQueue = userIter.next();
+                    Iterator<ScheduledCall<?>> callIter = userQueue.calls.iterator();
+                    while (callIter.hasNext()) {
+                        ScheduledCall<?> scheduledCall = callIter.next();
+                        if (scheduledCall.isDone() || scheduledCall.deadlineMillis <= now) {
+                            callIter.remove();
+                            numQueued--;
+                            expiredCalls.add(scheduledCall);
+                        }
+                    }
+                    if (userQueue.calls.isEmpty()) {
+                        userIter.remove();
+                        poolQueue.users.remove(userQueue.user);
+                    }
+                }
+                if (poolQueue.activeUsers.isEmpty()) {
+                    poolIter.remove();
+                    poolQueues.remove(poolQueue.pool);
+                }
+            }
+        }
+        
+        expire(expiredCalls);
+        
+        // pick up any calls which were put back in the queue while nothing was running
+        dispatch();
+    }
+    
+    public synchronized int getNumQueued() {
+        return numQueued;
+    }
+    
+    public synchronized int getNumRunning() {
+        return numRunning;
+    }
+    
+    public int getMaxRunningCalls() {
+        int maxRunningCalls = schedulerProperties.getMaxRunningCalls();
+        if (maxRunningCalls <= 0) {
+            // the executor bean is a refresh scoped proxy, which can only be asked for its concurrency limit through the interface it was declared with
+            if (nextCallExecutor instanceof ConcurrencyLimitedTaskExecutor) {
+                maxRunningCalls = ((ConcurrencyLimitedTaskExecutor) nextCallExecutor).getConcurrencyLimit();
+            } else if (nextCallExecutor instanceof ThreadPoolTaskExecutor) {
+                maxRunningCalls = Math.max(1, ((ThreadPoolTaskExecutor) nextCallExecutor).getMaxPoolSize());
+            } else {
+                maxRunningCalls = 1;
+            }
+        }
+        return maxRunningCalls;
+    }
+    
+    private void enqueue(String user, String pool, ScheduledCall<?> scheduledCall) {
+        PoolQueue poolQueue = poolQueues.get(pool);
+        if (poolQueue == null) {
+            poolQueue = new PoolQueue(pool, schedulerProperties.getPoolWeight(pool));
+            poolQueues.put(pool, poolQueue);
+            activePools.addLast(poolQueue);
+        }
+        
+        UserQueue userQueue = poolQueue.users.get(user);
+        if (userQueue == null) {
+            userQueue = new UserQueue(user, schedulerProperties.getUserWeight(user));
+            poolQueue.users.put(user, userQueue);
+            poolQueue.activeUsers.addLast(userQueue);
+        }
+        
+        if (scheduledCall.attempted) {
+            // this call already had its turn, so put it back at the front of the user's line
+            userQueue.calls.addFirst(scheduledCall);
+        } else {
+            userQueue.calls.addLast(scheduledCall);
+        }
+        numQueued++;
+    }
+    
+    // removes a call from its user's queue, if it is still there, along with the user and pool queues if they are left empty
+    private boolean removeQueued(ScheduledCall<?> scheduledCall) {
+        PoolQueue poolQueue = poolQueues.get(scheduledCall.pool);
+        UserQueue userQueue = (poolQueue != null) ? poolQueue.users.get(scheduledCall.user) : null;
+        if (userQueue == null || !userQueue.calls.remove(scheduledCall)) {
+            return false;
+        }
+        numQueued--;
+        
+        if (userQueue.calls.isEmpty()) {
+            poolQueue.activeUsers.remove(userQueue);
+            poolQueue.users.remove(userQueue.user);
+        }
+        if (poolQueue.activeUsers.isEmpty()) {
+            activePools.remove(poolQueue);
+            poolQueues.remove(poolQueue.pool);
+        }
+        return true;
+    }
+    
+    // takes the next call in weighted round robin order, moving the pool and user to the back of the line once they have used up their turn
+    private ScheduledCall<?> dequeue() {
+        PoolQueue poolQueue = activePools.peekFirst();
+        if (poolQueue == null) {
+            return null;
+        }
+        
+        UserQueue userQueue = poolQueue.activeUsers.peekFirst();
+        ScheduledCall<?> scheduledCall = userQueue.calls.pollFirst();
+        numQueued--;
+        
+        userQueue.credits--;
+        if (userQueue.calls.isEmpty()) {
+            poolQueue.activeUsers.pollFirst();
+            poolQueue.users.remove(userQueue.user);
+        } else if (userQueue.credits <= 0) {
+            userQueue.credits = userQueue.weight;
+            poolQueue.activeUsers.addLast(poolQueue.activeUsers.pollFirst());
+        }
+        
+        poolQueue.credits--;
+        if (poolQueue.activeUsers.isEmpty()) {
+            activePools.pollFirst();
+            poolQueues.remove(poolQueue.pool);
+        } else if (poolQueue.credits <= 0) {
+            poolQueue.credits = poolQueue.weight;
+            activePools.addLast(activePools.pollFirst());
+        }
+        
+        return scheduledCall;
+    }
+    
+    // takes the next call which can still be run, setting aside any which have expired or been canceled
+    private ScheduledCall<?> takeNext(long now, List<ScheduledCall<?>> expiredCalls) {
+        ScheduledCall<?> scheduledCall;
+        while ((scheduledCall = dequeue()) != null) {
+            if (scheduledCall.isDone() || scheduledCall.deadlineMillis <= now) {
+                expiredCalls.add(scheduledCall);
+            } else {
+                scheduledCall.attempted = true;
+                return scheduledCall;
+            }
+        }
+        return null;
+    }
+    
+    // hands queued next calls to the executor until we run out of next calls, or the executor runs out of threads
+    private void dispatch() {
+        List<ScheduledCall<?>> callsToRun = new ArrayList<>();
+        List<ScheduledCall<?>> expiredCalls = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            int maxRunningCalls = getMaxRunningCalls();
+            while (numRunning < maxRunningCalls) {
+                ScheduledCall<?> scheduledCall = takeNext(now, expiredCalls);
+                if (scheduledCall == null) {
+                    break;
+                }
+                numRunning++;
+                callsToRun.add(scheduledCall);
+            }
+        }
+        
+        expire(expiredCalls);
+        
+        for (ScheduledCall<?> scheduledCall : callsToRun) {
+            try {
+                nextCallExecutor.execute(scheduledCall);
+            } catch (TaskRejectedException e) {
+                // a thread which has just finished a next call may not be ready to take another one yet, so put the call back in the queue. it will be
+                // picked up when the next running call finishes, or by the expiration check if nothing is running
+                log.debug("Next call rejected by the next call executor, requeueing", e);
+                synchronized (this) {
+                    numRunning--;
+                    enqueue(scheduledCall.user, scheduledCall.pool, scheduledCall);
+                }
+            }
+        }
+    }
+    
+    // called by a next call's thread once the next call has finished. rather than giving the thread back to the executor, we hand it the next queued call
+    private ScheduledCall<?> handOff() {
+        List<ScheduledCall<?>> expiredCalls = new ArrayList<>();
+        ScheduledCall<?> nextCall;
+        synchronized (this) {
+            nextCall = takeNext(System.currentTimeMillis(), expiredCalls);
+            if (nextCall == null) {
+                numRunning--;
+            }
+        }
+        
+        expire(expiredCalls);
+        return nextCall;
+    }
+    
+    private void expire(List<ScheduledCall<?>> expiredCalls) {
+        for (ScheduledCall<?> scheduledCall : expiredCalls) {
+            // calls which were canceled while they were queued are already done
+            if (!scheduledCall.isDone()) {
+                log.info("Rejecting next call which was not started before its deadline");
+                scheduledCall.reject(new TaskRejectedException("Next call was not started before its deadline, the next call executor is busy"));
+            }
+        }
+    }
+    
+    private class ScheduledCall<T> extends ListenableFutureTask<T> {
+        private final String user;
+        private final String pool;
+        private final long deadlineMillis;
+        private boolean attempted;
+        
+        private ScheduledCall(Callable<T> nextCall, String user, String pool, long deadlineMillis) {
+            super(nextCall);
+            this.user = user;
+            this.pool = pool;
+            this.deadlineMillis = deadlineMillis;
+        }
+        
+        @Override
+        public void run() {
+            ScheduledCall<?> scheduledCall = this;
+            while (scheduledCall != null) {
+                scheduledCall.runCall();
+                scheduledCall = handOff();
+                
+                // the handed off call didn't come through the executor, so don't let it see an interrupt meant for the call before it
+                Thread.interrupted();
+            }
+        }
+        
+        private void runCall() {
+            super.run();
+        }
+        
+        private void reject(TaskRejectedException e) {
+            setException(e);
+        }
+    }
+    
+    private static class PoolQueue {
+        private final String pool;
+        private final int weight;
+        private int credits;
+        private final Map<String,UserQueue> users = new HashMap<>();
+        private final ArrayDeque<UserQueue> activeUsers = new ArrayDeque<>();
+        
+        private PoolQueue(String pool, int weight) {
+            this.pool = pool;
+            this.weight = weight;
+            this.credits = weight;
+        }
+    }
+    
+    private static class UserQueue {
+        private final String user;
+        private final int weight;
+        private int credits;
+        private final ArrayDeque<ScheduledCall<?>> calls = new ArrayDeque<>();
+        
+        private UserQueue(String user, int weight) {
+            this.user = user;
+            this.weight = weight;
+            this.credits = weight;
+        }
+    }
+}
@@ -0,0 +1,509 @@
+package datawave.microservice.query.runner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import datawave.core.query.cache.ResultsPage;
+import datawave.microservice.query.messaging.QueryResultsManager;
+import datawave.microservice.query.messaging.QueryResultsPublisher;
+import datawave.microservice.query.messaging.Result;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.storage.QueryStorageCache;
+
+/**
+ * Holds back the intermediate results of a reducing query when a next call short circuits with an empty page.
+ * <p>
+ * Rather than returning the intermediate results to the results queue, only to have the next call for that query pull them right back out, the results are
+ * held in memory, or spilled to a local file if there are a lot of them, so that the next call on this instance can resume from them. If the next call for
+ * the query lands on another instance, or the results are held for too long, they are returned to the results queue as before.
+ * <p>
+ * A query may be closed or canceled on another instance while its results are held here. Before held back results are returned to the results queue, the
+ * query status is checked, and the results are thrown away if the query is no longer running.
+ * <p>
+ * While results are held, the hold is recorded in a map shared by every instance, so that a next call on another instance can tell that it needs to ask for
+ * the results back. Each hold is only asked for once, no matter how many pages are requested, or which instances they land on.
+ * <p>
+ * The buffer also keeps complete pages which were assembled for a caller who gave up on them. Those results have already been through the query logic's
+ * result postprocessor, so they can't go back on the results queue without being postprocessed twice. Instead, each kept page is returned as is by the next
+ * call for its query on this instance. Kept pages are recorded in the shared map just like held back results, so if the next call lands on another instance,
+ * or the pages are kept for too long, they are returned to the results queue. Postprocessing them twice is better than losing them.
+ * <p>
+ * The results in a kept page are not counted as consumed until the page is returned, either by a next call on this instance, or by whichever next call picks
+ * them up from the results queue. Otherwise, another instance could decide that all of the results have been retrieved while the page is still sitting here.
+ */
+public class IntermediateResultBuffer {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final NextCallRunnerProperties runnerProperties;
+    private final QueryResultsManager queryResultsManager;
+    private final QueryStorageCache queryStorageCache;
+    private final boolean enabled;
+    
+    // a hold which has been asked for has this suffix appended to its hold id
+    private static final String REQUESTED_SUFFIX = "#requested";
+    
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String,HeldResults> heldResults = new ConcurrentHashMap<>();
+    private final Map<String,KeptPages> keptPages = new ConcurrentHashMap<>();
+    
+    // the hold id for each query which has held back results, on any instance
+    private final ConcurrentMap<String,String> holders;
+    
+    public IntermediateResultBuffer(NextCallRunnerProperties runnerProperties, QueryResultsManager queryResultsManager, QueryStorageCache queryStorageCache) {
+        this(runnerProperties, queryResultsManager, queryStorageCache, new ConcurrentHashMap<>());
+    }
+    
+    public IntermediateResultBuffer(NextCallRunnerProperties runnerProperties, QueryResultsManager queryResultsManager, QueryStorageCache queryStorageCache,
+                    ConcurrentMap<String,String> holders) {
+        this(runnerProperties, queryResultsManager, queryStorageCache, holders, true);
+    }
+    
+    private IntermediateResultBuffer(NextCallRunnerProperties runnerProperties, QueryResultsManager queryResultsManager, QueryStorageCache queryStorageCache,
+                    ConcurrentMap<String,String> holders, boolean enabled) {
+        this.runnerProperties = runnerProperties;
+        this.queryResultsManager = queryResultsManager;
+        this.queryStorageCache = queryStorageCache;
+        this.holders = holders;
+        this.enabled = enabled;
+    }
+    
+    /**
+     * Creates a buffer which never holds back results. Intermediate results are always returned to the results queue.
+     *
+     * @param queryResultsManager
+     *            the query results manager, not null
+     * @return a disabled intermediate result buffer
+     */
+    public static IntermediateResultBuffer disabled(QueryResultsManager queryResultsManager) {
+        return new IntermediateResultBuffer(new NextCallRunnerProperties(), queryResultsManager, null, new ConcurrentHashMap<>(), false);
+    }
+    
+    public boolean isEnabled() {
+        return enabled && runnerProperties.isHoldBackIntermediateResults();
+    }
+    
+    /**
+     * Holds back the given intermediate results for the next call on this instance. If holding back results is disabled, or the results cannot be held, they
+     * are returned to the results queue instead.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param results
+     *            the intermediate results, not null
+     */
+    public void hold(String queryId, List<Object> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        
+        if (isEnabled()) {
+            try {
+                // merge with anything which was already held back by a concurrent next call, atomically, so that neither batch can be lost
+                HeldResults held = heldResults.compute(queryId, (key, previous) -> {
+                    List<Object> combined = new ArrayList<>(results);
+                    if (previous != null) {
+                        combined.addAll(previous.readUnchecked());
+                    }
+                    return new HeldResults(queryId, (previous != null) ? previous.holdId : instanceId + "/" + UUID.randomUUID(), combined);
+                });
+                log.debug("Query [{}]: holding back {} intermediate results", queryId, held.numResults);
+                
+                // let the other instances know that we have these results, unless we already have (and they may have asked for them already)
+                recordHold(queryId, held.holdId);
+                
+                // if the query was closed or canceled while we were holding these results, nobody is going to come back for them
+                if (!isQueryRunning(queryId)) {
+                    discard(queryId);
+                }
+                return;
+            } catch (Exception e) {
+                log.warn("Query [{}]: unable to hold back intermediate results, returning them to the results queue", queryId, e);
+            }
+        }
+        
+        requeue(queryId, results);
+    }
+    
+    /**
+     * Removes, and returns the intermediate results which were held back for the given query.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @return the held back results, or an empty list if there are none
+     */
+    public List<Object> resume(String queryId) {
+        HeldResults held = heldResults.remove(queryId);
+        if (held != null) {
+            releaseHold(queryId, held.holdId);
+            try {
+                List<Object> results = held.read();
+                log.debug("Query [{}]: resuming from {} held back intermediate results", queryId, results.size());
+                return results;
+            } catch (Exception e) {
+                log.error("Query [{}]: unable to read held back intermediate results", queryId, e);
+            }
+        }
+        return Collections.emptyList();
+    }
+    
+    public boolean isHolding(String queryId) {
+        return heldResults.containsKey(queryId);
+    }
+    
+    /**
+     * Keeps a complete page whose caller gave up on it, so that the next call for the query on this instance can return it. Kept pages are returned in the
+     * order they were kept.
+     * <p>
+     * The caller must not count the results in the page as consumed. They are counted when the page is returned.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param page
+     *            the postprocessed page, not null
+     */
+    public void keepPage(String queryId, ResultsPage<Object> page) {
+        if (page.getResults().isEmpty()) {
+            return;
+        }
+        
+        log.debug("Query [{}]: keeping a page of {} results for the next call", queryId, page.getResults().size());
+        KeptPages kept = keptPages.compute(queryId, (key, previous) -> {
+            KeptPages pages = (previous != null) ? previous : new KeptPages(instanceId + "/" + UUID.randomUUID());
+            pages.pages.add(page);
+            return pages;
+        });
+        
+        // let the other instances know that we have this page, so that they can ask for it if the next call lands on them
+        recordHold(queryId, kept.holdId);
+        
+        // if the query was closed or canceled while we were keeping this page, nobody is going to come back for it
+        if (!isQueryRunning(queryId)) {
+            discard(queryId);
+        }
+    }
+    
+    /**
+     * Removes, and returns the oldest page kept for the given query.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @return the kept page, or null if there is none
+     */
+    public ResultsPage<Object> takeKeptPage(String queryId) {
+        List<ResultsPage<Object>> taken = new ArrayList<>(1);
+        List<KeptPages> emptied = new ArrayList<>(1);
+        keptPages.computeIfPresent(queryId, (key, kept) -> {
+            taken.add(kept.pages.poll());
+            if (kept.pages.isEmpty()) {
+                emptied.add(kept);
+                return null;
+            }
+            return kept;
+        });
+        
+        if (!emptied.isEmpty()) {
+            releaseHold(queryId, emptied.get(0).holdId);
+        }
+        return taken.isEmpty() ? null : taken.get(0);
+    }
+    
+    /**
+     * Determines whether a page has been kept for the given query on this instance. This does not touch the shared map, so it is cheap enough to call at the
+     * start of every next call.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @return true if there is a kept page for the query
+     */
+    public boolean hasKeptPage(String queryId) {
+        return keptPages.containsKey(queryId);
+    }
+    
+    /**
+     * Determines whether another instance is holding back intermediate results, or keeping pages, for the given query which nobody has asked for yet. If so,
+     * the hold is marked as asked for, so that the caller is the only one who needs to ask for the results back.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @return true if the caller should ask the holding instance to return its results to the results queue
+     */
+    public boolean claimReturnRequest(String queryId) {
+        try {
+            String holdId = holders.get(queryId);
+            if (holdId == null || holdId.startsWith(instanceId + "/") || holdId.endsWith(REQUESTED_SUFFIX)) {
+                return false;
+            }
+            return holders.replace(queryId, holdId, holdId + REQUESTED_SUFFIX);
+        } catch (Exception e) {
+            log.warn("Query [{}]: unable to check for intermediate results held back by another instance", queryId, e);
+            return false;
+        }
+    }
+    
+    private void recordHold(String queryId, String holdId) {
+        try {
+            String recordedHoldId = holders.get(queryId);
+            if (recordedHoldId == null || !recordedHoldId.startsWith(holdId)) {
+                holders.put(queryId, holdId);
+            }
+        } catch (Exception e) {
+            log.warn("Query [{}]: unable to record held back intermediate results", queryId, e);
+        }
+    }
+    
+    private void releaseHold(String queryId, String holdId) {
+        try {
+            if (!holders.remove(queryId, holdId)) {
+                holders.remove(queryId, holdId + REQUESTED_SUFFIX);
+            }
+        } catch (Exception e) {
+            log.warn("Query [{}]: unable to release held back intermediate results", queryId, e);
+        }
+        
+        // held back results and kept pages share a single record, so if we still have the other one, it needs to be recorded again
+        HeldResults held = heldResults.get(queryId);
+        if (held != null) {
+            recordHold(queryId, held.holdId);
+        }
+        KeptPages kept = keptPages.get(queryId);
+        if (kept != null) {
+            recordHold(queryId, kept.holdId);
+        }
+    }
+    
+    /**
+     * Returns any intermediate results held back, and any pages kept, for the given query to the results queue, so that a next call on another instance can
+     * use them.
+     *
+     * @param queryId
+     *            the query id, not null
+     */
+    public void flush(String queryId) {
+        List<Object> results = resume(queryId);
+        if (!results.isEmpty()) {
+            returnHeldResults(queryId, results);
+        }
+        flushKeptPages(queryId, keptPages.get(queryId));
+    }
+    
+    private void flushKeptPages(String queryId, KeptPages kept) {
+        // only flush if nobody else has taken these pages in the meantime
+        if (kept != null && keptPages.remove(queryId, kept)) {
+            releaseHold(queryId, kept.holdId);
+            for (ResultsPage<Object> page : kept.pages) {
+                log.info("Query [{}]: returning a kept page of {} postprocessed results to the results queue", queryId, page.getResults().size());
+                returnHeldResults(queryId, page.getResults());
+            }
+        }
+    }
+    
+    /**
+     * Throws away any intermediate results held back for the given query. This should be called when the query is closed, canceled or removed.
+     *
+     * @param queryId
+     *            the query id, not null
+     */
+    public void discard(String queryId) {
+        HeldResults held = heldResults.remove(queryId);
+        if (held != null) {
+            held.delete();
+        }
+        keptPages.remove(queryId);
+        
+        // the query is no longer running, so nobody needs to know who was holding its results
+        try {
+            holders.remove(queryId);
+        } catch (Exception e) {
+            log.warn("Query [{}]: unable to release held back intermediate results", queryId, e);
+        }
+    }
+    
+    /**
+     * Returns any intermediate results which have been held back, and any pages which have been kept, for longer than the configured max age to the results
+     * queue.
+     */
+    @Scheduled(fixedDelayString = "${datawave.query.runner.hold-back-flush-interval-millis:30000}")
+    public void flushExpired() {
+        long now = System.currentTimeMillis();
+        for (HeldResults held : heldResults.values()) {
+            if ((now - held.heldSinceMillis) >= runnerProperties.getHoldBackMaxAgeMillis()) {
+                // only flush if nobody else has taken these results in the meantime
+                if (heldResults.remove(held.queryId, held)) {
+                    releaseHold(held.queryId, held.holdId);
+                    try {
+                        returnHeldResults(held.queryId, held.read());
+                    } catch (Exception e) {
+                        log.error("Query [{}]: unable to return held back intermediate results to the results queue", held.queryId, e);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String,KeptPages> entry : keptPages.entrySet()) {
+            if ((now - entry.getValue().keptSinceMillis) >= runnerProperties.getHoldBackMaxAgeMillis()) {
+                flushKeptPages(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+    
+    /**
+     * Returns all held back intermediate results, and all kept pages, to the results queue. This should be called on shutdown.
+     */
+    public void flushAll() {
+        for (String queryId : new ArrayList<>(heldResults.keySet())) {
+            flush(queryId);
+        }
+        for (String queryId : new ArrayList<>(keptPages.keySet())) {
+            flush(queryId);
+        }
+    }
+    
+    private void returnHeldResults(String queryId, List<Object> results) {
+        if (isQueryRunning(queryId)) {
+            log.debug("Query [{}]: returning {} held back intermediate results to the results queue", queryId, results.size());
+            requeue(queryId, results);
+        } else {
+            log.debug("Query [{}]: throwing away {} held back intermediate results for a query which is no longer running", queryId, results.size());
+        }
+    }
+    
+    private boolean isQueryRunning(String queryId) {
+        try {
+            QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+            return queryStatus != null && queryStatus.getQueryState() == QueryStatus.QUERY_STATE.CREATE;
+        } catch (Exception e) {
+            // if we can't tell, err on the side of keeping the results
+            log.warn("Query [{}]: unable to check the query status", queryId, e);
+            return true;
+        }
+    }
+    
+    /**
+     * Returns the given results to the results queue, so that the next call for the query, on any instance, can pick them up.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param results
+     *            the results, not null
+     * @return true if the results were returned to the results queue, false otherwise
+     */
+    public boolean requeue(String queryId, List<Object> results) {
+        try (QueryResultsPublisher publisher = queryResultsManager.createPublisher(queryId)) {
+            for (Object result : results) {
+                publisher.publish(new Result(UUID.randomUUID().toString(), result));
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("Query [{}]: unable to return results to the results queue", queryId, e);
+            return false;
+        }
+    }
+    
+    private static class KeptPages {
+        private final String holdId;
+        private final long keptSinceMillis = System.currentTimeMillis();
+        // only modified while the map entry is being computed
+        private final Queue<ResultsPage<Object>> pages = new ArrayDeque<>();
+        
+        private KeptPages(String holdId) {
+            this.holdId = holdId;
+        }
+    }
+    
+    private class HeldResults {
+        private final String queryId;
+        private final String holdId;
+        private final long heldSinceMillis = System.currentTimeMillis();
+        private final int numResults;
+        private List<Object> results;
+        private Path spillFile;
+        
+        private HeldResults(String queryId, String holdId, List<Object> results) {
+            this.queryId = queryId;
+            this.holdId = holdId;
+            this.numResults = results.size();
+            
+            // spill large result sets to disk if we are able to
+            if (results.size() > runnerProperties.getHoldBackMaxResultsInMemory() && results.stream().allMatch(Serializable.class::isInstance)) {
+                try {
+                    this.spillFile = spill(results);
+                } catch (IOException e) {
+                    log.warn("Query [{}]: unable to spill intermediate results to disk, holding them in memory", queryId, e);
+                }
+            }
+            
+            if (spillFile == null) {
+                this.results = results;
+            }
+        }
+        
+        private Path spill(List<Object> results) throws IOException {
+            Path directory = (runnerProperties.getHoldBackSpillDirectory() != null) ? Paths.get(runnerProperties.getHoldBackSpillDirectory())
+                            : Paths.get(System.getProperty("java.io.tmpdir"));
+            Path file = Files.createTempFile(directory, "held-" + queryId + "-", ".ser");
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                for (Object result : results) {
+                    out.writeObject(result);
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+            log.debug("Query [{}]: spilled {} intermediate results to {}", queryId, results.size(), file);
+            return file;
+        }
+        
+        private List<Object> readUnchecked() {
+            try {
+                return read();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new IllegalStateException("Unable to read held back intermediate results for query " + queryId, e);
+            }
+        }
+        
+        private List<Object> read() throws IOException, ClassNotFoundException {
+            if (spillFile != null) {
+                try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(spillFile)))) {
+                    List<Object> spilled = new ArrayList<>(numResults);
+                    for (int i = 0; i < numResults; i++) {
+                        spilled.add(in.readObject());
+                    }
+                    return spilled;
+                } finally {
+                    delete();
+                }
+            }
+            return results;
+        }
+        
+        private void delete() {
+            if (spillFile != null) {
+                try {
+                    Files.deleteIfExists(spillFile);
+                } catch (IOException e) {
+                    log.warn("Query [{}]: unable to delete spill file {}", queryId, spillFile, e);
+                }
+            }
+        }
+    }
+}
@@ -1,13 +1,12 @@
 package datawave.microservice.query.runner;
 
-import static datawave.microservice.query.messaging.AcknowledgementCallback.Status.ACK;
-
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,27 +19,40 @@ import datawave.microservice.query.config.QueryExpirationProperties;
 import datawave.microservice.query.config.QueryProperties;
 import datawave.microservice.query.messaging.QueryResultsListener;
 import datawave.microservice.query.messaging.QueryResultsManager;
-import datawave.microservice.query.messaging.QueryResultsPublisher;
 import datawave.microservice.query.messaging.Result;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
 import datawave.microservice.query.storage.QueryStatus;
 import datawave.microservice.query.storage.QueryStorageCache;
 import datawave.microservice.query.storage.TaskStates;
 import datawave.microservice.query.util.QueryStatusUpdateUtil;
 import datawave.microservice.querymetric.BaseQueryMetric;
 import datawave.microservice.querymetric.QueryMetric;
-import datawave.webservice.query.data.ObjectSizeOf;
 import datawave.webservice.query.exception.QueryException;
 
 public class NextCall implements Callable<ResultsPage<Object>> {
     private final Logger log = LoggerFactory.getLogger(this.getClass());
     
+    public static final String PREDICTED_TIME_TO_FULL_PAGE = "predictedTimeToFullPageMillis";
+    
     private final NextCallProperties nextCallProperties;
+    private final NextCallRunnerProperties runnerProperties;
     private final QueryResultsManager queryResultsManager;
+    private final ResultSizeEstimator resultSizeEstimator;
+    private final ResultBatchReceiver resultBatchReceiver;
+    private final ResultRateTracker resultRateTracker;
+    private final ResultRateTracker.ResultRate resultRate;
+    private final QueryStatusChangeNotifier statusChangeNotifier;
+    private final IntermediateResultBuffer intermediateResultBuffer;
     private final QueryStorageCache queryStorageCache;
     private final String queryId;
     private final QueryStatusUpdateUtil queryStatusUpdateUtil;
+    // asks the other instances to return any results they are holding for a query to the results queue
+    private final Consumer<String> returnRequester;
     
     private volatile boolean canceled = false;
+    
+    // used to wake up this next call while it is waiting for results
+    private volatile boolean woken = false;
     private volatile Future<ResultsPage<Object>> future = null;
     
     private final long callTimeoutMillis;
@@ -59,32 +71,67 @@ public class NextCall implements Callable<ResultsPage<Object>> {
     private final long logicMaxWork;
     private final long maxResultsPerPage;
     private final ResultPostprocessor resultPostprocessor;
+    private final NextCallRunnerProperties.PostprocessingMode postprocessingMode;
     
-    private final List<Object> results = new LinkedList<>();
+    private final List<Object> results;
     private long pageSizeBytes;
+    // the estimated sizes of the results in the batch being received, measured as they arrive
+    private final List<Long> batchResultSizes = new ArrayList<>();
+    private long batchSizeBytes;
+    // the page and call timeouts are measured from when the next call was created, so that any time spent waiting to be started counts against them
+    private final long createdTimeMillis;
     private long startTimeMillis;
     private long stopTimeMillis;
     private ResultsPage.Status status = ResultsPage.Status.COMPLETE;
     
+    private final long statusRefreshIntervalMillis;
     private long lastQueryStatusUpdateTime = 0L;
     private QueryStatus queryStatus;
+    private volatile QueryStatus pushedQueryStatus;
+    // the create stage as of the last query status we were told about, so that a change in create stage can wake us up
+    private volatile QueryStatus.CREATE_STAGE knownCreateStage;
+    private volatile boolean queryStatusStale = false;
     private long lastTaskStatesUpdateTime = 0L;
     private TaskStates taskStates;
+    private volatile TaskStates pushedTaskStates;
+    private volatile boolean taskStatesStale = false;
     private long numResultsConsumed = 0L;
     private boolean returnIntermediateResult = false;
     
     private long hitMaxResultsTimeMillis = 0L;
     
+    // used to predict how long it will take to fill the page
+    private long lastResultTimeMillis = 0L;
+    private long predictedTimeToFullPageMillis = -1L;
+    
     private BaseQueryMetric.Lifecycle lifecycle;
     
     private NextCall(Builder builder) {
+        this.createdTimeMillis = System.currentTimeMillis();
         this.nextCallProperties = builder.nextCallProperties;
+        this.runnerProperties = (builder.runnerProperties != null) ? builder.runnerProperties : new NextCallRunnerProperties();
         this.queryResultsManager = builder.queryResultsManager;
+        this.resultSizeEstimator = (builder.resultSizeEstimator != null) ? builder.resultSizeEstimator : new ResultSizeEstimator(runnerProperties);
+        this.resultBatchReceiver = new ResultBatchReceiver(runnerProperties);
+        this.resultRateTracker = (builder.resultRateTracker != null) ? builder.resultRateTracker : new ResultRateTracker(runnerProperties);
+        this.statusChangeNotifier = (builder.statusChangeNotifier != null) ? builder.statusChangeNotifier : new QueryStatusChangeNotifier();
+        this.intermediateResultBuffer = (builder.intermediateResultBuffer != null) ? builder.intermediateResultBuffer
+                        : IntermediateResultBuffer.disabled(builder.queryResultsManager);
+        
+        // if query status changes are pushed to us, polling is only needed as a safety net
+        if (statusChangeNotifier.isListening() && runnerProperties.getPushedStatusMaxStalenessMillis() >= 0) {
+            this.statusRefreshIntervalMillis = Math.max(nextCallProperties.getStatusUpdateIntervalMillis(), runnerProperties.getPushedStatusMaxStalenessMillis());
+        } else {
+            this.statusRefreshIntervalMillis = nextCallProperties.getStatusUpdateIntervalMillis();
+        }
         this.queryStorageCache = builder.queryStorageCache;
         this.queryId = builder.queryId;
         this.queryStatusUpdateUtil = builder.queryStatusUpdateUtil;
+        this.returnRequester = (builder.returnRequester != null) ? builder.returnRequester : id -> {};
+        this.resultRate = resultRateTracker.getResultRate(queryId);
         
         QueryStatus status = getQueryStatus();
+        this.knownCreateStage = status.getCreateStage();
         long pageTimeoutMillis = TimeUnit.MINUTES.toMillis(status.getQuery().getPageTimeout());
         if (pageTimeoutMillis >= builder.expirationProperties.getPageMinTimeoutMillis()
                         && pageTimeoutMillis <= builder.expirationProperties.getPageMaxTimeoutMillis()) {
@@ -117,50 +164,124 @@ public class NextCall implements Callable<ResultsPage<Object>> {
         }
         
         this.resultPostprocessor = builder.queryLogic.getResultPostprocessor(getQueryStatus().getConfig());
+        this.postprocessingMode = getPostprocessingMode(runnerProperties, resultPostprocessor);
+        
+        // presize the page buffer so that we don't have to grow it while the page is being assembled
+        this.results = new ArrayList<>(getInitialPageCapacity());
+    }
+    
+    private static NextCallRunnerProperties.PostprocessingMode getPostprocessingMode(NextCallRunnerProperties runnerProperties,
+                    ResultPostprocessor resultPostprocessor) {
+        // postprocessors which are known to be safe only need to see the complete page
+        if (runnerProperties.getPageClosePostprocessors().contains(resultPostprocessor.getClass().getName())) {
+            return NextCallRunnerProperties.PostprocessingMode.PAGE_CLOSE;
+        }
+        // reducing postprocessors which are known to be safe only need to see the page when it fills up
+        if (runnerProperties.getPageFullPostprocessors().contains(resultPostprocessor.getClass().getName())) {
+            return NextCallRunnerProperties.PostprocessingMode.PAGE_FULL;
+        }
+        return runnerProperties.getPostprocessingMode();
+    }
+    
+    private ResultsPage<Object> takeKeptPage() throws QueryException {
+        // only pay for a status check if there is a page to return
+        if (!intermediateResultBuffer.hasKeptPage(queryId)) {
+            return null;
+        }
+        
+        QueryStatus queryStatus = refreshQueryStatus();
+        if (queryStatus.getQueryState() == QueryStatus.QUERY_STATE.FAIL) {
+            log.error("Query [{}]: query failed, aborting next call. Cause: {}", queryId, queryStatus.getFailureMessage());
+            
+            throw new QueryException(queryStatus.getErrorCode(), queryStatus.getFailureMessage());
+        }
+        
+        // leave the page where it is, the query will be closed out, and the page discarded, by whoever canceled it
+        if (canceled || queryStatus.getQueryState() != QueryStatus.QUERY_STATE.CREATE) {
+            return null;
+        }
+        
+        return intermediateResultBuffer.takeKeptPage(queryId);
+    }
+    
+    private int getInitialPageCapacity() {
+        long pageSize = (logicResultsPerPage > 0) ? maxResultsPerPage : userResultsPerPage;
+        return (int) Math.max(1L, Math.min(pageSize, runnerProperties.getMaxInitialPageCapacity()));
     }
     
     @Override
     public ResultsPage<Object> call() throws Exception {
         startTimeMillis = System.currentTimeMillis();
         
+        // a page which was assembled for a caller who gave up on it has already been postprocessed, so it is returned as is
+        ResultsPage<Object> keptPage = takeKeptPage();
+        if (keptPage != null) {
+            log.debug("Query [{}]: returning a kept page of {} results", queryId, keptPage.getResults().size());
+            results.addAll(keptPage.getResults());
+            
+            // the kept results were not counted as consumed when the page was kept
+            numResultsConsumed += keptPage.getResults().size();
+            stopTimeMillis = System.currentTimeMillis();
+            lifecycle = BaseQueryMetric.Lifecycle.RESULTS;
+            return new ResultsPage<>(results, keptPage.getStatus());
+        }
+        
+        // receive query status and task state changes as they happen, rather than waiting to poll for them
+        statusChangeNotifier.register(queryId, this);
+        
         try (QueryResultsListener resultListener = queryResultsManager.createListener(UUID.randomUUID().toString(), queryId)) {
+            // pick up where the last next call on this instance left off if it held back any intermediate results
+            resumeHeldResults();
+            
             // keep waiting for results until we're finished
-            // Note: isFinished should be checked once per result
-            while (!isFinished(queryId)) {
-                Result result = resultListener.receive(nextCallProperties.getResultPollInterval(), nextCallProperties.getResultPollIntervalUnit());
-                if (result != null) {
-                    result.acknowledge(ACK);
-                    
+            // Note: isFinished should be checked once per batch of results, and a batch never exceeds the remaining page capacity
+            boolean endOfResults = false;
+            while (!endOfResults && !isFinished(queryId)) {
+                // the batch stops at the end of results, and at the page's remaining result and byte budget, so all of it belongs on this page
+                List<Result> batch = receiveBatch(resultListener);
+                
+                // acknowledge the entire batch before adding it to the page
+                resultBatchReceiver.acknowledge(batch);
+                
+                int numReceived = 0;
+                for (Result result : batch) {
                     Object payload = result.getPayload();
-                    if (payload != null) {
-                        results.add(payload);
-                        
-                        resultPostprocessor.apply(results);
-                        
-                        numResultsConsumed++;
-                        
-                        if (logicBytesPerPage > 0) {
-                            pageSizeBytes += ObjectSizeOf.Sizer.getObjectSize(payload);
-                        }
-                    } else {
+                    if (payload == null) {
                         log.debug("Null result encountered, no more results");
+                        endOfResults = true;
                         break;
                     }
+                    
+                    results.add(payload);
+                    
+                    if (logicBytesPerPage > 0) {
+                        pageSizeBytes += batchResultSizes.get(numReceived);
+                    }
+                    
+                    numReceived++;
+                    numResultsConsumed++;
+                }
+                
+                if (numReceived > 0) {
+                    updateResultInterval(numReceived);
+                    
+                    postprocessResults(false);
                 }
             }
         } catch (Exception e) {
             log.error("Encountered an error while fetching results from the listener", e);
             throw e;
+        } finally {
+            statusChangeNotifier.unregister(queryId, this);
         }
         
+        // if postprocessing was deferred, apply it to the complete page
+        postprocessResults(true);
+        
         // if we are aggregating results and we short-circuit,
-        // return the intermediate result(s) to the queue
+        // hold back the intermediate result(s) for the next call, or return them to the queue
         if (returnIntermediateResult) {
-            try (QueryResultsPublisher publisher = queryResultsManager.createPublisher(queryId)) {
-                for (Object result : results) {
-                    publisher.publish(new Result(UUID.randomUUID().toString(), result));
-                }
-            }
+            intermediateResultBuffer.hold(queryId, results);
             results.clear();
         }
         
@@ -170,20 +291,233 @@ public class NextCall implements Callable<ResultsPage<Object>> {
             lifecycle = BaseQueryMetric.Lifecycle.RESULTS;
         }
         
-        // update num results consumed for query status
-        updateNumResultsConsumed();
-        
+        // Note: the number of results consumed is not recorded here. It is folded into the query status update which releases this next call, so that
+        // paging doesn't have to take the query status lock any more often than it has to. See drainNumResultsConsumed.
         return new ResultsPage<>(results, status);
     }
     
+    private void resumeHeldResults() {
+        List<Object> heldResults = intermediateResultBuffer.resume(queryId);
+        if (!heldResults.isEmpty()) {
+            // these are treated exactly as if they had been received from the results queue
+            for (Object payload : heldResults) {
+                results.add(payload);
+                
+                if (logicBytesPerPage > 0) {
+                    pageSizeBytes += resultSizeEstimator.estimateSize(payload, results.size() - 1);
+                }
+                
+                numResultsConsumed++;
+            }
+            
+            postprocessResults(false);
+        }
+    }
+    
+    private List<Result> receiveBatch(QueryResultsListener resultListener) {
+        batchResultSizes.clear();
+        batchSizeBytes = 0L;
+        
+        // the batch will never contain more results than are needed to fill the page, so nothing is received which would have to be returned to the queue
+        return resultBatchReceiver.receiveBatch((interval, timeUnit) -> receive(resultListener, interval, timeUnit), nextCallProperties.getResultPollInterval(),
+                        nextCallProperties.getResultPollIntervalUnit(), getReceiveBatchLimit(), this::isPageByteTriggerReached);
+    }
+    
+    /**
+     * Measures a result as soon as it is received, so that the batch stops at the result which reaches the logic's page byte trigger.
+     *
+     * @param result
+     *            the received result, with a payload, not null
+     * @return true if the page byte trigger has been reached with this result
+     */
+    private boolean isPageByteTriggerReached(Result result) {
+        if (logicBytesPerPage > 0) {
+            long size = resultSizeEstimator.estimateSize(result.getPayload(), results.size() + batchResultSizes.size());
+            batchResultSizes.add(size);
+            batchSizeBytes += size;
+            return pageSizeBytes + batchSizeBytes >= logicBytesPerPage;
+        }
+        return false;
+    }
+    
+    /**
+     * Receives a result from the listener, allowing the wait to be cut short by {@link #wake()}.
+     * <p>
+     * Interrupting a thread while it is inside the listener can leave the listener broken, so rather than interrupting the receiving thread, the wait is
+     * broken up into short slices and the wakeup signal is checked between them.
+     *
+     * @param resultListener
+     *            the results listener, not null
+     * @param interval
+     *            the maximum amount of time to wait for a result
+     * @param timeUnit
+     *            the time unit of the interval, not null
+     * @return the result, or null if no result was received
+     */
+    private Result receive(QueryResultsListener resultListener, long interval, TimeUnit timeUnit) {
+        long stopTimeMillis = System.currentTimeMillis() + timeUnit.toMillis(interval);
+        long waitMillis;
+        do {
+            if (woken) {
+                woken = false;
+                log.debug("Query [{}]: woken up while waiting for results", queryId);
+                return null;
+            }
+            
+            waitMillis = Math.max(0L, stopTimeMillis - System.currentTimeMillis());
+            Result result = resultListener.receive(Math.min(waitMillis, runnerProperties.getWakeupCheckIntervalMillis()), TimeUnit.MILLISECONDS);
+            if (result != null) {
+                return result;
+            }
+        } while (waitMillis > runnerProperties.getWakeupCheckIntervalMillis());
+        return null;
+    }
+    
+    /**
+     * Wakes this next call up if it is waiting for results, so that it will immediately recheck whether it is finished.
+     */
+    public void wake() {
+        woken = true;
+    }
+    
+    public boolean isWoken() {
+        return woken;
+    }
+    
+    /**
+     * Notifies this next call that the query status has changed. The updated query status is used the next time this next call checks the query status, but
+     * this next call only wakes up if the query was stopped, or its create stage changed. If the updated query status is unknown, this next call wakes up so
+     * that it can read the latest query status and recheck whether it is finished.
+     *
+     * @param queryStatus
+     *            the updated query status, or null if the updated query status is unknown
+     */
+    public void queryStatusChanged(QueryStatus queryStatus) {
+        if (queryStatus != null) {
+            pushedQueryStatus = queryStatus;
+            
+            // wake up if the query has been stopped, or has moved on to another create stage
+            QueryStatus.QUERY_STATE queryState = queryStatus.getQueryState();
+            QueryStatus.CREATE_STAGE createStage = queryStatus.getCreateStage();
+            boolean createStageChanged = createStage != knownCreateStage;
+            knownCreateStage = createStage;
+            if (queryState == QueryStatus.QUERY_STATE.CANCEL || queryState == QueryStatus.QUERY_STATE.FAIL || queryState == QueryStatus.QUERY_STATE.CLOSE
+                            || createStageChanged) {
+                wake();
+            }
+        } else {
+            queryStatusStale = true;
+            wake();
+        }
+    }
+    
+    /**
+     * Notifies this next call that the task states have changed. If the updated task states are unknown, this next call wakes up so that it can read the
+     * latest task states and recheck whether all of its tasks have finished.
+     *
+     * @param taskStates
+     *            the updated task states, or null if the updated task states are unknown
+     */
+    public void taskStatesChanged(TaskStates taskStates) {
+        if (taskStates != null) {
+            pushedTaskStates = taskStates;
+            
+            // wake up if all of the tasks have finished
+            if (!taskStates.hasUnfinishedTasks()) {
+                wake();
+            }
+        } else {
+            taskStatesStale = true;
+            wake();
+        }
+    }
+    
+    private int getReceiveBatchLimit() {
+        long batchLimit = runnerProperties.getReceiveBatchSize();
+        if (batchLimit > 1) {
+            batchLimit = Math.min(batchLimit, userResultsPerPage - results.size());
+            if (logicResultsPerPage > 0) {
+                batchLimit = Math.min(batchLimit, logicResultsPerPage - results.size());
+            }
+            
+            long resultLimit = (maxResultsOverridden) ? maxResultsOverride : maxResults;
+            if (resultLimit >= 0) {
+                batchLimit = Math.min(batchLimit, resultLimit - (queryStatus.getNumResultsReturned() + results.size()));
+            }
+            
+            // the page byte trigger is enforced as each result is received, see isPageByteTriggerReached
+        }
+        return (int) Math.max(1L, batchLimit);
+    }
+    
+    private void postprocessResults(boolean pageClosed) {
+        switch (postprocessingMode) {
+            case PER_RESULT:
+                if (!pageClosed) {
+                    resultPostprocessor.apply(results);
+                }
+                break;
+            case PAGE_CLOSE:
+                if (pageClosed && !results.isEmpty()) {
+                    resultPostprocessor.apply(results);
+                }
+                break;
+            case PAGE_FULL:
+                // a reducing postprocessor may make room on the page, so it has to run before the page is judged to be full
+                if ((pageClosed && !results.isEmpty()) || isPageFull()) {
+                    resultPostprocessor.apply(results);
+                }
+                break;
+        }
+    }
+    
+    private boolean isPageFull() {
+        if (results.size() >= userResultsPerPage || (logicResultsPerPage > 0 && results.size() >= logicResultsPerPage)) {
+            return true;
+        }
+        long resultLimit = (maxResultsOverridden) ? maxResultsOverride : maxResults;
+        return resultLimit >= 0 && (queryStatus.getNumResultsReturned() + results.size()) >= resultLimit;
+    }
+    
     public void updateQueryMetric(BaseQueryMetric baseQueryMetric) {
         baseQueryMetric.addPageTime(results.size(), stopTimeMillis - startTimeMillis, startTimeMillis, stopTimeMillis);
         baseQueryMetric.setLifecycle(lifecycle);
+        
+        // record the last prediction of how long it would take to fill the page
+        resultRateTracker.recordPrediction(baseQueryMetric, predictedTimeToFullPageMillis);
+    }
+    
+    /**
+     * Updates the average time between results for this query.
+     *
+     * @param numResults
+     *            the number of results received since the last update
+     */
+    private void updateResultInterval(int numResults) {
+        // the time between next calls is up to the client, so only count the time since this next call started
+        long now = System.currentTimeMillis();
+        long previousResultTimeMillis = (lastResultTimeMillis > 0) ? lastResultTimeMillis : startTimeMillis;
+        resultRate.update(numResults, now - previousResultTimeMillis);
+        lastResultTimeMillis = now;
+    }
+    
+    /**
+     * Predicts how long it will take to fill the page, based on the rate at which results have been arriving.
+     * <p>
+     * If it has been longer than the average interval since the last result arrived, the time since the last result is used instead, so that a stalled query
+     * is not predicted to recover at its previous rate.
+     *
+     * @return the predicted time to fill the page in milliseconds, or -1 if no results have arrived for this query yet
+     */
+    private long predictTimeToFullPage() {
+        long pageSize = (logicResultsPerPage > 0) ? maxResultsPerPage : userResultsPerPage;
+        long previousResultTimeMillis = (lastResultTimeMillis > 0) ? lastResultTimeMillis : startTimeMillis;
+        return resultRate.predictTimeToReceive(pageSize - results.size(), System.currentTimeMillis() - previousResultTimeMillis);
     }
     
     private boolean isFinished(String queryId) throws QueryException {
         boolean finished = false;
-        long callTimeMillis = System.currentTimeMillis() - startTimeMillis;
+        long callTimeMillis = System.currentTimeMillis() - createdTimeMillis;
         QueryStatus queryStatus = getQueryStatus();
         
         // if the query state is FAILED, throw an exception up to the query management service with the failure message
@@ -230,16 +564,19 @@ public class NextCall implements Callable<ResultsPage<Object>> {
         // 5) have we retrieved all of the results?
         if (!finished && (queryStatus.getCreateStage() == QueryStatus.CREATE_STAGE.RESULTS) && !getTaskStates().hasUnfinishedTasks()) {
             
-            // update the number of results consumed
-            queryStatus = updateNumResultsConsumed();
+            // read the latest query status without taking the lock, and include the results we have consumed but not yet recorded. Results consumed by
+            // concurrent next calls for this query, on this or any other instance, are only recorded when those calls are released, so until then the
+            // remaining results are overestimated. At worst that keeps this call waiting until the max results timeout, it never finishes it early.
+            queryStatus = refreshQueryStatus();
+            long queryResultsConsumed = queryStatus.getNumResultsConsumed() + numResultsConsumed;
             
             // how many results do the query services think are left
-            long queryResultsRemaining = queryStatus.getNumResultsGenerated() - queryStatus.getNumResultsConsumed();
+            long queryResultsRemaining = queryStatus.getNumResultsGenerated() - queryResultsConsumed;
             
             // check to see if the number of results consumed is >= to the number of results generated
             if (queryResultsRemaining < 0) {
-                log.warn("Query [{}]: The number of results consumed [{}] exceeds the number of results generated [{}]", queryId,
-                                queryStatus.getNumResultsConsumed(), queryStatus.getNumResultsGenerated());
+                log.warn("Query [{}]: The number of results consumed [{}] exceeds the number of results generated [{}]", queryId, queryResultsConsumed,
+                                queryStatus.getNumResultsGenerated());
             }
             
             // how many results does the broker think are left
@@ -266,6 +603,12 @@ public class NextCall implements Callable<ResultsPage<Object>> {
                     // if we aren't in a max results waiting period, start waiting
                     if (hitMaxResultsTimeMillis == 0) {
                         hitMaxResultsTimeMillis = System.currentTimeMillis();
+                        
+                        // the missing results may be held back, or kept in a page, by another instance, so ask for them
+                        if (intermediateResultBuffer.claimReturnRequest(queryId)) {
+                            log.debug("Query [{}]: asking another instance to return the results it is holding for this query", queryId);
+                            returnRequester.accept(queryId);
+                        }
                     }
                     // if we are finished waiting, we are done
                     else if (System.currentTimeMillis() >= (hitMaxResultsTimeMillis + nextCallProperties.getMaxResultsTimeoutMillis())) {
@@ -340,28 +683,47 @@ public class NextCall implements Callable<ResultsPage<Object>> {
         return finished;
     }
     
-    private QueryStatus updateNumResultsConsumed() {
-        if (numResultsConsumed > 0) {
-            try {
-                queryStatus = queryStatusUpdateUtil.lockedUpdate(queryId, queryStatus1 -> {
-                    queryStatus1.incrementNumResultsConsumed(numResultsConsumed);
-                    numResultsConsumed = 0;
-                });
-                lastQueryStatusUpdateTime = System.currentTimeMillis();
-            } catch (Exception e) {
-                log.warn("Unable to update number of results consumed for query {}", queryId);
-            }
+    private QueryStatus refreshQueryStatus() {
+        QueryStatus latestQueryStatus = queryStorageCache.getQueryStatus(queryId);
+        if (latestQueryStatus != null) {
+            queryStatus = latestQueryStatus;
+            lastQueryStatusUpdateTime = System.currentTimeMillis();
         }
         return queryStatus;
     }
     
+    /**
+     * Gets the number of results consumed by this next call which have not been recorded in the query status, and resets the count.
+     * <p>
+     * This should only be called once the next call is done. The caller is responsible for adding the returned count to the query status, typically as part
+     * of the same update which releases this next call.
+     *
+     * @return the number of unrecorded results consumed
+     */
+    public synchronized long drainNumResultsConsumed() {
+        long drained = numResultsConsumed;
+        numResultsConsumed = 0;
+        return drained;
+    }
+    
     private boolean shortCircuitTimeout(long callTimeMillis) {
         boolean timeout = false;
         
         // return prematurely if we have at least 1 result, and we aren't aggregating results
         if (!results.isEmpty() && !queryStatus.getConfig().isReduceResults()) {
+            if (runnerProperties.getShortCircuitMode() == NextCallRunnerProperties.ShortCircuitMode.ADAPTIVE) {
+                predictedTimeToFullPageMillis = predictTimeToFullPage();
+                
+                // if the page is not expected to fill up before the page short circuit timeout, then break out
+                if (callTimeMillis >= runnerProperties.getAdaptiveShortCircuitMinCallTimeMillis() && predictedTimeToFullPageMillis >= 0
+                                && (callTimeMillis + predictedTimeToFullPageMillis) > shortCircuitTimeoutMillis) {
+                    log.debug("Query [{}]: predicted time to fill the page is {}ms with {}ms remaining", queryId, predictedTimeToFullPageMillis,
+                                    shortCircuitTimeoutMillis - callTimeMillis);
+                    timeout = true;
+                }
+            }
             // if after the page size short circuit check time
-            if (callTimeMillis >= shortCircuitCheckTimeMillis) {
+            else if (callTimeMillis >= shortCircuitCheckTimeMillis) {
                 float percentTimeComplete = (float) callTimeMillis / (float) (callTimeoutMillis);
                 float percentResultsComplete = (float) results.size() / (float) maxResultsPerPage;
                 // if the percent results complete is less than the percent time complete, then break out
@@ -396,7 +758,13 @@ public class NextCall implements Callable<ResultsPage<Object>> {
     }
     
     private QueryStatus getQueryStatus() {
-        if (queryStatus == null || isQueryStatusExpired()) {
+        QueryStatus pushedQueryStatus = this.pushedQueryStatus;
+        if (pushedQueryStatus != null) {
+            this.pushedQueryStatus = null;
+            lastQueryStatusUpdateTime = System.currentTimeMillis();
+            queryStatus = pushedQueryStatus;
+        } else if (queryStatus == null || queryStatusStale || isQueryStatusExpired()) {
+            queryStatusStale = false;
             lastQueryStatusUpdateTime = System.currentTimeMillis();
             queryStatus = queryStorageCache.getQueryStatus(queryId);
         }
@@ -404,7 +772,13 @@ public class NextCall implements Callable<ResultsPage<Object>> {
     }
     
     private TaskStates getTaskStates() {
-        if (taskStates == null || isTaskStatesExpired()) {
+        TaskStates pushedTaskStates = this.pushedTaskStates;
+        if (pushedTaskStates != null) {
+            this.pushedTaskStates = null;
+            lastTaskStatesUpdateTime = System.currentTimeMillis();
+            taskStates = pushedTaskStates;
+        } else if (taskStates == null || taskStatesStale || isTaskStatesExpired()) {
+            taskStatesStale = false;
             lastTaskStatesUpdateTime = System.currentTimeMillis();
             taskStates = queryStorageCache.getTaskStates(queryId);
         }
@@ -412,11 +786,11 @@ public class NextCall implements Callable<ResultsPage<Object>> {
     }
     
     private boolean isQueryStatusExpired() {
-        return (System.currentTimeMillis() - lastQueryStatusUpdateTime) > nextCallProperties.getStatusUpdateIntervalMillis();
+        return (System.currentTimeMillis() - lastQueryStatusUpdateTime) > statusRefreshIntervalMillis;
     }
     
     private boolean isTaskStatesExpired() {
-        return (System.currentTimeMillis() - lastTaskStatesUpdateTime) > nextCallProperties.getStatusUpdateIntervalMillis();
+        return (System.currentTimeMillis() - lastTaskStatesUpdateTime) > statusRefreshIntervalMillis;
     }
     
     public boolean isCanceled() {
@@ -425,6 +799,16 @@ public class NextCall implements Callable<ResultsPage<Object>> {
     
     public void cancel() {
         this.canceled = true;
+        wake();
+    }
+    
+    /**
+     * Gets the time at which this next call's page or call timeout expires. A next call which hasn't been started by then would time out right away.
+     *
+     * @return the deadline for this next call
+     */
+    public long getDeadlineMillis() {
+        return createdTimeMillis + callTimeoutMillis;
     }
     
     public Future<ResultsPage<Object>> getFuture() {
@@ -441,12 +825,18 @@ public class NextCall implements Callable<ResultsPage<Object>> {
     
     public static class Builder {
         private NextCallProperties nextCallProperties;
+        private NextCallRunnerProperties runnerProperties;
         private QueryExpirationProperties expirationProperties;
         private QueryResultsManager queryResultsManager;
+        private ResultSizeEstimator resultSizeEstimator;
+        private ResultRateTracker resultRateTracker;
+        private QueryStatusChangeNotifier statusChangeNotifier;
+        private IntermediateResultBuffer intermediateResultBuffer;
         private QueryStorageCache queryStorageCache;
         private String queryId;
         private QueryStatusUpdateUtil queryStatusUpdateUtil;
         private QueryLogic<?> queryLogic;
+        private Consumer<String> returnRequester;
         
         public Builder setQueryProperties(QueryProperties queryProperties) {
             this.nextCallProperties = queryProperties.getNextCall();
@@ -459,6 +849,11 @@ public class NextCall implements Callable<ResultsPage<Object>> {
             return this;
         }
         
+        public Builder setRunnerProperties(NextCallRunnerProperties runnerProperties) {
+            this.runnerProperties = runnerProperties;
+            return this;
+        }
+        
         public Builder setExpirationProperties(QueryExpirationProperties expirationProperties) {
             this.expirationProperties = expirationProperties;
             return this;
@@ -469,6 +864,26 @@ public class NextCall implements Callable<ResultsPage<Object>> {
             return this;
         }
         
+        public Builder setResultSizeEstimator(ResultSizeEstimator resultSizeEstimator) {
+            this.resultSizeEstimator = resultSizeEstimator;
+            return this;
+        }
+        
+        public Builder setResultRateTracker(ResultRateTracker resultRateTracker) {
+            this.resultRateTracker = resultRateTracker;
+            return this;
+        }
+        
+        public Builder setStatusChangeNotifier(QueryStatusChangeNotifier statusChangeNotifier) {
+            this.statusChangeNotifier = statusChangeNotifier;
+            return this;
+        }
+        
+        public Builder setIntermediateResultBuffer(IntermediateResultBuffer intermediateResultBuffer) {
+            this.intermediateResultBuffer = intermediateResultBuffer;
+            return this;
+        }
+        
         public Builder setQueryStorageCache(QueryStorageCache queryStorageCache) {
             this.queryStorageCache = queryStorageCache;
             return this;
@@ -489,6 +904,11 @@ public class NextCall implements Callable<ResultsPage<Object>> {
             return this;
         }
         
+        public Builder setReturnRequester(Consumer<String> returnRequester) {
+            this.returnRequester = returnRequester;
+            return this;
+        }
+        
         public NextCall build() {
             return new NextCall(this);
         }
@@ -0,0 +1,162 @@
+package datawave.microservice.query.runner;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+
+/**
+ * Tracks the next calls which are currently running on this query service.
+ * <p>
+ * Next calls are registered, unregistered and canceled by concurrent request threads and remote event handlers, so all of the bookkeeping is done with
+ * concurrent collections. The number of active next calls is published as a gauge, along with a gauge per query pool, in this registry's own metric registry,
+ * which can be registered with the application's metric registry. A gauge per query can optionally be published as well. Since there is no bound on the
+ * number of queries, these are off by default, and are removed as soon as the query has no active next calls.
+ */
+public class NextCallRegistry {
+    public static final String ACTIVE_NEXT_CALLS_METRIC = "next.active";
+    
+    private final Map<String,ActiveNextCalls> activeNextCalls = new ConcurrentHashMap<>();
+    private final Map<String,AtomicInteger> activeNextCallsByPool = new ConcurrentHashMap<>();
+    
+    private final NextCallRunnerProperties runnerProperties;
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    
+    public NextCallRegistry() {
+        this(new NextCallRunnerProperties());
+    }
+    
+    public NextCallRegistry(NextCallRunnerProperties runnerProperties) {
+        this.runnerProperties = runnerProperties;
+        metricRegistry.register(ACTIVE_NEXT_CALLS_METRIC, (Gauge<Integer>) this::getNumActiveNextCalls);
+    }
+    
+    public static String getPoolMetricName(String queryPool) {
+        return MetricRegistry.name("pool", queryPool, ACTIVE_NEXT_CALLS_METRIC);
+    }
+    
+    public static String getQueryMetricName(String queryId) {
+        return MetricRegistry.name("query", queryId, ACTIVE_NEXT_CALLS_METRIC);
+    }
+    
+    /**
+     * Gets the metric registry which holds the active next call gauges.
+     *
+     * @return the metric registry
+     */
+    public MetricRegistry getMetricRegistry() {
+        return metricRegistry;
+    }
+    
+    /**
+     * Registers an active next call.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param queryPool
+     *            the pool that the query is running in, not null
+     * @param nextCall
+     *            the next call, not null
+     */
+    public void register(String queryId, String queryPool, NextCall nextCall) {
+        activeNextCalls.compute(queryId, (k, nextCalls) -> {
+            if (nextCalls == null) {
+                nextCalls = new ActiveNextCalls(queryId, queryPool);
+            }
+            if (nextCalls.nextCalls.add(nextCall)) {
+                getPoolCount(nextCalls.queryPool).incrementAndGet();
+            }
+            return nextCalls;
+        });
+    }
+    
+    /**
+     * Unregisters a next call which is no longer active. This is a no-op if the next call is not registered.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param nextCall
+     *            the next call, not null
+     */
+    public void unregister(String queryId, NextCall nextCall) {
+        activeNextCalls.computeIfPresent(queryId, (k, nextCalls) -> {
+            if (nextCalls.nextCalls.remove(nextCall)) {
+                getPoolCount(nextCalls.queryPool).decrementAndGet();
+            }
+            if (nextCalls.nextCalls.isEmpty()) {
+                nextCalls.removeGauge();
+                return null;
+            }
+            return nextCalls;
+        });
+    }
+    
+    /**
+     * Cancels all of the active next calls for the given query. The next calls remain registered until they complete.
+     *
+     * @param queryId
+     *            the query id, not null
+     */
+    public void cancelAll(String queryId) {
+        ActiveNextCalls nextCalls = activeNextCalls.get(queryId);
+        if (nextCalls != null) {
+            nextCalls.nextCalls.forEach(NextCall::cancel);
+        }
+    }
+    
+    public Set<NextCall> getActiveNextCalls(String queryId) {
+        ActiveNextCalls nextCalls = activeNextCalls.get(queryId);
+        return (nextCalls != null) ? Collections.unmodifiableSet(nextCalls.nextCalls) : Collections.emptySet();
+    }
+    
+    public int getNumActiveNextCalls(String queryId) {
+        ActiveNextCalls nextCalls = activeNextCalls.get(queryId);
+        return (nextCalls != null) ? nextCalls.nextCalls.size() : 0;
+    }
+    
+    public int getNumActiveNextCallsForPool(String queryPool) {
+        AtomicInteger count = activeNextCallsByPool.get(queryPool);
+        return (count != null) ? count.get() : 0;
+    }
+    
+    public int getNumActiveNextCalls() {
+        return activeNextCallsByPool.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+    
+    private AtomicInteger getPoolCount(String queryPool) {
+        return activeNextCallsByPool.computeIfAbsent(queryPool, pool -> {
+            AtomicInteger count = new AtomicInteger();
+            metricRegistry.register(getPoolMetricName(pool), (Gauge<Integer>) count::get);
+            return count;
+        });
+    }
+    
+    private class ActiveNextCalls {
+        private final String queryPool;
+        private final Set<NextCall> nextCalls = ConcurrentHashMap.newKeySet();
+        private final String gaugeName;
+        
+        private ActiveNextCalls(String queryId, String queryPool) {
+            this.queryPool = queryPool;
+            if (runnerProperties.isActiveNextCallQueryGaugesEnabled()) {
+                this.gaugeName = getQueryMetricName(queryId);
+                metricRegistry.remove(gaugeName);
+                metricRegistry.register(gaugeName, (Gauge<Integer>) nextCalls::size);
+            } else {
+                this.gaugeName = null;
+            }
+        }
+        
+        private void removeGauge() {
+            if (gaugeName != null) {
+                metricRegistry.remove(gaugeName);
+            }
+        }
+    }
+}
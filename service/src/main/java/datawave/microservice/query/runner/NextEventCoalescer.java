@@ -0,0 +1,135 @@
+package datawave.microservice.query.runner;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+
+import datawave.microservice.query.runner.config.NextEventCoalescingProperties;
+import datawave.microservice.query.storage.QueryStatus;
+
+/**
+ * Decides whether a next event for a query needs to be published to the executor pool, or whether it would just duplicate one that was recently published.
+ * <p>
+ * Every next call publishes a next event, as does the query monitor when a query stops making progress. For a query with several next calls in flight, most
+ * of those events wake the executor up for nothing. A next event is suppressed for up to the max unacknowledged time if the previous event for the same query
+ * hasn't been acknowledged yet, since the executor has most likely not gotten to that event. The previous event counts as acknowledged once the executor
+ * has generated results for the query since it was published, once results have been consumed for the query since it was published, or when the executor
+ * has paused because a page worth of results is already waiting to be consumed. In each of those cases the executor may need a new event to keep going, so
+ * it is published right away. Optionally, next events can also be suppressed unconditionally within a window after the previous event.
+ * <p>
+ * This only coalesces the next events published by this query service.
+ */
+public class NextEventCoalescer {
+    public static final String SUPPRESSED_NEXT_EVENTS_METRIC = "next.events.suppressed";
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final NextEventCoalescingProperties coalescingProperties;
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final Counter suppressedEvents = metricRegistry.counter(SUPPRESSED_NEXT_EVENTS_METRIC);
+    
+    private final Map<String,PublishedEvent> publishedEvents = new ConcurrentHashMap<>();
+    
+    public NextEventCoalescer(NextEventCoalescingProperties coalescingProperties) {
+        this.coalescingProperties = coalescingProperties;
+    }
+    
+    /**
+     * Determines whether a next event should be published for the given query. If so, the event is recorded as having been published.
+     *
+     * @param queryStatus
+     *            the current query status, not null
+     * @return true if the next event should be published, false if it duplicates a recently published next event
+     */
+    public boolean tryPublish(QueryStatus queryStatus) {
+        int pageSize = (queryStatus.getQuery() != null) ? queryStatus.getQuery().getPagesize() : 0;
+        // @formatter:off
+        return tryPublish(
+                queryStatus.getQueryKey().getQueryId(),
+                queryStatus.getNumResultsGenerated(),
+                queryStatus.getNumResultsConsumed(),
+                pageSize);
+        // @formatter:on
+    }
+    
+    boolean tryPublish(String queryId, long numResultsGenerated, long numResultsConsumed, int pageSize) {
+        if (!coalescingProperties.isEnabled()) {
+            return true;
+        }
+        
+        long now = System.currentTimeMillis();
+        
+        AtomicBoolean publish = new AtomicBoolean();
+        publishedEvents.compute(queryId, (id, lastEvent) -> {
+            if (lastEvent == null || !isDuplicate(lastEvent, numResultsGenerated, numResultsConsumed, pageSize, now)) {
+                publish.set(true);
+                return new PublishedEvent(now, numResultsGenerated, numResultsConsumed);
+            }
+            return lastEvent;
+        });
+        
+        if (!publish.get()) {
+            log.trace("Suppressing duplicate next event for {}", queryId);
+            suppressedEvents.inc();
+        }
+        return publish.get();
+    }
+    
+    public MetricRegistry getMetricRegistry() {
+        return metricRegistry;
+    }
+    
+    /**
+     * Drops the state for queries which haven't had a next event published recently enough for it to matter.
+     */
+    @Scheduled(fixedDelayString = "${datawave.query.next-event-coalescing.eviction-interval-millis:60000}")
+    public void evictExpired() {
+        long maxAgeMillis = Math.max(coalescingProperties.getWindowMillis(), coalescingProperties.getMaxUnacknowledgedTimeMillis());
+        long now = System.currentTimeMillis();
+        publishedEvents.values().removeIf(event -> (now - event.publishedMillis) >= maxAgeMillis);
+    }
+    
+    private boolean isDuplicate(PublishedEvent lastEvent, long numResultsGenerated, long numResultsConsumed, int pageSize, long now) {
+        long elapsedMillis = now - lastEvent.publishedMillis;
+        if (elapsedMillis < coalescingProperties.getWindowMillis()) {
+            return true;
+        }
+        
+        return !isAcknowledged(lastEvent, numResultsGenerated, numResultsConsumed, pageSize)
+                        && elapsedMillis < coalescingProperties.getMaxUnacknowledgedTimeMillis();
+    }
+    
+    private boolean isAcknowledged(PublishedEvent lastEvent, long numResultsGenerated, long numResultsConsumed, int pageSize) {
+        // if the executor has generated results since the last event, then it has picked that event up and may need a new one
+        if (numResultsGenerated > lastEvent.numResultsGenerated) {
+            return true;
+        }
+        
+        // if results were consumed since the last event, then there is room for the executor to generate more
+        if (numResultsConsumed > lastEvent.numResultsConsumed) {
+            return true;
+        }
+        
+        // if a page worth of results is waiting to be consumed, then the executor has paused and won't resume without a new event
+        return pageSize > 0 && (numResultsGenerated - numResultsConsumed) >= pageSize;
+    }
+    
+    private static class PublishedEvent {
+        private final long publishedMillis;
+        private final long numResultsGenerated;
+        private final long numResultsConsumed;
+        
+        private PublishedEvent(long publishedMillis, long numResultsGenerated, long numResultsConsumed) {
+            this.publishedMillis = publishedMillis;
+            this.numResultsGenerated = numResultsGenerated;
+            this.numResultsConsumed = numResultsConsumed;
+        }
+    }
+}
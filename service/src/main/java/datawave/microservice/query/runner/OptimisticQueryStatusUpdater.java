@@ -0,0 +1,111 @@
+package datawave.microservice.query.runner;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.map.IMap;
+
+import datawave.microservice.query.config.QueryProperties;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.storage.QueryStorageCache;
+import datawave.microservice.query.util.QueryStatusUpdateUtil;
+import datawave.webservice.query.exception.QueryException;
+
+/**
+ * Applies the query status updates made when claiming and releasing next calls.
+ * <p>
+ * In {@link NextCallRunnerProperties.ClaimMode#OPTIMISTIC} mode, the query status is updated with a compare-and-set against the Hazelcast map backing the
+ * query status cache, rather than by acquiring the query status lock. The update is applied to a private copy of the current query status, which is only
+ * written if the query status has not changed in the meantime. Otherwise, the update is retried against the latest query status. This mode relies on the
+ * query status lock being a Hazelcast lock on the same map entry, which blocks the compare-and-set until any concurrent locked update has been written.
+ * <p>
+ * If the query status cache is not backed by Hazelcast, the query status cannot be found in the map, or the update cannot be applied within the configured
+ * number of attempts, this falls back to a locked update.
+ */
+public class OptimisticQueryStatusUpdater {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private static final long MAX_BACKOFF_MILLIS = 10L;
+    
+    private final NextCallRunnerProperties runnerProperties;
+    private final QueryStatusUpdateUtil queryStatusUpdateUtil;
+    private final IMap<Object,Object> queryStatusMap;
+    
+    private final AtomicLong numOptimisticUpdates = new AtomicLong();
+    private final AtomicLong numConflicts = new AtomicLong();
+    private final AtomicLong numLockedUpdates = new AtomicLong();
+    
+    public OptimisticQueryStatusUpdater(NextCallRunnerProperties runnerProperties, QueryProperties queryProperties, QueryStorageCache queryStorageCache,
+                    IMap<Object,Object> queryStatusMap) {
+        this.runnerProperties = runnerProperties;
+        this.queryStatusUpdateUtil = new QueryStatusUpdateUtil(queryProperties, queryStorageCache);
+        this.queryStatusMap = queryStatusMap;
+    }
+    
+    /**
+     * Updates the query status for the given query.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param update
+     *            the update to apply, which may be applied more than once if there are concurrent updates, not null
+     * @return the updated query status
+     * @throws QueryException
+     *             if the update fails, or if query lock acquisition fails
+     * @throws InterruptedException
+     *             if query lock acquisition is interrupted
+     */
+    public QueryStatus update(String queryId, Update update) throws QueryException, InterruptedException {
+        if (isOptimistic()) {
+            // the entry must be the same one that the query storage cache reads, writes and locks
+            String cacheKey = QueryCacheKeys.toCacheKey(queryId);
+            for (int attempt = 0; attempt < runnerProperties.getMaxOptimisticUpdateAttempts(); attempt++) {
+                // read the query status twice, so that we have an untouched copy to compare against
+                Object expected = queryStatusMap.get(cacheKey);
+                Object updated = queryStatusMap.get(cacheKey);
+                if (!(expected instanceof QueryStatus) || !(updated instanceof QueryStatus) || expected == updated) {
+                    log.debug("Query [{}]: unable to read a private copy of the query status, falling back to a locked update", queryId);
+                    break;
+                }
+                
+                update.apply((QueryStatus) updated);
+                
+                if (queryStatusMap.replace(cacheKey, expected, updated)) {
+                    numOptimisticUpdates.incrementAndGet();
+                    return (QueryStatus) updated;
+                }
+                
+                numConflicts.incrementAndGet();
+                Thread.sleep(ThreadLocalRandom.current().nextLong(Math.min(attempt + 1, MAX_BACKOFF_MILLIS) + 1));
+            }
+        }
+        
+        numLockedUpdates.incrementAndGet();
+        return queryStatusUpdateUtil.lockedUpdate(queryId, update::apply);
+    }
+    
+    public boolean isOptimistic() {
+        return queryStatusMap != null && runnerProperties.getNextCallClaimMode() == NextCallRunnerProperties.ClaimMode.OPTIMISTIC;
+    }
+    
+    public long getNumOptimisticUpdates() {
+        return numOptimisticUpdates.get();
+    }
+    
+    public long getNumConflicts() {
+        return numConflicts.get();
+    }
+    
+    public long getNumLockedUpdates() {
+        return numLockedUpdates.get();
+    }
+    
+    @FunctionalInterface
+    public interface Update {
+        void apply(QueryStatus queryStatus) throws QueryException;
+    }
+}
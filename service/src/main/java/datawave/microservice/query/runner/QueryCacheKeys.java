@@ -0,0 +1,25 @@
+package datawave.microservice.query.runner;
+
+import datawave.microservice.query.storage.QueryKey;
+
+/**
+ * Builds the keys used for a query's entries in the maps backing the query status and task states caches.
+ * <p>
+ * Anything which reads those maps directly, or matches up their change events, must use these keys rather than the raw query id, so that it lines up with the
+ * entries, and the locks, which the query storage cache uses.
+ */
+public final class QueryCacheKeys {
+    
+    private QueryCacheKeys() {}
+    
+    /**
+     * Gets the key for the given query's entry in the query status and task states maps.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @return the cache key
+     */
+    public static String toCacheKey(String queryId) {
+        return QueryKey.toUUIDKey(queryId);
+    }
+}
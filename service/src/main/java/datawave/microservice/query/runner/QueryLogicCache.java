@@ -0,0 +1,267 @@
+package datawave.microservice.query.runner;
+
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import datawave.core.query.logic.QueryLogic;
+import datawave.core.query.logic.QueryLogicFactory;
+import datawave.core.query.logic.QueryLogicTransformer;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.Query;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.webservice.query.exception.QueryException;
+
+/**
+ * Keeps the query logic and transformer instances created for a query, so that each page doesn't have to clone the query logic bean and set up a new
+ * transformer.
+ * <p>
+ * Instances are leased exclusively to a single next call at a time, since query logics and transformers are not
+ * guaranteed to be thread safe. When a next call completes successfully, its instance is returned to the cache, where it remains idle until it is leased by the
+ * next call for that query, or until it expires. Instances are only reused for the user they were created for. All instances for a query are dropped when the
+ * query is closed, canceled or removed.
+ */
+public class QueryLogicCache {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    private final NextCallRunnerProperties runnerProperties;
+    private final QueryLogicFactory queryLogicFactory;
+    
+    private final Map<String,QueryLogicPool> queryLogicPools = new ConcurrentHashMap<>();
+    private final AtomicInteger numIdleQueryLogics = new AtomicInteger();
+    
+    public QueryLogicCache(NextCallRunnerProperties runnerProperties, QueryLogicFactory queryLogicFactory) {
+        this.runnerProperties = runnerProperties;
+        this.queryLogicFactory = queryLogicFactory;
+    }
+    
+    /**
+     * Leases a query logic for the given query and user, reusing an idle query logic if one is available.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param queryLogicName
+     *            the query logic name, not null
+     * @param currentUser
+     *            the user who is calling next, not null
+     * @return a lease for the query logic, which should be closed when the next call is done with it
+     * @throws QueryException
+     *             if the user is not allowed to use the query logic
+     * @throws CloneNotSupportedException
+     *             if query logic creation fails
+     */
+    public Lease acquire(String queryId, String queryLogicName, DatawaveUserDetails currentUser) throws QueryException, CloneNotSupportedException {
+        String userKey = getUserKey(currentUser);
+        if (runnerProperties.isReuseQueryLogics()) {
+            QueryLogicPool pool = queryLogicPools.computeIfAbsent(queryId, QueryLogicPool::new);
+            Iterator<CachedQueryLogic> iter = pool.idleQueryLogics.iterator();
+            while (iter.hasNext()) {
+                CachedQueryLogic cached = iter.next();
+                if (isExpired(cached)) {
+                    removeIdle(pool, cached);
+                } else if (cached.queryLogicName.equals(queryLogicName) && Objects.equals(cached.userKey, userKey) && removeIdle(pool, cached)) {
+                    log.trace("Query [{}]: reusing query logic {}", queryId, queryLogicName);
+                    return new Lease(queryId, pool, cached);
+                }
+            }
+            return new Lease(queryId, pool, new CachedQueryLogic(queryLogicName, userKey, queryLogicFactory.getQueryLogic(queryLogicName, currentUser)));
+        } else {
+            return new Lease(queryId, null, new CachedQueryLogic(queryLogicName, userKey, queryLogicFactory.getQueryLogic(queryLogicName, currentUser)));
+        }
+    }
+    
+    /**
+     * Leases a query logic for read-only use, such as checking whether query metrics are enabled. An idle query logic for the query is leased if one is
+     * available, regardless of which user it was created for, otherwise a new instance is created. Since the query logic is only read, it is returned to the
+     * cache when the lease is closed.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param queryLogicName
+     *            the query logic name, not null
+     * @return a lease for the query logic, which should be closed as soon as the caller is done with it
+     * @throws QueryException
+     *             if query logic creation fails
+     * @throws CloneNotSupportedException
+     *             if query logic creation fails
+     */
+    public Lease acquireForRead(String queryId, String queryLogicName) throws QueryException, CloneNotSupportedException {
+        if (queryId != null) {
+            QueryLogicPool pool = queryLogicPools.get(queryId);
+            if (pool != null) {
+                for (CachedQueryLogic cached : pool.idleQueryLogics) {
+                    if (cached.queryLogicName.equals(queryLogicName) && !isExpired(cached) && removeIdle(pool, cached)) {
+                        Lease lease = new Lease(queryId, pool, cached);
+                        lease.setReusable(true);
+                        return lease;
+                    }
+                }
+            }
+        }
+        return new Lease(queryId, null, new CachedQueryLogic(queryLogicName, null, queryLogicFactory.getQueryLogic(queryLogicName)));
+    }
+    
+    /**
+     * Drops all of the idle query logics for the given query. Query logics which are currently leased will be dropped when they are returned.
+     *
+     * @param queryId
+     *            the query id, not null
+     */
+    public void invalidate(String queryId) {
+        QueryLogicPool pool = queryLogicPools.remove(queryId);
+        if (pool != null) {
+            pool.invalidated = true;
+            removeIdle(pool, true);
+        }
+    }
+    
+    /**
+     * Drops any idle query logics which have not been used within the configured idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${datawave.query.runner.query-logic-eviction-interval-millis:30000}")
+    public void evictIdleQueryLogics() {
+        for (QueryLogicPool pool : queryLogicPools.values()) {
+            removeIdle(pool, false);
+            
+            // drop the pool if it has gone completely idle
+            if (pool.idleQueryLogics.isEmpty() && pool.numLeased.get() == 0) {
+                queryLogicPools.remove(pool.queryId, pool);
+            }
+        }
+    }
+    
+    private void removeIdle(QueryLogicPool pool, boolean all) {
+        for (CachedQueryLogic cached : pool.idleQueryLogics) {
+            if (all || isExpired(cached)) {
+                removeIdle(pool, cached);
+            }
+        }
+    }
+    
+    private boolean removeIdle(QueryLogicPool pool, CachedQueryLogic cached) {
+        if (pool.idleQueryLogics.removeFirstOccurrence(cached)) {
+            numIdleQueryLogics.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+    
+    private boolean isExpired(CachedQueryLogic cached) {
+        return (System.currentTimeMillis() - cached.idleSinceMillis) >= runnerProperties.getQueryLogicIdleTimeoutMillis();
+    }
+    
+    private String getUserKey(DatawaveUserDetails currentUser) {
+        return (currentUser != null && currentUser.getPrimaryUser() != null) ? currentUser.getPrimaryUser().getName() : null;
+    }
+    
+    public int getNumIdleQueryLogics() {
+        return numIdleQueryLogics.get();
+    }
+    
+    public int getNumIdleQueryLogics(String queryId) {
+        QueryLogicPool pool = queryLogicPools.get(queryId);
+        return (pool != null) ? pool.idleQueryLogics.size() : 0;
+    }
+    
+    /**
+     * An exclusive lease on a query logic, and the transformer created from it.
+     */
+    public class Lease implements AutoCloseable {
+        private final String queryId;
+        private final QueryLogicPool pool;
+        private final CachedQueryLogic cached;
+        private boolean reusable = false;
+        
+        private Lease(String queryId, QueryLogicPool pool, CachedQueryLogic cached) {
+            this.queryId = queryId;
+            this.pool = pool;
+            this.cached = cached;
+            if (pool != null) {
+                pool.numLeased.incrementAndGet();
+            }
+        }
+        
+        public QueryLogic<?> getQueryLogic() {
+            return cached.queryLogic;
+        }
+        
+        /**
+         * Gets the transformer for this query logic, creating it if this is the first time it has been used.
+         *
+         * @param query
+         *            the query, not null
+         * @return the transformer
+         */
+        public QueryLogicTransformer<?,?> getTransformer(Query query) {
+            if (cached.transformer == null) {
+                cached.transformer = cached.queryLogic.getTransformer(query);
+            }
+            return cached.transformer;
+        }
+        
+        /**
+         * Determines whether the query logic can be returned to the cache when the lease is closed. By default, query logics are not reusable, so that a query
+         * logic left in an unknown state by a failed next call is always dropped.
+         *
+         * @param reusable
+         *            whether the query logic can be reused
+         */
+        public void setReusable(boolean reusable) {
+            this.reusable = reusable;
+        }
+        
+        @Override
+        public void close() {
+            if (pool != null) {
+                pool.numLeased.decrementAndGet();
+                
+                // only keep the query logic if the pool is still registered for this query, and there is room for another idle query logic
+                if (reusable && !pool.invalidated && queryLogicPools.get(queryId) == pool
+                                && pool.idleQueryLogics.size() < runnerProperties.getMaxIdleQueryLogicsPerQuery()
+                                && numIdleQueryLogics.get() < runnerProperties.getMaxIdleQueryLogics()) {
+                    cached.idleSinceMillis = System.currentTimeMillis();
+                    pool.idleQueryLogics.offerFirst(cached);
+                    numIdleQueryLogics.incrementAndGet();
+                    
+                    // if the query was invalidated while we were returning the query logic, make sure it gets dropped
+                    if (pool.invalidated) {
+                        removeIdle(pool, true);
+                    }
+                }
+            }
+        }
+    }
+    
+    private static class QueryLogicPool {
+        private final String queryId;
+        private final Deque<CachedQueryLogic> idleQueryLogics = new ConcurrentLinkedDeque<>();
+        private volatile boolean invalidated = false;
+        private final AtomicInteger numLeased = new AtomicInteger();
+        
+        private QueryLogicPool(String queryId) {
+            this.queryId = queryId;
+        }
+    }
+    
+    private static class CachedQueryLogic {
+        private final String queryLogicName;
+        private final String userKey;
+        private final QueryLogic<?> queryLogic;
+        private QueryLogicTransformer<?,?> transformer;
+        private long idleSinceMillis;
+        
+        private CachedQueryLogic(String queryLogicName, String userKey, QueryLogic<?> queryLogic) {
+            this.queryLogicName = queryLogicName;
+            this.userKey = userKey;
+            this.queryLogic = queryLogic;
+        }
+    }
+}
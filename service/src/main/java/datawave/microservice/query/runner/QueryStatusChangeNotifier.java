@@ -0,0 +1,311 @@
+package datawave.microservice.query.runner;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.storage.TaskStates;
+
+/**
+ * Pushes query status and task state changes to the next calls which are running for a query.
+ * <p>
+ * When the shared query storage is backed by Hazelcast, this notifier listens for updates to the query status and task states entries of the queries which
+ * have a next call waiting on this instance, and pushes the updated values to those next calls. A next call only wakes up to recheck whether it is finished
+ * when something it is waiting for has changed, i.e. its query was canceled, failed or closed, its create stage changed, or all of its tasks have finished.
+ * Other updates, e.g. to the result counters, are picked up without waking the next call, and without reading the query storage cache. Query status changes can also be pushed to a single query status listener per query, which is used while waiting on a
+ * response from the executor service. Without a Hazelcast-backed cache, next calls and query status listeners fall back to polling.
+ * <p>
+ * Listeners are only registered for the keys of the queries which something on this instance has waited on, so a status write is only sent to the
+ * instances which are interested in it. Since adding or removing an entry listener is a cluster-wide operation, the listeners for a query are kept for the
+ * life of the query, rather than for a single next call, and they are always added and removed outside of the registration maps' atomic updates, so that
+ * a slow cluster never holds up other queries. They are removed once the query is {@link #release released} and nothing is waiting on it any more, or once
+ * the query's entry is removed from the map.
+ */
+public class QueryStatusChangeNotifier implements AutoCloseable {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    // registrations are keyed by the cache key for the query, so that change events can be matched up without parsing the cache keys
+    private final Map<String,Set<NextCall>> nextCalls = new ConcurrentHashMap<>();
+    private final Map<String,Runnable> queryStatusListeners = new ConcurrentHashMap<>();
+    
+    private final Map<String,KeyListener> queryStatusKeyListeners = new ConcurrentHashMap<>();
+    private final Map<String,KeyListener> taskStatesKeyListeners = new ConcurrentHashMap<>();
+    
+    private IMap<Object,Object> queryStatusMap;
+    private IMap<Object,Object> taskStatesMap;
+    
+    /**
+     * Starts listening for changes to the given query status and task states maps. Entry listeners are added to the maps as next calls and query status
+     * listeners are registered.
+     *
+     * @param queryStatusMap
+     *            the map backing the query status cache, not null
+     * @param taskStatesMap
+     *            the map backing the task states cache, not null
+     */
+    public void listen(IMap<Object,Object> queryStatusMap, IMap<Object,Object> taskStatesMap) {
+        this.queryStatusMap = queryStatusMap;
+        this.taskStatesMap = taskStatesMap;
+        
+        log.info("Listening for query status changes on {} and task state changes on {}", queryStatusMap.getName(), taskStatesMap.getName());
+    }
+    
+    /**
+     * Indicates whether changes are being pushed to registered next calls. If not, next calls need to poll for query status changes.
+     *
+     * @return true if changes are being pushed
+     */
+    public boolean isListening() {
+        return queryStatusMap != null && taskStatesMap != null;
+    }
+    
+    public void register(String queryId, NextCall nextCall) {
+        String cacheKey = QueryCacheKeys.toCacheKey(queryId);
+        if (nextCalls.computeIfAbsent(cacheKey, k -> ConcurrentHashMap.newKeySet()).add(nextCall)) {
+            addInterest(queryStatusKeyListeners, queryStatusMap, cacheKey, value -> queryStatusChanged(cacheKey, value));
+            addInterest(taskStatesKeyListeners, taskStatesMap, cacheKey, value -> taskStatesChanged(cacheKey, value));
+        }
+    }
+    
+    public void unregister(String queryId, NextCall nextCall) {
+        String cacheKey = QueryCacheKeys.toCacheKey(queryId);
+        AtomicBoolean removed = new AtomicBoolean();
+        nextCalls.computeIfPresent(cacheKey, (k, calls) -> {
+            removed.set(calls.remove(nextCall));
+            return calls.isEmpty() ? null : calls;
+        });
+        if (removed.get()) {
+            removeInterest(queryStatusKeyListeners, cacheKey);
+            removeInterest(taskStatesKeyListeners, cacheKey);
+        }
+    }
+    
+    /**
+     * Registers a listener which will be called whenever the query status changes. Only one listener can be registered per query, and the listener will be
+     * called on a Hazelcast event thread, so it should not block.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @param queryStatusListener
+     *            the listener, not null
+     */
+    public void addQueryStatusListener(String queryId, Runnable queryStatusListener) {
+        String cacheKey = QueryCacheKeys.toCacheKey(queryId);
+        if (queryStatusListeners.put(cacheKey, queryStatusListener) == null) {
+            addInterest(queryStatusKeyListeners, queryStatusMap, cacheKey, value -> queryStatusChanged(cacheKey, value));
+        }
+    }
+    
+    public void removeQueryStatusListener(String queryId, Runnable queryStatusListener) {
+        String cacheKey = QueryCacheKeys.toCacheKey(queryId);
+        if (queryStatusListeners.remove(cacheKey, queryStatusListener)) {
+            removeInterest(queryStatusKeyListeners, cacheKey);
+        }
+    }
+    
+    /**
+     * Releases the entry listeners for the given query, which is called once the query is closed, canceled or removed. Listeners which something on this
+     * instance is still waiting on, e.g. a next call which is finishing its page after a close, are removed once it is done.
+     *
+     * @param queryId
+     *            the query id, not null
+     */
+    public void release(String queryId) {
+        releaseKey(QueryCacheKeys.toCacheKey(queryId));
+    }
+    
+    private void releaseKey(String cacheKey) {
+        releaseInterest(queryStatusKeyListeners, cacheKey);
+        releaseInterest(taskStatesKeyListeners, cacheKey);
+    }
+    
+    private void addInterest(Map<String,KeyListener> keyListeners, IMap<Object,Object> map, String cacheKey, Consumer<Object> changeHandler) {
+        if (map != null) {
+            AtomicReference<KeyListener> created = new AtomicReference<>();
+            keyListeners.compute(cacheKey, (k, keyListener) -> {
+                if (keyListener == null) {
+                    keyListener = new KeyListener(map, cacheKey, changeHandler);
+                    created.set(keyListener);
+                }
+                keyListener.numInterested++;
+                return keyListener;
+            });
+            
+            // the listener is only a placeholder until it has been added to the map, which is a remote call
+            if (created.get() != null) {
+                created.get().add();
+            }
+        }
+    }
+    
+    private void removeInterest(Map<String,KeyListener> keyListeners, String cacheKey) {
+        // the listener is kept for the next wait on this query, unless the query has been released
+        AtomicReference<KeyListener> removed = new AtomicReference<>();
+        keyListeners.computeIfPresent(cacheKey, (k, keyListener) -> {
+            if (--keyListener.numInterested > 0 || !keyListener.released) {
+                return keyListener;
+            }
+            removed.set(keyListener);
+            return null;
+        });
+        
+        if (removed.get() != null) {
+            removed.get().remove();
+        }
+    }
+    
+    private void releaseInterest(Map<String,KeyListener> keyListeners, String cacheKey) {
+        AtomicReference<KeyListener> removed = new AtomicReference<>();
+        keyListeners.computeIfPresent(cacheKey, (k, keyListener) -> {
+            keyListener.released = true;
+            if (keyListener.numInterested > 0) {
+                return keyListener;
+            }
+            removed.set(keyListener);
+            return null;
+        });
+        
+        if (removed.get() != null) {
+            removed.get().remove();
+        }
+    }
+    
+    private void queryStatusChanged(String cacheKey, Object value) {
+        QueryStatus queryStatus = (value instanceof QueryStatus) ? (QueryStatus) value : null;
+        notify(cacheKey, nextCall -> nextCall.queryStatusChanged(queryStatus));
+        
+        Runnable queryStatusListener = queryStatusListeners.get(cacheKey);
+        if (queryStatusListener != null) {
+            queryStatusListener.run();
+        }
+    }
+    
+    private void taskStatesChanged(String cacheKey, Object value) {
+        TaskStates taskStates = (value instanceof TaskStates) ? (TaskStates) value : null;
+        notify(cacheKey, nextCall -> nextCall.taskStatesChanged(taskStates));
+    }
+    
+    private void notify(String cacheKey, Consumer<NextCall> notification) {
+        nextCalls.getOrDefault(cacheKey, Collections.emptySet()).forEach(notification);
+    }
+    
+    @Override
+    public void close() {
+        queryStatusMap = null;
+        taskStatesMap = null;
+        closeAll(queryStatusKeyListeners);
+        closeAll(taskStatesKeyListeners);
+    }
+    
+    private void closeAll(Map<String,KeyListener> keyListeners) {
+        for (String cacheKey : keyListeners.keySet()) {
+            KeyListener keyListener = keyListeners.remove(cacheKey);
+            if (keyListener != null) {
+                keyListener.remove();
+            }
+        }
+    }
+    
+    /**
+     * An entry listener for a single key, which is shared by everything on this instance which is interested in that key, and kept until the key is released.
+     */
+    private class KeyListener implements EntryAddedListener<Object,Object>, EntryUpdatedListener<Object,Object>, EntryRemovedListener<Object,Object>,
+                    EntryEvictedListener<Object,Object>, EntryExpiredListener<Object,Object> {
+        private final IMap<Object,Object> map;
+        private final String cacheKey;
+        private final Consumer<Object> changeHandler;
+        // completed with the listener id once the listener has been added to the map, or with null if it couldn't be added
+        private final CompletableFuture<UUID> listenerId = new CompletableFuture<>();
+        private int numInterested;
+        private boolean released;
+        
+        private KeyListener(IMap<Object,Object> map, String cacheKey, Consumer<Object> changeHandler) {
+            this.map = map;
+            this.cacheKey = cacheKey;
+            this.changeHandler = changeHandler;
+        }
+        
+        private void add() {
+            // the value is included, so that whoever is notified can tell what changed without reading the query storage cache
+            UUID id = null;
+            try {
+                id = map.addEntryListener(this, cacheKey, true);
+            } catch (Exception e) {
+                log.warn("Unable to listen for changes to {} in {}, changes will be picked up by polling", cacheKey, map.getName(), e);
+            }
+            listenerId.complete(id);
+        }
+        
+        @Override
+        public void entryAdded(EntryEvent<Object,Object> event) {
+            entryChanged(event.getValue());
+        }
+        
+        @Override
+        public void entryUpdated(EntryEvent<Object,Object> event) {
+            entryChanged(event.getValue());
+        }
+        
+        @Override
+        public void entryRemoved(EntryEvent<Object,Object> event) {
+            entryGone();
+        }
+        
+        @Override
+        public void entryEvicted(EntryEvent<Object,Object> event) {
+            entryGone();
+        }
+        
+        @Override
+        public void entryExpired(EntryEvent<Object,Object> event) {
+            entryGone();
+        }
+        
+        // the query is gone, e.g. because it was removed by another instance, so there is nothing left to listen for
+        private void entryGone() {
+            try {
+                releaseKey(cacheKey);
+            } catch (Exception e) {
+                log.warn("Unable to release the listeners for {}", cacheKey, e);
+            }
+        }
+        
+        private void entryChanged(Object value) {
+            try {
+                changeHandler.accept(value);
+            } catch (Exception e) {
+                log.warn("Unable to process change event for {}", cacheKey, e);
+            }
+        }
+        
+        private void remove() {
+            // wait for the listener to be added, if that is still in progress
+            UUID id = listenerId.join();
+            if (id != null) {
+                try {
+                    map.removeEntryListener(id);
+                } catch (Exception e) {
+                    log.warn("Unable to stop listening for changes to {} in {}", cacheKey, map.getName(), e);
+                }
+            }
+        }
+    }
+}
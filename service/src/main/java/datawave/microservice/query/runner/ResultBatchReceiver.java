@@ -0,0 +1,113 @@
+package datawave.microservice.query.runner;
+
+import static datawave.microservice.query.messaging.AcknowledgementCallback.Status.ACK;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import datawave.microservice.query.messaging.Result;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+
+/**
+ * Receives results from a results listener in batches, and acknowledges each batch as a unit.
+ * <p>
+ * Batching is off by default, i.e. each batch holds a single result. The messaging api only allows results to be acknowledged one at a time, and it doesn't
+ * say whether an acknowledgement covers the results received before it, so with the default {@link NextCallRunnerProperties.AckMode#PER_RESULT PER_RESULT}
+ * ack mode a batch still costs one acknowledgement per result, and only saves the next call from checking whether it is finished between results. The opt-in
+ * {@link NextCallRunnerProperties.AckMode#CUMULATIVE CUMULATIVE} ack mode acknowledges just the last result in each batch, and that is only safe for
+ * messaging backends where an acknowledgement covers everything received before it.
+ */
+public class ResultBatchReceiver {
+    
+    /**
+     * A source of results, e.g. a results listener.
+     */
+    public interface ResultSource {
+        Result receive(long interval, TimeUnit timeUnit);
+    }
+    
+    private final NextCallRunnerProperties runnerProperties;
+    
+    public ResultBatchReceiver(NextCallRunnerProperties runnerProperties) {
+        this.runnerProperties = runnerProperties;
+    }
+    
+    /**
+     * Receives the next batch of results.
+     * <p>
+     * This waits up to the poll interval for the first result. Once a result has been received, any additional results which become available within the
+     * receive batch max wait are drained into the same batch, up to the batch limit. Draining stops if a result without a payload is encountered.
+     *
+     * @param resultSource
+     *            the source of results, not null
+     * @param pollInterval
+     *            the maximum amount of time to wait for the first result
+     * @param pollIntervalUnit
+     *            the time unit of the poll interval, not null
+     * @param batchLimit
+     *            the maximum number of results in the batch
+     * @return the batch of results, possibly empty
+     */
+    public List<Result> receiveBatch(ResultSource resultSource, long pollInterval, TimeUnit pollIntervalUnit, int batchLimit) {
+        return receiveBatch(resultSource, pollInterval, pollIntervalUnit, batchLimit, result -> false);
+    }
+    
+    /**
+     * Receives the next batch of results, stopping as soon as the batch uses up the caller's budget.
+     * <p>
+     * This is the same as {@link #receiveBatch(ResultSource, long, TimeUnit, int)}, except that each result with a payload is passed to {@code budgetSpent} as
+     * soon as it is received, and draining stops once it returns true. This allows the caller to stop receiving at e.g. a byte limit, rather than receiving
+     * results which it has no room for.
+     *
+     * @param resultSource
+     *            the source of results, not null
+     * @param pollInterval
+     *            the maximum amount of time to wait for the first result
+     * @param pollIntervalUnit
+     *            the time unit of the poll interval, not null
+     * @param batchLimit
+     *            the maximum number of results in the batch
+     * @param budgetSpent
+     *            called with each received result which has a payload, returns true once no more results should be received, not null
+     * @return the batch of results, possibly empty
+     */
+    public List<Result> receiveBatch(ResultSource resultSource, long pollInterval, TimeUnit pollIntervalUnit, int batchLimit, Predicate<Result> budgetSpent) {
+        List<Result> batch = new ArrayList<>();
+        Result result = resultSource.receive(pollInterval, pollIntervalUnit);
+        long drainStopTimeMillis = System.currentTimeMillis() + runnerProperties.getReceiveBatchMaxWaitMillis();
+        while (result != null) {
+            batch.add(result);
+            
+            // the budget is checked first, so that it sees every result in the batch
+            if (result.getPayload() == null || budgetSpent.test(result) || batch.size() >= batchLimit) {
+                break;
+            }
+            
+            long waitMillis = Math.max(0L, drainStopTimeMillis - System.currentTimeMillis());
+            result = resultSource.receive(waitMillis, TimeUnit.MILLISECONDS);
+        }
+        return batch;
+    }
+    
+    /**
+     * Acknowledges a batch of results according to the configured ack mode.
+     *
+     * @param batch
+     *            the batch of results, in the order they were received, not null
+     */
+    public void acknowledge(List<Result> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        
+        if (runnerProperties.getAckMode() == NextCallRunnerProperties.AckMode.CUMULATIVE) {
+            batch.get(batch.size() - 1).acknowledge(ACK);
+        } else {
+            for (Result result : batch) {
+                result.acknowledge(ACK);
+            }
+        }
+    }
+}
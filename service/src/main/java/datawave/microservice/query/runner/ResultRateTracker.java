@@ -0,0 +1,140 @@
+package datawave.microservice.query.runner;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.microservice.querymetric.BaseQueryMetric;
+
+/**
+ * Tracks the rate at which results arrive for each query, so that the adaptive short circuit can predict how long it will take to fill a page.
+ * <p>
+ * The average time between results is kept per query, rather than per next call, so that each page starts out with what was learned from the pages before it
+ * instead of having to relearn the result rate from scratch. Time spent between next calls is not counted, since that is up to the client. The result rate
+ * for a query is dropped when the query is closed, canceled or removed, or once it has gone unused for the configured idle timeout.
+ */
+public class ResultRateTracker {
+    
+    private final NextCallRunnerProperties runnerProperties;
+    private final Map<String,ResultRate> resultRates = new ConcurrentHashMap<>();
+    
+    public ResultRateTracker(NextCallRunnerProperties runnerProperties) {
+        this.runnerProperties = runnerProperties;
+    }
+    
+    /**
+     * Gets the result rate for the given query, creating it if necessary.
+     *
+     * @param queryId
+     *            the query id, not null
+     * @return the result rate for the query
+     */
+    public ResultRate getResultRate(String queryId) {
+        return resultRates.computeIfAbsent(queryId, k -> new ResultRate());
+    }
+    
+    /**
+     * Drops the result rate for the given query.
+     *
+     * @param queryId
+     *            the query id, not null
+     */
+    public void invalidate(String queryId) {
+        resultRates.remove(queryId);
+    }
+    
+    /**
+     * Drops the result rates which have not been updated within the configured idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${datawave.query.runner.result-rate-eviction-interval-millis:60000}")
+    public void evictIdleResultRates() {
+        long cutoffMillis = System.currentTimeMillis() - runnerProperties.getResultRateIdleTimeoutMillis();
+        resultRates.values().removeIf(resultRate -> resultRate.getLastUpdateMillis() < cutoffMillis);
+    }
+    
+    public int getNumResultRates() {
+        return resultRates.size();
+    }
+    
+    /**
+     * Records the predicted time to fill the page in the query metric. The prediction is only recorded when the adaptive short circuit is in use, since that
+     * is the only time the prediction has any bearing on the page.
+     *
+     * @param baseQueryMetric
+     *            the query metric, not null
+     * @param predictedTimeToFullPageMillis
+     *            the predicted time to fill the page in milliseconds, or a negative value if there is no prediction
+     */
+    public void recordPrediction(BaseQueryMetric baseQueryMetric, long predictedTimeToFullPageMillis) {
+        if (runnerProperties.getShortCircuitMode() == NextCallRunnerProperties.ShortCircuitMode.ADAPTIVE && predictedTimeToFullPageMillis >= 0) {
+            Set<BaseQueryMetric.Prediction> predictions = new HashSet<>();
+            if (baseQueryMetric.getPredictions() != null) {
+                baseQueryMetric.getPredictions().stream().filter(p -> !NextCall.PREDICTED_TIME_TO_FULL_PAGE.equals(p.getName())).forEach(predictions::add);
+            }
+            predictions.add(new BaseQueryMetric.Prediction(NextCall.PREDICTED_TIME_TO_FULL_PAGE, predictedTimeToFullPageMillis));
+            baseQueryMetric.setPredictions(predictions);
+        }
+    }
+    
+    /**
+     * The exponentially weighted moving average of the time between results for a single query.
+     */
+    public class ResultRate {
+        private double resultIntervalEwmaMillis = -1.0;
+        private volatile long lastUpdateMillis = System.currentTimeMillis();
+        
+        /**
+         * Adds a batch of results to the average.
+         *
+         * @param numResults
+         *            the number of results received, greater than 0
+         * @param elapsedMillis
+         *            the time it took for the results to arrive
+         */
+        public synchronized void update(int numResults, long elapsedMillis) {
+            double resultIntervalMillis = (double) elapsedMillis / numResults;
+            if (resultIntervalEwmaMillis < 0) {
+                resultIntervalEwmaMillis = resultIntervalMillis;
+            } else {
+                double alpha = runnerProperties.getResultRateSmoothingFactor();
+                resultIntervalEwmaMillis = alpha * resultIntervalMillis + (1.0 - alpha) * resultIntervalEwmaMillis;
+            }
+            lastUpdateMillis = System.currentTimeMillis();
+        }
+        
+        /**
+         * Predicts how long it will take to receive the given number of results.
+         * <p>
+         * If it has been longer than the average interval since the last result arrived, the time since the last result is used instead, so that a stalled
+         * query is not predicted to recover at its previous rate.
+         *
+         * @param resultsRemaining
+         *            the number of results still needed
+         * @param millisSinceLastResult
+         *            the time since the last result arrived, or since the next call started if no results have arrived yet
+         * @return the predicted time in milliseconds, or -1 if no results have ever arrived for this query
+         */
+        public synchronized long predictTimeToReceive(long resultsRemaining, long millisSinceLastResult) {
+            if (resultIntervalEwmaMillis < 0) {
+                return -1L;
+            }
+            if (resultsRemaining <= 0) {
+                return 0L;
+            }
+            double resultIntervalMillis = Math.max(resultIntervalEwmaMillis, millisSinceLastResult);
+            return Math.round(resultIntervalMillis * resultsRemaining);
+        }
+        
+        public synchronized double getResultIntervalEwmaMillis() {
+            return resultIntervalEwmaMillis;
+        }
+        
+        private long getLastUpdateMillis() {
+            return lastUpdateMillis;
+        }
+    }
+}
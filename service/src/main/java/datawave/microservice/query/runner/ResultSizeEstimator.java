@@ -0,0 +1,123 @@
+package datawave.microservice.query.runner;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.webservice.query.data.ObjectSizeOf;
+
+/**
+ * Estimates the size of query results for the purpose of enforcing a query logic's page byte trigger.
+ * <p>
+ * Computing the exact size of a result requires a reflective walk of its object graph, which is expensive to do for every result. Depending on the
+ * configured strategy, this estimator will instead use a running average of sizes previously measured for the result's class, or an exact measurement of
+ * every Nth result. Results which implement {@link ObjectSizeOf} report their own size cheaply, so they are always sized exactly.
+ * <p>
+ * Per-class size statistics are shared across next calls. Classes whose measured sizes vary by more than the configured relative error are always measured
+ * exactly. Once a class is being estimated, it is still re-measured periodically, and if a re-measured size has drifted away from the average, the statistics
+ * for that class are discarded and rebuilt from fresh measurements.
+ */
+public class ResultSizeEstimator {
+    
+    public enum Strategy {
+        // Measure the size of every result exactly
+        EXACT,
+        // Measure results exactly until the average size for the result class is known, then use the average, re-measuring every Nth result of the class
+        CLASS_SHAPE,
+        // Measure every Nth result in a page exactly, and use the average size for the result class otherwise
+        SAMPLED
+    }
+    
+    private final NextCallRunnerProperties runnerProperties;
+    private final Map<Class<?>,ClassSizeStats> classSizeStats = new ConcurrentHashMap<>();
+    
+    public ResultSizeEstimator(NextCallRunnerProperties runnerProperties) {
+        this.runnerProperties = runnerProperties;
+    }
+    
+    /**
+     * Estimates the size of the given result.
+     *
+     * @param result
+     *            the result, not null
+     * @param pageIndex
+     *            the position of the result within the current page
+     * @return the estimated size of the result, in bytes
+     */
+    public long estimateSize(Object result, long pageIndex) {
+        // the sizer asks these results for their own size, so there is nothing to gain by estimating
+        if (result instanceof ObjectSizeOf) {
+            return ObjectSizeOf.Sizer.getObjectSize(result);
+        }
+        
+        switch (runnerProperties.getSizeEstimationStrategy()) {
+            case CLASS_SHAPE:
+                return estimateByClass(result, false);
+            case SAMPLED:
+                return estimateByClass(result, pageIndex % runnerProperties.getSizeEstimationSampleInterval() == 0);
+            case EXACT:
+            default:
+                return ObjectSizeOf.Sizer.getObjectSize(result);
+        }
+    }
+    
+    private long estimateByClass(Object result, boolean measure) {
+        ClassSizeStats stats = classSizeStats.computeIfAbsent(result.getClass(), c -> new ClassSizeStats());
+        
+        // use the average size if we have enough samples, the sizes for this class are consistent enough, and it isn't time to re-measure
+        if (!measure && stats.isEstimable(runnerProperties.getSizeEstimationMinSamples(), runnerProperties.getSizeEstimationMaxRelativeError())
+                        && !stats.isResampleDue(runnerProperties.getSizeEstimationResampleInterval())) {
+            return stats.getMean();
+        }
+        
+        long size = ObjectSizeOf.Sizer.getObjectSize(result);
+        stats.addSample(size, runnerProperties.getSizeEstimationMinSamples(), runnerProperties.getSizeEstimationMaxRelativeError());
+        return size;
+    }
+    
+    private static class ClassSizeStats {
+        private long count = 0;
+        private double mean = 0.0;
+        private double sumSquaredDeviations = 0.0;
+        private long estimatesSinceSample = 0;
+        
+        private synchronized void addSample(long size, long minSamples, double maxRelativeError) {
+            // if the sizes for this class have drifted, start over so that the class is measured until the average is known again
+            if (count >= minSamples && mean > 0.0) {
+                double deviation = Math.abs(size - mean);
+                if (deviation > Math.max(3.0 * getStdDev(), maxRelativeError * mean)) {
+                    count = 0;
+                    mean = 0.0;
+                    sumSquaredDeviations = 0.0;
+                }
+            }
+            
+            // Welford's online algorithm for the running mean and variance
+            count++;
+            double delta = size - mean;
+            mean += delta / count;
+            sumSquaredDeviations += delta * (size - mean);
+            estimatesSinceSample = 0;
+        }
+        
+        private synchronized boolean isEstimable(long minSamples, double maxRelativeError) {
+            if (count < minSamples || mean <= 0.0) {
+                return false;
+            }
+            return (getStdDev() / mean) <= maxRelativeError;
+        }
+        
+        // counts an estimate, and determines whether this one should be measured instead
+        private synchronized boolean isResampleDue(long resampleInterval) {
+            return ++estimatesSinceSample >= resampleInterval;
+        }
+        
+        private synchronized long getMean() {
+            return Math.round(mean);
+        }
+        
+        private double getStdDev() {
+            return Math.sqrt(sumSquaredDeviations / count);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package datawave.microservice.query.runner.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.spring.cache.HazelcastCacheManager;
+
+import datawave.core.query.logic.QueryLogicFactory;
+import datawave.microservice.query.config.QueryProperties;
+import datawave.microservice.query.messaging.QueryResultsManager;
+import datawave.microservice.query.runner.ExecutorResponseRegistry;
+import datawave.microservice.query.runner.FairNextCallScheduler;
+import datawave.microservice.query.runner.IntermediateResultBuffer;
+import datawave.microservice.query.runner.NextCallRegistry;
+import datawave.microservice.query.runner.NextEventCoalescer;
+import datawave.microservice.query.runner.OptimisticQueryStatusUpdater;
+import datawave.microservice.query.runner.QueryLogicCache;
+import datawave.microservice.query.runner.QueryStatusChangeNotifier;
+import datawave.microservice.query.runner.ResultRateTracker;
+import datawave.microservice.query.runner.ResultSizeEstimator;
+import datawave.microservice.query.storage.QueryStorageCache;
+
+@EnableScheduling
+@Configuration
+@EnableConfigurationProperties({NextCallRunnerProperties.class, NextCallSchedulerProperties.class, NextEventCoalescingProperties.class})
+public class NextCallRunnerConfig {
+    private static final String NEXT_CALL_METRICS_PREFIX = "datawave.query";
+    
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    
+    @Bean
+    public QueryLogicCache queryLogicCache(NextCallRunnerProperties nextCallRunnerProperties, QueryLogicFactory queryLogicFactory) {
+        return new QueryLogicCache(nextCallRunnerProperties, queryLogicFactory);
+    }
+    
+    @Bean
+    public NextCallRegistry nextCallRegistry(NextCallRunnerProperties nextCallRunnerProperties, ObjectProvider<MetricRegistry> metricRegistry) {
+        NextCallRegistry nextCallRegistry = new NextCallRegistry(nextCallRunnerProperties);
+        metricRegistry.ifAvailable(registry -> registry.register(NEXT_CALL_METRICS_PREFIX, nextCallRegistry.getMetricRegistry()));
+        return nextCallRegistry;
+    }
+    
+    @Bean(destroyMethod = "flushAll")
+    public IntermediateResultBuffer intermediateResultBuffer(NextCallRunnerProperties nextCallRunnerProperties, QueryResultsManager queryResultsManager,
+                    QueryStorageCache queryStorageCache, CacheManager cacheManager) {
+        // holds need to be visible to every instance, which needs a shared map. without one, only holds on this instance are known
+        ConcurrentMap<String,String> holders;
+        if (cacheManager instanceof HazelcastCacheManager) {
+            holders = ((HazelcastCacheManager) cacheManager).getHazelcastInstance().getMap(nextCallRunnerProperties.getHoldBackHoldersCacheName());
+        } else {
+            holders = new ConcurrentHashMap<>();
+        }
+        return new IntermediateResultBuffer(nextCallRunnerProperties, queryResultsManager, queryStorageCache, holders);
+    }
+    
+    @Bean
+    public ResultSizeEstimator resultSizeEstimator(NextCallRunnerProperties nextCallRunnerProperties) {
+        return new ResultSizeEstimator(nextCallRunnerProperties);
+    }
+    
+    @Bean
+    public ResultRateTracker resultRateTracker(NextCallRunnerProperties nextCallRunnerProperties) {
+        return new ResultRateTracker(nextCallRunnerProperties);
+    }
+    
+    @Bean
+    public QueryStatusChangeNotifier queryStatusChangeNotifier(NextCallRunnerProperties nextCallRunnerProperties, CacheManager cacheManager) {
+        QueryStatusChangeNotifier queryStatusChangeNotifier = new QueryStatusChangeNotifier();
+        if (nextCallRunnerProperties.isStatusChangeNotificationsEnabled()) {
+            if (cacheManager instanceof HazelcastCacheManager) {
+                HazelcastInstance hazelcastInstance = ((HazelcastCacheManager) cacheManager).getHazelcastInstance();
+                // @formatter:off
+                queryStatusChangeNotifier.listen(
+                        hazelcastInstance.getMap(nextCallRunnerProperties.getQueryStatusCacheName()),
+                        hazelcastInstance.getMap(nextCallRunnerProperties.getTaskStatesCacheName()));
+                // @formatter:on
+            } else {
+                log.info("Query status change notifications are not supported by {}, next calls will poll for status changes", cacheManager.getClass());
+            }
+        }
+        return queryStatusChangeNotifier;
+    }
+    
+    @Bean
+    public ExecutorResponseRegistry executorResponseRegistry(QueryProperties queryProperties, QueryStorageCache queryStorageCache,
+                    QueryStatusChangeNotifier queryStatusChangeNotifier) {
+        return new ExecutorResponseRegistry(queryProperties, queryStorageCache, queryStatusChangeNotifier);
+    }
+    
+    @Bean
+    public FairNextCallScheduler nextCallScheduler(NextCallSchedulerProperties nextCallSchedulerProperties,
+                    @Qualifier("nextCallExecutor") AsyncListenableTaskExecutor nextCallExecutor) {
+        return new FairNextCallScheduler(nextCallSchedulerProperties, nextCallExecutor);
+    }
+    
+    @Bean
+    public NextEventCoalescer nextEventCoalescer(NextEventCoalescingProperties nextEventCoalescingProperties, ObjectProvider<MetricRegistry> metricRegistry) {
+        NextEventCoalescer nextEventCoalescer = new NextEventCoalescer(nextEventCoalescingProperties);
+        metricRegistry.ifAvailable(registry -> registry.register(NEXT_CALL_METRICS_PREFIX, nextEventCoalescer.getMetricRegistry()));
+        return nextEventCoalescer;
+    }
+    
+    @Bean
+    public OptimisticQueryStatusUpdater optimisticQueryStatusUpdater(NextCallRunnerProperties nextCallRunnerProperties, QueryProperties queryProperties,
+                    QueryStorageCache queryStorageCache, CacheManager cacheManager) {
+        IMap<Object,Object> queryStatusMap = null;
+        if (nextCallRunnerProperties.getNextCallClaimMode() == NextCallRunnerProperties.ClaimMode.OPTIMISTIC) {
+            if (cacheManager instanceof HazelcastCacheManager) {
+                queryStatusMap = ((HazelcastCacheManager) cacheManager).getHazelcastInstance().getMap(nextCallRunnerProperties.getQueryStatusCacheName());
+            } else {
+                log.info("Optimistic query status updates are not supported by {}, next calls will be claimed and released with the query status lock",
+                                cacheManager.getClass());
+            }
+        }
+        return new OptimisticQueryStatusUpdater(nextCallRunnerProperties, queryProperties, queryStorageCache, queryStatusMap);
+    }
+}
@@ -0,0 +1,569 @@
+package datawave.microservice.query.runner.config;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import datawave.microservice.query.runner.ResultSizeEstimator;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.runner")
+public class NextCallRunnerProperties {
+    // Determines when the query logic's result postprocessor is run against the page being assembled.
+    // PAGE_CLOSE is only safe for postprocessors which don't rely on seeing the page as it grows, so it must be opted into.
+    @NotNull
+    private PostprocessingMode postprocessingMode = PostprocessingMode.PER_RESULT;
+    // The class names of result postprocessors which are known to be safe to run once the page is closed, i.e. they never add or remove results, and give
+    // the same page when run once as when run after every result. These always use PAGE_CLOSE, regardless of the postprocessing mode
+    @NotNull
+    private Set<String> pageClosePostprocessors = new HashSet<>(
+                    Collections.singletonList("datawave.core.query.logic.ResultPostprocessor$IdentityResultPostprocessor"));
+    // The class names of reducing result postprocessors which are known to be safe to run whenever the page fills up, i.e. reducing a page in one pass gives
+    // the same result as reducing it one result at a time, and reducing an already reduced page changes nothing. These always use PAGE_FULL, regardless of
+    // the postprocessing mode. The result postprocessor interface can't declare this itself until it is changed in datawave core, so it has to be listed here
+    @NotNull
+    private Set<String> pageFullPostprocessors = new HashSet<>();
+    // The upper bound on the initial capacity of the page buffer, regardless of the requested page size
+    @Positive
+    private int maxInitialPageCapacity = 10000;
+    // The maximum number of results to drain from the results listener before they are acknowledged and added to the page.
+    // Batching only saves finished checks between results, it does not reduce the number of acknowledgements unless the CUMULATIVE ack mode is used,
+    // so it is off by default. Only raise this along with the CUMULATIVE ack mode, on a messaging backend where that is safe.
+    @Positive
+    private int receiveBatchSize = 1;
+    // The amount of time to spend draining additional results into a batch once the first result has been received.
+    // If 0, only results which are already available are drained, so batching never delays a result.
+    @PositiveOrZero
+    private long receiveBatchMaxWait = 0;
+    @NotNull
+    private TimeUnit receiveBatchMaxWaitUnit = TimeUnit.MILLISECONDS;
+    // The longest a next call will wait inside the results listener before checking whether it has been woken up by a query status change
+    @Positive
+    private long wakeupCheckInterval = 50;
+    @NotNull
+    private TimeUnit wakeupCheckIntervalUnit = TimeUnit.MILLISECONDS;
+    // Determines how a batch of received results is acknowledged. The default acknowledges every result, which is safe for every messaging backend.
+    @NotNull
+    private AckMode ackMode = AckMode.PER_RESULT;
+    // The strategy used to estimate result sizes when a query logic has a page byte trigger
+    @NotNull
+    private ResultSizeEstimator.Strategy sizeEstimationStrategy = ResultSizeEstimator.Strategy.EXACT;
+    // The number of results of a given class which must be measured before the average size for that class will be used
+    @Positive
+    private int sizeEstimationMinSamples = 20;
+    // The maximum relative standard deviation of measured sizes for a class before we stop estimating sizes for that class
+    @DecimalMin("0.0")
+    private double sizeEstimationMaxRelativeError = 0.1;
+    // When using the SAMPLED strategy, every Nth result in a page will be measured exactly
+    @Positive
+    private int sizeEstimationSampleInterval = 10;
+    // Once the average size for a result class is being used, every Nth estimate for that class will be measured exactly to detect drift in its size
+    @Positive
+    private int sizeEstimationResampleInterval = 100;
+    // Whether query status and task state changes should be pushed to running next calls
+    private boolean statusChangeNotificationsEnabled = true;
+    // The names of the caches used to store query status and task states
+    @NotBlank
+    private String queryStatusCacheName = "QueryStatusCache";
+    @NotBlank
+    private String taskStatesCacheName = "TaskStatesCache";
+    // When status changes are pushed to next calls, the maximum age of the query status and task states before they are reread from the cache.
+    // A negative value indicates that the datawave.query.nextCall.statusUpdateInterval should be used.
+    private long pushedStatusMaxStaleness = -1;
+    @NotNull
+    private TimeUnit pushedStatusMaxStalenessUnit = TimeUnit.MILLISECONDS;
+    // Determines how a next call decides to return a partial page before the page short circuit timeout
+    @NotNull
+    private ShortCircuitMode shortCircuitMode = ShortCircuitMode.FIXED;
+    // The weight given to the most recent result interval when computing the average result arrival rate
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double resultRateSmoothingFactor = 0.2;
+    // The amount of time that the result rate for a query will be kept after it was last updated
+    @PositiveOrZero
+    private long resultRateIdleTimeout = 30;
+    @NotNull
+    private TimeUnit resultRateIdleTimeoutUnit = TimeUnit.MINUTES;
+    // When using the ADAPTIVE short circuit mode, the minimum amount of time a next call will run before returning a partial page
+    @PositiveOrZero
+    private long adaptiveShortCircuitMinCallTime = 1;
+    @NotNull
+    private TimeUnit adaptiveShortCircuitMinCallTimeUnit = TimeUnit.SECONDS;
+    // The servlet timeout for asynchronous next calls. A negative value disables the servlet timeout, leaving the next call's own call timeout in charge.
+    private long asyncNextTimeout = -1;
+    @NotNull
+    private TimeUnit asyncNextTimeoutUnit = TimeUnit.MILLISECONDS;
+    // The servlet timeout for asynchronous create, plan and predict calls. A negative value disables the servlet timeout, leaving the call timeout in charge.
+    private long asyncCreateTimeout = -1;
+    @NotNull
+    private TimeUnit asyncCreateTimeoutUnit = TimeUnit.MILLISECONDS;
+    // Whether the intermediate results of a reducing query should be held back locally, rather than returned to the results queue, when a page short circuits
+    private boolean holdBackIntermediateResults = false;
+    // The maximum number of held back intermediate results to keep in memory for a query before they are spilled to disk
+    @PositiveOrZero
+    private int holdBackMaxResultsInMemory = 1000;
+    // The directory used for spilled intermediate results. If not set, the system temp directory will be used.
+    private String holdBackSpillDirectory;
+    // The amount of time that intermediate results will be held back before they are returned to the results queue
+    @PositiveOrZero
+    private long holdBackMaxAge = 5;
+    @NotNull
+    private TimeUnit holdBackMaxAgeUnit = TimeUnit.MINUTES;
+    // The name of the cache used to record which instance is holding back intermediate results for a query
+    @NotBlank
+    private String holdBackHoldersCacheName = "IntermediateResultHoldersCache";
+    // Whether a gauge of active next calls should be published for each query, in addition to the overall and per query pool gauges
+    private boolean activeNextCallQueryGaugesEnabled = false;
+    // Determines how the query status is updated when claiming and releasing next calls. With the default, each page takes the query status lock twice, once
+    // to claim the next call and once to release it. The query storage cache has no conditional update, so OPTIMISTIC has to go around it to the Hazelcast
+    // map, and is only safe when the query status lock provided by the query starter is the Hazelcast key lock on the same query status map entry.
+    @NotNull
+    private ClaimMode nextCallClaimMode = ClaimMode.LOCKED;
+    // The number of times an optimistic query status update will be attempted before falling back to a locked update
+    @Positive
+    private int maxOptimisticUpdateAttempts = 10;
+    // Whether query logic and transformer instances should be kept, and reused, between next calls for the same query
+    private boolean reuseQueryLogics = true;
+    // The maximum number of idle query logics to keep for a single query
+    @Positive
+    private int maxIdleQueryLogicsPerQuery = 1;
+    // The maximum number of idle query logics to keep across all queries
+    @PositiveOrZero
+    private int maxIdleQueryLogics = 1000;
+    // The amount of time that an idle query logic will be kept before it is dropped
+    @PositiveOrZero
+    private long queryLogicIdleTimeout = 5;
+    @NotNull
+    private TimeUnit queryLogicIdleTimeoutUnit = TimeUnit.MINUTES;
+    
+    public enum ClaimMode {
+        // Acquire the query status lock to claim and release next calls
+        LOCKED,
+        // Claim and release next calls with a compare-and-set against the query status map, falling back to the lock if that isn't possible
+        OPTIMISTIC
+    }
+    
+    public enum ShortCircuitMode {
+        // Return a partial page once the percentage of the page filled falls behind the percentage of the call time used (legacy behavior)
+        FIXED,
+        // Return a partial page as soon as the page is not expected to fill before the page short circuit timeout, based on the result arrival rate
+        ADAPTIVE
+    }
+    
+    public enum AckMode {
+        // Acknowledge every result in the batch
+        PER_RESULT,
+        // Acknowledge only the last result in the batch. Only safe for messaging backends where an acknowledgement covers every result received before it
+        // on the same listener, e.g. kafka offset commits
+        CUMULATIVE
+    }
+    
+    public enum PostprocessingMode {
+        // Apply the postprocessor to the whole page every time a result is added (legacy behavior)
+        PER_RESULT,
+        // Apply the postprocessor once, after the page has been assembled
+        PAGE_CLOSE,
+        // Apply the postprocessor whenever the page fills up, and once more after the page has been assembled. This lets a reducing postprocessor make room on
+        // the page the same way it does per result, while only running it once per page full of results
+        PAGE_FULL
+    }
+    
+    public PostprocessingMode getPostprocessingMode() {
+        return postprocessingMode;
+    }
+    
+    public void setPostprocessingMode(PostprocessingMode postprocessingMode) {
+        this.postprocessingMode = postprocessingMode;
+    }
+    
+    public Set<String> getPageClosePostprocessors() {
+        return pageClosePostprocessors;
+    }
+    
+    public void setPageClosePostprocessors(Set<String> pageClosePostprocessors) {
+        this.pageClosePostprocessors = pageClosePostprocessors;
+    }
+    
+    public Set<String> getPageFullPostprocessors() {
+        return pageFullPostprocessors;
+    }
+    
+    public void setPageFullPostprocessors(Set<String> pageFullPostprocessors) {
+        this.pageFullPostprocessors = pageFullPostprocessors;
+    }
+    
+    public int getMaxInitialPageCapacity() {
+        return maxInitialPageCapacity;
+    }
+    
+    public void setMaxInitialPageCapacity(int maxInitialPageCapacity) {
+        this.maxInitialPageCapacity = maxInitialPageCapacity;
+    }
+    
+    public int getReceiveBatchSize() {
+        return receiveBatchSize;
+    }
+    
+    public void setReceiveBatchSize(int receiveBatchSize) {
+        this.receiveBatchSize = receiveBatchSize;
+    }
+    
+    public long getReceiveBatchMaxWait() {
+        return receiveBatchMaxWait;
+    }
+    
+    public long getReceiveBatchMaxWaitMillis() {
+        return receiveBatchMaxWaitUnit.toMillis(receiveBatchMaxWait);
+    }
+    
+    public void setReceiveBatchMaxWait(long receiveBatchMaxWait) {
+        this.receiveBatchMaxWait = receiveBatchMaxWait;
+    }
+    
+    public TimeUnit getReceiveBatchMaxWaitUnit() {
+        return receiveBatchMaxWaitUnit;
+    }
+    
+    public void setReceiveBatchMaxWaitUnit(TimeUnit receiveBatchMaxWaitUnit) {
+        this.receiveBatchMaxWaitUnit = receiveBatchMaxWaitUnit;
+    }
+    
+    public long getWakeupCheckInterval() {
+        return wakeupCheckInterval;
+    }
+    
+    public long getWakeupCheckIntervalMillis() {
+        return wakeupCheckIntervalUnit.toMillis(wakeupCheckInterval);
+    }
+    
+    public void setWakeupCheckInterval(long wakeupCheckInterval) {
+        this.wakeupCheckInterval = wakeupCheckInterval;
+    }
+    
+    public TimeUnit getWakeupCheckIntervalUnit() {
+        return wakeupCheckIntervalUnit;
+    }
+    
+    public void setWakeupCheckIntervalUnit(TimeUnit wakeupCheckIntervalUnit) {
+        this.wakeupCheckIntervalUnit = wakeupCheckIntervalUnit;
+    }
+    
+    public AckMode getAckMode() {
+        return ackMode;
+    }
+    
+    public void setAckMode(AckMode ackMode) {
+        this.ackMode = ackMode;
+    }
+    
+    public ResultSizeEstimator.Strategy getSizeEstimationStrategy() {
+        return sizeEstimationStrategy;
+    }
+    
+    public void setSizeEstimationStrategy(ResultSizeEstimator.Strategy sizeEstimationStrategy) {
+        this.sizeEstimationStrategy = sizeEstimationStrategy;
+    }
+    
+    public int getSizeEstimationMinSamples() {
+        return sizeEstimationMinSamples;
+    }
+    
+    public void setSizeEstimationMinSamples(int sizeEstimationMinSamples) {
+        this.sizeEstimationMinSamples = sizeEstimationMinSamples;
+    }
+    
+    public double getSizeEstimationMaxRelativeError() {
+        return sizeEstimationMaxRelativeError;
+    }
+    
+    public void setSizeEstimationMaxRelativeError(double sizeEstimationMaxRelativeError) {
+        this.sizeEstimationMaxRelativeError = sizeEstimationMaxRelativeError;
+    }
+    
+    public int getSizeEstimationSampleInterval() {
+        return sizeEstimationSampleInterval;
+    }
+    
+    public void setSizeEstimationSampleInterval(int sizeEstimationSampleInterval) {
+        this.sizeEstimationSampleInterval = sizeEstimationSampleInterval;
+    }
+    
+    public int getSizeEstimationResampleInterval() {
+        return sizeEstimationResampleInterval;
+    }
+    
+    public void setSizeEstimationResampleInterval(int sizeEstimationResampleInterval) {
+        this.sizeEstimationResampleInterval = sizeEstimationResampleInterval;
+    }
+    
+    public boolean isStatusChangeNotificationsEnabled() {
+        return statusChangeNotificationsEnabled;
+    }
+    
+    public void setStatusChangeNotificationsEnabled(boolean statusChangeNotificationsEnabled) {
+        this.statusChangeNotificationsEnabled = statusChangeNotificationsEnabled;
+    }
+    
+    public String getQueryStatusCacheName() {
+        return queryStatusCacheName;
+    }
+    
+    public void setQueryStatusCacheName(String queryStatusCacheName) {
+        this.queryStatusCacheName = queryStatusCacheName;
+    }
+    
+    public String getTaskStatesCacheName() {
+        return taskStatesCacheName;
+    }
+    
+    public void setTaskStatesCacheName(String taskStatesCacheName) {
+        this.taskStatesCacheName = taskStatesCacheName;
+    }
+    
+    public long getPushedStatusMaxStaleness() {
+        return pushedStatusMaxStaleness;
+    }
+    
+    public long getPushedStatusMaxStalenessMillis() {
+        return (pushedStatusMaxStaleness < 0) ? -1 : pushedStatusMaxStalenessUnit.toMillis(pushedStatusMaxStaleness);
+    }
+    
+    public void setPushedStatusMaxStaleness(long pushedStatusMaxStaleness) {
+        this.pushedStatusMaxStaleness = pushedStatusMaxStaleness;
+    }
+    
+    public TimeUnit getPushedStatusMaxStalenessUnit() {
+        return pushedStatusMaxStalenessUnit;
+    }
+    
+    public void setPushedStatusMaxStalenessUnit(TimeUnit pushedStatusMaxStalenessUnit) {
+        this.pushedStatusMaxStalenessUnit = pushedStatusMaxStalenessUnit;
+    }
+    
+    public ShortCircuitMode getShortCircuitMode() {
+        return shortCircuitMode;
+    }
+    
+    public void setShortCircuitMode(ShortCircuitMode shortCircuitMode) {
+        this.shortCircuitMode = shortCircuitMode;
+    }
+    
+    public double getResultRateSmoothingFactor() {
+        return resultRateSmoothingFactor;
+    }
+    
+    public void setResultRateSmoothingFactor(double resultRateSmoothingFactor) {
+        this.resultRateSmoothingFactor = resultRateSmoothingFactor;
+    }
+    
+    public long getResultRateIdleTimeout() {
+        return resultRateIdleTimeout;
+    }
+    
+    public long getResultRateIdleTimeoutMillis() {
+        return resultRateIdleTimeoutUnit.toMillis(resultRateIdleTimeout);
+    }
+    
+    public void setResultRateIdleTimeout(long resultRateIdleTimeout) {
+        this.resultRateIdleTimeout = resultRateIdleTimeout;
+    }
+    
+    public TimeUnit getResultRateIdleTimeoutUnit() {
+        return resultRateIdleTimeoutUnit;
+    }
+    
+    public void setResultRateIdleTimeoutUnit(TimeUnit resultRateIdleTimeoutUnit) {
+        this.resultRateIdleTimeoutUnit = resultRateIdleTimeoutUnit;
+    }
+    
+    public long getAdaptiveShortCircuitMinCallTime() {
+        return adaptiveShortCircuitMinCallTime;
+    }
+    
+    public long getAdaptiveShortCircuitMinCallTimeMillis() {
+        return adaptiveShortCircuitMinCallTimeUnit.toMillis(adaptiveShortCircuitMinCallTime);
+    }
+    
+    public void setAdaptiveShortCircuitMinCallTime(long adaptiveShortCircuitMinCallTime) {
+        this.adaptiveShortCircuitMinCallTime = adaptiveShortCircuitMinCallTime;
+    }
+    
+    public TimeUnit getAdaptiveShortCircuitMinCallTimeUnit() {
+        return adaptiveShortCircuitMinCallTimeUnit;
+    }
+    
+    public void setAdaptiveShortCircuitMinCallTimeUnit(TimeUnit adaptiveShortCircuitMinCallTimeUnit) {
+        this.adaptiveShortCircuitMinCallTimeUnit = adaptiveShortCircuitMinCallTimeUnit;
+    }
+    
+    public long getAsyncNextTimeout() {
+        return asyncNextTimeout;
+    }
+    
+    public long getAsyncNextTimeoutMillis() {
+        return (asyncNextTimeout < 0) ? -1 : asyncNextTimeoutUnit.toMillis(asyncNextTimeout);
+    }
+    
+    public void setAsyncNextTimeout(long asyncNextTimeout) {
+        this.asyncNextTimeout = asyncNextTimeout;
+    }
+    
+    public TimeUnit getAsyncNextTimeoutUnit() {
+        return asyncNextTimeoutUnit;
+    }
+    
+    public void setAsyncNextTimeoutUnit(TimeUnit asyncNextTimeoutUnit) {
+        this.asyncNextTimeoutUnit = asyncNextTimeoutUnit;
+    }
+    
+    public long getAsyncCreateTimeout() {
+        return asyncCreateTimeout;
+    }
+    
+    public long getAsyncCreateTimeoutMillis() {
+        return (asyncCreateTimeout < 0) ? -1 : asyncCreateTimeoutUnit.toMillis(asyncCreateTimeout);
+    }
+    
+    public void setAsyncCreateTimeout(long asyncCreateTimeout) {
+        this.asyncCreateTimeout = asyncCreateTimeout;
+    }
+    
+    public TimeUnit getAsyncCreateTimeoutUnit() {
+        return asyncCreateTimeoutUnit;
+    }
+    
+    public void setAsyncCreateTimeoutUnit(TimeUnit asyncCreateTimeoutUnit) {
+        this.asyncCreateTimeoutUnit = asyncCreateTimeoutUnit;
+    }
+    
+    public boolean isHoldBackIntermediateResults() {
+        return holdBackIntermediateResults;
+    }
+    
+    public void setHoldBackIntermediateResults(boolean holdBackIntermediateResults) {
+        this.holdBackIntermediateResults = holdBackIntermediateResults;
+    }
+    
+    public int getHoldBackMaxResultsInMemory() {
+        return holdBackMaxResultsInMemory;
+    }
+    
+    public void setHoldBackMaxResultsInMemory(int holdBackMaxResultsInMemory) {
+        this.holdBackMaxResultsInMemory = holdBackMaxResultsInMemory;
+    }
+    
+    public String getHoldBackSpillDirectory() {
+        return holdBackSpillDirectory;
+    }
+    
+    public void setHoldBackSpillDirectory(String holdBackSpillDirectory) {
+        this.holdBackSpillDirectory = holdBackSpillDirectory;
+    }
+    
+    public long getHoldBackMaxAge() {
+        return holdBackMaxAge;
+    }
+    
+    public long getHoldBackMaxAgeMillis() {
+        return holdBackMaxAgeUnit.toMillis(holdBackMaxAge);
+    }
+    
+    public void setHoldBackMaxAge(long holdBackMaxAge) {
+        this.holdBackMaxAge = holdBackMaxAge;
+    }
+    
+    public TimeUnit getHoldBackMaxAgeUnit() {
+        return holdBackMaxAgeUnit;
+    }
+    
+    public void setHoldBackMaxAgeUnit(TimeUnit holdBackMaxAgeUnit) {
+        this.holdBackMaxAgeUnit = holdBackMaxAgeUnit;
+    }
+    
+    public String getHoldBackHoldersCacheName() {
+        return holdBackHoldersCacheName;
+    }
+    
+    public void setHoldBackHoldersCacheName(String holdBackHoldersCacheName) {
+        this.holdBackHoldersCacheName = holdBackHoldersCacheName;
+    }
+    
+    public boolean isActiveNextCallQueryGaugesEnabled() {
+        return activeNextCallQueryGaugesEnabled;
+    }
+    
+    public void setActiveNextCallQueryGaugesEnabled(boolean activeNextCallQueryGaugesEnabled) {
+        this.activeNextCallQueryGaugesEnabled = activeNextCallQueryGaugesEnabled;
+    }
+    
+    public ClaimMode getNextCallClaimMode() {
+        return nextCallClaimMode;
+    }
+    
+    public void setNextCallClaimMode(ClaimMode nextCallClaimMode) {
+        this.nextCallClaimMode = nextCallClaimMode;
+    }
+    
+    public int getMaxOptimisticUpdateAttempts() {
+        return maxOptimisticUpdateAttempts;
+    }
+    
+    public void setMaxOptimisticUpdateAttempts(int maxOptimisticUpdateAttempts) {
+        this.maxOptimisticUpdateAttempts = maxOptimisticUpdateAttempts;
+    }
+    
+    public boolean isReuseQueryLogics() {
+        return reuseQueryLogics;
+    }
+    
+    public void setReuseQueryLogics(boolean reuseQueryLogics) {
+        this.reuseQueryLogics = reuseQueryLogics;
+    }
+    
+    public int getMaxIdleQueryLogicsPerQuery() {
+        return maxIdleQueryLogicsPerQuery;
+    }
+    
+    public void setMaxIdleQueryLogicsPerQuery(int maxIdleQueryLogicsPerQuery) {
+        this.maxIdleQueryLogicsPerQuery = maxIdleQueryLogicsPerQuery;
+    }
+    
+    public int getMaxIdleQueryLogics() {
+        return maxIdleQueryLogics;
+    }
+    
+    public void setMaxIdleQueryLogics(int maxIdleQueryLogics) {
+        this.maxIdleQueryLogics = maxIdleQueryLogics;
+    }
+    
+    public long getQueryLogicIdleTimeout() {
+        return queryLogicIdleTimeout;
+    }
+    
+    public long getQueryLogicIdleTimeoutMillis() {
+        return queryLogicIdleTimeoutUnit.toMillis(queryLogicIdleTimeout);
+    }
+    
+    public void setQueryLogicIdleTimeout(long queryLogicIdleTimeout) {
+        this.queryLogicIdleTimeout = queryLogicIdleTimeout;
+    }
+    
+    public TimeUnit getQueryLogicIdleTimeoutUnit() {
+        return queryLogicIdleTimeoutUnit;
+    }
+    
+    public void setQueryLogicIdleTimeoutUnit(TimeUnit queryLogicIdleTimeoutUnit) {
+        this.queryLogicIdleTimeoutUnit = queryLogicIdleTimeoutUnit;
+    }
+}
@@ -0,0 +1,143 @@
+package datawave.microservice.query.runner.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.next-call-scheduler")
+public class NextCallSchedulerProperties {
+    // Whether next calls should be queued fairly across query pools and users before they are handed to the next call executor.
+    // If disabled, next calls are submitted directly to the next call executor.
+    private boolean enabled = true;
+    // The maximum number of next calls which will be handed to the next call executor at once. If 0, the executor's concurrency limit is used, i.e. its max
+    // pool size, or the virtual thread concurrency limit when virtual threads are enabled.
+    @PositiveOrZero
+    private int maxRunningCalls = 0;
+    // The maximum number of next calls which can be waiting for the next call executor. Next calls beyond this limit are rejected right away.
+    @Positive
+    private int maxQueuedCalls = 1000;
+    // The maximum amount of time that a next call can wait for the next call executor before it is rejected. A next call is rejected sooner if its page or
+    // call timeout would expire before it is started.
+    @Positive
+    private long maxQueueTime = 30;
+    @NotNull
+    private TimeUnit maxQueueTimeUnit = TimeUnit.SECONDS;
+    // The interval at which queued next calls are checked for having waited past their deadline
+    @Positive
+    private long expirationCheckIntervalMillis = 1000;
+    // The number of next calls that a query pool can start before the other query pools get a turn, by query pool
+    @NotNull
+    private Map<String,Integer> poolWeights = new HashMap<>();
+    // The weight used for query pools which are not listed in the pool weights
+    @Positive
+    private int defaultPoolWeight = 1;
+    // The number of next calls that a user can start before the other users in the same query pool get a turn, by user dn.
+    // Since user dns contain special characters, they will need to be bracketed, e.g. '[cn=user, ou=org]': 2
+    @NotNull
+    private Map<String,Integer> userWeights = new HashMap<>();
+    // The weight used for users which are not listed in the user weights
+    @Positive
+    private int defaultUserWeight = 1;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getMaxRunningCalls() {
+        return maxRunningCalls;
+    }
+    
+    public void setMaxRunningCalls(int maxRunningCalls) {
+        this.maxRunningCalls = maxRunningCalls;
+    }
+    
+    public int getMaxQueuedCalls() {
+        return maxQueuedCalls;
+    }
+    
+    public void setMaxQueuedCalls(int maxQueuedCalls) {
+        this.maxQueuedCalls = maxQueuedCalls;
+    }
+    
+    public long getMaxQueueTime() {
+        return maxQueueTime;
+    }
+    
+    public long getMaxQueueTimeMillis() {
+        return maxQueueTimeUnit.toMillis(maxQueueTime);
+    }
+    
+    public void setMaxQueueTime(long maxQueueTime) {
+        this.maxQueueTime = maxQueueTime;
+    }
+    
+    public TimeUnit getMaxQueueTimeUnit() {
+        return maxQueueTimeUnit;
+    }
+    
+    public void setMaxQueueTimeUnit(TimeUnit maxQueueTimeUnit) {
+        this.maxQueueTimeUnit = maxQueueTimeUnit;
+    }
+    
+    public long getExpirationCheckIntervalMillis() {
+        return expirationCheckIntervalMillis;
+    }
+    
+    public void setExpirationCheckIntervalMillis(long expirationCheckIntervalMillis) {
+        this.expirationCheckIntervalMillis = expirationCheckIntervalMillis;
+    }
+    
+    public Map<String,Integer> getPoolWeights() {
+        return poolWeights;
+    }
+    
+    public void setPoolWeights(Map<String,Integer> poolWeights) {
+        this.poolWeights = poolWeights;
+    }
+    
+    public int getDefaultPoolWeight() {
+        return defaultPoolWeight;
+    }
+    
+    public void setDefaultPoolWeight(int defaultPoolWeight) {
+        this.defaultPoolWeight = defaultPoolWeight;
+    }
+    
+    public int getPoolWeight(String pool) {
+        Integer weight = poolWeights.get(pool);
+        return (weight != null && weight > 0) ? weight : defaultPoolWeight;
+    }
+    
+    public Map<String,Integer> getUserWeights() {
+        return userWeights;
+    }
+    
+    public void setUserWeights(Map<String,Integer> userWeights) {
+        this.userWeights = userWeights;
+    }
+    
+    public int getDefaultUserWeight() {
+        return defaultUserWeight;
+    }
+    
+    public void setDefaultUserWeight(int defaultUserWeight) {
+        this.defaultUserWeight = defaultUserWeight;
+    }
+    
+    public int getUserWeight(String user) {
+        Integer weight = userWeights.get(user);
+        return (weight != null && weight > 0) ? weight : defaultUserWeight;
+    }
+}
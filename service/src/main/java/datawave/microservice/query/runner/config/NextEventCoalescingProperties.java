@@ -0,0 +1,89 @@
+package datawave.microservice.query.runner.config;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "datawave.query.next-event-coalescing")
+public class NextEventCoalescingProperties {
+    // Whether duplicate next events for a query should be suppressed rather than published to the executor pool
+    private boolean enabled = true;
+    // The amount of time after a next event is published during which further next events for the same query are suppressed, even if the executor has
+    // acknowledged the event. By default, next events are only suppressed while unacknowledged
+    @PositiveOrZero
+    private long window = 0;
+    @NotNull
+    private TimeUnit windowUnit = TimeUnit.MILLISECONDS;
+    // The amount of time after a next event is published during which further next events for the same query are suppressed, as long as the event
+    // hasn't been acknowledged. The event is acknowledged once results have been generated or consumed for the query since it was published, or once
+    // a page worth of results is waiting to be consumed, since the executor pauses at that point
+    @PositiveOrZero
+    private long maxUnacknowledgedTime = 1;
+    @NotNull
+    private TimeUnit maxUnacknowledgedTimeUnit = TimeUnit.SECONDS;
+    // The interval at which the state kept for queries without any recent next events is dropped
+    @Positive
+    private long evictionIntervalMillis = 60000;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public long getWindow() {
+        return window;
+    }
+    
+    public long getWindowMillis() {
+        return windowUnit.toMillis(window);
+    }
+    
+    public void setWindow(long window) {
+        this.window = window;
+    }
+    
+    public TimeUnit getWindowUnit() {
+        return windowUnit;
+    }
+    
+    public void setWindowUnit(TimeUnit windowUnit) {
+        this.windowUnit = windowUnit;
+    }
+    
+    public long getMaxUnacknowledgedTime() {
+        return maxUnacknowledgedTime;
+    }
+    
+    public long getMaxUnacknowledgedTimeMillis() {
+        return maxUnacknowledgedTimeUnit.toMillis(maxUnacknowledgedTime);
+    }
+    
+    public void setMaxUnacknowledgedTime(long maxUnacknowledgedTime) {
+        this.maxUnacknowledgedTime = maxUnacknowledgedTime;
+    }
+    
+    public TimeUnit getMaxUnacknowledgedTimeUnit() {
+        return maxUnacknowledgedTimeUnit;
+    }
+    
+    public void setMaxUnacknowledgedTimeUnit(TimeUnit maxUnacknowledgedTimeUnit) {
+        this.maxUnacknowledgedTimeUnit = maxUnacknowledgedTimeUnit;
+    }
+    
+    public long getEvictionIntervalMillis() {
+        return evictionIntervalMillis;
+    }
+    
+    public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+        this.evictionIntervalMillis = evictionIntervalMillis;
+    }
+}
@@ -4,15 +4,15 @@ import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MultiValueMap;
 
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.microservice.query.QueryManagementService;
+import datawave.microservice.query.metric.QueryMetricAggregator;
 import datawave.microservice.query.stream.listener.StreamingResponseListener;
 import datawave.microservice.query.stream.runner.StreamingCall;
-import datawave.microservice.querymetric.QueryMetricClient;
 import datawave.security.util.ProxiedEntityUtils;
 import datawave.webservice.query.exception.BadRequestQueryException;
 import datawave.webservice.query.exception.NoResultsQueryException;
@@ -24,13 +24,14 @@ public class StreamingService {
     private final Logger log = LoggerFactory.getLogger(this.getClass());
     
     private final QueryManagementService queryManagementService;
-    private final QueryMetricClient queryMetricClient;
+    private final QueryMetricAggregator queryMetricAggregator;
     
-    private final ThreadPoolTaskExecutor streamingCallExecutor;
+    private final AsyncListenableTaskExecutor streamingCallExecutor;
     
-    public StreamingService(QueryManagementService queryManagementService, QueryMetricClient queryMetricClient, ThreadPoolTaskExecutor streamingCallExecutor) {
+    public StreamingService(QueryManagementService queryManagementService, QueryMetricAggregator queryMetricAggregator,
+                    AsyncListenableTaskExecutor streamingCallExecutor) {
         this.queryManagementService = queryManagementService;
-        this.queryMetricClient = queryMetricClient;
+        this.queryMetricAggregator = queryMetricAggregator;
         this.streamingCallExecutor = streamingCallExecutor;
     }
     
@@ -113,7 +114,7 @@ public class StreamingService {
         streamingCallExecutor.submit(
                 new StreamingCall.Builder()
                         .setQueryManagementService(queryManagementService)
-                        .setQueryMetricClient(queryMetricClient)
+                        .setQueryMetricAggregator(queryMetricAggregator)
                         .setQueryId(queryId)
                         .setCurrentUser(currentUser)
                         .setServerUser(serverUser)
@@ -9,11 +9,10 @@ import org.slf4j.LoggerFactory;
 
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.microservice.query.QueryManagementService;
+import datawave.microservice.query.metric.QueryMetricAggregator;
 import datawave.microservice.query.stream.listener.CountingResponseBodyEmitterListener;
 import datawave.microservice.query.stream.listener.StreamingResponseListener;
 import datawave.microservice.querymetric.BaseQueryMetric;
-import datawave.microservice.querymetric.QueryMetricClient;
-import datawave.microservice.querymetric.QueryMetricType;
 import datawave.webservice.query.exception.DatawaveErrorCode;
 import datawave.webservice.query.exception.NoResultsQueryException;
 import datawave.webservice.query.exception.QueryException;
@@ -23,7 +22,7 @@ public class StreamingCall implements Callable<Void> {
     private final Logger log = LoggerFactory.getLogger(this.getClass());
     
     final private QueryManagementService queryManagementService;
-    final private QueryMetricClient queryMetricClient;
+    final private QueryMetricAggregator queryMetricAggregator;
     final private BaseQueryMetric baseQueryMetric;
     
     final private DatawaveUserDetails currentUser;
@@ -34,7 +33,7 @@ public class StreamingCall implements Callable<Void> {
     
     private StreamingCall(Builder builder) {
         this.queryManagementService = builder.queryManagementService;
-        this.queryMetricClient = builder.queryMetricClient;
+        this.queryMetricAggregator = builder.queryMetricAggregator;
         this.baseQueryMetric = builder.queryManagementService.getBaseQueryMetric().duplicate();
         
         this.currentUser = builder.currentUser;
@@ -118,19 +117,8 @@ public class StreamingCall implements Callable<Void> {
     }
     
     private void updateMetrics() {
-        // send out the metrics
-        try {
-            // @formatter:off
-            queryMetricClient.submit(
-                    new QueryMetricClient.Request.Builder()
-                            .withUser(serverUser)
-                            .withMetric(baseQueryMetric.duplicate())
-                            .withMetricType(QueryMetricType.DISTRIBUTED)
-                            .build());
-            // @formatter:on
-        } catch (Exception e) {
-            log.error("Error updating query metric", e);
-        }
+        // send out the metrics, only the pages which haven't been sent yet will be included
+        queryMetricAggregator.submit(serverUser, baseQueryMetric);
     }
     
     private BaseQueryMetric.PageMetric getLastPageMetric() {
@@ -144,7 +132,7 @@ public class StreamingCall implements Callable<Void> {
     
     public static class Builder {
         private QueryManagementService queryManagementService;
-        private QueryMetricClient queryMetricClient;
+        private QueryMetricAggregator queryMetricAggregator;
         
         private DatawaveUserDetails currentUser;
         private DatawaveUserDetails serverUser;
@@ -157,8 +145,8 @@ public class StreamingCall implements Callable<Void> {
             return this;
         }
         
-        public Builder setQueryMetricClient(QueryMetricClient queryMetricClient) {
-            this.queryMetricClient = queryMetricClient;
+        public Builder setQueryMetricAggregator(QueryMetricAggregator queryMetricAggregator) {
+            this.queryMetricAggregator = queryMetricAggregator;
             return this;
         }
         
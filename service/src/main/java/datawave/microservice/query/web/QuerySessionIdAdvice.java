@@ -26,6 +26,8 @@ import datawave.Constants;
 import datawave.microservice.query.web.annotation.ClearQuerySessionId;
 import datawave.microservice.query.web.annotation.GenerateQuerySessionId;
 import datawave.microservice.query.web.filter.QueryMetricsEnrichmentFilterAdvice;
+import datawave.webservice.result.BaseQueryResponse;
+import datawave.webservice.result.GenericResponse;
 
 @ControllerAdvice
 public class QuerySessionIdAdvice implements ResponseBodyAdvice<Object> {
@@ -68,6 +70,15 @@ public class QuerySessionIdAdvice implements ResponseBodyAdvice<Object> {
                     break;
                 
                 default:
+                    // deferred responses are created off of the request thread, so the query id may only be available from the response
+                    if (StringUtils.isEmpty(querySessionIdContext.getQueryId()) && body instanceof BaseQueryResponse) {
+                        querySessionIdContext.setQueryId(((BaseQueryResponse) body).getQueryId());
+                    } else if (StringUtils.isEmpty(querySessionIdContext.getQueryId()) && body instanceof GenericResponse
+                                    && ((GenericResponse<?>) body).getResult() instanceof String) {
+                        // deferred creates respond with the query id
+                        querySessionIdContext.setQueryId((String) ((GenericResponse<?>) body).getResult());
+                    }
+                    
                     if (StringUtils.isEmpty(querySessionIdContext.getQueryId())) {
                         log.error("queryId was not set.");
                     } else {
@@ -103,9 +103,27 @@ public abstract class BaseMethodStatsFilter extends OncePerRequestFilter {
         }
     }
     
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // we need to see the async dispatch for deferred responses, which are written after the original request thread is released
+        return false;
+    }
+    
     @Override
     public void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain chain)
                     throws IOException, ServletException {
+        if (isAsyncDispatch(request)) {
+            chain.doFilter(request, response);
+            
+            // only deferred responses are post processed on the async dispatch
+            if (baseMethodStatsContext.isDeferredResponse()) {
+                postProcess(request, baseMethodStatsContext.getCountingHttpServletResponseWrapper() != null
+                                ? baseMethodStatsContext.getCountingHttpServletResponseWrapper()
+                                : response);
+            }
+            return;
+        }
+        
         preProcess(request, response);
         
         if (!(response instanceof CountingHttpServletResponseWrapper)) {
@@ -116,7 +134,11 @@ public abstract class BaseMethodStatsFilter extends OncePerRequestFilter {
         }
         
         chain.doFilter(request, response);
-        postProcess(request, response);
+        
+        // deferred responses are post processed once the response has been written by the async dispatch
+        if (!(isAsyncStarted(request) && baseMethodStatsContext.isDeferredResponse())) {
+            postProcess(request, response);
+        }
     }
     
     public void preProcess(HttpServletRequest request, HttpServletResponse response) {
@@ -281,6 +303,7 @@ public abstract class BaseMethodStatsFilter extends OncePerRequestFilter {
         private RequestMethodStats requestStats;
         private ResponseMethodStats responseStats;
         private CountingHttpServletResponseWrapper countingHttpServletResponseWrapper;
+        private boolean deferredResponse = false;
         
         public RequestMethodStats getRequestStats() {
             return requestStats;
@@ -306,6 +329,20 @@ public abstract class BaseMethodStatsFilter extends OncePerRequestFilter {
             this.countingHttpServletResponseWrapper = countingHttpServletResponseWrapper;
         }
         
+        public boolean isDeferredResponse() {
+            return deferredResponse;
+        }
+        
+        /**
+         * Indicates that the response for this request will be written by an async dispatch, so the method stats should not be post processed until then.
+         *
+         * @param deferredResponse
+         *            whether the response is deferred
+         */
+        public void setDeferredResponse(boolean deferredResponse) {
+            this.deferredResponse = deferredResponse;
+        }
+        
         public CountingResponseBodyEmitter createCountingResponseBodyEmitter(Long timeout) {
             return new CountingResponseBodyEmitter(timeout, countingHttpServletResponseWrapper);
         }
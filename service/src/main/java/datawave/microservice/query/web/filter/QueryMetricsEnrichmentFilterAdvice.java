@@ -3,7 +3,6 @@ package datawave.microservice.query.web.filter;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
-import java.util.Objects;
 
 import org.apache.log4j.Logger;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -20,14 +19,13 @@ import org.springframework.web.context.annotation.RequestScope;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 
 import datawave.core.query.logic.QueryLogic;
-import datawave.core.query.logic.QueryLogicFactory;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.metric.QueryMetricAggregator;
+import datawave.microservice.query.runner.QueryLogicCache;
 import datawave.microservice.query.storage.QueryStatus;
 import datawave.microservice.query.storage.QueryStorageCache;
 import datawave.microservice.query.web.annotation.EnrichQueryMetrics;
 import datawave.microservice.querymetric.BaseQueryMetric;
-import datawave.microservice.querymetric.QueryMetricClient;
-import datawave.microservice.querymetric.QueryMetricType;
 import datawave.webservice.result.BaseQueryResponse;
 import datawave.webservice.result.GenericResponse;
 
@@ -36,11 +34,11 @@ public class QueryMetricsEnrichmentFilterAdvice extends BaseMethodStatsFilter im
     
     private final Logger log = Logger.getLogger(this.getClass());
     
-    private final QueryLogicFactory queryLogicFactory;
+    private final QueryLogicCache queryLogicCache;
     
     private final QueryStorageCache queryStorageCache;
     
-    private final QueryMetricClient queryMetricClient;
+    private final QueryMetricAggregator queryMetricAggregator;
     
     // Note: BaseQueryMetric needs to be request scoped
     private final BaseQueryMetric baseQueryMetric;
@@ -48,11 +46,11 @@ public class QueryMetricsEnrichmentFilterAdvice extends BaseMethodStatsFilter im
     // Note: QueryMetricsEnrichmentContext needs to be request scoped
     private final QueryMetricsEnrichmentContext queryMetricsEnrichmentContext;
     
-    public QueryMetricsEnrichmentFilterAdvice(QueryLogicFactory queryLogicFactory, QueryStorageCache queryStorageCache, QueryMetricClient queryMetricClient,
+    public QueryMetricsEnrichmentFilterAdvice(QueryLogicCache queryLogicCache, QueryStorageCache queryStorageCache, QueryMetricAggregator queryMetricAggregator,
                     BaseQueryMetric baseQueryMetric, QueryMetricsEnrichmentContext queryMetricsEnrichmentContext) {
-        this.queryLogicFactory = queryLogicFactory;
+        this.queryLogicCache = queryLogicCache;
         this.queryStorageCache = queryStorageCache;
-        this.queryMetricClient = queryMetricClient;
+        this.queryMetricAggregator = queryMetricAggregator;
         this.baseQueryMetric = baseQueryMetric;
         this.queryMetricsEnrichmentContext = queryMetricsEnrichmentContext;
     }
@@ -64,7 +62,8 @@ public class QueryMetricsEnrichmentFilterAdvice extends BaseMethodStatsFilter im
                         .findAny().orElse(null);
         if (annotation != null) {
             try {
-                Class<?> returnClass = Objects.requireNonNull(returnType.getMethod()).getReturnType();
+                // use the parameter type so that the actual result type is used for deferred results
+                Class<?> returnClass = returnType.getParameterType();
                 if (GenericResponse.class.isAssignableFrom(returnClass)) {
                     supports = true;
                     queryMetricsEnrichmentContext.setMethodType(annotation.methodType());
@@ -119,8 +118,8 @@ public class QueryMetricsEnrichmentFilterAdvice extends BaseMethodStatsFilter im
             // retrieve the server user and determine whether metrics are enabled
             boolean isMetricsEnabled = false;
             DatawaveUserDetails serverUser = null;
-            try {
-                QueryLogic<?> logic = queryLogicFactory.getQueryLogic(queryLogic);
+            try (QueryLogicCache.Lease lease = queryLogicCache.acquireForRead(queryId, queryLogic)) {
+                QueryLogic<?> logic = lease.getQueryLogic();
                 isMetricsEnabled = logic.getCollectQueryMetrics();
                 serverUser = (DatawaveUserDetails) logic.getServerUser();
             } catch (Exception e) {
@@ -159,14 +158,7 @@ public class QueryMetricsEnrichmentFilterAdvice extends BaseMethodStatsFilter im
                     }
                     
                     baseQueryMetric.setLastUpdated(new Date());
-                    // @formatter:off
-                    queryMetricClient.submit(
-                            new QueryMetricClient.Request.Builder()
-                                    .withUser(serverUser)
-                                    .withMetric(baseQueryMetric.duplicate())
-                                    .withMetricType(QueryMetricType.DISTRIBUTED)
-                                    .build());
-                    // @formatter:on
+                    queryMetricAggregator.submit(serverUser, baseQueryMetric);
                 } catch (Exception e) {
                     log.error("Unable to record metrics for query '" + queryMetricsEnrichmentContext.getQueryId() + "' and method '"
                                     + queryMetricsEnrichmentContext.getMethodType() + "': " + e.getLocalizedMessage(), e);
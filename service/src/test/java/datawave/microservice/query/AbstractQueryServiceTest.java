@@ -8,6 +8,7 @@ import static datawave.webservice.common.audit.AuditParameters.AUDIT_ID;
 import static org.springframework.test.web.client.ExpectedCount.never;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.anything;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 import java.io.IOException;
@@ -25,6 +26,8 @@ import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.apache.http.NameValuePair;
@@ -78,6 +81,7 @@ import datawave.microservice.query.config.QueryProperties;
 import datawave.microservice.query.messaging.QueryResultsManager;
 import datawave.microservice.query.messaging.QueryResultsPublisher;
 import datawave.microservice.query.messaging.Result;
+import datawave.microservice.query.plan.QueryPlanCache;
 import datawave.microservice.query.remote.QueryRequest;
 import datawave.microservice.query.storage.QueryStatus;
 import datawave.microservice.query.storage.QueryStorageCache;
@@ -133,9 +137,15 @@ public abstract class AbstractQueryServiceTest {
     @Autowired
     protected QueryProperties queryProperties;
     
+    @Autowired
+    protected QueryPlanCache queryPlanCache;
+    
     @Autowired
     protected LinkedList<RemoteQueryRequestEvent> queryRequestEvents;
     
+    @Autowired
+    protected AtomicReference<Predicate<RemoteQueryRequestEvent>> queryRequestEventFailures;
+    
     protected List<String> auditIds;
     protected MockRestServiceServer mockServer;
     
@@ -158,6 +168,8 @@ public abstract class AbstractQueryServiceTest {
     public void teardown() throws Exception {
         queryStorageCache.clear();
         queryRequestEvents.clear();
+        queryRequestEventFailures.set(null);
+        queryPlanCache.invalidateAll();
     }
     
     protected void publishEventsToQueue(String queryId, int numEvents, MultiValueMap<String,String> fieldValues, String visibility) throws Exception {
@@ -204,6 +216,14 @@ public abstract class AbstractQueryServiceTest {
         return Executors.newSingleThreadExecutor().submit(() -> jwtRestTemplate.exchange(requestEntity, DefaultEventQueryResponse.class));
     }
     
+    protected Future<ResponseEntity<DefaultEventQueryResponse>> asyncNextQuery(DatawaveUserDetails authUser, String queryId) {
+        UriComponents uri = createUri(queryId + "/async/next");
+        RequestEntity requestEntity = jwtRestTemplate.createRequestEntity(authUser, null, null, HttpMethod.GET, uri);
+        
+        // make the next call asynchronously
+        return Executors.newSingleThreadExecutor().submit(() -> jwtRestTemplate.exchange(requestEntity, DefaultEventQueryResponse.class));
+    }
+    
     protected Future<ResponseEntity<VoidResponse>> adminCloseQuery(DatawaveUserDetails authUser, String queryId) {
         return stopQuery(authUser, queryId, "adminClose");
     }
@@ -295,6 +315,11 @@ public abstract class AbstractQueryServiceTest {
     }
     
     protected Future<ResponseEntity<QueryImplListResponse>> listQueries(DatawaveUserDetails authUser, String queryId, String queryName) {
+        return listQueries(authUser, queryId, queryName, null, null);
+    }
+    
+    protected Future<ResponseEntity<QueryImplListResponse>> listQueries(DatawaveUserDetails authUser, String queryId, String queryName, Integer pageNumber,
+                    Integer pageSize) {
         UriComponentsBuilder uriBuilder = uriBuilder("/list");
         if (queryId != null) {
             uriBuilder.queryParam("queryId", queryId);
@@ -302,6 +327,12 @@ public abstract class AbstractQueryServiceTest {
         if (queryName != null) {
             uriBuilder.queryParam("queryName", queryName);
         }
+        if (pageNumber != null) {
+            uriBuilder.queryParam("pageNumber", pageNumber);
+        }
+        if (pageSize != null) {
+            uriBuilder.queryParam("pageSize", pageSize);
+        }
         UriComponents uri = uriBuilder.build();
         
         RequestEntity requestEntity = jwtRestTemplate.createRequestEntity(authUser, null, null, HttpMethod.GET, uri);
@@ -471,6 +502,10 @@ public abstract class AbstractQueryServiceTest {
         mockServer.expect(requestTo(EXPECTED_AUDIT_URI)).andExpect(auditIdGrabber()).andRespond(withSuccess());
     }
     
+    protected void auditFailedSetup() {
+        mockServer.expect(requestTo(EXPECTED_AUDIT_URI)).andExpect(auditIdGrabber()).andRespond(withServerError());
+    }
+    
     protected void auditNotSentSetup() {
         mockServer.expect(never(), requestTo(EXPECTED_AUDIT_URI)).andExpect(auditIdGrabber()).andRespond(withSuccess());
     }
@@ -547,22 +582,36 @@ public abstract class AbstractQueryServiceTest {
             return new LinkedList<>();
         }
         
+        @Bean
+        public AtomicReference<Predicate<RemoteQueryRequestEvent>> queryRequestEventFailures() {
+            return new AtomicReference<>();
+        }
+        
         @Bean
         @Primary
         public ApplicationEventPublisher eventPublisher(@Lazy QueryManagementService queryManagementService, ServiceMatcher serviceMatcher) {
             return new ApplicationEventPublisher() {
                 @Override
                 public void publishEvent(ApplicationEvent event) {
+                    failEvent(event);
                     saveEvent(event);
                     processEvent(event);
                 }
                 
                 @Override
                 public void publishEvent(Object event) {
+                    failEvent(event);
                     saveEvent(event);
                     processEvent(event);
                 }
                 
+                private void failEvent(Object event) {
+                    Predicate<RemoteQueryRequestEvent> failures = queryRequestEventFailures().get();
+                    if (event instanceof RemoteQueryRequestEvent && failures != null && failures.test((RemoteQueryRequestEvent) event)) {
+                        throw new IllegalStateException("Unable to publish the query request event");
+                    }
+                }
+                
                 private void saveEvent(Object event) {
                     if (event instanceof RemoteQueryRequestEvent) {
                         queryRequestEvents().push(((RemoteQueryRequestEvent) event));
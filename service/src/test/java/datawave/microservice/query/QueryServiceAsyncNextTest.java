@@ -0,0 +1,182 @@
+package datawave.microservice.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import datawave.core.query.configuration.GenericQueryConfiguration;
+import datawave.microservice.authorization.service.RemoteAuthorizationServiceUserDetailsService;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.remote.QueryRequest;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.webservice.result.DefaultEventQueryResponse;
+import datawave.webservice.result.QueryLogicResponse;
+
+// limit the servlet container to fewer threads than we have concurrent next calls
+@ExtendWith(SpringExtension.class)
+// @formatter:off
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=" + QueryServiceAsyncNextTest.MAX_SERVLET_THREADS,
+        "server.tomcat.threads.min-spare=1",
+        "datawave.query.nextCall.executor.corePoolSize=" + QueryServiceAsyncNextTest.NUM_QUERIES,
+        "datawave.query.nextCall.executor.maxPoolSize=" + QueryServiceAsyncNextTest.NUM_QUERIES})
+// @formatter:on
+@ActiveProfiles({"QueryStarterDefaults", "QueryStarterOverrides", "QueryServiceTest", RemoteAuthorizationServiceUserDetailsService.ACTIVATION_PROFILE})
+@ContextConfiguration(classes = {QueryService.class})
+public class QueryServiceAsyncNextTest extends AbstractQueryServiceTest {
+    static final int MAX_SERVLET_THREADS = 2;
+    static final int NUM_QUERIES = 4;
+    
+    @Autowired
+    private NextCallRunnerProperties nextCallRunnerProperties;
+    
+    @Test
+    public void testAsyncNextSuccess_concurrentLongPolls() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        // create more queries than we have servlet threads
+        List<String> queryIds = new ArrayList<>();
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            String queryId = createQuery(authUser, createParams());
+            
+            // add a config object to the query status, which would normally be added by the executor service
+            QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+            queryStatus.setConfig(new GenericQueryConfiguration());
+            queryStorageCache.updateQueryStatus(queryStatus);
+            
+            queryIds.add(queryId);
+        }
+        
+        // start a long poll next call for each query before any results are available
+        List<Future<ResponseEntity<DefaultEventQueryResponse>>> futures = new ArrayList<>();
+        for (String queryId : queryIds) {
+            futures.add(asyncNextQuery(authUser, queryId));
+        }
+        
+        // wait for all of the next calls to be running
+        long startTimeMillis = System.currentTimeMillis();
+        while (!allNextCallsActive(queryIds) && (System.currentTimeMillis() - startTimeMillis) < TEST_WAIT_TIME_MILLIS) {
+            Thread.sleep(100);
+        }
+        Assertions.assertTrue(allNextCallsActive(queryIds));
+        
+        // the long polls should not be holding onto servlet threads, so other requests should still be serviced
+        ResponseEntity<QueryLogicResponse> listResponse = listQueryLogic(authUser).get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+        Assertions.assertEquals(200, listResponse.getStatusCodeValue());
+        
+        // none of the next calls should have returned yet
+        for (Future<ResponseEntity<DefaultEventQueryResponse>> future : futures) {
+            Assertions.assertFalse(future.isDone());
+        }
+        
+        // test field value pairings
+        MultiValueMap<String,String> fieldValues = new LinkedMultiValueMap<>();
+        fieldValues.add("LOKI", "ALLIGATOR");
+        fieldValues.add("LOKI", "CLASSIC");
+        
+        // now pump enough results into each queue to trigger a complete page
+        for (String queryId : queryIds) {
+            int pageSize = queryStorageCache.getQueryStatus(queryId).getQuery().getPagesize();
+            
+            // @formatter:off
+            publishEventsToQueue(
+                    queryId,
+                    pageSize,
+                    fieldValues,
+                    "ALL");
+            // @formatter:on
+        }
+        
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            String queryId = queryIds.get(i);
+            ResponseEntity<DefaultEventQueryResponse> response = futures.get(i).get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+            
+            Assertions.assertEquals(200, response.getStatusCodeValue());
+            
+            DefaultEventQueryResponse queryResponse = Objects.requireNonNull(response.getBody());
+            Assertions.assertEquals(queryId, queryResponse.getQueryId());
+            Assertions.assertEquals(1, queryResponse.getPageNumber());
+            Assertions.assertEquals(queryStorageCache.getQueryStatus(queryId).getQuery().getPagesize(), queryResponse.getEvents().size());
+            
+            // the next call should have been released
+            QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+            Assertions.assertEquals(0, queryStatus.getActiveNextCalls());
+            Assertions.assertEquals(1, queryStatus.getLastPageNumber());
+        }
+        
+        // verify that a create and a next event were published for each query
+        Assertions.assertEquals(2 * NUM_QUERIES, queryRequestEvents.size());
+        Assertions.assertEquals(NUM_QUERIES, queryRequestEvents.stream().filter(e -> e.getRequest().getMethod() == QueryRequest.Method.NEXT).count());
+    }
+    
+    @Test
+    public void testAsyncNextTimeout_releasesNextCall() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        String queryId = createQuery(authUser, createParams());
+        
+        // add a config object to the query status, which would normally be added by the executor service
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        queryStatus.setConfig(new GenericQueryConfiguration());
+        queryStorageCache.updateQueryStatus(queryStatus);
+        
+        long asyncNextTimeout = nextCallRunnerProperties.getAsyncNextTimeout();
+        TimeUnit asyncNextTimeoutUnit = nextCallRunnerProperties.getAsyncNextTimeoutUnit();
+        try {
+            nextCallRunnerProperties.setAsyncNextTimeout(500);
+            nextCallRunnerProperties.setAsyncNextTimeoutUnit(TimeUnit.MILLISECONDS);
+            
+            // no results are available, so the request should time out
+            ResponseEntity<DefaultEventQueryResponse> timedOutResponse = asyncNextQuery(authUser, queryId).get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+            Assertions.assertNotEquals(200, timedOutResponse.getStatusCodeValue());
+        } finally {
+            nextCallRunnerProperties.setAsyncNextTimeout(asyncNextTimeout);
+            nextCallRunnerProperties.setAsyncNextTimeoutUnit(asyncNextTimeoutUnit);
+        }
+        
+        // the abandoned next call should be stopped, and its claim released without using up a page
+        long startTimeMillis = System.currentTimeMillis();
+        while (queryStorageCache.getQueryStatus(queryId).getActiveNextCalls() > 0 && (System.currentTimeMillis() - startTimeMillis) < TEST_WAIT_TIME_MILLIS) {
+            Thread.sleep(100);
+        }
+        queryStatus = queryStorageCache.getQueryStatus(queryId);
+        Assertions.assertEquals(0, queryStatus.getActiveNextCalls());
+        Assertions.assertEquals(0, queryStatus.getLastPageNumber());
+        Assertions.assertEquals(0, queryStatus.getNumResultsConsumed());
+        
+        // test field value pairings
+        MultiValueMap<String,String> fieldValues = new LinkedMultiValueMap<>();
+        fieldValues.add("LOKI", "ALLIGATOR");
+        fieldValues.add("LOKI", "CLASSIC");
+        
+        int pageSize = queryStatus.getQuery().getPagesize();
+        publishEventsToQueue(queryId, pageSize, fieldValues, "ALL");
+        
+        // the next request should get the first page
+        ResponseEntity<DefaultEventQueryResponse> response = asyncNextQuery(authUser, queryId).get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        
+        DefaultEventQueryResponse queryResponse = Objects.requireNonNull(response.getBody());
+        Assertions.assertEquals(1, queryResponse.getPageNumber());
+        Assertions.assertEquals(pageSize, queryResponse.getEvents().size());
+        Assertions.assertEquals(pageSize, queryStorageCache.getQueryStatus(queryId).getNumResultsConsumed());
+    }
+    
+    private boolean allNextCallsActive(List<String> queryIds) {
+        return queryIds.stream().allMatch(queryId -> queryStorageCache.getQueryStatus(queryId).getActiveNextCalls() == 1);
+    }
+}
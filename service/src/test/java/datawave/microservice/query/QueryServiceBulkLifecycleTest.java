@@ -0,0 +1,101 @@
+package datawave.microservice.query;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import datawave.microservice.authorization.service.RemoteAuthorizationServiceUserDetailsService;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.admin.BulkLifecycleExecutor;
+import datawave.microservice.query.admin.config.BulkLifecycleProperties;
+import datawave.microservice.query.storage.QueryStatus;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"QueryStarterDefaults", "QueryStarterOverrides", "QueryServiceTest", RemoteAuthorizationServiceUserDetailsService.ACTIVATION_PROFILE})
+@ContextConfiguration(classes = {QueryService.class})
+public class QueryServiceBulkLifecycleTest extends AbstractQueryServiceTest {
+    
+    @Autowired
+    private BulkLifecycleProperties bulkLifecycleProperties;
+    
+    @Test
+    public void testAllFailuresAreReported() throws Exception {
+        List<QueryStatus> queryStatuses = createQueries(9);
+        
+        // every third query fails
+        Set<String> failingQueryIds = new HashSet<>();
+        for (int i = 0; i < queryStatuses.size(); i += 3) {
+            failingQueryIds.add(queryStatuses.get(i).getQueryKey().getQueryId());
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            BulkLifecycleExecutor bulkLifecycleExecutor = new BulkLifecycleExecutor(bulkLifecycleProperties, executor);
+            
+            List<BulkLifecycleExecutor.Outcome<String>> outcomes = bulkLifecycleExecutor.execute("test", queryStatuses, queryStatus -> {
+                String queryId = queryStatus.getQueryKey().getQueryId();
+                if (failingQueryIds.contains(queryId)) {
+                    throw new IllegalStateException(queryId);
+                }
+                return queryId;
+            });
+            
+            // the outcomes are in the order that the queries were given
+            Assertions.assertEquals(queryStatuses.size(), outcomes.size());
+            for (int i = 0; i < outcomes.size(); i++) {
+                String queryId = queryStatuses.get(i).getQueryKey().getQueryId();
+                Assertions.assertEquals(queryId, outcomes.get(i).getQueryId());
+                Assertions.assertEquals(!failingQueryIds.contains(queryId), outcomes.get(i).isSuccess());
+            }
+            
+            // the first failure is thrown, and the rest are attached to it
+            Exception exception = Assertions.assertThrows(IllegalStateException.class, () -> BulkLifecycleExecutor.throwIfAnyFailed(outcomes));
+            Assertions.assertEquals(queryStatuses.get(0).getQueryKey().getQueryId(), exception.getMessage());
+            Set<String> reportedQueryIds = new HashSet<>();
+            reportedQueryIds.add(exception.getMessage());
+            for (Throwable suppressed : exception.getSuppressed()) {
+                reportedQueryIds.add(suppressed.getMessage());
+            }
+            Assertions.assertEquals(failingQueryIds, reportedQueryIds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void testNoFailures() throws Exception {
+        List<QueryStatus> queryStatuses = createQueries(3);
+        
+        BulkLifecycleExecutor bulkLifecycleExecutor = new BulkLifecycleExecutor(bulkLifecycleProperties, Runnable::run);
+        
+        List<BulkLifecycleExecutor.Outcome<Boolean>> outcomes = bulkLifecycleExecutor.execute("test", queryStatuses, queryStatus -> true);
+        BulkLifecycleExecutor.throwIfAnyFailed(outcomes);
+        
+        Assertions.assertEquals(queryStatuses.size(), outcomes.size());
+        Assertions.assertTrue(outcomes.stream().allMatch(BulkLifecycleExecutor.Outcome::isSuccess));
+    }
+    
+    private List<QueryStatus> createQueries(int numQueries) {
+        DatawaveUserDetails authUser = createUserDetails();
+        List<QueryStatus> queryStatuses = new ArrayList<>();
+        for (int i = 0; i < numQueries; i++) {
+            String queryId = createQuery(authUser, createParams());
+            mockServer.reset();
+            queryStatuses.add(queryStorageCache.getQueryStatus(queryId));
+        }
+        return queryStatuses;
+    }
+}
@@ -3,35 +3,52 @@ package datawave.microservice.query;
 import static datawave.microservice.query.QueryImpl.BEGIN_DATE;
 import static datawave.microservice.query.QueryParameters.QUERY_MAX_CONCURRENT_TASKS;
 import static datawave.microservice.query.QueryParameters.QUERY_MAX_RESULTS_OVERRIDE;
+import static datawave.microservice.query.QueryParameters.QUERY_NAME;
 import static datawave.microservice.query.QueryParameters.QUERY_PAGESIZE;
 import static datawave.webservice.common.audit.AuditParameters.QUERY_STRING;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
 
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.util.UriComponents;
 
 import datawave.marking.ColumnVisibilitySecurityMarking;
 import datawave.microservice.authorization.service.RemoteAuthorizationServiceUserDetailsService;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.admission.QueryAdmissionControl;
+import datawave.microservice.query.admission.config.QueryAdmissionProperties;
+import datawave.microservice.query.batch.BatchCreateResponse;
 import datawave.microservice.query.remote.QueryRequest;
 import datawave.microservice.query.storage.QueryStatus;
 import datawave.webservice.query.exception.QueryExceptionType;
 import datawave.webservice.result.BaseResponse;
+import datawave.webservice.result.DefaultEventQueryResponse;
 import datawave.webservice.result.GenericResponse;
 
 @ExtendWith(SpringExtension.class)
@@ -40,6 +57,12 @@ import datawave.webservice.result.GenericResponse;
 @ContextConfiguration(classes = {QueryService.class})
 public class QueryServiceCreateTest extends AbstractQueryServiceTest {
     
+    @Autowired
+    private QueryAdmissionProperties queryAdmissionProperties;
+    
+    @Autowired
+    private QueryAdmissionControl queryAdmissionControl;
+    
     @Test
     public void testCreateSuccess() throws ParseException, IOException {
         DatawaveUserDetails authUser = createUserDetails();
@@ -109,6 +132,273 @@ public class QueryServiceCreateTest extends AbstractQueryServiceTest {
         assertTasksCreated(queryId);
     }
     
+    @Test
+    public void testCreateBatchSuccess() {
+        DatawaveUserDetails authUser = createUserDetails();
+        MultiValueMap<String,String> map = createParams();
+        
+        // the query string and name are supplied by each query definition, and the last definition has an invalid page size
+        map.remove(QUERY_STRING);
+        map.remove(QUERY_NAME);
+        List<Map<String,List<String>>> queryDefinitions = Arrays.asList(createQueryDefinition("batch1"), createQueryDefinition("batch2"),
+                        createQueryDefinition("batch3"));
+        queryDefinitions.get(2).put(QUERY_PAGESIZE, Collections.singletonList("0"));
+        
+        RequestEntity<List<Map<String,List<String>>>> requestEntity = createBatchRequestEntity(authUser, map, queryDefinitions);
+        
+        // setup a mock audit service for the two valid queries
+        auditSentSetup();
+        auditSentSetup();
+        
+        ResponseEntity<BatchCreateResponse> resp = jwtRestTemplate.exchange(requestEntity, BatchCreateResponse.class);
+        Assertions.assertEquals(HttpStatus.Series.SUCCESSFUL, resp.getStatusCode().series());
+        
+        // verify that there is a result for each query definition, in order
+        List<BatchCreateResponse.Result> results = resp.getBody().getResults();
+        Assertions.assertEquals(3, results.size());
+        Assertions.assertNotNull(results.get(0).getQueryId());
+        Assertions.assertNotNull(results.get(1).getQueryId());
+        Assertions.assertNull(results.get(2).getQueryId());
+        Assertions.assertNotNull(results.get(2).getErrorCode());
+        
+        // verify that the queries were created with their own names
+        Assertions.assertEquals("batch1", queryStorageCache.getQueryStatus(results.get(0).getQueryId()).getQuery().getQueryName());
+        Assertions.assertEquals("batch2", queryStorageCache.getQueryStatus(results.get(1).getQueryId()).getQuery().getQueryName());
+        Assertions.assertEquals(2, queryStorageCache.getQueryStatus().size());
+        
+        // verify that the create events were published in order
+        Assertions.assertEquals(2, queryRequestEvents.size());
+        // @formatter:off
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.CREATE,
+                results.get(0).getQueryId(),
+                queryRequestEvents.removeLast());
+        assertQueryRequestEvent(
+                "executor-unassigned:**",
+                QueryRequest.Method.CREATE,
+                results.get(1).getQueryId(),
+                queryRequestEvents.removeLast());
+        // @formatter:on
+        
+        // verify that an audit message was sent for each of the created queries
+        mockServer.verify();
+        Assertions.assertEquals(Arrays.asList(results.get(0).getQueryId(), results.get(1).getQueryId()), auditIds);
+    }
+    
+    @Test
+    public void testCreateBatchFailure_publishFailure() {
+        DatawaveUserDetails authUser = createUserDetails();
+        MultiValueMap<String,String> map = createParams();
+        
+        map.remove(QUERY_STRING);
+        map.remove(QUERY_NAME);
+        List<Map<String,List<String>>> queryDefinitions = Arrays.asList(createQueryDefinition("batch1"), createQueryDefinition("batch2"),
+                        createQueryDefinition("batch3"));
+        
+        RequestEntity<List<Map<String,List<String>>>> requestEntity = createBatchRequestEntity(authUser, map, queryDefinitions);
+        
+        // setup a mock audit service for all three queries
+        auditSentSetup();
+        auditSentSetup();
+        auditSentSetup();
+        
+        // the create event for the second query can't be published
+        AtomicInteger numCreateEvents = new AtomicInteger();
+        AtomicReference<String> failedQueryId = new AtomicReference<>();
+        queryRequestEventFailures.set(event -> {
+            if (event.getRequest().getMethod() == QueryRequest.Method.CREATE && numCreateEvents.incrementAndGet() == 2) {
+                failedQueryId.set(event.getRequest().getQueryId());
+                return true;
+            }
+            return false;
+        });
+        
+        ResponseEntity<BatchCreateResponse> resp = jwtRestTemplate.exchange(requestEntity, BatchCreateResponse.class);
+        Assertions.assertEquals(HttpStatus.Series.SUCCESSFUL, resp.getStatusCode().series());
+        
+        List<BatchCreateResponse.Result> results = resp.getBody().getResults();
+        Assertions.assertEquals(3, results.size());
+        Assertions.assertNotNull(results.get(0).getQueryId());
+        Assertions.assertNull(results.get(1).getQueryId());
+        Assertions.assertNotNull(results.get(1).getErrorCode());
+        Assertions.assertNotNull(results.get(2).getQueryId());
+        
+        // verify that the query which was never published was rolled back, rather than being left in query storage
+        Assertions.assertNotNull(failedQueryId.get());
+        Assertions.assertNull(queryStorageCache.getQueryStatus(failedQueryId.get()));
+        Assertions.assertEquals(2, queryStorageCache.getQueryStatus().size());
+        Assertions.assertEquals(2, queryRequestEvents.size());
+    }
+    
+    private Map<String,List<String>> createQueryDefinition(String queryName) {
+        Map<String,List<String>> queryDefinition = new LinkedHashMap<>();
+        queryDefinition.put(QUERY_STRING, Collections.singletonList(TEST_QUERY_STRING));
+        queryDefinition.put(QUERY_NAME, Collections.singletonList(queryName));
+        return queryDefinition;
+    }
+    
+    private RequestEntity<List<Map<String,List<String>>>> createBatchRequestEntity(DatawaveUserDetails authUser, MultiValueMap<String,String> map,
+                    List<Map<String,List<String>>> queryDefinitions) {
+        // the shared parameters are sent as request parameters, and the query definitions are sent as the json request body
+        UriComponents uri = uriBuilder("EventQuery/createBatch").queryParams(map).encode().build();
+        
+        MultiValueMap<String,String> headers = new LinkedMultiValueMap<>();
+        headers.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        
+        return jwtRestTemplate.createRequestEntity(authUser, queryDefinitions, headers, HttpMethod.POST, uri);
+    }
+    
+    @Test
+    public void testCreateFailure_auditFailure() {
+        DatawaveUserDetails authUser = createUserDetails();
+        UriComponents uri = createUri("EventQuery/create");
+        MultiValueMap<String,String> map = createParams();
+        
+        RequestEntity<MultiValueMap<String,String>> requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, uri);
+        
+        // setup a mock audit service which rejects the audit
+        auditFailedSetup();
+        
+        ResponseEntity<GenericResponse> resp = jwtRestTemplate.exchange(requestEntity, GenericResponse.class);
+        
+        // @formatter:off
+        BaseResponse baseResponse = assertBaseResponse(
+                false,
+                HttpStatus.Series.CLIENT_ERROR,
+                resp);
+        // @formatter:on
+        
+        // verify that there is no result
+        Assertions.assertFalse(baseResponse.getHasResults());
+        
+        // verify that an exception was returned
+        Assertions.assertEquals(1, baseResponse.getExceptions().size());
+        
+        // verify that the staged query was removed
+        Assertions.assertTrue(queryStorageCache.getQueryStatus().isEmpty());
+        
+        // verify that the executor was never told about the query
+        Assertions.assertEquals(0, queryRequestEvents.size());
+        
+        // verify that the audit was attempted
+        mockServer.verify();
+        Assertions.assertEquals(1, auditIds.size());
+    }
+    
+    @Test
+    public void testCreateFailure_auditFailureWhileNextCalled() {
+        DatawaveUserDetails authUser = createUserDetails();
+        UriComponents uri = createUri("EventQuery/create");
+        MultiValueMap<String,String> map = createParams();
+        
+        RequestEntity<MultiValueMap<String,String>> requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, uri);
+        
+        AtomicReference<QueryStatus.QUERY_STATE> stagedQueryState = new AtomicReference<>();
+        AtomicReference<ResponseEntity<DefaultEventQueryResponse>> nextResponse = new AtomicReference<>();
+        
+        // setup a mock audit service which calls next on the staged query before rejecting the audit
+        // @formatter:off
+        mockServer.expect(requestTo(EXPECTED_AUDIT_URI))
+                .andExpect(auditIdGrabber())
+                .andRespond(request -> {
+                    String queryId = auditIds.get(0);
+                    try {
+                        // wait for the query to be staged, since the audit is submitted concurrently with storing it
+                        long stopTimeMillis = System.currentTimeMillis() + TEST_WAIT_TIME_MILLIS;
+                        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+                        while (queryStatus == null && System.currentTimeMillis() < stopTimeMillis) {
+                            Thread.sleep(10);
+                            queryStatus = queryStorageCache.getQueryStatus(queryId);
+                        }
+                        
+                        if (queryStatus != null) {
+                            stagedQueryState.set(queryStatus.getQueryState());
+                            nextResponse.set(nextQuery(authUser, queryId).get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS));
+                        }
+                    } catch (Exception e) {
+                        throw new IOException(e);
+                    }
+                    return withServerError().createResponse(request);
+                });
+        // @formatter:on
+        
+        ResponseEntity<GenericResponse> resp = jwtRestTemplate.exchange(requestEntity, GenericResponse.class);
+        
+        // @formatter:off
+        assertBaseResponse(
+                false,
+                HttpStatus.Series.CLIENT_ERROR,
+                resp);
+        // @formatter:on
+        
+        // verify that the query was staged as defined, and could not be run while it was being audited
+        Assertions.assertEquals(QueryStatus.QUERY_STATE.DEFINE, stagedQueryState.get());
+        Assertions.assertNotNull(nextResponse.get());
+        
+        // @formatter:off
+        BaseResponse nextBaseResponse = assertBaseResponse(
+                false,
+                HttpStatus.Series.CLIENT_ERROR,
+                nextResponse.get());
+        // @formatter:on
+        Assertions.assertEquals(1, nextBaseResponse.getExceptions().size());
+        
+        // verify that the staged query was removed, and the executor was never told about it
+        Assertions.assertTrue(queryStorageCache.getQueryStatus().isEmpty());
+        Assertions.assertEquals(0, queryRequestEvents.size());
+        
+        // verify that the audit was attempted
+        mockServer.verify();
+        Assertions.assertEquals(1, auditIds.size());
+    }
+    
+    @Test
+    public void testCreateFailure_tooManyRequests() {
+        DatawaveUserDetails authUser = createUserDetails();
+        UriComponents uri = createUri("EventQuery/create");
+        MultiValueMap<String,String> map = createParams();
+        
+        // only allow the user one create until their bucket refills
+        double userCreateRate = queryAdmissionProperties.getUserCreateRate();
+        int userCreateBurst = queryAdmissionProperties.getUserCreateBurst();
+        queryAdmissionProperties.setUserCreateRate(0.001);
+        queryAdmissionProperties.setUserCreateBurst(1);
+        try {
+            // setup a mock audit service, expecting only the admitted create to be audited
+            auditSentSetup();
+            
+            RequestEntity<MultiValueMap<String,String>> requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, uri);
+            ResponseEntity<GenericResponse> resp = jwtRestTemplate.exchange(requestEntity, GenericResponse.class);
+            String queryId = assertGenericResponse(true, HttpStatus.Series.SUCCESSFUL, resp).getResult();
+            
+            requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, uri);
+            resp = jwtRestTemplate.exchange(requestEntity, GenericResponse.class);
+            
+            // verify that the second create was turned away, and the caller was told when to retry
+            Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, resp.getStatusCode());
+            Assertions.assertNotNull(resp.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            
+            BaseResponse baseResponse = resp.getBody();
+            Assertions.assertNotNull(baseResponse);
+            Assertions.assertEquals(1, baseResponse.getExceptions().size());
+            Assertions.assertEquals("429-1", baseResponse.getExceptions().get(0).getCode());
+            
+            // verify that only the admitted query was created
+            Assertions.assertEquals(1, queryStorageCache.getQueryStatus().size());
+            Assertions.assertEquals(1, queryRequestEvents.size());
+            
+            // verify that only the admitted query was audited
+            assertAuditSent(queryId);
+        } finally {
+            queryAdmissionProperties.setUserCreateRate(userCreateRate);
+            queryAdmissionProperties.setUserCreateBurst(userCreateBurst);
+            
+            // don't leave the emptied bucket behind for the other tests
+            queryAdmissionControl.reset();
+        }
+    }
+    
     @Test
     public void testCreateFailure_paramValidation() {
         DatawaveUserDetails authUser = createUserDetails();
@@ -0,0 +1,184 @@
+package datawave.microservice.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import datawave.core.query.cache.ResultsPage;
+import datawave.microservice.authorization.service.RemoteAuthorizationServiceUserDetailsService;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.runner.IntermediateResultBuffer;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.microservice.query.storage.QueryStatus;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"QueryStarterDefaults", "QueryStarterOverrides", "QueryServiceTest", RemoteAuthorizationServiceUserDetailsService.ACTIVATION_PROFILE})
+@ContextConfiguration(classes = {QueryService.class})
+public class QueryServiceIntermediateResultBufferTest extends AbstractQueryServiceTest {
+    private static final int NUM_THREADS = 8;
+    private static final int NUM_BATCHES = 100;
+    
+    @Autowired
+    private IntermediateResultBuffer intermediateResultBuffer;
+    
+    @Autowired
+    private NextCallRunnerProperties nextCallRunnerProperties;
+    
+    @Test
+    public void testConcurrentHoldKeepsEveryBatch() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        String queryId = createQuery(authUser, createParams());
+        
+        boolean holdBackIntermediateResults = nextCallRunnerProperties.isHoldBackIntermediateResults();
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        try {
+            nextCallRunnerProperties.setHoldBackIntermediateResults(true);
+            
+            // hold back a batch of results from many next calls at once
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < NUM_BATCHES; i++) {
+                List<Object> batch = Collections.singletonList("result-" + i);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    intermediateResultBuffer.hold(queryId, batch);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            
+            // none of the batches should have been lost
+            Set<Object> resumed = new HashSet<>(intermediateResultBuffer.resume(queryId));
+            Assertions.assertEquals(NUM_BATCHES, resumed.size());
+            for (int i = 0; i < NUM_BATCHES; i++) {
+                Assertions.assertTrue(resumed.contains("result-" + i));
+            }
+            Assertions.assertFalse(intermediateResultBuffer.isHolding(queryId));
+        } finally {
+            executor.shutdownNow();
+            intermediateResultBuffer.discard(queryId);
+            nextCallRunnerProperties.setHoldBackIntermediateResults(holdBackIntermediateResults);
+        }
+    }
+    
+    @Test
+    public void testHeldResultsDiscardedWhenQueryClosedElsewhere() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        String queryId = createQuery(authUser, createParams());
+        
+        boolean holdBackIntermediateResults = nextCallRunnerProperties.isHoldBackIntermediateResults();
+        try {
+            nextCallRunnerProperties.setHoldBackIntermediateResults(true);
+            
+            intermediateResultBuffer.hold(queryId, Arrays.asList("result-1", "result-2", "result-3"));
+            Assertions.assertTrue(intermediateResultBuffer.isHolding(queryId));
+            
+            // close the query without going through this query service, as if it had been closed on another instance
+            QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+            queryStatus.setQueryState(QueryStatus.QUERY_STATE.CLOSE);
+            queryStorageCache.updateQueryStatus(queryStatus);
+            
+            // the held back results should be thrown away rather than returned to the results queue
+            intermediateResultBuffer.flush(queryId);
+            Assertions.assertFalse(intermediateResultBuffer.isHolding(queryId));
+            Assertions.assertEquals(0, queryQueueManager.getNumResultsRemaining(queryId));
+            
+            // and results held back after the query was closed should not be kept around
+            intermediateResultBuffer.hold(queryId, Arrays.asList("result-4"));
+            Assertions.assertFalse(intermediateResultBuffer.isHolding(queryId));
+        } finally {
+            intermediateResultBuffer.discard(queryId);
+            nextCallRunnerProperties.setHoldBackIntermediateResults(holdBackIntermediateResults);
+        }
+    }
+    
+    @Test
+    public void testHoldAskedForOncePerHold() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        String queryId = createQuery(authUser, createParams());
+        
+        // two instances sharing the map of holders
+        ConcurrentMap<String,String> holders = new ConcurrentHashMap<>();
+        IntermediateResultBuffer holdingBuffer = new IntermediateResultBuffer(nextCallRunnerProperties, queryQueueManager, queryStorageCache, holders);
+        IntermediateResultBuffer otherBuffer = new IntermediateResultBuffer(nextCallRunnerProperties, queryQueueManager, queryStorageCache, holders);
+        
+        boolean holdBackIntermediateResults = nextCallRunnerProperties.isHoldBackIntermediateResults();
+        try {
+            nextCallRunnerProperties.setHoldBackIntermediateResults(true);
+            
+            // nobody is holding anything yet
+            Assertions.assertFalse(otherBuffer.claimReturnRequest(queryId));
+            
+            holdingBuffer.hold(queryId, Arrays.asList("result-1", "result-2"));
+            
+            // the holder never needs to ask itself, and the other instance only needs to ask once
+            Assertions.assertFalse(holdingBuffer.claimReturnRequest(queryId));
+            Assertions.assertTrue(otherBuffer.claimReturnRequest(queryId));
+            Assertions.assertFalse(otherBuffer.claimReturnRequest(queryId));
+            
+            // adding to the same hold doesn't need another request
+            holdingBuffer.hold(queryId, Arrays.asList("result-3"));
+            Assertions.assertFalse(otherBuffer.claimReturnRequest(queryId));
+            
+            // once the results have been returned, a new hold needs a new request
+            holdingBuffer.flush(queryId);
+            Assertions.assertTrue(holders.isEmpty());
+            holdingBuffer.hold(queryId, Arrays.asList("result-4"));
+            Assertions.assertTrue(otherBuffer.claimReturnRequest(queryId));
+        } finally {
+            holdingBuffer.discard(queryId);
+            nextCallRunnerProperties.setHoldBackIntermediateResults(holdBackIntermediateResults);
+        }
+    }
+    
+    @Test
+    public void testKeptPagesReturnedInOrderWithoutRequeueing() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        String queryId = createQuery(authUser, createParams());
+        
+        try {
+            intermediateResultBuffer.keepPage(queryId, new ResultsPage<>(new ArrayList<>(Arrays.asList("result-1", "result-2")), ResultsPage.Status.COMPLETE));
+            intermediateResultBuffer.keepPage(queryId, new ResultsPage<>(new ArrayList<>(Arrays.asList("result-3")), ResultsPage.Status.PARTIAL));
+            
+            // kept pages have already been postprocessed, so they should never go back on the results queue
+            Assertions.assertEquals(0, queryQueueManager.getNumResultsRemaining(queryId));
+            
+            ResultsPage<Object> first = intermediateResultBuffer.takeKeptPage(queryId);
+            Assertions.assertEquals(Arrays.asList("result-1", "result-2"), first.getResults());
+            ResultsPage<Object> second = intermediateResultBuffer.takeKeptPage(queryId);
+            Assertions.assertEquals(Collections.singletonList("result-3"), second.getResults());
+            Assertions.assertEquals(ResultsPage.Status.PARTIAL, second.getStatus());
+            Assertions.assertNull(intermediateResultBuffer.takeKeptPage(queryId));
+            
+            // a kept page is thrown away when the query is discarded
+            intermediateResultBuffer.keepPage(queryId, new ResultsPage<>(new ArrayList<>(Arrays.asList("result-4")), ResultsPage.Status.COMPLETE));
+            intermediateResultBuffer.discard(queryId);
+            Assertions.assertNull(intermediateResultBuffer.takeKeptPage(queryId));
+        } finally {
+            intermediateResultBuffer.discard(queryId);
+        }
+    }
+}
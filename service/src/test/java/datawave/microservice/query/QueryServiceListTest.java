@@ -31,6 +31,7 @@ import datawave.security.util.ProxiedEntityUtils;
 import datawave.webservice.query.result.logic.QueryLogicDescription;
 import datawave.webservice.result.QueryImplListResponse;
 import datawave.webservice.result.QueryLogicResponse;
+import datawave.webservice.result.VoidResponse;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -81,6 +82,54 @@ public class QueryServiceListTest extends AbstractQueryServiceTest {
         Assertions.assertEquals(queryIds, actualQueryIds);
     }
     
+    @Test
+    public void testListSuccess_paginated() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        DatawaveUserDetails altAuthUser = createAltUserDetails();
+        
+        // define a bunch of queries as the original user
+        List<String> queryIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String queryId = defineQuery(authUser, createParams());
+            mockServer.reset();
+            
+            queryIds.add(queryId);
+        }
+        
+        // define a query as the alternate user, which should never be listed
+        defineQuery(altAuthUser, createParams());
+        
+        // pages are ordered by query id
+        Collections.sort(queryIds);
+        
+        List<String> actualQueryIds = new ArrayList<>();
+        for (int pageNumber = 1; pageNumber <= 3; pageNumber++) {
+            ResponseEntity<QueryImplListResponse> listResponse = listQueries(authUser, null, null, pageNumber, 2).get();
+            
+            Assertions.assertEquals(200, listResponse.getStatusCodeValue());
+            
+            QueryImplListResponse result = listResponse.getBody();
+            
+            Assertions.assertEquals((pageNumber < 3) ? 2 : 1, result.getNumResults());
+            
+            result.getQuery().stream().map(Query::getId).map(UUID::toString).forEach(actualQueryIds::add);
+        }
+        
+        Assertions.assertEquals(queryIds, actualQueryIds);
+        
+        // removed queries should no longer be listed
+        ResponseEntity<VoidResponse> removeResponse = removeQuery(authUser, queryIds.get(0)).get();
+        Assertions.assertEquals(200, removeResponse.getStatusCodeValue());
+        
+        ResponseEntity<QueryImplListResponse> listResponse = listQueries(authUser, null, null, 1, 10).get();
+        
+        Assertions.assertEquals(200, listResponse.getStatusCodeValue());
+        
+        actualQueryIds = listResponse.getBody().getQuery().stream().map(Query::getId).map(UUID::toString).collect(Collectors.toList());
+        
+        Assertions.assertEquals(queryIds.subList(1, queryIds.size()), actualQueryIds);
+    }
+    
     @Test
     public void testListSuccess_filterOnQueryId() throws Exception {
         DatawaveUserDetails authUser = createUserDetails();
@@ -423,4 +472,39 @@ public class QueryServiceListTest extends AbstractQueryServiceTest {
         
         Assertions.assertTrue(qlNames.isEmpty());
     }
+    
+    @Test
+    public void testListQueryLogicNotModified() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        ResponseEntity<QueryLogicResponse> response = listQueryLogic(authUser).get();
+        
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        
+        String eTag = response.getHeaders().getETag();
+        Assertions.assertNotNull(eTag);
+        
+        // the etag should be stable across requests
+        response = listQueryLogic(authUser).get();
+        Assertions.assertEquals(eTag, response.getHeaders().getETag());
+        
+        // a conditional request with the current etag should not return a body
+        UriComponents uri = createUri("/listQueryLogic");
+        RequestEntity<?> authEntity = jwtRestTemplate.createRequestEntity(authUser, null, null, HttpMethod.GET, uri);
+        RequestEntity<Void> requestEntity = RequestEntity.get(uri.toUri()).headers(authEntity.getHeaders()).ifNoneMatch(eTag).build();
+        
+        response = jwtRestTemplate.exchange(requestEntity, QueryLogicResponse.class);
+        
+        Assertions.assertEquals(304, response.getStatusCodeValue());
+        Assertions.assertNull(response.getBody());
+        
+        // a conditional request with a stale etag should return the query logic descriptions
+        requestEntity = RequestEntity.get(uri.toUri()).headers(authEntity.getHeaders()).ifNoneMatch("\"stale\"").build();
+        
+        response = jwtRestTemplate.exchange(requestEntity, QueryLogicResponse.class);
+        
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        Assertions.assertEquals(eTag, response.getHeaders().getETag());
+        Assertions.assertFalse(response.getBody().getQueryLogicList().isEmpty());
+    }
 }
@@ -0,0 +1,47 @@
+package datawave.microservice.query;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import datawave.microservice.authorization.service.RemoteAuthorizationServiceUserDetailsService;
+import datawave.microservice.query.config.ConcurrencyLimitedTaskExecutor;
+import datawave.microservice.query.runner.FairNextCallScheduler;
+import datawave.microservice.query.runner.config.NextCallSchedulerProperties;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"QueryStarterDefaults", "QueryStarterOverrides", "QueryServiceTest", RemoteAuthorizationServiceUserDetailsService.ACTIVATION_PROFILE})
+@ContextConfiguration(classes = {QueryService.class})
+public class QueryServiceNextCallExecutorTest extends AbstractQueryServiceTest {
+    
+    @Autowired
+    private AsyncListenableTaskExecutor nextCallExecutor;
+    
+    @Autowired
+    private FairNextCallScheduler nextCallScheduler;
+    
+    @Autowired
+    private NextCallSchedulerProperties nextCallSchedulerProperties;
+    
+    @Test
+    public void testConcurrencyLimitReadThroughRefreshScopedProxy() {
+        // the executor is refresh scoped, so what gets injected is a proxy rather than the executor itself
+        Assertions.assertTrue(AopUtils.isAopProxy(nextCallExecutor));
+        Assertions.assertTrue(nextCallExecutor instanceof ConcurrencyLimitedTaskExecutor);
+        
+        int concurrencyLimit = ((ConcurrencyLimitedTaskExecutor) nextCallExecutor).getConcurrencyLimit();
+        Assertions.assertTrue(concurrencyLimit > 1);
+        
+        // without a configured limit, the scheduler should run as many next calls at once as the executor can
+        Assertions.assertEquals(0, nextCallSchedulerProperties.getMaxRunningCalls());
+        Assertions.assertEquals(concurrencyLimit, nextCallScheduler.getMaxRunningCalls());
+    }
+}
@@ -0,0 +1,111 @@
+package datawave.microservice.query;
+
+import java.util.SortedMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.codahale.metrics.Gauge;
+
+import datawave.core.query.configuration.GenericQueryConfiguration;
+import datawave.microservice.authorization.service.RemoteAuthorizationServiceUserDetailsService;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.runner.NextCallRegistry;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.webservice.result.DefaultEventQueryResponse;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"QueryStarterDefaults", "QueryStarterOverrides", "QueryServiceTest", RemoteAuthorizationServiceUserDetailsService.ACTIVATION_PROFILE})
+@ContextConfiguration(classes = {QueryService.class})
+public class QueryServiceNextCallMetricsTest extends AbstractQueryServiceTest {
+    
+    @Autowired
+    private NextCallRegistry nextCallRegistry;
+    
+    @Autowired
+    private NextCallRunnerProperties nextCallRunnerProperties;
+    
+    @Test
+    public void testActiveNextCallGauges() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        String queryId = createRunningQuery(authUser);
+        String queryPool = queryStorageCache.getQueryStatus(queryId).getQueryKey().getQueryPool();
+        
+        Future<ResponseEntity<DefaultEventQueryResponse>> nextFuture = nextQuery(authUser, queryId);
+        waitForActiveNextCalls(queryId, 1);
+        
+        SortedMap<String,Gauge> gauges = nextCallRegistry.getMetricRegistry().getGauges();
+        Assertions.assertEquals(1, gauges.get(NextCallRegistry.ACTIVE_NEXT_CALLS_METRIC).getValue());
+        Assertions.assertEquals(1, gauges.get(NextCallRegistry.getPoolMetricName(queryPool)).getValue());
+        
+        // per-query gauges are off by default
+        Assertions.assertFalse(gauges.containsKey(NextCallRegistry.getQueryMetricName(queryId)));
+        
+        cancelQuery(authUser, queryId).get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+        nextFuture.get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+        waitForActiveNextCalls(queryId, 0);
+        
+        gauges = nextCallRegistry.getMetricRegistry().getGauges();
+        Assertions.assertEquals(0, gauges.get(NextCallRegistry.ACTIVE_NEXT_CALLS_METRIC).getValue());
+        Assertions.assertEquals(0, gauges.get(NextCallRegistry.getPoolMetricName(queryPool)).getValue());
+    }
+    
+    @Test
+    public void testQueryGaugeRemovedWithLastNextCall() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        boolean activeNextCallQueryGaugesEnabled = nextCallRunnerProperties.isActiveNextCallQueryGaugesEnabled();
+        try {
+            nextCallRunnerProperties.setActiveNextCallQueryGaugesEnabled(true);
+            
+            String queryId = createRunningQuery(authUser);
+            
+            Future<ResponseEntity<DefaultEventQueryResponse>> nextFuture = nextQuery(authUser, queryId);
+            waitForActiveNextCalls(queryId, 1);
+            
+            Gauge<?> queryGauge = nextCallRegistry.getMetricRegistry().getGauges().get(NextCallRegistry.getQueryMetricName(queryId));
+            Assertions.assertNotNull(queryGauge);
+            Assertions.assertEquals(1, queryGauge.getValue());
+            
+            cancelQuery(authUser, queryId).get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+            nextFuture.get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+            waitForActiveNextCalls(queryId, 0);
+            
+            // the gauge should not outlive the query's next calls
+            Assertions.assertFalse(nextCallRegistry.getMetricRegistry().getGauges().containsKey(NextCallRegistry.getQueryMetricName(queryId)));
+        } finally {
+            nextCallRunnerProperties.setActiveNextCallQueryGaugesEnabled(activeNextCallQueryGaugesEnabled);
+        }
+    }
+    
+    private String createRunningQuery(DatawaveUserDetails authUser) {
+        String queryId = createQuery(authUser, createParams());
+        
+        // add a config object to the query status, which would normally be added by the executor service
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        queryStatus.setConfig(new GenericQueryConfiguration());
+        queryStorageCache.updateQueryStatus(queryStatus);
+        
+        return queryId;
+    }
+    
+    private void waitForActiveNextCalls(String queryId, int numActiveNextCalls) throws InterruptedException {
+        long startTimeMillis = System.currentTimeMillis();
+        while (nextCallRegistry.getNumActiveNextCalls(queryId) != numActiveNextCalls
+                        && (System.currentTimeMillis() - startTimeMillis) < TEST_WAIT_TIME_MILLIS) {
+            Thread.sleep(100);
+        }
+        Assertions.assertEquals(numActiveNextCalls, nextCallRegistry.getNumActiveNextCalls(queryId));
+    }
+}
@@ -5,10 +5,13 @@ import java.util.Collections;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.annotation.DirtiesContext;
@@ -24,8 +27,10 @@ import datawave.core.query.configuration.GenericQueryConfiguration;
 import datawave.microservice.authorization.service.RemoteAuthorizationServiceUserDetailsService;
 import datawave.microservice.authorization.user.DatawaveUserDetails;
 import datawave.microservice.query.remote.QueryRequest;
+import datawave.microservice.query.runner.config.NextEventCoalescingProperties;
 import datawave.microservice.query.storage.QueryStatus;
 import datawave.microservice.query.storage.TaskStates;
+import datawave.microservice.querymetric.QueryMetric;
 import datawave.webservice.query.result.event.DefaultEvent;
 import datawave.webservice.result.DefaultEventQueryResponse;
 import datawave.webservice.result.VoidResponse;
@@ -36,6 +41,12 @@ import datawave.webservice.result.VoidResponse;
 @ContextConfiguration(classes = {QueryService.class})
 public class QueryServiceNextTest extends AbstractQueryServiceTest {
     
+    @Autowired
+    private NextEventCoalescingProperties nextEventCoalescingProperties;
+    
+    @Autowired
+    private QueryManagementService queryManagementService;
+    
     @Test
     public void testNextSuccess() throws Exception {
         DatawaveUserDetails authUser = createUserDetails();
@@ -143,11 +154,11 @@ public class QueryServiceNextTest extends AbstractQueryServiceTest {
                 queryId,
                 queryRequestEvents.removeLast());
         // @formatter:off
-
+        
         // add a config object to the query status, which would normally be added by the executor service
         queryStatus.setConfig(new GenericQueryConfiguration());
         queryStorageCache.updateQueryStatus(queryStatus);
-
+        
         for (int page = 1; page <= 2; page++) {
             // NOTE: We have to generate the results in between next calls because the test queue manager does not handle requeueing of unused messages :(
             // @formatter:off
@@ -208,6 +219,75 @@ public class QueryServiceNextTest extends AbstractQueryServiceTest {
         }
     }
     
+    @Test
+    public void testNextSuccess_coalescedNextEvents() throws Exception {
+        // results are consumed by each page, which acknowledges the previous next event, so use a window to suppress the later events
+        nextEventCoalescingProperties.setWindow(1);
+        nextEventCoalescingProperties.setWindowUnit(TimeUnit.MINUTES);
+        try {
+            DatawaveUserDetails authUser = createUserDetails();
+            
+            // create a valid query
+            String queryId = createQuery(authUser, createParams());
+            
+            QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+            int pageSize = queryStatus.getQuery().getPagesize();
+            
+            // test field value pairings
+            MultiValueMap<String,String> fieldValues = new LinkedMultiValueMap<>();
+            fieldValues.add("LOKI", "ALLIGATOR");
+            fieldValues.add("LOKI", "CLASSIC");
+            
+            // verify that the create event was published
+            Assertions.assertEquals(1, queryRequestEvents.size());
+            // @formatter:off
+            assertQueryRequestEvent(
+                    "executor-unassigned:**",
+                    QueryRequest.Method.CREATE,
+                    queryId,
+                    queryRequestEvents.removeLast());
+            // @formatter:on
+            
+            // add a config object to the query status, which would normally be added by the executor service
+            queryStatus.setConfig(new GenericQueryConfiguration());
+            queryStorageCache.updateQueryStatus(queryStatus);
+            
+            for (int page = 1; page <= 3; page++) {
+                // @formatter:off
+                publishEventsToQueue(
+                        queryId,
+                        pageSize,
+                        fieldValues,
+                        "ALL");
+                // @formatter:on
+                
+                ResponseEntity<DefaultEventQueryResponse> response = nextQuery(authUser, queryId).get();
+                
+                Assertions.assertEquals(200, response.getStatusCodeValue());
+                Assertions.assertEquals(Integer.toString(page),
+                                Iterables.getOnlyElement(Objects.requireNonNull(response.getHeaders().get("X-query-page-number"))));
+                
+                if (page == 1) {
+                    // verify that the next event was published
+                    Assertions.assertEquals(1, queryRequestEvents.size());
+                    // @formatter:off
+                    assertQueryRequestEvent(
+                            "executor-unassigned:**",
+                            QueryRequest.Method.NEXT,
+                            queryId,
+                            queryRequestEvents.removeLast());
+                    // @formatter:on
+                } else {
+                    // verify that the duplicate next events were suppressed
+                    Assertions.assertEquals(0, queryRequestEvents.size());
+                }
+            }
+        } finally {
+            nextEventCoalescingProperties.setWindow(0);
+            nextEventCoalescingProperties.setWindowUnit(TimeUnit.MILLISECONDS);
+        }
+    }
+    
     @Test
     public void testNextSuccess_cancelPartialResults() throws Exception {
         DatawaveUserDetails authUser = createUserDetails();
@@ -648,6 +728,80 @@ public class QueryServiceNextTest extends AbstractQueryServiceTest {
         // @formatter:on
     }
     
+    @Test
+    public void testNextFailure_interruptedWhileWaiting() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        // create a valid query
+        String queryId = createQuery(authUser, createParams());
+        
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        int pageSize = queryStatus.getQuery().getPagesize();
+        
+        // add a config object to the query status, which would normally be added by the executor service
+        queryStatus.setConfig(new GenericQueryConfiguration());
+        queryStorageCache.updateQueryStatus(queryStatus);
+        
+        // test field value pairings
+        MultiValueMap<String,String> fieldValues = new LinkedMultiValueMap<>();
+        fieldValues.add("LOKI", "ALLIGATOR");
+        fieldValues.add("LOKI", "CLASSIC");
+        
+        // not enough results to fill the page, so the next call will keep waiting
+        int numEvents = (int) (0.5 * pageSize);
+        publishEventsToQueue(queryId, numEvents, fieldValues, "ALL");
+        
+        // call next directly, on a thread that we can interrupt
+        AtomicReference<Exception> nextFailure = new AtomicReference<>();
+        Thread nextThread = new Thread(() -> {
+            queryManagementService.getBaseQueryMetricOverride().set(new QueryMetric());
+            try {
+                queryManagementService.next(queryId, authUser);
+            } catch (Exception e) {
+                nextFailure.set(e);
+            } finally {
+                queryManagementService.getBaseQueryMetricOverride().remove();
+            }
+        });
+        nextThread.start();
+        
+        // make sure all events were consumed before interrupting the caller
+        long startTimeMillis = System.currentTimeMillis();
+        while (queryQueueManager.getNumResultsRemaining(queryId) != 0 && (System.currentTimeMillis() - startTimeMillis) < TEST_WAIT_TIME_MILLIS) {
+            Thread.sleep(100);
+        }
+        Assertions.assertEquals(0, queryQueueManager.getNumResultsRemaining(queryId));
+        
+        nextThread.interrupt();
+        nextThread.join(TEST_WAIT_TIME_MILLIS);
+        Assertions.assertFalse(nextThread.isAlive());
+        Assertions.assertNotNull(nextFailure.get());
+        
+        // once the next call stops, its claim should be released, and the page it assembled should be kept for the next call
+        startTimeMillis = System.currentTimeMillis();
+        while (queryStorageCache.getQueryStatus(queryId).getActiveNextCalls() != 0 && (System.currentTimeMillis() - startTimeMillis) < TEST_WAIT_TIME_MILLIS) {
+            Thread.sleep(100);
+        }
+        queryStatus = queryStorageCache.getQueryStatus(queryId);
+        Assertions.assertEquals(0, queryStatus.getActiveNextCalls());
+        Assertions.assertEquals(0, queryStatus.getLastPageNumber());
+        Assertions.assertEquals(0, queryStatus.getNumResultsReturned());
+        
+        // the kept results are neither back on the queue, nor counted as consumed until they are returned
+        Assertions.assertEquals(0, queryQueueManager.getNumResultsRemaining(queryId));
+        Assertions.assertEquals(0, queryStatus.getNumResultsConsumed());
+        
+        // the next call should return the kept page right away, and count its results as consumed
+        ResponseEntity<DefaultEventQueryResponse> response = nextQuery(authUser, queryId).get();
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        Assertions.assertEquals(numEvents, Objects.requireNonNull(response.getBody()).getEvents().size());
+        
+        queryStatus = queryStorageCache.getQueryStatus(queryId);
+        Assertions.assertEquals(1, queryStatus.getLastPageNumber());
+        Assertions.assertEquals(numEvents, queryStatus.getNumResultsReturned());
+        Assertions.assertEquals(numEvents, queryStatus.getNumResultsConsumed());
+    }
+    
     @Test
     public void testNextFailure_nextOnDefined() throws Exception {
         DatawaveUserDetails authUser = createUserDetails();
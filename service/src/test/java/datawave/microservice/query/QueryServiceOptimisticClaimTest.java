@@ -0,0 +1,186 @@
+package datawave.microservice.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import datawave.microservice.authorization.service.RemoteAuthorizationServiceUserDetailsService;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.runner.OptimisticQueryStatusUpdater;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.util.QueryStatusUpdateUtil;
+import datawave.webservice.query.exception.QueryException;
+import datawave.webservice.result.DefaultEventQueryResponse;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {"datawave.query.runner.nextCallClaimMode=OPTIMISTIC"})
+@ActiveProfiles({"QueryStarterDefaults", "QueryStarterOverrides", "QueryServiceTest", RemoteAuthorizationServiceUserDetailsService.ACTIVATION_PROFILE})
+@ContextConfiguration(classes = {QueryService.class})
+public class QueryServiceOptimisticClaimTest extends AbstractQueryServiceTest {
+    private static final int NUM_THREADS = 8;
+    private static final int NUM_PAGES_PER_THREAD = 25;
+    
+    @Autowired
+    private OptimisticQueryStatusUpdater nextCallStatusUpdater;
+    
+    @Test
+    public void testNextSuccess_claimAndReleaseAreOptimistic() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        
+        // create a valid query
+        String queryId = createQuery(authUser, createParams());
+        
+        // pump enough results into the queue to trigger a complete page
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        int pageSize = queryStatus.getQuery().getPagesize();
+        
+        MultiValueMap<String,String> fieldValues = new LinkedMultiValueMap<>();
+        fieldValues.add("LOKI", "ALLIGATOR");
+        
+        // @formatter:off
+        publishEventsToQueue(
+                queryId,
+                pageSize,
+                fieldValues,
+                "ALL");
+        // @formatter:on
+        
+        long numLockedUpdates = nextCallStatusUpdater.getNumLockedUpdates();
+        long numOptimisticUpdates = nextCallStatusUpdater.getNumOptimisticUpdates();
+        
+        ResponseEntity<DefaultEventQueryResponse> response = nextQuery(authUser, queryId).get();
+        Assertions.assertEquals(200, response.getStatusCodeValue());
+        
+        // the next call is claimed and released with a compare-and-set, so the page never takes the query status lock
+        Assertions.assertEquals(0, nextCallStatusUpdater.getNumLockedUpdates() - numLockedUpdates);
+        Assertions.assertEquals(2, nextCallStatusUpdater.getNumOptimisticUpdates() - numOptimisticUpdates);
+        
+        // and the release was still recorded
+        queryStatus = queryStorageCache.getQueryStatus(queryId);
+        Assertions.assertEquals(0, queryStatus.getActiveNextCalls());
+        Assertions.assertEquals(1, queryStatus.getLastPageNumber());
+        Assertions.assertEquals(pageSize, queryStatus.getNumResultsReturned());
+    }
+    
+    @Test
+    public void testConcurrentClaimAndRelease() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        String queryId = createQuery(authUser, createParams());
+        
+        QueryStatusUpdateUtil queryStatusUpdateUtil = new QueryStatusUpdateUtil(queryProperties, queryStorageCache);
+        
+        AtomicLong numPages = new AtomicLong();
+        AtomicLong numRejected = new AtomicLong();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < NUM_THREADS; thread++) {
+                // half of the threads release their next calls with the lock, so that optimistic and locked updates are interleaved
+                boolean lockedRelease = (thread % 2 == 1);
+                futures.add(executor.submit(() -> {
+                    for (int page = 0; page < NUM_PAGES_PER_THREAD; page++) {
+                        try {
+                            nextCallStatusUpdater.update(queryId, queryStatusUpdateUtil::claimNextCall);
+                        } catch (QueryException e) {
+                            // too many concurrent next calls
+                            numRejected.incrementAndGet();
+                            continue;
+                        }
+                        
+                        OptimisticQueryStatusUpdater.Update release = status -> {
+                            queryStatusUpdateUtil.releaseNextCall(status, queryQueueManager);
+                            status.setLastPageNumber(status.getLastPageNumber() + 1);
+                            status.setNumResultsReturned(status.getNumResultsReturned() + 1);
+                        };
+                        
+                        if (lockedRelease) {
+                            queryStatusUpdateUtil.lockedUpdate(queryId, release::apply);
+                        } else {
+                            nextCallStatusUpdater.update(queryId, release);
+                        }
+                        numPages.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            
+            for (Future<?> future : futures) {
+                future.get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        Assertions.assertEquals(NUM_THREADS * NUM_PAGES_PER_THREAD, numPages.get() + numRejected.get());
+        Assertions.assertTrue(numPages.get() > 0);
+        
+        // every claim and every page should have been accounted for exactly once
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        Assertions.assertEquals(0, queryStatus.getActiveNextCalls());
+        Assertions.assertEquals(numPages.get(), queryStatus.getLastPageNumber());
+        Assertions.assertEquals(numPages.get(), queryStatus.getNumResultsReturned());
+        
+        // make sure that we actually exercised the optimistic path
+        Assertions.assertTrue(nextCallStatusUpdater.isOptimistic());
+        Assertions.assertTrue(nextCallStatusUpdater.getNumOptimisticUpdates() > 0);
+    }
+    
+    @Test
+    public void testConcurrentOptimisticAndLockedUpdates() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        String queryId = createQuery(authUser, createParams());
+        
+        QueryStatusUpdateUtil queryStatusUpdateUtil = new QueryStatusUpdateUtil(queryProperties, queryStorageCache);
+        long numOptimisticUpdates = nextCallStatusUpdater.getNumOptimisticUpdates();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < NUM_THREADS; thread++) {
+                // half of the threads update a different counter with the query status lock, as the rest of the query service would
+                boolean lockedUpdate = (thread % 2 == 1);
+                futures.add(executor.submit(() -> {
+                    for (int update = 0; update < NUM_PAGES_PER_THREAD; update++) {
+                        if (lockedUpdate) {
+                            queryStatusUpdateUtil.lockedUpdate(queryId, status -> status.incrementNumResultsConsumed(1));
+                        } else {
+                            nextCallStatusUpdater.update(queryId, status -> status.setNumResultsReturned(status.getNumResultsReturned() + 1));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            
+            for (Future<?> future : futures) {
+                future.get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        // neither kind of update should have overwritten the other
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        Assertions.assertEquals((NUM_THREADS / 2) * NUM_PAGES_PER_THREAD, queryStatus.getNumResultsReturned());
+        Assertions.assertEquals((NUM_THREADS / 2) * NUM_PAGES_PER_THREAD, queryStatus.getNumResultsConsumed());
+        
+        // the optimistic updates must have found the query status under the query storage cache's key
+        Assertions.assertTrue(nextCallStatusUpdater.getNumOptimisticUpdates() > numOptimisticUpdates);
+    }
+}
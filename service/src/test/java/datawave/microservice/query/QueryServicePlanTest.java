@@ -100,4 +100,118 @@ public class QueryServicePlanTest extends AbstractQueryServiceTest {
         queryStatus = queryStorageCache.getQueryStatus(queryId);
         Assertions.assertNull(queryStatus);
     }
+    
+    @Test
+    public void testPlanSuccess_async() throws ParseException, IOException, ExecutionException, InterruptedException {
+        DatawaveUserDetails authUser = createUserDetails();
+        UriComponents uri = createUri("EventQuery/async/plan");
+        MultiValueMap<String,String> map = createParams();
+        
+        RequestEntity<MultiValueMap<String,String>> requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, uri);
+        
+        // setup a mock audit service
+        auditSentSetup();
+        
+        // make the async plan call, which will be completed by the plan response
+        Future<ResponseEntity<GenericResponse>> futureResp = Executors.newSingleThreadExecutor()
+                        .submit(() -> jwtRestTemplate.exchange(requestEntity, GenericResponse.class));
+        
+        long startTime = System.currentTimeMillis();
+        while (queryRequestEvents.size() == 0 && (System.currentTimeMillis() - startTime) < TEST_WAIT_TIME_MILLIS) {
+            Thread.sleep(500);
+        }
+        
+        // verify that the plan event was published
+        Assertions.assertEquals(1, queryRequestEvents.size());
+        RemoteQueryRequestEvent requestEvent = queryRequestEvents.removeLast();
+        
+        Assertions.assertEquals("executor-unassigned:**", requestEvent.getDestinationService());
+        Assertions.assertEquals(QueryRequest.Method.PLAN, requestEvent.getRequest().getMethod());
+        
+        String queryId = requestEvent.getRequest().getQueryId();
+        String plan = "some plan";
+        
+        // save the plan to the query status object
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        queryStatus.setPlan(plan);
+        queryStorageCache.updateQueryStatus(queryStatus);
+        
+        // send the plan response
+        eventPublisher.publishEvent(new RemoteQueryRequestEvent(this, "executor-unassigned:**", "query:**", QueryRequest.plan(queryId)));
+        
+        ResponseEntity<GenericResponse> resp = futureResp.get();
+        
+        // @formatter:off
+        GenericResponse<String> genericResponse = assertGenericResponse(
+                true,
+                HttpStatus.Series.SUCCESSFUL,
+                resp);
+        // @formatter:on
+        
+        String receivedPlan = genericResponse.getResult();
+        Assertions.assertEquals(receivedPlan, plan);
+        
+        // @formatter:off
+        assertQueryRequestEvent(
+                "query:**",
+                QueryRequest.Method.PLAN,
+                queryId,
+                queryRequestEvents.removeLast());
+        // @formatter:on
+        
+        // verify that the query status was deleted
+        queryStatus = queryStorageCache.getQueryStatus(queryId);
+        Assertions.assertNull(queryStatus);
+    }
+    
+    @Test
+    public void testPlanSuccess_cached() throws ParseException, IOException, ExecutionException, InterruptedException {
+        DatawaveUserDetails authUser = createUserDetails();
+        UriComponents uri = createUri("EventQuery/plan");
+        MultiValueMap<String,String> map = createParams();
+        
+        RequestEntity<MultiValueMap<String,String>> requestEntity = jwtRestTemplate.createRequestEntity(authUser, map, null, HttpMethod.POST, uri);
+        
+        // setup a mock audit service, expecting both plan calls to be audited
+        auditSentSetup();
+        auditSentSetup();
+        
+        // make the first plan call asynchronously
+        Future<ResponseEntity<GenericResponse>> futureResp = Executors.newSingleThreadExecutor()
+                        .submit(() -> jwtRestTemplate.exchange(requestEntity, GenericResponse.class));
+        
+        long startTime = System.currentTimeMillis();
+        while (queryRequestEvents.size() == 0 && (System.currentTimeMillis() - startTime) < TEST_WAIT_TIME_MILLIS) {
+            Thread.sleep(500);
+        }
+        
+        // verify that the plan event was published
+        Assertions.assertEquals(1, queryRequestEvents.size());
+        String queryId = queryRequestEvents.removeLast().getRequest().getQueryId();
+        String plan = "some plan";
+        
+        // save the plan to the query status object, and send the plan response
+        QueryStatus queryStatus = queryStorageCache.getQueryStatus(queryId);
+        queryStatus.setPlan(plan);
+        queryStorageCache.updateQueryStatus(queryStatus);
+        eventPublisher.publishEvent(new RemoteQueryRequestEvent(this, "executor-unassigned:**", "query:**", QueryRequest.plan(queryId)));
+        
+        GenericResponse<String> genericResponse = assertGenericResponse(true, HttpStatus.Series.SUCCESSFUL, futureResp.get());
+        Assertions.assertEquals(plan, genericResponse.getResult());
+        queryRequestEvents.clear();
+        
+        // make the second plan call, which should be answered from the cache
+        ResponseEntity<GenericResponse> resp = jwtRestTemplate.exchange(requestEntity, GenericResponse.class);
+        
+        genericResponse = assertGenericResponse(true, HttpStatus.Series.SUCCESSFUL, resp);
+        Assertions.assertEquals(plan, genericResponse.getResult());
+        
+        // verify that the executor service was not asked to plan the query again, and that nothing was stored
+        Assertions.assertEquals(0, queryRequestEvents.size());
+        Assertions.assertTrue(queryStorageCache.getQueryStatus().isEmpty());
+        
+        // verify that both plan calls were audited
+        mockServer.verify();
+        Assertions.assertEquals(2, auditIds.size());
+    }
 }
@@ -0,0 +1,108 @@
+package datawave.microservice.query;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import datawave.core.query.logic.QueryLogic;
+import datawave.microservice.authorization.service.RemoteAuthorizationServiceUserDetailsService;
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.runner.QueryLogicCache;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"QueryStarterDefaults", "QueryStarterOverrides", "QueryServiceTest", RemoteAuthorizationServiceUserDetailsService.ACTIVATION_PROFILE})
+@ContextConfiguration(classes = {QueryService.class})
+public class QueryServiceQueryLogicCacheTest extends AbstractQueryServiceTest {
+    private static final String QUERY_LOGIC_NAME = "EventQuery";
+    
+    @Autowired
+    private QueryLogicCache queryLogicCache;
+    
+    @Test
+    public void testAcquireForReadLeasesIdleQueryLogic() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        String queryId = UUID.randomUUID().toString();
+        
+        try {
+            QueryLogic<?> idleQueryLogic = returnIdleQueryLogic(queryId, authUser);
+            
+            try (QueryLogicCache.Lease readLease = queryLogicCache.acquireForRead(queryId, QUERY_LOGIC_NAME)) {
+                Assertions.assertSame(idleQueryLogic, readLease.getQueryLogic());
+                Assertions.assertEquals(0, queryLogicCache.getNumIdleQueryLogics(queryId));
+                
+                // a next call running while the query logic is being read must not be handed the same instance
+                try (QueryLogicCache.Lease nextCallLease = queryLogicCache.acquire(queryId, QUERY_LOGIC_NAME, authUser)) {
+                    Assertions.assertNotSame(idleQueryLogic, nextCallLease.getQueryLogic());
+                }
+            }
+            
+            // once the read is done, the query logic goes back to being idle
+            Assertions.assertEquals(1, queryLogicCache.getNumIdleQueryLogics(queryId));
+            try (QueryLogicCache.Lease nextCallLease = queryLogicCache.acquire(queryId, QUERY_LOGIC_NAME, authUser)) {
+                Assertions.assertSame(idleQueryLogic, nextCallLease.getQueryLogic());
+            }
+        } finally {
+            queryLogicCache.invalidate(queryId);
+        }
+    }
+    
+    @Test
+    public void testAcquireForReadWithoutIdleQueryLogic() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        String queryId = UUID.randomUUID().toString();
+        
+        try {
+            QueryLogic<?> idleQueryLogic = returnIdleQueryLogic(queryId, authUser);
+            
+            // take the only idle query logic, so that the read has to create its own
+            try (QueryLogicCache.Lease nextCallLease = queryLogicCache.acquire(queryId, QUERY_LOGIC_NAME, authUser)) {
+                Assertions.assertSame(idleQueryLogic, nextCallLease.getQueryLogic());
+                
+                try (QueryLogicCache.Lease readLease = queryLogicCache.acquireForRead(queryId, QUERY_LOGIC_NAME)) {
+                    Assertions.assertNotSame(idleQueryLogic, readLease.getQueryLogic());
+                }
+                
+                // the query logic created for the read is not kept
+                Assertions.assertEquals(0, queryLogicCache.getNumIdleQueryLogics(queryId));
+            }
+        } finally {
+            queryLogicCache.invalidate(queryId);
+        }
+    }
+    
+    @Test
+    public void testAcquireForReadAfterInvalidate() throws Exception {
+        DatawaveUserDetails authUser = createUserDetails();
+        String queryId = UUID.randomUUID().toString();
+        
+        QueryLogic<?> idleQueryLogic = returnIdleQueryLogic(queryId, authUser);
+        
+        try (QueryLogicCache.Lease readLease = queryLogicCache.acquireForRead(queryId, QUERY_LOGIC_NAME)) {
+            Assertions.assertSame(idleQueryLogic, readLease.getQueryLogic());
+            
+            // the query is closed while the query logic is being read
+            queryLogicCache.invalidate(queryId);
+        }
+        
+        // the query logic should be dropped rather than returned to the cache
+        Assertions.assertEquals(0, queryLogicCache.getNumIdleQueryLogics(queryId));
+    }
+    
+    private QueryLogic<?> returnIdleQueryLogic(String queryId, DatawaveUserDetails authUser) throws Exception {
+        QueryLogic<?> queryLogic;
+        try (QueryLogicCache.Lease lease = queryLogicCache.acquire(queryId, QUERY_LOGIC_NAME, authUser)) {
+            queryLogic = lease.getQueryLogic();
+            lease.setReusable(true);
+        }
+        Assertions.assertEquals(1, queryLogicCache.getNumIdleQueryLogics(queryId));
+        return queryLogic;
+    }
+}
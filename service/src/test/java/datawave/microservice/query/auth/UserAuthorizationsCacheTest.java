@@ -0,0 +1,119 @@
+package datawave.microservice.query.auth;
+
+import static datawave.security.authorization.DatawaveUser.UserType.USER;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.auth.config.UserAuthorizationsCacheProperties;
+import datawave.security.authorization.DatawaveUser;
+import datawave.security.authorization.SubjectIssuerDNPair;
+
+public class UserAuthorizationsCacheTest {
+    private static final String QUERY_LOGIC_NAME = "EventQuery";
+    private static final String SUBJECT_DN = "userDn";
+    private static final String ISSUER_DN = "issuerDn";
+    
+    private UserAuthorizationsCacheProperties cacheProperties;
+    private AtomicInteger numLoads;
+    
+    @BeforeEach
+    public void setup() {
+        cacheProperties = new UserAuthorizationsCacheProperties();
+        numLoads = new AtomicInteger();
+    }
+    
+    @Test
+    public void testCachedUntilInvalidated() throws Exception {
+        UserAuthorizationsCache cache = new UserAuthorizationsCache(cacheProperties);
+        DatawaveUserDetails user = createUserDetails(ISSUER_DN, Collections.singleton("AuthorizedUser"));
+        
+        Assertions.assertEquals("ALL", getUserAuths(cache, user));
+        Assertions.assertEquals("ALL", getUserAuths(cache, user));
+        Assertions.assertEquals(1, numLoads.get());
+        
+        cache.invalidateAll();
+        Assertions.assertEquals(0, cache.size());
+        
+        // the next request has to recompute the auths
+        Assertions.assertEquals("ALL", getUserAuths(cache, user));
+        Assertions.assertEquals(2, numLoads.get());
+    }
+    
+    @Test
+    public void testRolesAndIssuerArePartOfTheKey() throws Exception {
+        UserAuthorizationsCache cache = new UserAuthorizationsCache(cacheProperties);
+        
+        getUserAuths(cache, createUserDetails(ISSUER_DN, Collections.singleton("AuthorizedUser")));
+        Assertions.assertEquals(1, numLoads.get());
+        
+        // a change in roles must not be served the entry computed for the old roles
+        getUserAuths(cache, createUserDetails(ISSUER_DN, Collections.singleton("PrivilegedUser")));
+        Assertions.assertEquals(2, numLoads.get());
+        
+        // neither should the same subject vouched for by a different issuer
+        getUserAuths(cache, createUserDetails("otherIssuerDn", Collections.singleton("AuthorizedUser")));
+        Assertions.assertEquals(3, numLoads.get());
+        
+        getUserAuths(cache, createUserDetails(ISSUER_DN, Collections.singleton("AuthorizedUser")));
+        Assertions.assertEquals(3, numLoads.get());
+    }
+    
+    @Test
+    public void testEntriesExpire() throws Exception {
+        cacheProperties.setTimeToLive(50);
+        cacheProperties.setTimeToLiveUnit(TimeUnit.MILLISECONDS);
+        UserAuthorizationsCache cache = new UserAuthorizationsCache(cacheProperties);
+        DatawaveUserDetails user = createUserDetails(ISSUER_DN, Collections.singleton("AuthorizedUser"));
+        
+        getUserAuths(cache, user);
+        TimeUnit.MILLISECONDS.sleep(100);
+        getUserAuths(cache, user);
+        Assertions.assertEquals(2, numLoads.get());
+    }
+    
+    @Test
+    public void testBoundedWhenFull() throws Exception {
+        cacheProperties.setMaxEntries(2);
+        UserAuthorizationsCache cache = new UserAuthorizationsCache(cacheProperties);
+        
+        for (int i = 0; i < 10; i++) {
+            getUserAuths(cache, createUserDetails(ISSUER_DN, Collections.singleton("Role" + i)));
+        }
+        
+        // a full cache keeps caching, evicting entries to stay within its bounds
+        Assertions.assertTrue(cache.size() <= 2, "Cache grew to " + cache.size() + " entries");
+    }
+    
+    @Test
+    public void testDisabled() throws Exception {
+        cacheProperties.setEnabled(false);
+        UserAuthorizationsCache cache = new UserAuthorizationsCache(cacheProperties);
+        DatawaveUserDetails user = createUserDetails(ISSUER_DN, Collections.singleton("AuthorizedUser"));
+        
+        getUserAuths(cache, user);
+        getUserAuths(cache, user);
+        Assertions.assertEquals(2, numLoads.get());
+        Assertions.assertEquals(0, cache.size());
+    }
+    
+    private String getUserAuths(UserAuthorizationsCache cache, DatawaveUserDetails user) throws Exception {
+        return cache.getUserAuths(QUERY_LOGIC_NAME, null, user, () -> {
+            numLoads.incrementAndGet();
+            return "ALL";
+        });
+    }
+    
+    private DatawaveUserDetails createUserDetails(String issuerDn, Collection<String> roles) {
+        DatawaveUser datawaveUser = new DatawaveUser(SubjectIssuerDNPair.of(SUBJECT_DN, issuerDn), USER, Collections.singleton("ALL"), roles, null,
+                        System.currentTimeMillis());
+        return new DatawaveUserDetails(Collections.singleton(datawaveUser), datawaveUser.getCreationTime());
+    }
+}
@@ -0,0 +1,107 @@
+package datawave.microservice.query.batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.query.batch.config.BatchCreateProperties;
+import datawave.webservice.query.exception.BadRequestQueryException;
+import datawave.webservice.query.exception.DatawaveErrorCode;
+import datawave.webservice.query.exception.QueryException;
+
+public class BatchQueryCreatorTest {
+    private BatchCreateProperties batchCreateProperties;
+    private BatchQueryCreator batchQueryCreator;
+    
+    @BeforeEach
+    public void setup() {
+        batchCreateProperties = new BatchCreateProperties();
+        batchQueryCreator = new BatchQueryCreator(batchCreateProperties, Runnable::run);
+    }
+    
+    @Test
+    public void testEmptyBatchIsRejected() {
+        Assertions.assertThrows(BadRequestQueryException.class, () -> batchQueryCreator.create(0, new TestStages()));
+    }
+    
+    @Test
+    public void testOversizedBatchIsRejected() {
+        batchCreateProperties.setMaxBatchSize(2);
+        Assertions.assertThrows(BadRequestQueryException.class, () -> batchQueryCreator.create(3, new TestStages()));
+    }
+    
+    @Test
+    public void testFailuresAreReportedInOrder() throws Exception {
+        TestStages stages = new TestStages();
+        stages.prepareFailures.add(1);
+        stages.storeFailures.add(2);
+        
+        BatchCreateResponse response = batchQueryCreator.create(4, stages);
+        
+        Assertions.assertEquals(4, response.getResults().size());
+        Assertions.assertEquals("query0", response.getResults().get(0).getQueryId());
+        Assertions.assertNull(response.getResults().get(1).getQueryId());
+        Assertions.assertNotNull(response.getResults().get(1).getErrorCode());
+        Assertions.assertNull(response.getResults().get(2).getQueryId());
+        Assertions.assertNotNull(response.getResults().get(2).getErrorCode());
+        Assertions.assertEquals("query3", response.getResults().get(3).getQueryId());
+        Assertions.assertTrue(response.getHasResults());
+        
+        // only the stored queries have their metrics submitted
+        Assertions.assertEquals(Arrays.asList(0, 3), stages.submittedMetrics);
+    }
+    
+    @Test
+    public void testCreateEventsAreGroupedByPool() throws Exception {
+        TestStages stages = new TestStages();
+        
+        batchQueryCreator.create(4, stages);
+        
+        // even indices go to pool0 and odd indices go to pool1
+        Assertions.assertEquals(Arrays.asList(0, 2, 1, 3), stages.sent);
+    }
+    
+    private static class TestStages implements BatchQueryCreator.Stages<Integer,Integer> {
+        private final List<Integer> prepareFailures = new ArrayList<>();
+        private final List<Integer> storeFailures = new ArrayList<>();
+        private final List<Integer> submittedMetrics = new ArrayList<>();
+        private final List<Integer> sent = new ArrayList<>();
+        
+        @Override
+        public Integer prepare(int index) throws QueryException {
+            if (prepareFailures.contains(index)) {
+                throw new BadRequestQueryException("bad query definition", "400-1");
+            }
+            return index;
+        }
+        
+        @Override
+        public Integer store(Integer preparedQuery) throws QueryException {
+            if (storeFailures.contains(preparedQuery)) {
+                throw new QueryException(DatawaveErrorCode.RUNNING_QUERY_CACHE_ERROR);
+            }
+            return preparedQuery;
+        }
+        
+        @Override
+        public void submitQueryMetrics(List<Integer> preparedQueries) {
+            submittedMetrics.addAll(preparedQueries);
+        }
+        
+        @Override
+        public String getPool(Integer storedQuery) {
+            return "pool" + (storedQuery % 2);
+        }
+        
+        @Override
+        public CompletableFuture<String> send(Integer storedQuery) {
+            sent.add(storedQuery);
+            return CompletableFuture.completedFuture("query" + storedQuery);
+        }
+    }
+}
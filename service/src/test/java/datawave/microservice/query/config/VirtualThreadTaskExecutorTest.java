@@ -0,0 +1,92 @@
+package datawave.microservice.query.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+public class VirtualThreadTaskExecutorTest {
+    private static final int CONCURRENCY_LIMIT = 4;
+    private static final long TEST_WAIT_TIME_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    
+    private VirtualThreadTaskExecutor executor;
+    
+    @BeforeEach
+    public void setup() {
+        // the concurrency limit doesn't depend on the kind of thread, so use platform threads to run this test on any JVM
+        executor = new VirtualThreadTaskExecutor(Executors.newCachedThreadPool(), CONCURRENCY_LIMIT);
+    }
+    
+    @AfterEach
+    public void teardown() throws Exception {
+        executor.destroy();
+    }
+    
+    @Test
+    public void testTasksBeyondTheConcurrencyLimitAreRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY_LIMIT; i++) {
+            futures.add(executor.submit(() -> {
+                release.await();
+                return null;
+            }));
+        }
+        Assertions.assertEquals(CONCURRENCY_LIMIT, executor.getActiveCount());
+        Assertions.assertEquals(0, executor.getAvailablePermits());
+        Assertions.assertEquals(0, executor.getRejectedCount());
+        
+        Assertions.assertThrows(TaskRejectedException.class, () -> executor.submit(() -> null));
+        Assertions.assertEquals(1, executor.getRejectedCount());
+        
+        // once the running tasks finish, their permits should be returned
+        release.countDown();
+        for (Future<?> future : futures) {
+            future.get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        
+        long startTimeMillis = System.currentTimeMillis();
+        while (executor.getActiveCount() > 0 && (System.currentTimeMillis() - startTimeMillis) < TEST_WAIT_TIME_MILLIS) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(0, executor.getActiveCount());
+        Assertions.assertEquals(CONCURRENCY_LIMIT, executor.getAvailablePermits());
+        Assertions.assertEquals("done", executor.submitListenable(() -> "done").get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS));
+    }
+    
+    @Test
+    public void testFailedTaskReleasesItsPermit() throws Exception {
+        Runnable failingTask = () -> {
+            throw new IllegalStateException("failed");
+        };
+        for (int i = 0; i < CONCURRENCY_LIMIT * 2; i++) {
+            Future<?> future = executor.submit(failingTask);
+            Assertions.assertThrows(Exception.class, () -> future.get(TEST_WAIT_TIME_MILLIS, TimeUnit.MILLISECONDS));
+            
+            long startTimeMillis = System.currentTimeMillis();
+            while (executor.getActiveCount() > 0 && (System.currentTimeMillis() - startTimeMillis) < TEST_WAIT_TIME_MILLIS) {
+                Thread.sleep(10);
+            }
+        }
+        Assertions.assertEquals(0, executor.getActiveCount());
+        Assertions.assertEquals(0, executor.getRejectedCount());
+    }
+    
+    @Test
+    public void testMetricsAreRegistered() throws Exception {
+        Assertions.assertEquals(CONCURRENCY_LIMIT, executor.getMetricRegistry().getGauges().get(VirtualThreadTaskExecutor.AVAILABLE_PERMITS_METRIC).getValue());
+        Assertions.assertEquals(0, executor.getMetricRegistry().getGauges().get(VirtualThreadTaskExecutor.ACTIVE_COUNT_METRIC).getValue());
+        
+        executor.destroy();
+        Assertions.assertThrows(TaskRejectedException.class, () -> executor.submit(() -> null));
+        Assertions.assertEquals(1, executor.getMetricRegistry().getCounters().get(VirtualThreadTaskExecutor.REJECTED_COUNT_METRIC).getCount());
+    }
+}
@@ -0,0 +1,197 @@
+package datawave.microservice.query.metric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.authorization.user.DatawaveUserDetails;
+import datawave.microservice.query.metric.config.QueryMetricAggregationProperties;
+import datawave.microservice.querymetric.BaseQueryMetric;
+import datawave.microservice.querymetric.QueryMetric;
+
+public class QueryMetricAggregatorTest {
+    private static final String QUERY_ID = "query1";
+    
+    private QueryMetricAggregationProperties aggregationProperties;
+    private List<List<BaseQueryMetric>> sentUpdates;
+    private AtomicBoolean failSends;
+    
+    @BeforeEach
+    public void setup() {
+        aggregationProperties = new QueryMetricAggregationProperties();
+        sentUpdates = new ArrayList<>();
+        failSends = new AtomicBoolean();
+    }
+    
+    @Test
+    public void testUpdatesSentImmediatelyByDefault() {
+        QueryMetricAggregator aggregator = createAggregator();
+        
+        aggregator.submit(null, createMetric(BaseQueryMetric.Lifecycle.DEFINED));
+        aggregator.submit(null, createMetric(BaseQueryMetric.Lifecycle.DEFINED, 1));
+        
+        Assertions.assertEquals(2, sentUpdates.size());
+        Assertions.assertEquals(Collections.singletonList(1L), getPageNumbers(sentUpdates.get(1).get(0)));
+    }
+    
+    @Test
+    public void testPagesMergedWithinWindow() {
+        aggregationProperties.setWindow(1);
+        aggregationProperties.setWindowUnit(TimeUnit.HOURS);
+        QueryMetricAggregator aggregator = createAggregator();
+        
+        // the first lifecycle is sent right away
+        aggregator.submit(null, createMetric(BaseQueryMetric.Lifecycle.DEFINED));
+        Assertions.assertEquals(1, sentUpdates.size());
+        
+        // request scoped metrics, each carrying only the page for that request
+        aggregator.submit(null, createMetric(BaseQueryMetric.Lifecycle.DEFINED, 1));
+        aggregator.submit(null, createMetric(BaseQueryMetric.Lifecycle.DEFINED, 2));
+        
+        // a later update to page 2, such as the call time filled in once the response was written, replaces the earlier one
+        BaseQueryMetric enriched = createMetric(BaseQueryMetric.Lifecycle.DEFINED, 2);
+        enriched.getPageTimes().get(0).setCallTime(100);
+        aggregator.submit(null, enriched);
+        
+        aggregator.flushExpired();
+        Assertions.assertEquals(1, sentUpdates.size());
+        
+        aggregator.flushAll();
+        Assertions.assertEquals(2, sentUpdates.size());
+        BaseQueryMetric update = sentUpdates.get(1).get(0);
+        Assertions.assertEquals(QUERY_ID, update.getQueryId());
+        Assertions.assertEquals(Arrays.asList(1L, 2L), getPageNumbers(update));
+        Assertions.assertEquals(100, update.getPageTimes().get(1).getCallTime());
+    }
+    
+    @Test
+    public void testOnlyDeltasSent() {
+        QueryMetricAggregator aggregator = createAggregator();
+        
+        // a metric which keeps growing, as it does when streaming
+        BaseQueryMetric metric = createMetric(BaseQueryMetric.Lifecycle.DEFINED, 1, 2);
+        aggregator.submit(null, metric);
+        Assertions.assertEquals(Arrays.asList(1L, 2L), getPageNumbers(sentUpdates.get(0).get(0)));
+        
+        // the last sent page is updated and another page is added
+        metric.getPageTimes().get(1).setCallTime(100);
+        addPage(metric, 3);
+        aggregator.submit(null, metric);
+        
+        // page 1 was already sent, while page 2 is sent again to pick up its call time
+        BaseQueryMetric update = sentUpdates.get(1).get(0);
+        Assertions.assertEquals(Arrays.asList(2L, 3L), getPageNumbers(update));
+        Assertions.assertEquals(100, update.getPageTimes().get(0).getCallTime());
+        
+        // the caller is free to keep updating its metric
+        Assertions.assertEquals(3, metric.getPageTimes().size());
+    }
+    
+    @Test
+    public void testTerminalLifecycleFlushesPending() {
+        aggregationProperties.setWindow(1);
+        aggregationProperties.setWindowUnit(TimeUnit.HOURS);
+        QueryMetricAggregator aggregator = createAggregator();
+        
+        aggregator.submit(null, createMetric(BaseQueryMetric.Lifecycle.DEFINED));
+        aggregator.submit(null, createMetric(BaseQueryMetric.Lifecycle.DEFINED, 1));
+        aggregator.submit(null, createMetric(BaseQueryMetric.Lifecycle.CLOSED));
+        
+        Assertions.assertEquals(2, sentUpdates.size());
+        BaseQueryMetric update = sentUpdates.get(1).get(0);
+        Assertions.assertEquals(BaseQueryMetric.Lifecycle.CLOSED, update.getLifecycle());
+        Assertions.assertEquals(Collections.singletonList(1L), getPageNumbers(update));
+        
+        // nothing is left to flush for the closed query
+        aggregator.flushAll();
+        Assertions.assertEquals(2, sentUpdates.size());
+    }
+    
+    @Test
+    public void testFailedUpdatesAreRetried() {
+        QueryMetricAggregator aggregator = createAggregator();
+        
+        aggregator.submit(null, createMetric(BaseQueryMetric.Lifecycle.DEFINED));
+        
+        failSends.set(true);
+        aggregator.submit(null, createMetric(BaseQueryMetric.Lifecycle.DEFINED, 1));
+        Assertions.assertEquals(1, sentUpdates.size());
+        
+        // the page from the failed update goes out with the next update
+        failSends.set(false);
+        aggregator.submit(null, createMetric(BaseQueryMetric.Lifecycle.DEFINED, 2));
+        Assertions.assertEquals(2, sentUpdates.size());
+        Assertions.assertEquals(Arrays.asList(1L, 2L), getPageNumbers(sentUpdates.get(1).get(0)));
+    }
+    
+    @Test
+    public void testSubmitAllSentTogether() {
+        QueryMetricAggregator aggregator = createAggregator();
+        
+        BaseQueryMetric first = createMetric(BaseQueryMetric.Lifecycle.DEFINED);
+        BaseQueryMetric second = createMetric(BaseQueryMetric.Lifecycle.DEFINED);
+        second.setQueryId("query2");
+        aggregator.submitAll(null, Arrays.asList(first, second));
+        
+        Assertions.assertEquals(1, sentUpdates.size());
+        Assertions.assertEquals(2, sentUpdates.get(0).size());
+    }
+    
+    @Test
+    public void testDisabledSendsEverything() {
+        aggregationProperties.setEnabled(false);
+        QueryMetricAggregator aggregator = createAggregator();
+        
+        BaseQueryMetric metric = createMetric(BaseQueryMetric.Lifecycle.DEFINED, 1);
+        aggregator.submit(null, metric);
+        addPage(metric, 2);
+        aggregator.submit(null, metric);
+        
+        Assertions.assertEquals(2, sentUpdates.size());
+        Assertions.assertEquals(Arrays.asList(1L, 2L), getPageNumbers(sentUpdates.get(1).get(0)));
+    }
+    
+    private QueryMetricAggregator createAggregator() {
+        return new QueryMetricAggregator(aggregationProperties, null) {
+            @Override
+            protected void send(DatawaveUserDetails user, List<BaseQueryMetric> metrics) {
+                if (failSends.get()) {
+                    throw new IllegalStateException("Unable to send query metrics");
+                }
+                sentUpdates.add(metrics);
+            }
+        };
+    }
+    
+    private BaseQueryMetric createMetric(BaseQueryMetric.Lifecycle lifecycle, long... pageNumbers) {
+        BaseQueryMetric metric = new QueryMetric();
+        metric.setQueryId(QUERY_ID);
+        metric.setLifecycle(lifecycle);
+        for (long pageNumber : pageNumbers) {
+            addPage(metric, pageNumber);
+        }
+        return metric;
+    }
+    
+    private void addPage(BaseQueryMetric metric, long pageNumber) {
+        long now = System.currentTimeMillis();
+        metric.addPageTime(10, 5, now, now);
+        metric.getPageTimes().get(metric.getPageTimes().size() - 1).setPageNumber(pageNumber);
+    }
+    
+    private List<Long> getPageNumbers(BaseQueryMetric metric) {
+        List<Long> pageNumbers = new ArrayList<>();
+        for (BaseQueryMetric.PageMetric pageTime : metric.getPageTimes()) {
+            long pageNumber = pageTime.getPageNumber();
+            pageNumbers.add(pageNumber);
+        }
+        return pageNumbers;
+    }
+}
@@ -0,0 +1,61 @@
+package datawave.microservice.query.plan;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.query.Query;
+import datawave.microservice.query.QueryImpl;
+import datawave.microservice.query.plan.config.QueryPlanCacheProperties;
+import datawave.microservice.query.storage.QueryStatus;
+
+public class QueryPlanCacheTest {
+    private static final String QUERY_POOL = "pool1";
+    private static final Set<Authorizations> AUTHS = Collections.singleton(new Authorizations("ALL"));
+    
+    private QueryPlanCache queryPlanCache;
+    
+    @BeforeEach
+    public void setup() {
+        queryPlanCache = new QueryPlanCache(new QueryPlanCacheProperties());
+    }
+    
+    @Test
+    public void testWhitespaceIsNormalized() {
+        Assertions.assertEquals(createKey(QUERY_POOL, "FIELD:value AND OTHER:value"), createKey(QUERY_POOL, "  FIELD:value   AND\tOTHER:value "));
+    }
+    
+    @Test
+    public void testQuotedWhitespaceIsKept() {
+        Assertions.assertNotEquals(createKey(QUERY_POOL, "FIELD == 'a b'"), createKey(QUERY_POOL, "FIELD == 'a  b'"));
+    }
+    
+    @Test
+    public void testEscapedWhitespaceIsKept() {
+        // the escaped space is part of the term, so it can't be collapsed with the unescaped space next to it
+        Assertions.assertNotEquals(createKey(QUERY_POOL, "FIELD:a\\  b"), createKey(QUERY_POOL, "FIELD:a\\ b"));
+        Assertions.assertNotEquals(createKey(QUERY_POOL, "FIELD:a\\ "), createKey(QUERY_POOL, "FIELD:a"));
+        Assertions.assertEquals(createKey(QUERY_POOL, "FIELD:a\\  b"), createKey(QUERY_POOL, "FIELD:a\\     b"));
+    }
+    
+    @Test
+    public void testPoolIsPartOfTheKey() {
+        List<Object> key = createKey(QUERY_POOL, "FIELD:value");
+        queryPlanCache.put(key, "some plan");
+        
+        Assertions.assertEquals("some plan", queryPlanCache.get(createKey(QUERY_POOL, "FIELD:value")));
+        Assertions.assertNull(queryPlanCache.get(createKey("pool2", "FIELD:value")));
+    }
+    
+    private List<Object> createKey(String queryPool, String queryString) {
+        Query query = new QueryImpl();
+        query.setQueryLogicName("EventQuery");
+        query.setQuery(queryString);
+        return queryPlanCache.createKey(QueryStatus.QUERY_STATE.PLAN, queryPool, query, AUTHS, false, false);
+    }
+}
@@ -0,0 +1,293 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import datawave.microservice.query.config.ConcurrencyLimitedThreadPoolTaskExecutor;
+import datawave.microservice.query.runner.config.NextCallSchedulerProperties;
+
+public class FairNextCallSchedulerTest {
+    private static final int NUM_THREADS = 4;
+    private static final int NUM_HEAVY_CALLS = 100;
+    private static final int NUM_LIGHT_USERS = 4;
+    private static final int NUM_LIGHT_CALLS_PER_USER = 5;
+    private static final long CALL_TIME_MILLIS = 20;
+    
+    private ThreadPoolTaskExecutor nextCallExecutor;
+    private NextCallSchedulerProperties schedulerProperties;
+    
+    @BeforeEach
+    public void setup() {
+        nextCallExecutor = new ThreadPoolTaskExecutor();
+        nextCallExecutor.setCorePoolSize(NUM_THREADS);
+        nextCallExecutor.setMaxPoolSize(NUM_THREADS);
+        nextCallExecutor.setThreadNamePrefix("nextCall-");
+        nextCallExecutor.initialize();
+        
+        schedulerProperties = new NextCallSchedulerProperties();
+    }
+    
+    @AfterEach
+    public void teardown() {
+        nextCallExecutor.shutdown();
+    }
+    
+    @Test
+    public void testLightUserLatencyWithHeavyUser() throws Exception {
+        schedulerProperties.setEnabled(false);
+        Latencies fifoLatencies = runMixedLoad(new FairNextCallScheduler(schedulerProperties, nextCallExecutor));
+        
+        schedulerProperties.setEnabled(true);
+        Latencies fairLatencies = runMixedLoad(new FairNextCallScheduler(schedulerProperties, nextCallExecutor));
+        
+        // with a single fifo queue, the light users wait for all of the heavy user's calls to finish
+        Assertions.assertTrue(fifoLatencies.lightPercentile(50) > fifoLatencies.heavyPercentile(50),
+                        "Expected light users to queue behind the heavy user without fair scheduling: " + fifoLatencies);
+        
+        // with fair scheduling, the light users take turns with the heavy user, so they finish well before most of the heavy user's calls
+        Assertions.assertTrue(fairLatencies.lightPercentile(99) < fairLatencies.heavyPercentile(50),
+                        "Expected light users to finish before the heavy user with fair scheduling: " + fairLatencies);
+        Assertions.assertTrue(fairLatencies.lightPercentile(99) < fifoLatencies.lightPercentile(50),
+                        "Expected fair scheduling to improve light user latency: fair " + fairLatencies + ", fifo " + fifoLatencies);
+    }
+    
+    @Test
+    public void testLatencyWithMaxPoolSize() throws Exception {
+        // threads beyond the core pool size would only be started once the queue is full
+        ConcurrencyLimitedThreadPoolTaskExecutor executor = new ConcurrencyLimitedThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(NUM_THREADS);
+        executor.setThreadNamePrefix("nextCall-");
+        executor.initialize();
+        try {
+            // running no more than the core pool size at once
+            schedulerProperties.setMaxRunningCalls(1);
+            Latencies coreLatencies = runMixedLoad(new FairNextCallScheduler(schedulerProperties, executor));
+            
+            // running up to the max pool size at once, which is the default
+            schedulerProperties.setMaxRunningCalls(0);
+            FairNextCallScheduler scheduler = new FairNextCallScheduler(schedulerProperties, executor);
+            Assertions.assertEquals(NUM_THREADS, scheduler.getMaxRunningCalls());
+            Latencies maxLatencies = runMixedLoad(scheduler);
+            
+            // every user gets their pages back sooner, light and heavy alike
+            Assertions.assertTrue(maxLatencies.lightPercentile(99) < coreLatencies.lightPercentile(50),
+                            "Expected the max pool size to improve light user latency: max " + maxLatencies + ", core " + coreLatencies);
+            Assertions.assertTrue(maxLatencies.heavyPercentile(99) < coreLatencies.heavyPercentile(50),
+                            "Expected the max pool size to improve heavy user latency: max " + maxLatencies + ", core " + coreLatencies);
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void testWeightedRoundRobin() throws Exception {
+        schedulerProperties.setMaxRunningCalls(1);
+        schedulerProperties.getUserWeights().put("userA", 3);
+        FairNextCallScheduler scheduler = new FairNextCallScheduler(schedulerProperties, nextCallExecutor);
+        
+        // hold the only running slot until all of the calls are queued
+        CountDownLatch latch = new CountDownLatch(1);
+        Future<Boolean> blocker = scheduler.submit("blocker", "pool1", () -> latch.await(30, TimeUnit.SECONDS));
+        
+        List<String> startOrder = Collections.synchronizedList(new ArrayList<>());
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(scheduler.submit("userA", "pool1", () -> {
+                startOrder.add("A");
+                return "A";
+            }));
+            futures.add(scheduler.submit("userB", "pool1", () -> {
+                startOrder.add("B");
+                return "B";
+            }));
+        }
+        Assertions.assertEquals(12, scheduler.getNumQueued());
+        
+        latch.countDown();
+        Assertions.assertTrue(blocker.get(30, TimeUnit.SECONDS));
+        for (Future<String> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        
+        Assertions.assertEquals("AAABAAABBBBB", String.join("", startOrder));
+        Assertions.assertEquals(0, scheduler.getNumQueued());
+    }
+    
+    @Test
+    public void testQueuedCallExpires() throws Exception {
+        schedulerProperties.setMaxRunningCalls(1);
+        schedulerProperties.setMaxQueuedCalls(1);
+        schedulerProperties.setMaxQueueTime(50);
+        schedulerProperties.setMaxQueueTimeUnit(TimeUnit.MILLISECONDS);
+        FairNextCallScheduler scheduler = new FairNextCallScheduler(schedulerProperties, nextCallExecutor);
+        
+        CountDownLatch latch = new CountDownLatch(1);
+        Future<Boolean> blocker = scheduler.submit("blocker", "pool1", () -> latch.await(30, TimeUnit.SECONDS));
+        Future<String> queued = scheduler.submit("user", "pool1", () -> "started");
+        
+        // the queue is full, so this call should be rejected right away
+        Assertions.assertThrows(TaskRejectedException.class, () -> scheduler.submit("user", "pool1", () -> "started"));
+        
+        TimeUnit.MILLISECONDS.sleep(100);
+        scheduler.expireQueuedCalls();
+        
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> queued.get(30, TimeUnit.SECONDS));
+        Assertions.assertTrue(e.getCause() instanceof TaskRejectedException);
+        Assertions.assertEquals(0, scheduler.getNumQueued());
+        
+        latch.countDown();
+        Assertions.assertTrue(blocker.get(30, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testQueuedCallExpiresAtCallerDeadline() throws Exception {
+        schedulerProperties.setMaxRunningCalls(1);
+        FairNextCallScheduler scheduler = new FairNextCallScheduler(schedulerProperties, nextCallExecutor);
+        
+        CountDownLatch latch = new CountDownLatch(1);
+        Future<Boolean> blocker = scheduler.submit("blocker", "pool1", () -> latch.await(30, TimeUnit.SECONDS));
+        
+        // the caller's deadline comes well before the max queue time
+        Future<String> queued = scheduler.submit("user", "pool1", () -> "started", System.currentTimeMillis() + 50);
+        
+        TimeUnit.MILLISECONDS.sleep(100);
+        scheduler.expireQueuedCalls();
+        
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> queued.get(30, TimeUnit.SECONDS));
+        Assertions.assertTrue(e.getCause() instanceof TaskRejectedException);
+        Assertions.assertEquals(0, scheduler.getNumQueued());
+        
+        latch.countDown();
+        Assertions.assertTrue(blocker.get(30, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testQueuedCallDroppedWhenCallerGivesUp() throws Exception {
+        schedulerProperties.setMaxRunningCalls(1);
+        FairNextCallScheduler scheduler = new FairNextCallScheduler(schedulerProperties, nextCallExecutor);
+        
+        CountDownLatch latch = new CountDownLatch(1);
+        Future<Boolean> blocker = scheduler.submit("blocker", "pool1", () -> latch.await(30, TimeUnit.SECONDS));
+        
+        List<String> started = Collections.synchronizedList(new ArrayList<>());
+        Future<String> queued = scheduler.submit("user", "pool1", () -> {
+            started.add("user");
+            return "started";
+        });
+        Assertions.assertEquals(1, scheduler.getNumQueued());
+        
+        // the queued call is dropped right away, while the running call is left alone
+        Assertions.assertTrue(scheduler.cancelIfQueued(queued));
+        Assertions.assertTrue(queued.isCancelled());
+        Assertions.assertEquals(0, scheduler.getNumQueued());
+        Assertions.assertFalse(scheduler.cancelIfQueued(blocker));
+        
+        latch.countDown();
+        Assertions.assertTrue(blocker.get(30, TimeUnit.SECONDS));
+        Assertions.assertTrue(started.isEmpty());
+    }
+    
+    @Test
+    public void testHandedOffCallIsNotInterrupted() throws Exception {
+        schedulerProperties.setMaxRunningCalls(1);
+        FairNextCallScheduler scheduler = new FairNextCallScheduler(schedulerProperties, nextCallExecutor);
+        
+        // the first call leaves its thread interrupted, and the next call is handed the same thread as soon as the first one finishes
+        CountDownLatch latch = new CountDownLatch(1);
+        Future<Boolean> first = scheduler.submit("user", "pool1", () -> {
+            latch.await(30, TimeUnit.SECONDS);
+            Thread.currentThread().interrupt();
+            return true;
+        });
+        Future<Boolean> second = scheduler.submit("user", "pool1", () -> Thread.currentThread().isInterrupted());
+        Assertions.assertEquals(1, scheduler.getNumQueued());
+        
+        latch.countDown();
+        Assertions.assertTrue(first.get(30, TimeUnit.SECONDS));
+        Assertions.assertFalse(second.get(30, TimeUnit.SECONDS));
+    }
+    
+    private Latencies runMixedLoad(FairNextCallScheduler scheduler) throws Exception {
+        List<Future<Long>> heavyFutures = new ArrayList<>();
+        List<Future<Long>> lightFutures = new ArrayList<>();
+        
+        // the heavy user pages through many queries at once, and gets their calls in first
+        for (int i = 0; i < NUM_HEAVY_CALLS; i++) {
+            heavyFutures.add(scheduler.submit("heavyUser", "pool1", new LatencyCall(System.nanoTime())));
+        }
+        for (int call = 0; call < NUM_LIGHT_CALLS_PER_USER; call++) {
+            for (int user = 0; user < NUM_LIGHT_USERS; user++) {
+                lightFutures.add(scheduler.submit("lightUser" + user, "pool1", new LatencyCall(System.nanoTime())));
+            }
+        }
+        
+        return new Latencies(getLatencies(heavyFutures), getLatencies(lightFutures));
+    }
+    
+    private List<Long> getLatencies(List<Future<Long>> futures) throws Exception {
+        List<Long> latencies = new ArrayList<>();
+        for (Future<Long> future : futures) {
+            latencies.add(future.get(60, TimeUnit.SECONDS));
+        }
+        Collections.sort(latencies);
+        return latencies;
+    }
+    
+    private static long percentile(List<Long> sortedLatencies, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.size()) - 1;
+        return sortedLatencies.get(Math.max(0, index));
+    }
+    
+    // a next call which returns its latency from submission to completion
+    private static class LatencyCall implements Callable<Long> {
+        private final long submittedNanos;
+        
+        private LatencyCall(long submittedNanos) {
+            this.submittedNanos = submittedNanos;
+        }
+        
+        @Override
+        public Long call() throws Exception {
+            TimeUnit.MILLISECONDS.sleep(CALL_TIME_MILLIS);
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedNanos);
+        }
+    }
+    
+    private static class Latencies {
+        private final List<Long> heavyLatencies;
+        private final List<Long> lightLatencies;
+        
+        private Latencies(List<Long> heavyLatencies, List<Long> lightLatencies) {
+            this.heavyLatencies = heavyLatencies;
+            this.lightLatencies = lightLatencies;
+        }
+        
+        private long heavyPercentile(int percentile) {
+            return percentile(heavyLatencies, percentile);
+        }
+        
+        private long lightPercentile(int percentile) {
+            return percentile(lightLatencies, percentile);
+        }
+        
+        @Override
+        public String toString() {
+            return "heavy p50=" + heavyPercentile(50) + "ms p99=" + heavyPercentile(99) + "ms, light p50=" + lightPercentile(50) + "ms p99="
+                            + lightPercentile(99) + "ms";
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package datawave.microservice.query.runner;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.EntryEventType;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+
+import datawave.core.query.configuration.GenericQueryConfiguration;
+import datawave.core.query.logic.QueryLogic;
+import datawave.core.query.logic.ResultPostprocessor;
+import datawave.microservice.query.QueryImpl;
+import datawave.microservice.query.config.NextCallProperties;
+import datawave.microservice.query.config.QueryExpirationProperties;
+import datawave.microservice.query.messaging.QueryResultsListener;
+import datawave.microservice.query.messaging.QueryResultsManager;
+import datawave.microservice.query.messaging.QueryResultsPublisher;
+import datawave.microservice.query.messaging.Result;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.microservice.query.storage.QueryStatus;
+import datawave.microservice.query.storage.QueryStorageCache;
+
+public class NextCallTest {
+    private static final String QUERY_ID = "query1";
+    private static final int PAGE_SIZE = 10;
+    
+    private NextCallRunnerProperties runnerProperties;
+    private QueryStatus queryStatus;
+    private Queue<Result> resultsQueue;
+    private ResultPostprocessor resultPostprocessor;
+    private long pageByteTrigger;
+    private List<String> acknowledged;
+    private List<Object> requeued;
+    private int numQueryStatusReads;
+    private QueryStatusChangeNotifier statusChangeNotifier;
+    
+    @BeforeEach
+    public void setup() {
+        runnerProperties = new NextCallRunnerProperties();
+        
+        QueryImpl query = new QueryImpl();
+        query.setPagesize(PAGE_SIZE);
+        queryStatus = new QueryStatus();
+        queryStatus.setQuery(query);
+        queryStatus.setConfig(new GenericQueryConfiguration());
+        
+        resultsQueue = new ArrayDeque<>();
+        resultPostprocessor = new CountingPostprocessor();
+        acknowledged = new ArrayList<>();
+        requeued = new ArrayList<>();
+        statusChangeNotifier = new QueryStatusChangeNotifier();
+    }
+    
+    @Test
+    public void testPerResultPostprocessing() throws Exception {
+        runnerProperties.setReceiveBatchSize(1);
+        CountingPostprocessor postprocessor = new CountingPostprocessor();
+        resultPostprocessor = postprocessor;
+        publishResults(PAGE_SIZE);
+        
+        Assertions.assertEquals(PAGE_SIZE, createNextCall().call().getResults().size());
+        
+        // the whole page is postprocessed every time a result is added
+        Assertions.assertEquals(PAGE_SIZE, postprocessor.numInvocations);
+    }
+    
+    @Test
+    public void testPageClosePostprocessing() throws Exception {
+        runnerProperties.setReceiveBatchSize(1);
+        runnerProperties.setPostprocessingMode(NextCallRunnerProperties.PostprocessingMode.PAGE_CLOSE);
+        CountingPostprocessor postprocessor = new CountingPostprocessor();
+        resultPostprocessor = postprocessor;
+        publishResults(PAGE_SIZE);
+        
+        Assertions.assertEquals(PAGE_SIZE, createNextCall().call().getResults().size());
+        Assertions.assertEquals(1, postprocessor.numInvocations);
+        Assertions.assertEquals(PAGE_SIZE, postprocessor.lastPageSize);
+    }
+    
+    @Test
+    public void testKnownSafePostprocessorRunsAtPageClose() throws Exception {
+        runnerProperties.setReceiveBatchSize(1);
+        runnerProperties.getPageClosePostprocessors().add(CountingPostprocessor.class.getName());
+        CountingPostprocessor postprocessor = new CountingPostprocessor();
+        resultPostprocessor = postprocessor;
+        publishResults(PAGE_SIZE);
+        
+        // the default mode is per result, but this postprocessor is known to only need the complete page
+        Assertions.assertEquals(NextCallRunnerProperties.PostprocessingMode.PER_RESULT, runnerProperties.getPostprocessingMode());
+        Assertions.assertEquals(PAGE_SIZE, createNextCall().call().getResults().size());
+        Assertions.assertEquals(1, postprocessor.numInvocations);
+    }
+    
+    @Test
+    public void testPageFullPostprocessing() throws Exception {
+        runnerProperties.setReceiveBatchSize(1);
+        runnerProperties.getPageFullPostprocessors().add(ReducingPostprocessor.class.getName());
+        ReducingPostprocessor postprocessor = new ReducingPostprocessor();
+        resultPostprocessor = postprocessor;
+        publishResults(3 * PAGE_SIZE);
+        publishEndOfResults();
+        
+        // the reduced page keeps making room, so every result ends up on the one page
+        Assertions.assertEquals(Collections.singletonList((long) (3 * PAGE_SIZE)), createNextCall().call().getResults());
+        
+        // the page filled up after 10, 19 and 28 results, and was reduced once more when it closed, rather than once per result
+        Assertions.assertEquals(4, postprocessor.numInvocations);
+    }
+    
+    @Test
+    public void testEndOfResults() throws Exception {
+        runnerProperties.setReceiveBatchSize(PAGE_SIZE);
+        publishResults(3);
+        publishEndOfResults();
+        publishResults(2);
+        
+        List<Object> results = createNextCall().call().getResults();
+        
+        // the page ends at the null result, and nothing after it is consumed
+        Assertions.assertEquals(Arrays.asList("result0", "result1", "result2"), results);
+        Assertions.assertEquals(Arrays.asList("0", "1", "2", "end"), acknowledged);
+        Assertions.assertEquals(2, resultsQueue.size());
+        Assertions.assertTrue(requeued.isEmpty());
+    }
+    
+    @Test
+    public void testBatchLimitedByPageByteTrigger() throws Exception {
+        runnerProperties.setReceiveBatchSize(PAGE_SIZE);
+        pageByteTrigger = 350L;
+        publishSizedResults(100L, 100L, 100L, 100L, 100L, 100L, 100L, 100L, 100L, 100L);
+        
+        // the batch stops at the result which reaches the page byte trigger
+        Assertions.assertEquals(4, createNextCall().call().getResults().size());
+        Assertions.assertEquals(4, acknowledged.size());
+        Assertions.assertEquals(6, resultsQueue.size());
+        Assertions.assertTrue(requeued.isEmpty());
+    }
+    
+    @Test
+    public void testNothingReceivedPastPageByteTrigger() throws Exception {
+        runnerProperties.setReceiveBatchSize(PAGE_SIZE);
+        pageByteTrigger = 350L;
+        publishSizedResults(10L, 100L, 100L, 100L, 100L, 100L, 100L, 100L, 100L, 100L);
+        
+        // a small first result doesn't let the batch run past the page byte trigger, so nothing has to go back on the queue
+        Assertions.assertEquals(Arrays.asList(10L, 100L, 100L, 100L, 100L), createNextCall().call().getResults());
+        Assertions.assertEquals(5, acknowledged.size());
+        Assertions.assertEquals(5, resultsQueue.size());
+        Assertions.assertTrue(requeued.isEmpty());
+    }
+    
+    @Test
+    public void testStatusListenersKeptUntilQueryReleased() {
+        List<Object[]> queryStatusListeners = new ArrayList<>();
+        List<Object[]> taskStatesListeners = new ArrayList<>();
+        List<Object> removedListeners = new ArrayList<>();
+        statusChangeNotifier.listen(stubMap("QueryStatusCache", queryStatusListeners, removedListeners),
+                        stubMap("TaskStatesCache", taskStatesListeners, removedListeners));
+        Assertions.assertTrue(queryStatusListeners.isEmpty());
+        Assertions.assertTrue(taskStatesListeners.isEmpty());
+        
+        NextCall nextCall = createNextCall();
+        NextCall otherNextCall = createNextCall();
+        statusChangeNotifier.register(QUERY_ID, nextCall);
+        statusChangeNotifier.register(QUERY_ID, otherNextCall);
+        
+        // a single listener per map for the waiting query, scoped to its key, with the value
+        Assertions.assertEquals(1, queryStatusListeners.size());
+        Assertions.assertEquals(QueryCacheKeys.toCacheKey(QUERY_ID), queryStatusListeners.get(0)[1]);
+        Assertions.assertEquals(true, queryStatusListeners.get(0)[2]);
+        Assertions.assertEquals(1, taskStatesListeners.size());
+        Assertions.assertEquals(QueryCacheKeys.toCacheKey(QUERY_ID), taskStatesListeners.get(0)[1]);
+        Assertions.assertEquals(true, taskStatesListeners.get(0)[2]);
+        
+        statusChangeNotifier.unregister(QUERY_ID, nextCall);
+        statusChangeNotifier.unregister(QUERY_ID, otherNextCall);
+        Assertions.assertTrue(removedListeners.isEmpty());
+        
+        // the listeners are reused by the next call on the same query, rather than being added again
+        statusChangeNotifier.register(QUERY_ID, nextCall);
+        Assertions.assertEquals(1, queryStatusListeners.size());
+        Assertions.assertEquals(1, taskStatesListeners.size());
+        
+        // releasing the query keeps the listeners until the waiting next call is done
+        statusChangeNotifier.release(QUERY_ID);
+        Assertions.assertTrue(removedListeners.isEmpty());
+        
+        statusChangeNotifier.unregister(QUERY_ID, nextCall);
+        Assertions.assertEquals(2, removedListeners.size());
+    }
+    
+    @Test
+    public void testStatusListenersRemovedWithQuery() {
+        List<Object[]> queryStatusListeners = new ArrayList<>();
+        List<Object> removedListeners = new ArrayList<>();
+        statusChangeNotifier.listen(stubMap("QueryStatusCache", queryStatusListeners, removedListeners),
+                        stubMap("TaskStatesCache", new ArrayList<>(), removedListeners));
+        NextCall nextCall = createNextCall();
+        statusChangeNotifier.register(QUERY_ID, nextCall);
+        statusChangeNotifier.unregister(QUERY_ID, nextCall);
+        
+        // a query removed by another instance is never released here, so the listeners go when its entry does
+        fireEntryRemoved(queryStatusListeners.get(0));
+        Assertions.assertEquals(2, removedListeners.size());
+    }
+    
+    @Test
+    public void testNoWakeOnResultsGenerated() {
+        List<Object[]> queryStatusListeners = new ArrayList<>();
+        statusChangeNotifier.listen(stubMap("QueryStatusCache", queryStatusListeners, new ArrayList<>()),
+                        stubMap("TaskStatesCache", new ArrayList<>(), new ArrayList<>()));
+        NextCall nextCall = createNextCall();
+        statusChangeNotifier.register(QUERY_ID, nextCall);
+        Assertions.assertFalse(nextCall.isWoken());
+        int numReads = numQueryStatusReads;
+        
+        // a burst of counter updates neither wakes the next call, nor makes anyone read the query status
+        for (int i = 1; i <= PAGE_SIZE; i++) {
+            QueryStatus updatedQueryStatus = copyQueryStatus();
+            updatedQueryStatus.setNumResultsGenerated(i);
+            fireEntryUpdated(queryStatusListeners.get(0), updatedQueryStatus);
+        }
+        
+        Assertions.assertFalse(nextCall.isWoken());
+        Assertions.assertEquals(numReads, numQueryStatusReads);
+    }
+    
+    @Test
+    public void testWakeOnCreateStageChange() {
+        List<Object[]> queryStatusListeners = new ArrayList<>();
+        statusChangeNotifier.listen(stubMap("QueryStatusCache", queryStatusListeners, new ArrayList<>()),
+                        stubMap("TaskStatesCache", new ArrayList<>(), new ArrayList<>()));
+        NextCall nextCall = createNextCall();
+        statusChangeNotifier.register(QUERY_ID, nextCall);
+        int numReads = numQueryStatusReads;
+        
+        QueryStatus updatedQueryStatus = copyQueryStatus();
+        updatedQueryStatus.setCreateStage(QueryStatus.CREATE_STAGE.RESULTS);
+        fireEntryUpdated(queryStatusListeners.get(0), updatedQueryStatus);
+        
+        // the pushed query status is used, rather than reading it again
+        Assertions.assertTrue(nextCall.isWoken());
+        Assertions.assertEquals(numReads, numQueryStatusReads);
+    }
+    
+    @Test
+    public void testWakeOnTaskCompletion() {
+        List<Object[]> taskStatesListeners = new ArrayList<>();
+        statusChangeNotifier.listen(stubMap("QueryStatusCache", new ArrayList<>(), new ArrayList<>()),
+                        stubMap("TaskStatesCache", taskStatesListeners, new ArrayList<>()));
+        NextCall nextCall = createNextCall();
+        statusChangeNotifier.register(QUERY_ID, nextCall);
+        Assertions.assertFalse(nextCall.isWoken());
+        
+        fireEntryUpdated(taskStatesListeners.get(0), null);
+        
+        Assertions.assertTrue(nextCall.isWoken());
+    }
+    
+    @Test
+    public void testWakeOnClose() {
+        NextCall nextCall = createNextCall();
+        
+        QueryStatus closedQueryStatus = new QueryStatus();
+        closedQueryStatus.setQuery(queryStatus.getQuery());
+        closedQueryStatus.setQueryState(QueryStatus.QUERY_STATE.CLOSE);
+        nextCall.queryStatusChanged(closedQueryStatus);
+        
+        Assertions.assertTrue(nextCall.isWoken());
+    }
+    
+    private QueryStatus copyQueryStatus() {
+        QueryStatus copy = new QueryStatus();
+        copy.setQuery(queryStatus.getQuery());
+        copy.setConfig(queryStatus.getConfig());
+        copy.setQueryState(queryStatus.getQueryState());
+        copy.setCreateStage(queryStatus.getCreateStage());
+        return copy;
+    }
+    
+    private NextCall createNextCall() {
+        Map<String,Function<Object[],Object>> queryLogicAnswers = new HashMap<>();
+        queryLogicAnswers.put("getResultPostprocessor", args -> resultPostprocessor);
+        queryLogicAnswers.put("getResultLimit", args -> -1L);
+        queryLogicAnswers.put("getMaxResults", args -> -1L);
+        queryLogicAnswers.put("getPageByteTrigger", args -> pageByteTrigger);
+        
+        Map<String,Function<Object[],Object>> listenerAnswers = new HashMap<>();
+        listenerAnswers.put("receive", args -> resultsQueue.poll());
+        QueryResultsListener resultsListener = stub(QueryResultsListener.class, listenerAnswers);
+        
+        Map<String,Function<Object[],Object>> publisherAnswers = new HashMap<>();
+        publisherAnswers.put("publish", args -> requeued.add(((Result) args[0]).getPayload()));
+        QueryResultsPublisher resultsPublisher = stub(QueryResultsPublisher.class, publisherAnswers);
+        
+        Map<String,Function<Object[],Object>> resultsManagerAnswers = new HashMap<>();
+        resultsManagerAnswers.put("createListener", args -> resultsListener);
+        resultsManagerAnswers.put("createPublisher", args -> resultsPublisher);
+        resultsManagerAnswers.put("getNumResultsRemaining", args -> (long) resultsQueue.size());
+        
+        Map<String,Function<Object[],Object>> storageCacheAnswers = new HashMap<>();
+        storageCacheAnswers.put("getQueryStatus", args -> {
+            numQueryStatusReads++;
+            return queryStatus;
+        });
+        
+        // sizes results by their value
+        ResultSizeEstimator resultSizeEstimator = new ResultSizeEstimator(runnerProperties) {
+            @Override
+            public long estimateSize(Object result, long pageIndex) {
+                return (result instanceof Number) ? ((Number) result).longValue() : 0L;
+            }
+        };
+        
+        // @formatter:off
+        return new NextCall.Builder()
+                .setNextCallProperties(new NextCallProperties())
+                .setRunnerProperties(runnerProperties)
+                .setExpirationProperties(new QueryExpirationProperties())
+                .setResultsQueueManager(stub(QueryResultsManager.class, resultsManagerAnswers))
+                .setResultSizeEstimator(resultSizeEstimator)
+                .setStatusChangeNotifier(statusChangeNotifier)
+                .setQueryStorageCache(stub(QueryStorageCache.class, storageCacheAnswers))
+                .setQueryId(QUERY_ID)
+                .setQueryLogic(stub(QueryLogic.class, queryLogicAnswers))
+                .build();
+        // @formatter:on
+    }
+    
+    private void publishResults(int numResults) {
+        for (int i = 0; i < numResults; i++) {
+            publish(Integer.toString(i), "result" + i);
+        }
+    }
+    
+    private void publishSizedResults(Long... sizes) {
+        for (int i = 0; i < sizes.length; i++) {
+            publish(Integer.toString(i), sizes[i]);
+        }
+    }
+    
+    private void publishEndOfResults() {
+        publish("end", null);
+    }
+    
+    private void publish(String id, Object payload) {
+        Result result = new Result(id, payload);
+        result.setAcknowledgementCallback(status -> acknowledged.add(id));
+        resultsQueue.add(result);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static IMap<Object,Object> stubMap(String name, List<Object[]> addedListeners, List<Object> removedListeners) {
+        Map<String,Function<Object[],Object>> mapAnswers = new HashMap<>();
+        mapAnswers.put("getName", args -> name);
+        mapAnswers.put("addEntryListener", args -> {
+            addedListeners.add(args);
+            return UUID.randomUUID();
+        });
+        mapAnswers.put("removeEntryListener", args -> removedListeners.add(args[0]));
+        return stub(IMap.class, mapAnswers);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static void fireEntryUpdated(Object[] addedListener, Object value) {
+        EntryUpdatedListener<Object,Object> listener = (EntryUpdatedListener<Object,Object>) addedListener[0];
+        listener.entryUpdated(new EntryEvent<>("test", null, EntryEventType.UPDATED.getType(), addedListener[1], value));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static void fireEntryRemoved(Object[] addedListener) {
+        EntryRemovedListener<Object,Object> listener = (EntryRemovedListener<Object,Object>) addedListener[0];
+        listener.entryRemoved(new EntryEvent<>("test", null, EntryEventType.REMOVED.getType(), addedListener[1], null));
+    }
+    
+    // implements an interface by answering calls by method name, and returning the default value for the return type otherwise
+    private static <T> T stub(Class<T> type, Map<String,Function<Object[],Object>> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            Function<Object[],Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return coerce(answer.apply(args), method.getReturnType());
+            } else if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            } else if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (method.getName().equals("toString")) {
+                return type.getSimpleName();
+            }
+            return coerce(method.getReturnType() == boolean.class ? false : null, method.getReturnType());
+        }));
+    }
+    
+    private static Object coerce(Object value, Class<?> type) {
+        if (value == null && type.isPrimitive() && type != void.class) {
+            value = 0;
+        }
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            if (type == int.class || type == Integer.class) {
+                return number.intValue();
+            } else if (type == long.class || type == Long.class) {
+                return number.longValue();
+            } else if (type == double.class || type == Double.class) {
+                return number.doubleValue();
+            } else if (type == float.class || type == Float.class) {
+                return number.floatValue();
+            } else if (type == short.class || type == Short.class) {
+                return number.shortValue();
+            } else if (type == byte.class || type == Byte.class) {
+                return number.byteValue();
+            }
+        }
+        return value;
+    }
+    
+    // reduces the page to a single count of the results on it
+    public static class ReducingPostprocessor implements ResultPostprocessor {
+        private int numInvocations;
+        
+        @Override
+        public void apply(List<Object> results) {
+            numInvocations++;
+            long count = 0;
+            for (Object result : results) {
+                count += (result instanceof Long) ? (Long) result : 1L;
+            }
+            results.clear();
+            results.add(count);
+        }
+    }
+    
+    public static class CountingPostprocessor implements ResultPostprocessor {
+        private int numInvocations;
+        private int lastPageSize;
+        
+        @Override
+        public void apply(List<Object> results) {
+            numInvocations++;
+            lastPageSize = results.size();
+        }
+    }
+}
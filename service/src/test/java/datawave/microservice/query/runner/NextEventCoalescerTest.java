@@ -0,0 +1,93 @@
+package datawave.microservice.query.runner;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.query.runner.config.NextEventCoalescingProperties;
+
+public class NextEventCoalescerTest {
+    private static final String QUERY_ID = "query1";
+    private static final int PAGE_SIZE = 10;
+    
+    private NextEventCoalescingProperties coalescingProperties;
+    private NextEventCoalescer nextEventCoalescer;
+    
+    @BeforeEach
+    public void setup() {
+        coalescingProperties = new NextEventCoalescingProperties();
+        coalescingProperties.setMaxUnacknowledgedTime(1);
+        coalescingProperties.setMaxUnacknowledgedTimeUnit(TimeUnit.HOURS);
+        nextEventCoalescer = new NextEventCoalescer(coalescingProperties);
+    }
+    
+    @Test
+    public void testUnacknowledgedEventsSuppressed() {
+        Assertions.assertTrue(nextEventCoalescer.tryPublish(QUERY_ID, 0, 0, PAGE_SIZE));
+        Assertions.assertFalse(nextEventCoalescer.tryPublish(QUERY_ID, 0, 0, PAGE_SIZE));
+        Assertions.assertFalse(nextEventCoalescer.tryPublish(QUERY_ID, 0, 0, PAGE_SIZE));
+        
+        // other queries are unaffected
+        Assertions.assertTrue(nextEventCoalescer.tryPublish("query2", 0, 0, PAGE_SIZE));
+        
+        Assertions.assertEquals(2, getSuppressedEvents());
+    }
+    
+    @Test
+    public void testAcknowledgedByGeneratedResults() {
+        Assertions.assertTrue(nextEventCoalescer.tryPublish(QUERY_ID, 0, 0, PAGE_SIZE));
+        Assertions.assertTrue(nextEventCoalescer.tryPublish(QUERY_ID, 5, 0, PAGE_SIZE));
+        Assertions.assertFalse(nextEventCoalescer.tryPublish(QUERY_ID, 5, 0, PAGE_SIZE));
+    }
+    
+    @Test
+    public void testAcknowledgedByConsumedResults() {
+        Assertions.assertTrue(nextEventCoalescer.tryPublish(QUERY_ID, 5, 0, PAGE_SIZE));
+        Assertions.assertTrue(nextEventCoalescer.tryPublish(QUERY_ID, 5, 5, PAGE_SIZE));
+        Assertions.assertFalse(nextEventCoalescer.tryPublish(QUERY_ID, 5, 5, PAGE_SIZE));
+    }
+    
+    @Test
+    public void testAcknowledgedByPausedExecutor() {
+        // a page worth of results is waiting, so the executor has paused and needs another event once they are consumed
+        Assertions.assertTrue(nextEventCoalescer.tryPublish(QUERY_ID, PAGE_SIZE, 0, PAGE_SIZE));
+        Assertions.assertTrue(nextEventCoalescer.tryPublish(QUERY_ID, PAGE_SIZE, 0, PAGE_SIZE));
+        
+        // without a page size, the executor can't be known to have paused
+        Assertions.assertTrue(nextEventCoalescer.tryPublish("query2", PAGE_SIZE, 0, 0));
+        Assertions.assertFalse(nextEventCoalescer.tryPublish("query2", PAGE_SIZE, 0, 0));
+    }
+    
+    @Test
+    public void testWindowSuppressesAcknowledgedEvents() {
+        coalescingProperties.setWindow(1);
+        coalescingProperties.setWindowUnit(TimeUnit.HOURS);
+        
+        Assertions.assertTrue(nextEventCoalescer.tryPublish(QUERY_ID, 0, 0, PAGE_SIZE));
+        Assertions.assertFalse(nextEventCoalescer.tryPublish(QUERY_ID, 5, 5, PAGE_SIZE));
+        Assertions.assertEquals(1, getSuppressedEvents());
+    }
+    
+    @Test
+    public void testUnacknowledgedEventsPublishedAfterMaxUnacknowledgedTime() {
+        coalescingProperties.setMaxUnacknowledgedTime(0);
+        
+        Assertions.assertTrue(nextEventCoalescer.tryPublish(QUERY_ID, 0, 0, PAGE_SIZE));
+        Assertions.assertTrue(nextEventCoalescer.tryPublish(QUERY_ID, 0, 0, PAGE_SIZE));
+    }
+    
+    @Test
+    public void testDisabledPublishesEverything() {
+        coalescingProperties.setEnabled(false);
+        
+        Assertions.assertTrue(nextEventCoalescer.tryPublish(QUERY_ID, 0, 0, PAGE_SIZE));
+        Assertions.assertTrue(nextEventCoalescer.tryPublish(QUERY_ID, 0, 0, PAGE_SIZE));
+        Assertions.assertEquals(0, getSuppressedEvents());
+    }
+    
+    private long getSuppressedEvents() {
+        return nextEventCoalescer.getMetricRegistry().counter(NextEventCoalescer.SUPPRESSED_NEXT_EVENTS_METRIC).getCount();
+    }
+}
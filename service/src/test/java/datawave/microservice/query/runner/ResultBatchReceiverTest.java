@@ -0,0 +1,145 @@
+package datawave.microservice.query.runner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.query.messaging.Result;
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+
+public class ResultBatchReceiverTest {
+    private static final int PAGE_SIZE = 10;
+    
+    private NextCallRunnerProperties runnerProperties;
+    private AtomicInteger numAcks;
+    private AtomicInteger numReceives;
+    private Queue<Result> resultsQueue;
+    
+    @BeforeEach
+    public void setup() {
+        runnerProperties = new NextCallRunnerProperties();
+        numAcks = new AtomicInteger();
+        numReceives = new AtomicInteger();
+        resultsQueue = new ArrayDeque<>();
+    }
+    
+    @Test
+    public void testDefaultReceivesOneResultPerBatch() {
+        publishResults(PAGE_SIZE * 2);
+        
+        List<List<Result>> batches = receivePage(new ResultBatchReceiver(runnerProperties));
+        
+        // batching is off by default, so every result is received, and acknowledged, on its own
+        Assertions.assertEquals(PAGE_SIZE, batches.size());
+        Assertions.assertEquals(1, batches.get(0).size());
+        Assertions.assertEquals(PAGE_SIZE, numReceives.get());
+        Assertions.assertEquals(PAGE_SIZE, numAcks.get());
+        Assertions.assertEquals(PAGE_SIZE, resultsQueue.size());
+    }
+    
+    @Test
+    public void testBatchFillsPageInOneBatch() {
+        runnerProperties.setReceiveBatchSize(PAGE_SIZE);
+        publishResults(PAGE_SIZE * 2);
+        
+        List<List<Result>> batches = receivePage(new ResultBatchReceiver(runnerProperties));
+        
+        // the batch stops at the page size, but every result is still acknowledged
+        Assertions.assertEquals(1, batches.size());
+        Assertions.assertEquals(PAGE_SIZE, batches.get(0).size());
+        Assertions.assertEquals(PAGE_SIZE, numReceives.get());
+        Assertions.assertEquals(PAGE_SIZE, numAcks.get());
+        Assertions.assertEquals(PAGE_SIZE, resultsQueue.size());
+    }
+    
+    @Test
+    public void testCumulativeAcksOncePerBatch() {
+        runnerProperties.setAckMode(NextCallRunnerProperties.AckMode.CUMULATIVE);
+        runnerProperties.setReceiveBatchSize(PAGE_SIZE);
+        publishResults(PAGE_SIZE * 2);
+        
+        List<List<Result>> batches = receivePage(new ResultBatchReceiver(runnerProperties));
+        
+        Assertions.assertEquals(1, batches.size());
+        Assertions.assertEquals(1, numAcks.get());
+    }
+    
+    @Test
+    public void testCumulativeAcksPerPageWithSmallBatches() {
+        runnerProperties.setAckMode(NextCallRunnerProperties.AckMode.CUMULATIVE);
+        runnerProperties.setReceiveBatchSize(4);
+        publishResults(PAGE_SIZE);
+        
+        List<List<Result>> batches = receivePage(new ResultBatchReceiver(runnerProperties));
+        
+        // 4 + 4 + 2 results
+        Assertions.assertEquals(3, batches.size());
+        Assertions.assertEquals(2, batches.get(2).size());
+        Assertions.assertEquals(3, numAcks.get());
+    }
+    
+    @Test
+    public void testBatchStopsAtEndOfResults() {
+        publishResults(3);
+        resultsQueue.add(newResult("end", null));
+        publishResults(3);
+        
+        ResultBatchReceiver receiver = new ResultBatchReceiver(runnerProperties);
+        List<Result> batch = receiver.receiveBatch(this::receive, 0, TimeUnit.MILLISECONDS, PAGE_SIZE);
+        receiver.acknowledge(batch);
+        
+        Assertions.assertEquals(4, batch.size());
+        Assertions.assertNull(batch.get(3).getPayload());
+        Assertions.assertEquals(4, numAcks.get());
+        Assertions.assertEquals(3, resultsQueue.size());
+    }
+    
+    @Test
+    public void testEmptyBatch() {
+        ResultBatchReceiver receiver = new ResultBatchReceiver(runnerProperties);
+        List<Result> batch = receiver.receiveBatch(this::receive, 0, TimeUnit.MILLISECONDS, PAGE_SIZE);
+        receiver.acknowledge(batch);
+        
+        Assertions.assertTrue(batch.isEmpty());
+        Assertions.assertEquals(0, numAcks.get());
+    }
+    
+    // receives batches the way a next call does, until the page is full
+    private List<List<Result>> receivePage(ResultBatchReceiver receiver) {
+        List<List<Result>> batches = new ArrayList<>();
+        int pageSize = 0;
+        while (pageSize < PAGE_SIZE) {
+            int batchLimit = Math.min(runnerProperties.getReceiveBatchSize(), PAGE_SIZE - pageSize);
+            List<Result> batch = receiver.receiveBatch(this::receive, 0, TimeUnit.MILLISECONDS, batchLimit);
+            Assertions.assertFalse(batch.isEmpty(), "Ran out of results before the page was full");
+            receiver.acknowledge(batch);
+            batches.add(batch);
+            pageSize += batch.size();
+        }
+        return batches;
+    }
+    
+    private Result receive(long interval, TimeUnit timeUnit) {
+        numReceives.incrementAndGet();
+        return resultsQueue.poll();
+    }
+    
+    private void publishResults(int numResults) {
+        for (int i = 0; i < numResults; i++) {
+            resultsQueue.add(newResult(Integer.toString(resultsQueue.size()), "result" + resultsQueue.size()));
+        }
+    }
+    
+    private Result newResult(String id, Object payload) {
+        Result result = new Result(id, payload);
+        result.setAcknowledgementCallback(status -> numAcks.incrementAndGet());
+        return result;
+    }
+}
@@ -0,0 +1,96 @@
+package datawave.microservice.query.runner;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.microservice.querymetric.BaseQueryMetric;
+import datawave.microservice.querymetric.QueryMetric;
+
+public class ResultRateTrackerTest {
+    private static final String QUERY_ID = "query1";
+    
+    private NextCallRunnerProperties runnerProperties;
+    private ResultRateTracker resultRateTracker;
+    
+    @BeforeEach
+    public void setup() {
+        runnerProperties = new NextCallRunnerProperties();
+        runnerProperties.setResultRateSmoothingFactor(0.5);
+        resultRateTracker = new ResultRateTracker(runnerProperties);
+    }
+    
+    @Test
+    public void testResultRateCarriesOverToTheNextPage() {
+        // the first page sees a result every 10ms
+        ResultRateTracker.ResultRate firstPage = resultRateTracker.getResultRate(QUERY_ID);
+        Assertions.assertEquals(-1L, firstPage.predictTimeToReceive(5, 0));
+        firstPage.update(10, 100);
+        
+        // the next page starts out with the rate learned by the first page
+        ResultRateTracker.ResultRate secondPage = resultRateTracker.getResultRate(QUERY_ID);
+        Assertions.assertEquals(10.0, secondPage.getResultIntervalEwmaMillis(), 0.001);
+        Assertions.assertEquals(50L, secondPage.predictTimeToReceive(5, 0));
+        
+        // and keeps smoothing it rather than starting over
+        secondPage.update(10, 300);
+        Assertions.assertEquals(20.0, resultRateTracker.getResultRate(QUERY_ID).getResultIntervalEwmaMillis(), 0.001);
+    }
+    
+    @Test
+    public void testStalledQueryPrediction() {
+        ResultRateTracker.ResultRate resultRate = resultRateTracker.getResultRate(QUERY_ID);
+        resultRate.update(10, 100);
+        
+        // if we haven't seen a result for longer than the average interval, use the time since the last result
+        Assertions.assertEquals(5000L, resultRate.predictTimeToReceive(5, 1000));
+        Assertions.assertEquals(0L, resultRate.predictTimeToReceive(0, 1000));
+    }
+    
+    @Test
+    public void testInvalidate() {
+        resultRateTracker.getResultRate(QUERY_ID).update(10, 100);
+        resultRateTracker.getResultRate("query2").update(10, 100);
+        
+        resultRateTracker.invalidate(QUERY_ID);
+        
+        Assertions.assertEquals(1, resultRateTracker.getNumResultRates());
+        Assertions.assertTrue(resultRateTracker.getResultRate(QUERY_ID).getResultIntervalEwmaMillis() < 0);
+        Assertions.assertEquals(10.0, resultRateTracker.getResultRate("query2").getResultIntervalEwmaMillis(), 0.001);
+    }
+    
+    @Test
+    public void testEvictIdleResultRates() throws Exception {
+        runnerProperties.setResultRateIdleTimeout(50);
+        runnerProperties.setResultRateIdleTimeoutUnit(TimeUnit.MILLISECONDS);
+        
+        resultRateTracker.getResultRate(QUERY_ID).update(10, 100);
+        resultRateTracker.evictIdleResultRates();
+        Assertions.assertEquals(1, resultRateTracker.getNumResultRates());
+        
+        TimeUnit.MILLISECONDS.sleep(100);
+        resultRateTracker.evictIdleResultRates();
+        Assertions.assertEquals(0, resultRateTracker.getNumResultRates());
+    }
+    
+    @Test
+    public void testPredictionOnlyRecordedInAdaptiveMode() {
+        BaseQueryMetric queryMetric = new QueryMetric();
+        
+        runnerProperties.setShortCircuitMode(NextCallRunnerProperties.ShortCircuitMode.FIXED);
+        resultRateTracker.recordPrediction(queryMetric, 100L);
+        Assertions.assertTrue(queryMetric.getPredictions() == null || queryMetric.getPredictions().isEmpty());
+        
+        runnerProperties.setShortCircuitMode(NextCallRunnerProperties.ShortCircuitMode.ADAPTIVE);
+        resultRateTracker.recordPrediction(queryMetric, -1L);
+        Assertions.assertTrue(queryMetric.getPredictions() == null || queryMetric.getPredictions().isEmpty());
+        
+        resultRateTracker.recordPrediction(queryMetric, 100L);
+        resultRateTracker.recordPrediction(queryMetric, 200L);
+        Assertions.assertEquals(1, queryMetric.getPredictions().size());
+        Assertions.assertEquals(NextCall.PREDICTED_TIME_TO_FULL_PAGE, queryMetric.getPredictions().iterator().next().getName());
+    }
+}
@@ -0,0 +1,94 @@
+package datawave.microservice.query.runner;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datawave.microservice.query.runner.config.NextCallRunnerProperties;
+import datawave.webservice.query.data.ObjectSizeOf;
+
+public class ResultSizeEstimatorTest {
+    private static final int MIN_SAMPLES = 20;
+    private static final int RESAMPLE_INTERVAL = 50;
+    
+    private NextCallRunnerProperties runnerProperties;
+    
+    @BeforeEach
+    public void setup() {
+        runnerProperties = new NextCallRunnerProperties();
+        runnerProperties.setSizeEstimationStrategy(ResultSizeEstimator.Strategy.CLASS_SHAPE);
+        runnerProperties.setSizeEstimationMinSamples(MIN_SAMPLES);
+        runnerProperties.setSizeEstimationResampleInterval(RESAMPLE_INTERVAL);
+    }
+    
+    @Test
+    public void testClassShapeUsesAverageOnceKnown() {
+        ResultSizeEstimator estimator = new ResultSizeEstimator(runnerProperties);
+        
+        long smallSize = ObjectSizeOf.Sizer.getObjectSize(new Payload(1000));
+        for (int i = 0; i < MIN_SAMPLES; i++) {
+            Assertions.assertEquals(smallSize, estimator.estimateSize(new Payload(1000), i));
+        }
+        
+        // the average is used without measuring the result
+        Assertions.assertEquals(smallSize, estimator.estimateSize(new Payload(1050), MIN_SAMPLES));
+    }
+    
+    @Test
+    public void testClassShapeDetectsDrift() {
+        ResultSizeEstimator estimator = new ResultSizeEstimator(runnerProperties);
+        
+        for (int i = 0; i < MIN_SAMPLES; i++) {
+            estimator.estimateSize(new Payload(1000), i);
+        }
+        
+        // the results for this class get much bigger, which should be caught by the next re-measurement
+        long largeSize = ObjectSizeOf.Sizer.getObjectSize(new Payload(10000));
+        int numEstimates = 0;
+        while (estimator.estimateSize(new Payload(10000), numEstimates) != largeSize) {
+            numEstimates++;
+            Assertions.assertTrue(numEstimates <= RESAMPLE_INTERVAL, "Size drift was not detected after " + numEstimates + " estimates");
+        }
+        
+        // once the average has been rebuilt, the new size should be used
+        for (int i = 0; i < RESAMPLE_INTERVAL * 2; i++) {
+            Assertions.assertEquals(largeSize, estimator.estimateSize(new Payload(10000), i));
+        }
+    }
+    
+    @Test
+    public void testInconsistentClassIsAlwaysMeasured() {
+        ResultSizeEstimator estimator = new ResultSizeEstimator(runnerProperties);
+        
+        for (int i = 0; i < MIN_SAMPLES * 5; i++) {
+            Payload payload = new Payload((i % 2 == 0) ? 100 : 10000);
+            Assertions.assertEquals(ObjectSizeOf.Sizer.getObjectSize(payload), estimator.estimateSize(payload, i));
+        }
+    }
+    
+    @Test
+    public void testResultsReportingTheirOwnSize() {
+        for (ResultSizeEstimator.Strategy strategy : ResultSizeEstimator.Strategy.values()) {
+            runnerProperties.setSizeEstimationStrategy(strategy);
+            ResultSizeEstimator estimator = new ResultSizeEstimator(runnerProperties);
+            for (int i = 0; i < MIN_SAMPLES * 2; i++) {
+                Assertions.assertEquals(12345L, estimator.estimateSize(new SizedPayload(), i), "Unexpected size with the " + strategy + " strategy");
+            }
+        }
+    }
+    
+    private static class Payload {
+        private final byte[] bytes;
+        
+        private Payload(int size) {
+            this.bytes = new byte[size];
+        }
+    }
+    
+    private static class SizedPayload implements ObjectSizeOf {
+        @Override
+        public long sizeInBytes() {
+            return 12345L;
+        }
+    }
+}